@@ -6,6 +6,7 @@ import java.util.Set;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.edgetype.StreetEdge;
@@ -46,7 +47,12 @@ public class SPTWalker {
     for (Vertex v : allVertices) {
       State s0 = spt.getState(v);
       if (s0 == null || !s0.isFinal()) continue;
-      for (Edge e : s0.getVertex().getIncoming()) {
+      // The temporary and realtime edges of the request are only found through its context
+      RoutingContext rctx = s0.getRoutingContext();
+      Collection<Edge> incoming = rctx == null
+        ? v.getIncoming()
+        : rctx.temporaryEdges.getIncoming(v);
+      for (Edge e : incoming) {
         // Take only street
         if (e != null && visitor.accept(e)) {
           State s1 = spt.getState(e.getFromVertex());
@@ -0,0 +1,86 @@
+package org.opentripplanner.common.geometry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A block of off-heap memory holding compact street geometries, see {@link CompactLineString}.
+ * The geometries are only decoded when an itinerary or a tile is created, so keeping them outside
+ * the Java heap takes them out of the live set the garbage collector walks on every full cycle.
+ * <p>
+ * Each geometry is stored as its length followed by the bytes, and is referenced by the offset
+ * returned from {@link #add(byte[])}. Geometries are only appended, and reading is thread-safe.
+ * <p>
+ * The direct memory used is limited by the JVM option {@code -XX:MaxDirectMemorySize}, which by
+ * default is the same as the max heap size.
+ */
+public final class CompactGeometrySegment {
+
+  /** The default capacity of a new segment, 64 MB. */
+  public static final int DEFAULT_CAPACITY = 64 * 1024 * 1024;
+
+  private final ByteBuffer buffer;
+  private int size;
+
+  private CompactGeometrySegment(ByteBuffer buffer, int size) {
+    this.buffer = buffer;
+    this.size = size;
+  }
+
+  public static CompactGeometrySegment allocate(int capacity) {
+    return new CompactGeometrySegment(ByteBuffer.allocateDirect(capacity), 0);
+  }
+
+  /**
+   * Create a full segment from the given bytes, as written by {@link #copyTo(byte[])}. This is
+   * used when the graph is deserialized.
+   */
+  public static CompactGeometrySegment of(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(0, bytes);
+    return new CompactGeometrySegment(buffer, bytes.length);
+  }
+
+  /**
+   * Append the geometry to this segment.
+   *
+   * @return the offset of the geometry, or -1 if there is not room for it in this segment.
+   */
+  public synchronized int add(byte[] geometry) {
+    if (buffer.capacity() - size < Integer.BYTES + geometry.length) {
+      return -1;
+    }
+    int offset = size;
+    buffer.putInt(offset, geometry.length);
+    buffer.put(offset + Integer.BYTES, geometry);
+    size += Integer.BYTES + geometry.length;
+    return offset;
+  }
+
+  /**
+   * Unpack the geometry at the given offset directly from the segment, into the coordinate deltas
+   * used by {@link CompactLineString#uncompactLineStringFromDeltas}.
+   */
+  public int[] unpack(int offset) {
+    return DlugoszVarLenIntPacker.unpack(buffer, offset + Integer.BYTES, buffer.getInt(offset));
+  }
+
+  /** Copy the geometry at the given offset onto the heap. */
+  public byte[] get(int offset) {
+    byte[] geometry = new byte[buffer.getInt(offset)];
+    buffer.get(offset + Integer.BYTES, geometry);
+    return geometry;
+  }
+
+  /** The number of bytes used. */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Copy the used part of this segment into the given array, which must have room for
+   * {@link #size()} bytes.
+   */
+  public synchronized void copyTo(byte[] target) {
+    buffer.get(0, target, 0, size);
+  }
+}
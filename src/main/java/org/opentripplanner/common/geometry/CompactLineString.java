@@ -138,7 +138,29 @@ public final class CompactLineString {
     byte[] packedCoords,
     boolean reverse
   ) {
-    int[] coords = DlugoszVarLenIntPacker.unpack(packedCoords);
+    return uncompactLineStringFromDeltas(
+      xa,
+      ya,
+      xb,
+      yb,
+      DlugoszVarLenIntPacker.unpack(packedCoords),
+      reverse
+    );
+  }
+
+  /**
+   * Same as the other version, but with the var-len ints already unpacked, as the coordinate deltas
+   * of the intermediate points. This is used for geometries unpacked without copying them first,
+   * see {@link CompactGeometrySegment#unpack(int)}.
+   */
+  public static LineString uncompactLineStringFromDeltas(
+    double xa,
+    double ya,
+    double xb,
+    double yb,
+    int[] coords,
+    boolean reverse
+  ) {
     int size = coords == null ? 2 : (coords.length / 2) + 2;
     Coordinate[] c = new Coordinate[size];
     double x0 = reverse ? xb : xa;
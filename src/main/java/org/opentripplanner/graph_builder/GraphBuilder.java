@@ -10,6 +10,7 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import org.opentripplanner.datastore.CompositeDataSource;
@@ -19,10 +20,13 @@ import org.opentripplanner.ext.flex.FlexLocationsToStreetEdgesMapper;
 import org.opentripplanner.ext.transferanalyzer.DirectTransferAnalyzer;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
 import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
+import org.opentripplanner.graph_builder.module.EgressStopTableGenerator;
 import org.opentripplanner.graph_builder.module.GraphCoherencyCheckerModule;
 import org.opentripplanner.graph_builder.module.GtfsModule;
+import org.opentripplanner.graph_builder.module.OffHeapStreetGeometryModule;
 import org.opentripplanner.graph_builder.module.OsmBoardingLocationsModule;
 import org.opentripplanner.graph_builder.module.PruneNoThruIslands;
+import org.opentripplanner.graph_builder.module.StreetDataDeduplicatorModule;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.graph_builder.module.map.BusRouteStreetMatcher;
 import org.opentripplanner.graph_builder.module.ned.DegreeGridNEDTileSource;
@@ -76,6 +80,12 @@ public class GraphBuilder implements Runnable {
     boolean hasNetex = dataSources.has(NETEX);
     boolean hasTransitData = hasGtfs || hasNetex;
 
+    // Build the transit data on top of the cached street graph, see StreetGraphCache
+    if (config.streetGraphCache && hasOsm && hasTransitData && baseGraph == null) {
+      Graph streetGraph = new StreetGraphCache(config, dataSources).loadOrBuild();
+      return create(config, dataSources.select(EnumSet.of(GTFS, NETEX)), streetGraph, true, false);
+    }
+
     GraphBuilder graphBuilder = new GraphBuilder(baseGraph);
     graphBuilder.hasTransitData = hasTransitData;
 
@@ -178,7 +188,7 @@ public class GraphBuilder implements Runnable {
       graphBuilder.addModule(
         new ElevationModule(
           factory,
-          new File(dataSources.getCacheDirectory(), "cached_elevations.obj"),
+          new File(dataSources.getCacheDirectory(), "cached_elevations.bin"),
           config.readCachedElevations,
           config.writeCachedElevations,
           config.elevationUnitMultiplier,
@@ -203,6 +213,12 @@ public class GraphBuilder implements Runnable {
         )
       );
 
+      if (config.egressStopTableDurationSeconds > 0) {
+        graphBuilder.addModule(
+          new EgressStopTableGenerator(Duration.ofSeconds(config.egressStopTableDurationSeconds))
+        );
+      }
+
       // Analyze routing between stops to generate report
       if (OTPFeature.TransferAnalyzer.isOn()) {
         graphBuilder.addModule(
@@ -214,6 +230,10 @@ public class GraphBuilder implements Runnable {
     }
 
     if (loadStreetGraph || hasOsm) {
+      graphBuilder.addModule(new StreetDataDeduplicatorModule());
+      if (config.streetGeometriesOffHeap) {
+        graphBuilder.addModule(new OffHeapStreetGeometryModule());
+      }
       graphBuilder.addModule(new GraphCoherencyCheckerModule());
     }
 
@@ -65,6 +65,21 @@ public class GraphBuilderDataSources {
     validateCliMatchesInputData(cli);
   }
 
+  private GraphBuilderDataSources(GraphBuilderDataSources other, Set<FileType> types) {
+    this.store = other.store;
+    this.cacheDirectory = other.cacheDirectory;
+    this.outputGraph = other.outputGraph;
+    this.includeTypes.retainAll(types);
+    for (FileType type : FileType.values()) {
+      if (types.contains(type)) {
+        inputData.putAll(type, other.inputData.get(type));
+      } else {
+        skipData.putAll(type, other.inputData.get(type));
+      }
+      skipData.putAll(type, other.skipData.get(type));
+    }
+  }
+
   /**
    * Create a wrapper around the data-store and resolve which files to import and export. Validate
    * these files against the given command line arguments and the graph build parameters.
@@ -93,6 +108,14 @@ public class GraphBuilderDataSources {
     return inputData.get(type);
   }
 
+  /**
+   * Create a copy including only the input data of the given types. Used to build the street and
+   * transit parts of the graph separately.
+   */
+  GraphBuilderDataSources select(Set<FileType> types) {
+    return new GraphBuilderDataSources(this, types);
+  }
+
   CompositeDataSource getBuildReportDir() {
     return store.getBuildReportDir();
   }
@@ -0,0 +1,253 @@
+package org.opentripplanner.graph_builder;
+
+import static org.opentripplanner.datastore.FileType.DEM;
+import static org.opentripplanner.datastore.FileType.OSM;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.opentripplanner.datastore.DataSource;
+import org.opentripplanner.datastore.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.model.projectinfo.OtpProjectInfo;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SerializedGraphObject;
+import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.util.OtpAppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache the street graph between builds. The street graph is keyed by the name, size, last
+ * modified time and a content fingerprint of the OSM and elevation input files, the build config
+ * parameters used to build the streets and the graph serialization version. If the cached street
+ * graph matches, only the transit data is built on top of it, the same way as with the
+ * {@code --loadStreet} command line option.
+ * <p>
+ * Only the street graph of the latest build is kept in the cache directory.
+ */
+class StreetGraphCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetGraphCache.class);
+
+  private static final String FILENAME_PREFIX = "streetGraph-";
+  private static final String FILENAME_SUFFIX = ".obj";
+
+  /** The number of bytes read from the start and the end of each input file for the key. */
+  static final int FINGERPRINT_BYTES = 1024 * 1024;
+
+  /**
+   * Build config parameters which are not used when building the street graph. A change to any
+   * other parameter invalidates the cache, so a new parameter is never missed.
+   */
+  private static final Set<String> TRANSIT_PARAMETERS = Set.of(
+    "configVersion",
+    "dataImportReport",
+    "discardMinTransferTimes",
+    "egressStopTableDurationSeconds",
+    "embedRouterConfig",
+    "fares",
+    "graphCompression",
+    "islandWithStopsMaxSize",
+    "islandWithoutStopsMaxSize",
+    "matchBusRoutesToStreets",
+    "maxDataImportIssuesPerFile",
+    "maxInterlineDistance",
+    "maxStopToShapeSnapDistance",
+    "maxTransferDurationSeconds",
+    "netex",
+    "parentStopLinking",
+    "readCachedElevations",
+    "stationTransfers",
+    "storage",
+    "streetGraphCache",
+    "subwayAccessTime",
+    "transferRequests",
+    "transit",
+    "transitServiceEnd",
+    "transitServiceStart",
+    "writeCachedElevations"
+  );
+
+  private final BuildConfig config;
+  private final File directory;
+  private final List<DataSource> streetInput;
+  private final Supplier<Graph> streetGraphBuilder;
+
+  StreetGraphCache(BuildConfig config, GraphBuilderDataSources dataSources) {
+    this(
+      config,
+      new File(dataSources.getCacheDirectory(), "streetgraph"),
+      EnumSet
+        .of(OSM, DEM)
+        .stream()
+        .flatMap(type -> StreamSupport.stream(dataSources.get(type).spliterator(), false))
+        .collect(Collectors.toList()),
+      () -> {
+        GraphBuilder builder = GraphBuilder.create(
+          config,
+          dataSources.select(EnumSet.of(OSM, DEM)),
+          null,
+          false,
+          true
+        );
+        builder.run();
+        return builder.getGraph();
+      }
+    );
+  }
+
+  StreetGraphCache(
+    BuildConfig config,
+    File directory,
+    List<DataSource> streetInput,
+    Supplier<Graph> streetGraphBuilder
+  ) {
+    this.config = config;
+    this.directory = directory;
+    this.streetInput = streetInput;
+    this.streetGraphBuilder = streetGraphBuilder;
+  }
+
+  /**
+   * Load the cached street graph, or build it from the OSM and elevation data and cache it if the
+   * input has changed. A cached street graph which can not be loaded is replaced.
+   */
+  Graph loadOrBuild() {
+    File file = new File(directory, FILENAME_PREFIX + cacheKey() + FILENAME_SUFFIX);
+
+    if (file.exists()) {
+      LOG.info("Input data for the street graph is unchanged, loading the cached street graph.");
+      Graph graph = load(file);
+      if (graph != null) {
+        return graph;
+      }
+      LOG.warn("Unable to load the cached street graph, building the street graph.");
+    } else {
+      LOG.info("No cached street graph matches the input data, building the street graph.");
+    }
+
+    Graph graph = streetGraphBuilder.get();
+
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new OtpAppException("Unable to create street graph cache directory: %s", directory);
+    }
+    deleteCachedGraphs();
+    save(graph, file);
+    return graph;
+  }
+
+  /**
+   * The key of the street input data and config, as a hex string. The input files are identified
+   * by their name, size and last modified time, and a fingerprint of their content: the first
+   * megabyte, which holds the header of a PBF file, and the last megabyte. A file copied in place
+   * with the same size and time, like a restored backup, is then not mistaken for the cached one.
+   * Only two megabytes of each file are read, so the key is cheap even for large OSM files. The
+   * whole content is read if the data store does not know the size or last modified time of a
+   * file.
+   */
+  String cacheKey() {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(
+      OtpProjectInfo.projectInfo().getOtpSerializationVersionId(),
+      StandardCharsets.UTF_8
+    );
+    hasher.putString(streetConfigJson(), StandardCharsets.UTF_8);
+
+    for (DataSource source : streetInput) {
+      hasher.putString(source.name(), StandardCharsets.UTF_8);
+      long size = source.size();
+      boolean fingerprint = size >= 0 && source.lastModified() >= 0;
+      if (fingerprint) {
+        hasher.putLong(size);
+        hasher.putLong(source.lastModified());
+      }
+      try (
+        InputStream in = source.asInputStream();
+        OutputStream out = Funnels.asOutputStream(hasher)
+      ) {
+        if (fingerprint && size > 2 * FINGERPRINT_BYTES) {
+          ByteStreams.copy(ByteStreams.limit(in, FINGERPRINT_BYTES), out);
+          in.skipNBytes(size - 2 * FINGERPRINT_BYTES);
+        }
+        ByteStreams.copy(in, out);
+      } catch (IOException e) {
+        throw new OtpAppException("Unable to read %s: %s", source.path(), e.getMessage());
+      }
+    }
+    return hasher.hash().toString().substring(0, 16);
+  }
+
+  /** @return the graph, or {@code null} if the file can not be read or is corrupt. */
+  private static Graph load(File file) {
+    try {
+      return SerializedGraphObject.load(file);
+    } catch (OtpAppException e) {
+      LOG.warn("Unable to load the cached street graph {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Write the graph to a temporary file first, and move it in place when it is complete. An
+   * interrupted build does not leave a partial street graph behind which looks like a valid one.
+   */
+  private void save(Graph graph, File file) {
+    File tmp = new File(directory, file.getName() + ".tmp");
+    try {
+      new SerializedGraphObject(graph, config, RouterConfig.DEFAULT)
+        .save(new FileDataSource(tmp, FileType.GRAPH));
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      if (tmp.exists() && !tmp.delete()) {
+        LOG.warn("Unable to delete temporary street graph file: {}", tmp);
+      }
+      LOG.warn("Unable to cache the street graph: {}", e.getMessage());
+    }
+  }
+
+  private String streetConfigJson() {
+    String json = config.toJson();
+    if (json.isEmpty()) {
+      return json;
+    }
+    try {
+      ObjectNode node = (ObjectNode) new ObjectMapper().readTree(json);
+      node.remove(TRANSIT_PARAMETERS);
+      return node.toString();
+    } catch (JsonProcessingException e) {
+      throw new OtpAppException("Unable to parse build config: %s", e.getMessage());
+    }
+  }
+
+  /** Delete all cached street graphs, including temporary files left by an interrupted build. */
+  private void deleteCachedGraphs() {
+    File[] files = directory.listFiles((dir, name) -> name.startsWith(FILENAME_PREFIX));
+    if (files == null) {
+      return;
+    }
+    for (File it : files) {
+      if (!it.delete()) {
+        LOG.warn("Unable to delete old cached street graph: {}", it);
+      }
+    }
+  }
+}
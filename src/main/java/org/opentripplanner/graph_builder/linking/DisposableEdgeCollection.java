@@ -31,15 +31,25 @@ public class DisposableEdgeCollection {
 
   public void addEdge(Edge edge) {
     this.edges.add(edge);
+    if (scope == Scope.REALTIME) {
+      graph.getRealtimeStreetBuffer().addEdge(edge);
+    }
   }
 
   /**
    * Removes all the edges in this collection from the graph.
    */
   public void disposeEdges() {
+    if (scope == Scope.REQUEST) {
+      // Request edges are only referenced from temporary vertices, the graph is not modified
+      edges.clear();
+      return;
+    }
     if (scope == Scope.REALTIME) {
       for (Edge e : edges) {
+        graph.getRealtimeStreetBuffer().removeEdge(e);
         graph.getLinker().removeEdgeFromIndex(e, scope);
+        graph.streetGraphModifiedAt(e.getFromVertex().getCoordinate());
       }
     }
     Collection<Vertex> vertices = new ArrayList<>();
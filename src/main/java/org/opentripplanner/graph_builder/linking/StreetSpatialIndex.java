@@ -1,5 +1,8 @@
 package org.opentripplanner.graph_builder.linking;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
@@ -13,6 +16,11 @@ import org.opentripplanner.routing.graph.Edge;
  * the permanent index and inserts into the realtime index REQUEST: Looks at both the permanent and
  * realtime indexes and does not insert into any index
  * <p>
+ * The realtime index is written by the graph updater thread and read by the routing requests. The
+ * updaters write to a buffer, and a new realtime index is published when the realtime street
+ * changes are committed, see {@link #commitRealtime()}. A request never sees an edge before the
+ * vertices and edges it links to are committed.
+ * <p>
  * NOTES ON CONCURRENCY: It is possible that an A Star search would find an edge in the
  * realTimeIndex which is then removed before the actual routing starts. This could result in a
  * NullPointerException on the from/to vertex of the Edge being routed on. This happens seldom
@@ -33,7 +41,15 @@ class StreetSpatialIndex {
 
   private final HashGridSpatialIndex<Edge> permanentIndex = new HashGridSpatialIndex<>();
 
-  private final HashGridSpatialIndex<Edge> realTimeIndex = new HashGridSpatialIndex<>();
+  /** The realtime edges inserted by the updaters, only used from the graph updater thread. */
+  private Map<Edge, LineString> realTimeBuffer = new LinkedHashMap<>();
+
+  /** The realtime edges of the last commit, used to roll back the buffer. */
+  private Map<Edge, LineString> committedRealTimeEdges = Map.of();
+
+  private boolean realTimeDirty = false;
+
+  private volatile HashGridSpatialIndex<Edge> realTimeIndex = new HashGridSpatialIndex<>();
 
   void insert(LineString lineString, Object obj, Scope scope) {
     switch (scope) {
@@ -41,7 +57,8 @@ class StreetSpatialIndex {
         permanentIndex.insert(lineString, obj);
         break;
       case REALTIME:
-        realTimeIndex.insert(lineString, obj);
+        realTimeBuffer.put((Edge) obj, lineString);
+        realTimeDirty = true;
         break;
       default:
         throw new IllegalArgumentException();
@@ -54,7 +71,9 @@ class StreetSpatialIndex {
         permanentIndex.remove(envelope, item);
         return;
       case REALTIME:
-        realTimeIndex.remove(envelope, item);
+        if (realTimeBuffer.remove(item) != null) {
+          realTimeDirty = true;
+        }
         return;
       default:
         throw new IllegalArgumentException();
@@ -75,4 +94,25 @@ class StreetSpatialIndex {
         throw new IllegalArgumentException();
     }
   }
+
+  /** Publish the realtime edges inserted and removed since the last commit, if any. */
+  void commitRealtime() {
+    if (!realTimeDirty) {
+      return;
+    }
+    HashGridSpatialIndex<Edge> index = new HashGridSpatialIndex<>();
+    realTimeBuffer.forEach((edge, lineString) -> index.insert(lineString, edge));
+    committedRealTimeEdges = Collections.unmodifiableMap(new LinkedHashMap<>(realTimeBuffer));
+    realTimeIndex = index;
+    realTimeDirty = false;
+  }
+
+  /** Discard the realtime edges inserted and removed since the last commit. */
+  void rollbackRealtime() {
+    if (!realTimeDirty) {
+      return;
+    }
+    realTimeBuffer = new LinkedHashMap<>(committedRealTimeEdges);
+    realTimeDirty = false;
+  }
 }
@@ -1,11 +1,16 @@
 package org.opentripplanner.graph_builder.linking;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -55,6 +60,8 @@ public class VertexLinker {
   private static final double DUPLICATE_WAY_EPSILON_METERS = 0.001;
   private static final int INITIAL_SEARCH_RADIUS_METERS = 100;
   private static final int MAX_SEARCH_RADIUS_METERS = 1000;
+  /** The size of the tiles the vertices are grouped in when searching in parallel, about 1 km. */
+  private static final double TILE_SIZE_DEGREES = 0.01;
   private static final GeometryFactory GEOMETRY_FACTORY = GeometryUtils.getGeometryFactory();
   /**
    * Spatial index of StreetEdges in the graph.
@@ -84,6 +91,71 @@ public class VertexLinker {
     link(vertex, traverseModes, direction, Scope.PERMANENT, edgeFunction);
   }
 
+  /**
+   * Link several vertices permanently, with the same result as calling {@link
+   * #linkVertexPermanently} for each of them in the given order.
+   * <p>
+   * Finding the street edges near a vertex is most of the work of linking it, and only reads the
+   * graph. So this is first done in parallel for all the vertices, which are grouped in spatial
+   * tiles so each thread searches the same part of the index. Then the vertices are linked one by
+   * one in the given order, which splits the edges. If an edge found for a vertex has been split by
+   * an earlier vertex, the edges are searched for again.
+   *
+   * @param afterEachVertex called after each vertex is linked, to track the progress
+   */
+  public void linkVerticesPermanently(
+    List<? extends Vertex> vertices,
+    Function<Vertex, TraverseModeSet> traverseModes,
+    LinkingDirection direction,
+    BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction,
+    Runnable afterEachVertex
+  ) {
+    List<List<DistanceTo<StreetEdge>>> candidates = new ArrayList<>(
+      Collections.nCopies(vertices.size(), null)
+    );
+    // Each index is set by one thread, and the results are visible when the stream is done
+    IntStream
+      .range(0, vertices.size())
+      .boxed()
+      .sorted(Comparator.comparingLong(i -> tile(vertices.get(i))))
+      .collect(Collectors.toList())
+      .parallelStream()
+      .forEach(i -> {
+        Vertex vertex = vertices.get(i);
+        candidates.set(i, findCandidateEdges(vertex, traverseModes.apply(vertex), Scope.PERMANENT));
+      });
+
+    int nSearchedAgain = 0;
+    for (int i = 0; i < vertices.size(); ++i) {
+      Vertex vertex = vertices.get(i);
+      TraverseModeSet modes = traverseModes.apply(vertex);
+      List<DistanceTo<StreetEdge>> candidateEdges = candidates.get(i);
+      // Edges can only be added within the search radius by splitting an edge within it
+      if (!candidateEdges.stream().allMatch(ce -> isInGraph(ce.item))) {
+        candidateEdges = findCandidateEdges(vertex, modes, Scope.PERMANENT);
+        ++nSearchedAgain;
+      }
+      candidates.set(i, null);
+      Set<StreetVertex> streetVertices = linkToCandidateEdges(
+        vertex,
+        modes,
+        direction,
+        Scope.PERMANENT,
+        candidateEdges,
+        null
+      );
+      for (StreetVertex streetVertex : streetVertices) {
+        edgeFunction.apply(vertex, streetVertex);
+      }
+      afterEachVertex.run();
+    }
+    LOG.debug(
+      "Searched again for street edges near {} of {} vertices",
+      nSearchedAgain,
+      vertices.size()
+    );
+  }
+
   public DisposableEdgeCollection linkVertexForRealTime(
     Vertex vertex,
     TraverseModeSet traverseModes,
@@ -113,6 +185,19 @@ public class VertexLinker {
     removeEdgeFromIndex(edge, Scope.PERMANENT);
   }
 
+  /**
+   * Make the realtime edges indexed since the last commit visible to the requests, see {@link
+   * Graph#commitRealtimeStreetChanges()}.
+   */
+  public void commitRealtimeIndex() {
+    streetSpatialIndex.commitRealtime();
+  }
+
+  /** Discard the realtime edges indexed and removed since the last commit. */
+  public void rollbackRealtimeIndex() {
+    streetSpatialIndex.rollbackRealtime();
+  }
+
   // TODO Temporary code until we refactor WalkableAreaBuilder (#3152)
   public void setAddExtraEdgesToAreas(Boolean addExtraEdgesToAreas) {
     this.addExtraEdgesToAreas = addExtraEdgesToAreas;
@@ -133,7 +218,7 @@ public class VertexLinker {
    * returning edges that have been disconnected from the graph.
    */
   private static boolean edgeReachableFromGraph(Edge edge) {
-    boolean edgeReachableFromGraph = edge.getToVertex().getIncoming().contains(edge);
+    boolean edgeReachableFromGraph = isInGraph(edge);
     if (!edgeReachableFromGraph) {
       LOG.error(
         "Edge returned from spatial index is no longer reachable from graph. That is not expected."
@@ -142,6 +227,25 @@ public class VertexLinker {
     return edgeReachableFromGraph;
   }
 
+  private static boolean isInGraph(Edge edge) {
+    // An edge which has been split is removed from the graph, which clears its vertices
+    Vertex to = edge.getToVertex();
+    if (to == null || edge.getFromVertex() == null) {
+      return false;
+    }
+    // Realtime edges into the street graph are only listed at their realtime vertex
+    return edge.isListedAt(to)
+      ? to.getIncoming().contains(edge)
+      : edge.getFromVertex().getOutgoing().contains(edge);
+  }
+
+  /** The spatial tile of a vertex, in the order of rows of tiles. */
+  private static long tile(Vertex vertex) {
+    long row = (long) Math.floor(vertex.getLat() / TILE_SIZE_DEGREES);
+    long column = (long) Math.floor(vertex.getLon() / TILE_SIZE_DEGREES);
+    return (row << 32) + column;
+  }
+
   /** projected distance from stop to edge, in latitude degrees */
   private static double distance(Vertex tstop, StreetEdge edge, double xscale) {
     // Despite the fact that we want to use a fast somewhat inaccurate projection, still use JTS library tools
@@ -194,26 +298,19 @@ public class VertexLinker {
       ? new DisposableEdgeCollection(graph, scope)
       : null;
 
+    if (scope == Scope.REALTIME) {
+      vertex.markAsRealtime();
+    }
+
     try {
-      Set<StreetVertex> streetVertices = linkToStreetEdges(
+      Set<StreetVertex> streetVertices = linkToCandidateEdges(
         vertex,
         traverseModes,
         direction,
         scope,
-        INITIAL_SEARCH_RADIUS_METERS,
+        findCandidateEdges(vertex, traverseModes, scope),
         tempEdges
       );
-      if (streetVertices.isEmpty()) {
-        streetVertices =
-          linkToStreetEdges(
-            vertex,
-            traverseModes,
-            direction,
-            scope,
-            MAX_SEARCH_RADIUS_METERS,
-            tempEdges
-          );
-      }
 
       for (StreetVertex streetVertex : streetVertices) {
         List<Edge> edges = edgeFunction.apply(vertex, streetVertex);
@@ -230,16 +327,40 @@ public class VertexLinker {
       throw e;
     }
 
+    if (scope == Scope.REALTIME) {
+      graph.streetGraphModifiedAt(vertex.getCoordinate());
+    }
+
     return tempEdges;
   }
 
-  private Set<StreetVertex> linkToStreetEdges(
+  /**
+   * Find the street edges near the vertex, first within the initial search radius, and if there are
+   * none within the max search radius. This only reads the graph, so it can be called from several
+   * threads as long as the graph is not modified.
+   */
+  private List<DistanceTo<StreetEdge>> findCandidateEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
+    Scope scope
+  ) {
+    List<DistanceTo<StreetEdge>> candidateEdges = findCandidateEdges(
+      vertex,
+      traverseModes,
+      scope,
+      INITIAL_SEARCH_RADIUS_METERS
+    );
+    if (candidateEdges.isEmpty()) {
+      candidateEdges = findCandidateEdges(vertex, traverseModes, scope, MAX_SEARCH_RADIUS_METERS);
+    }
+    return candidateEdges;
+  }
+
+  private List<DistanceTo<StreetEdge>> findCandidateEdges(
     Vertex vertex,
     TraverseModeSet traverseModes,
-    LinkingDirection direction,
     Scope scope,
-    int radiusMeters,
-    DisposableEdgeCollection tempEdges
+    int radiusMeters
   ) {
     final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
 
@@ -255,7 +376,7 @@ public class VertexLinker {
     // street edges traversable by at least one of the given modes and are still present in the
     // graph. Calculate a distance to each of those edges, and keep only the ones within the search
     // radius.
-    List<DistanceTo<StreetEdge>> candidateEdges = streetSpatialIndex
+    return streetSpatialIndex
       .query(env, scope)
       .filter(StreetEdge.class::isInstance)
       .map(StreetEdge.class::cast)
@@ -263,11 +384,23 @@ public class VertexLinker {
       .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
       .filter(ead -> ead.distanceDegreesLat < radiusDeg)
       .collect(Collectors.toList());
+  }
 
+  /** Link the vertex to the closest of the candidate edges, splitting them if needed. */
+  private Set<StreetVertex> linkToCandidateEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
+    LinkingDirection direction,
+    Scope scope,
+    List<DistanceTo<StreetEdge>> candidateEdges,
+    DisposableEdgeCollection tempEdges
+  ) {
     if (candidateEdges.isEmpty()) {
       return Set.of();
     }
 
+    final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
+
     Set<DistanceTo<StreetEdge>> closesEdges = getClosestEdgesPerMode(traverseModes, candidateEdges);
 
     return closesEdges
@@ -422,6 +555,9 @@ public class VertexLinker {
         direction == LinkingDirection.OUTGOING
       );
       tsv.setWheelchairAccessible(originalEdge.isWheelchairAccessible());
+      if (scope == Scope.REALTIME) {
+        tsv.markAsRealtime();
+      }
       v = tsv;
     } else {
       v = new SplitterVertex(graph, uniqueSplitLabel, splitPoint.x, splitPoint.y);
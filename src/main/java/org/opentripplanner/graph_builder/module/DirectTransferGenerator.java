@@ -1,13 +1,12 @@
 package org.opentripplanner.graph_builder.module;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimaps;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.StopNotLinkedForTransfers;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
@@ -84,27 +83,25 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       stops.size()
     );
 
-    AtomicInteger nTransfersTotal = new AtomicInteger();
-    AtomicInteger nLinkedStops = new AtomicInteger();
-
-    // This is a synchronizedMultimap so that a parallel stream may be used to insert elements.
-    var transfersByStop = Multimaps.<StopLocation, PathTransfer>synchronizedMultimap(
-      HashMultimap.create()
-    );
+    // The street requests are the same for all stops
+    List<RoutingRequest> streetRequests = transferRequests
+      .stream()
+      .map(Transfer::prepareTransferRoutingRequest)
+      .collect(Collectors.toList());
 
-    stops
+    // Each stop returns its own transfers, which are added to the graph afterwards, so the
+    // threads do not share a lock.
+    List<Collection<PathTransfer>> transfersByStop = stops
       .stream()
       .parallel()
-      .forEach(ts0 -> {
+      .map(ts0 -> {
         /* Make transfers to each nearby stop that has lowest weight on some trip pattern.
          * Use map based on the list of edges, so that only distinct transfers are stored. */
         Map<TransferKey, PathTransfer> distinctTransfers = new HashMap<>();
         Stop stop = ts0.getStop();
         LOG.debug("Linking stop '{}' {}", stop, ts0);
 
-        for (RoutingRequest transferProfile : transferRequests) {
-          RoutingRequest streetRequest = Transfer.prepareTransferRoutingRequest(transferProfile);
-
+        for (RoutingRequest streetRequest : streetRequests) {
           for (NearbyStop sd : nearbyStopFinder.findNearbyStopsConsideringPatterns(
             ts0,
             streetRequest,
@@ -149,20 +146,26 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         );
         if (distinctTransfers.isEmpty()) {
           issueStore.add(new StopNotLinkedForTransfers(ts0));
-        } else {
-          distinctTransfers
-            .values()
-            .forEach(transfer -> transfersByStop.put(transfer.from, transfer));
-          nLinkedStops.incrementAndGet();
-          nTransfersTotal.addAndGet(distinctTransfers.size());
         }
 
         //Keep lambda! A method-ref would causes incorrect class and line number to be logged
         //noinspection Convert2MethodRef
         progress.step(m -> LOG.info(m));
-      });
-
-    graph.transfersByStop.putAll(transfersByStop);
+        return distinctTransfers.values();
+      })
+      .collect(Collectors.toList());
+
+    int nTransfersTotal = 0;
+    int nLinkedStops = 0;
+    for (Collection<PathTransfer> transfers : transfersByStop) {
+      for (PathTransfer transfer : transfers) {
+        graph.transfersByStop.put(transfer.from, transfer);
+      }
+      if (!transfers.isEmpty()) {
+        nLinkedStops++;
+        nTransfersTotal += transfers.size();
+      }
+    }
 
     LOG.info(progress.completeMessage());
     LOG.info(
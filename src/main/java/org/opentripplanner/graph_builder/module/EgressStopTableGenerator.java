@@ -0,0 +1,138 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.EgressStopTable;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.util.logging.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link GraphBuilderModule} that precomputes the {@link EgressStopTable}. A walk search is done
+ * from every stop, and the shortest duration to each cell of the street network is recorded.
+ * <p>
+ * The search uses a walk reluctance of 1 and no extra time for stairs and elevators, so the
+ * durations are lower bounds for the default walk speed.
+ */
+public class EgressStopTableGenerator implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EgressStopTableGenerator.class);
+
+  private final Duration maxDuration;
+
+  public EgressStopTableGenerator(Duration maxDuration) {
+    this.maxDuration = maxDuration;
+  }
+
+  @Override
+  public void buildGraph(
+    Graph graph,
+    HashMap<Class<?>, Object> extra,
+    DataImportIssueStore issueStore
+  ) {
+    if (!graph.hasStreets) {
+      LOG.info("No street data in the graph, the egress stop table is not created.");
+      return;
+    }
+    LOG.info("Creating egress stop table for stops up to {} walking...", maxDuration);
+
+    RoutingRequest request = tableRequest();
+    var builder = EgressStopTable.of((int) maxDuration.toSeconds(), request.walkSpeed);
+
+    List<TransitStopVertex> stops = graph.getVerticesOfType(TransitStopVertex.class);
+
+    ProgressTracker progress = ProgressTracker.track(
+      "Create egress stop table for stops",
+      1000,
+      stops.size()
+    );
+    AtomicInteger nCellsTotal = new AtomicInteger();
+
+    stops
+      .stream()
+      .parallel()
+      .forEach(ts -> {
+        Map<Long, Integer> durationByCell = new HashMap<>();
+
+        for (State state : findReachableStates(graph, ts, request.clone())) {
+          EgressStopTable.Builder.addVertex(
+            durationByCell,
+            state.getVertex().getCoordinate(),
+            (int) state.getElapsedTimeSeconds()
+          );
+        }
+        builder.addStop(ts.getStop(), durationByCell);
+        nCellsTotal.addAndGet(durationByCell.size());
+
+        //Keep lambda! A method-ref would causes incorrect class and line number to be logged
+        //noinspection Convert2MethodRef
+        progress.step(m -> LOG.info(m));
+      });
+
+    EgressStopTable table = builder.build();
+    graph.putService(EgressStopTable.class, table);
+
+    LOG.info(progress.completeMessage());
+    LOG.info(
+      "Done creating egress stop table. {} cells with a total of {} stop entries.",
+      table.numberOfCells(),
+      nCellsTotal
+    );
+  }
+
+  @Override
+  public void checkInputs() {
+    // No inputs
+  }
+
+  private Iterable<State> findReachableStates(
+    Graph graph,
+    TransitStopVertex stop,
+    RoutingRequest request
+  ) {
+    RoutingContext routingContext = new RoutingContext(request, graph, Set.<Vertex>of(stop), null);
+
+    ShortestPathTree spt = AStarBuilder
+      .allDirectionsMaxDuration(maxDuration)
+      .setDominanceFunction(new DominanceFunction.EarliestArrival())
+      .setContext(routingContext)
+      .getShortestPathTree();
+
+    return spt == null ? List.of() : spt.getAllStates();
+  }
+
+  /**
+   * A walk request where the weight is the same as the duration, and without any of the extra
+   * time penalties a request may add. The walk speed is the default one.
+   */
+  private static RoutingRequest tableRequest() {
+    RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+    request.setDateTime(Instant.ofEpochSecond(0));
+    request.walkReluctance = 1.0;
+    request.stairsReluctance = 1.0;
+    request.stairsTimeFactor = 1.0;
+    request.turnReluctance = 0.0;
+    request.elevatorBoardTime = 0;
+    request.elevatorHopTime = 0;
+    request.elevatorBoardCost = 0;
+    request.elevatorHopCost = 0;
+    return request;
+  }
+}
@@ -10,6 +10,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.common.MinMap;
 import org.opentripplanner.ext.flex.trip.FlexTrip;
@@ -20,6 +23,7 @@ import org.opentripplanner.model.TripPattern;
 import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
 import org.opentripplanner.routing.algorithm.astar.strategies.ComposingSkipEdgeStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.DurationSkipEdgeStrategy;
+import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
@@ -97,20 +101,38 @@ public class NearbyStopFinder {
     Vertex vertex,
     RoutingRequest routingRequest,
     boolean reverseDirection
+  ) {
+    if (!useStreets) {
+      return closestStopsOnPatterns(
+        findNearbyStops(vertex, routingRequest.clone(), reverseDirection),
+        nearbyStop -> nearbyStop.stop
+      );
+    }
+    // Most of the stops reached are not the closest on any pattern, so only the paths to the
+    // closest stops are built
+    return closestStopsOnPatterns(
+      findStopStatesViaStreets(Set.of(vertex), reverseDirection, routingRequest.clone(), null),
+      StopState::stop
+    )
+      .stream()
+      .map(StopState::toNearbyStop)
+      .collect(Collectors.toSet());
+  }
+
+  /** Keep the closest of the given stops on each trip pattern or flex trip. */
+  private <T extends Comparable<T>> Set<T> closestStopsOnPatterns(
+    List<T> nearbyStops,
+    Function<T, StopLocation> stopOf
   ) {
     /* Track the closest stop on each pattern passing nearby. */
-    MinMap<TripPattern, NearbyStop> closestStopForPattern = new MinMap<>();
+    MinMap<TripPattern, T> closestStopForPattern = new MinMap<>();
 
     /* Track the closest stop on each flex trip nearby. */
-    MinMap<FlexTrip, NearbyStop> closestStopForFlexTrip = new MinMap<>();
+    MinMap<FlexTrip, T> closestStopForFlexTrip = new MinMap<>();
 
     /* Iterate over nearby stops via the street network or using straight-line distance, depending on the graph. */
-    for (NearbyStop nearbyStop : findNearbyStops(
-      vertex,
-      routingRequest.clone(),
-      reverseDirection
-    )) {
-      StopLocation ts1 = nearbyStop.stop;
+    for (T nearbyStop : nearbyStops) {
+      StopLocation ts1 = stopOf.apply(nearbyStop);
 
       if (ts1 instanceof Stop) {
         /* Consider this destination stop as a candidate for every trip pattern passing through it. */
@@ -126,7 +148,7 @@ public class NearbyStopFinder {
     }
 
     /* Make a transfer from the origin stop to each destination stop that was the closest stop on any pattern. */
-    Set<NearbyStop> uniqueStops = Sets.newHashSet();
+    Set<T> uniqueStops = Sets.newHashSet();
     uniqueStops.addAll(closestStopForFlexTrip.values());
     uniqueStops.addAll(closestStopForPattern.values());
     return uniqueStops;
@@ -166,7 +188,45 @@ public class NearbyStopFinder {
     boolean reverseDirection,
     RoutingRequest routingRequest
   ) {
-    List<NearbyStop> stopsFound = Lists.newArrayList();
+    return findNearbyStopsViaStreets(originVertices, reverseDirection, routingRequest, null);
+  }
+
+  /**
+   * Same as {@link #findNearbyStopsViaStreets(Set, boolean, RoutingRequest)}, but the street
+   * search is stopped early by the given termination strategy.
+   *
+   * @param terminationStrategy the strategy to stop the search with, or {@code null} to search the
+   *                            whole duration limit.
+   */
+  public List<NearbyStop> findNearbyStopsViaStreets(
+    Set<Vertex> originVertices,
+    boolean reverseDirection,
+    RoutingRequest routingRequest,
+    @Nullable SearchTerminationStrategy terminationStrategy
+  ) {
+    return findStopStatesViaStreets(
+      originVertices,
+      reverseDirection,
+      routingRequest,
+      terminationStrategy
+    )
+      .stream()
+      .map(StopState::toNearbyStop)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Search the streets, and return the state at each stop reached. Building the path to a stop is
+   * costly, especially for a reverse search where the states are reversed, so it is left to the
+   * caller.
+   */
+  private List<StopState> findStopStatesViaStreets(
+    Set<Vertex> originVertices,
+    boolean reverseDirection,
+    RoutingRequest routingRequest,
+    @Nullable SearchTerminationStrategy terminationStrategy
+  ) {
+    List<StopState> stopsFound = Lists.newArrayList();
 
     routingRequest.setArriveBy(reverseDirection);
 
@@ -181,11 +241,10 @@ public class NearbyStopFinder {
     for (Vertex vertex : originVertices) {
       if (vertex instanceof TransitStopVertex) {
         stopsFound.add(
-          new NearbyStop(
-            (TransitStopVertex) vertex,
-            0,
-            Collections.emptyList(),
-            new State(vertex, routingRequest, routingContext)
+          new StopState(
+            ((TransitStopVertex) vertex).getStop(),
+            new State(vertex, routingRequest, routingContext),
+            true
           )
         );
       }
@@ -199,6 +258,7 @@ public class NearbyStopFinder {
     ShortestPathTree spt = AStarBuilder
       .allDirections(getSkipEdgeStrategy(reverseDirection, routingRequest))
       .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setTerminationStrategy(terminationStrategy)
       .setContext(routingContext)
       .getShortestPathTree();
 
@@ -211,9 +271,7 @@ public class NearbyStopFinder {
         Vertex targetVertex = state.getVertex();
         if (originVertices.contains(targetVertex)) continue;
         if (targetVertex instanceof TransitStopVertex && state.isFinal()) {
-          stopsFound.add(
-            NearbyStop.nearbyStopForState(state, ((TransitStopVertex) targetVertex).getStop())
-          );
+          stopsFound.add(new StopState(((TransitStopVertex) targetVertex).getStop(), state, false));
         }
         if (
           OTPFeature.FlexRouting.isOn() &&
@@ -249,7 +307,7 @@ public class NearbyStopFinder {
           min = min.getBackState();
         }
 
-        stopsFound.add(NearbyStop.nearbyStopForState(min, flexStopLocation));
+        stopsFound.add(new StopState(flexStopLocation, min, false));
       }
     }
 
@@ -287,6 +345,25 @@ public class NearbyStopFinder {
     }
   }
 
+  /**
+   * A stop reached by the street search, and the state it was reached with. Compared by weight like
+   * a {@link NearbyStop}.
+   */
+  private record StopState(StopLocation stop, State state, boolean origin)
+    implements Comparable<StopState> {
+    NearbyStop toNearbyStop() {
+      if (origin) {
+        return new NearbyStop(stop, 0, Collections.emptyList(), null, state);
+      }
+      return NearbyStop.nearbyStopForState(state, stop);
+    }
+
+    @Override
+    public int compareTo(StopState that) {
+      return (int) (this.state.getWeight()) - (int) (that.state.getWeight());
+    }
+  }
+
   private boolean canBoardFlex(State state, boolean reverse) {
     Collection<Edge> edges = reverse
       ? state.getVertex().getIncoming()
@@ -0,0 +1,91 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opentripplanner.common.geometry.CompactGeometrySegment;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Move the geometries of all street edges off the Java heap, into {@link CompactGeometrySegment}s.
+ * Edges sharing the same geometry instance, see {@link StreetDataDeduplicatorModule}, share the
+ * off-heap copy as well. Edges created after this, like the temporary edges of a search, keep
+ * their geometry on the heap.
+ * <p>
+ * No references to the moved arrays are kept, so they can be collected when the module is done.
+ * This needs the deduplicator of the {@link StreetDataDeduplicatorModule} to be gone as well.
+ */
+public class OffHeapStreetGeometryModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapStreetGeometryModule.class);
+
+  private final int segmentCapacity;
+
+  public OffHeapStreetGeometryModule() {
+    this(CompactGeometrySegment.DEFAULT_CAPACITY);
+  }
+
+  OffHeapStreetGeometryModule(int segmentCapacity) {
+    this.segmentCapacity = segmentCapacity;
+  }
+
+  @Override
+  public void buildGraph(
+    Graph graph,
+    HashMap<Class<?>, Object> extra,
+    DataImportIssueStore issueStore
+  ) {
+    List<CompactGeometrySegment> segments = new ArrayList<>();
+    Map<byte[], Location> moved = new IdentityHashMap<>();
+    CompactGeometrySegment segment = null;
+    int nEdges = 0;
+
+    for (StreetEdge edge : graph.getStreetEdges()) {
+      if (edge.isGeometryOffHeap()) {
+        continue;
+      }
+      byte[] geometry = edge.getCompactGeometry();
+      if (geometry == null) {
+        continue;
+      }
+      Location location = moved.get(geometry);
+      if (location == null) {
+        int offset = segment == null ? -1 : segment.add(geometry);
+        if (offset < 0) {
+          if (Integer.BYTES + geometry.length > segmentCapacity) {
+            LOG.warn("Geometry of {} is too large to be stored off-heap.", edge);
+            continue;
+          }
+          segment = CompactGeometrySegment.allocate(segmentCapacity);
+          segments.add(segment);
+          offset = segment.add(geometry);
+        }
+        location = new Location(segment, offset);
+        moved.put(geometry, location);
+      }
+      edge.moveGeometryOffHeap(location.segment(), location.offset());
+      ++nEdges;
+    }
+
+    LOG.info(
+      "Moved geometries of {} street edges off-heap, {} MB in {} segments.",
+      nEdges,
+      segments.stream().mapToLong(CompactGeometrySegment::size).sum() / (1024 * 1024),
+      segments.size()
+    );
+  }
+
+  @Override
+  public void checkInputs() {
+    // No inputs
+  }
+
+  private record Location(CompactGeometrySegment segment, int offset) {}
+}
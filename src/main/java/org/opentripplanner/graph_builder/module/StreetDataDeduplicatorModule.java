@@ -0,0 +1,94 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.Deduplicator;
+import org.opentripplanner.util.I18NString;
+import org.opentripplanner.util.NonLocalizedString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Share equal street names and geometries between all street edges, using a {@link Deduplicator}.
+ * Names are repeated along every segment of a street, and the geometry of twin edges created when
+ * splitting edges is stored twice. This runs as the last step of the street graph build, when all
+ * edges are created and split.
+ * <p>
+ * The deduplicator is local to the module and not the one of the graph, so its maps of canonical
+ * instances can be collected when the module is done, and do not hold on to every street name and
+ * geometry for the rest of the build.
+ * <p>
+ * The shared instances are kept in the serialized graph, Kryo writes each instance once and
+ * references it after that.
+ */
+public class StreetDataDeduplicatorModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetDataDeduplicatorModule.class);
+
+  @Override
+  public void buildGraph(
+    Graph graph,
+    HashMap<Class<?>, Object> extra,
+    DataImportIssueStore issueStore
+  ) {
+    Collection<StreetEdge> edges = graph.getStreetEdges();
+    long sizeBefore = estimateHeapSize(edges);
+
+    Deduplicator deduplicator = new Deduplicator();
+    for (StreetEdge edge : edges) {
+      edge.deduplicate(deduplicator);
+    }
+
+    long saved = sizeBefore - estimateHeapSize(edges);
+    issueStore.add(
+      "StreetDataDeduplicated",
+      "Names and geometries of %d street edges deduplicated, about %d MB heap saved.",
+      edges.size(),
+      saved / (1024 * 1024)
+    );
+    LOG.info(
+      "Deduplicated names and geometries of {} street edges, about {} MB heap saved.",
+      edges.size(),
+      saved / (1024 * 1024)
+    );
+  }
+
+  @Override
+  public void checkInputs() {
+    // No inputs
+  }
+
+  /**
+   * Estimate the heap used by the distinct names and geometries of the given edges. This is a
+   * rough estimate, assuming compressed object pointers and compact strings.
+   */
+  static long estimateHeapSize(Collection<StreetEdge> edges) {
+    Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    long size = 0;
+    for (StreetEdge edge : edges) {
+      I18NString name = edge.getName();
+      if (name != null && seen.add(name)) {
+        size += 16;
+        if (name instanceof NonLocalizedString) {
+          size += 24 + arraySize(name.toString().length());
+        }
+      }
+      byte[] geometry = edge.getCompactGeometry();
+      if (geometry != null && seen.add(geometry)) {
+        size += arraySize(geometry.length);
+      }
+    }
+    return size;
+  }
+
+  private static long arraySize(int length) {
+    return (16 + length + 7) & ~7L;
+  }
+}
@@ -3,6 +3,8 @@ package org.opentripplanner.graph_builder.module;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.ParkAndRideEntranceRemoved;
 import org.opentripplanner.graph_builder.linking.LinkingDirection;
@@ -19,6 +21,7 @@ import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
 import org.opentripplanner.routing.vertextype.TransitEntranceVertex;
 import org.opentripplanner.routing.vertextype.TransitStopVertex;
 import org.opentripplanner.routing.vertextype.VehicleParkingEntranceVertex;
+import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.util.OTPFeature;
 import org.opentripplanner.util.logging.ProgressTracker;
 import org.slf4j.Logger;
@@ -74,44 +77,38 @@ public class StreetLinkerModule implements GraphBuilderModule {
   }
 
   public void linkTransitStops(Graph graph) {
-    List<TransitStopVertex> vertices = graph.getVerticesOfType(TransitStopVertex.class);
-    var progress = ProgressTracker.track("Linking transit stops to graph", 5000, vertices.size());
-    LOG.info(progress.startMessage());
-
-    for (TransitStopVertex tStop : vertices) {
+    List<TransitStopVertex> vertices = graph
+      .getVerticesOfType(TransitStopVertex.class)
+      .stream()
       // Stops with pathways do not need to be connected to the street network, since there are explicit entraces defined for that
-      if (tStop.hasPathways()) {
-        continue;
-      }
+      .filter(tStop -> !tStop.hasPathways())
       // check if stop is already linked, to allow multiple linking cycles
-      if (tStop.getDegreeOut() + tStop.getDegreeIn() > 0) {
-        continue;
-      }
-      TraverseModeSet modes = new TraverseModeSet(TraverseMode.WALK);
-
-      if (OTPFeature.FlexRouting.isOn()) {
-        // If regular stops are used for flex trips, they also need to be connected to car routable
-        // street edges.
-        if (graph.getAllFlexStopsFlat().contains(tStop.getStop())) {
-          modes = new TraverseModeSet(TraverseMode.WALK, TraverseMode.CAR);
-        }
-      }
+      .filter(tStop -> tStop.getDegreeOut() + tStop.getDegreeIn() == 0)
+      .collect(Collectors.toList());
+    var progress = ProgressTracker.track("Linking transit stops to graph", 5000, vertices.size());
+    LOG.info(progress.startMessage());
 
-      graph
-        .getLinker()
-        .linkVertexPermanently(
-          tStop,
-          modes,
-          LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetTransitStopLink((TransitStopVertex) vertex, streetVertex),
-              new StreetTransitStopLink(streetVertex, (TransitStopVertex) vertex)
-            )
-        );
-      //noinspection Convert2MethodRef
-      progress.step(m -> LOG.info(m));
-    }
+    TraverseModeSet walk = new TraverseModeSet(TraverseMode.WALK);
+    TraverseModeSet walkAndCar = new TraverseModeSet(TraverseMode.WALK, TraverseMode.CAR);
+    // If regular stops are used for flex trips, they also need to be connected to car routable
+    // street edges.
+    Set<StopLocation> flexStops = OTPFeature.FlexRouting.isOn()
+      ? graph.getAllFlexStopsFlat()
+      : Set.of();
+
+    graph
+      .getLinker()
+      .linkVerticesPermanently(
+        vertices,
+        vertex -> flexStops.contains(((TransitStopVertex) vertex).getStop()) ? walkAndCar : walk,
+        LinkingDirection.BOTH_WAYS,
+        (vertex, streetVertex) ->
+          List.of(
+            new StreetTransitStopLink((TransitStopVertex) vertex, streetVertex),
+            new StreetTransitStopLink(streetVertex, (TransitStopVertex) vertex)
+          ),
+        () -> progress.step(m -> LOG.info(m))
+      );
     LOG.info(progress.completeMessage());
   }
 
@@ -152,20 +149,20 @@ public class StreetLinkerModule implements GraphBuilderModule {
 
   private void linkTransitEntrances(Graph graph) {
     LOG.info("Linking transit entrances to graph...");
-    for (TransitEntranceVertex tEntrance : graph.getVerticesOfType(TransitEntranceVertex.class)) {
-      graph
-        .getLinker()
-        .linkVertexPermanently(
-          tEntrance,
-          new TraverseModeSet(TraverseMode.WALK),
-          LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetTransitEntranceLink((TransitEntranceVertex) vertex, streetVertex),
-              new StreetTransitEntranceLink(streetVertex, (TransitEntranceVertex) vertex)
-            )
-        );
-    }
+    TraverseModeSet walk = new TraverseModeSet(TraverseMode.WALK);
+    graph
+      .getLinker()
+      .linkVerticesPermanently(
+        graph.getVerticesOfType(TransitEntranceVertex.class),
+        vertex -> walk,
+        LinkingDirection.BOTH_WAYS,
+        (vertex, streetVertex) ->
+          List.of(
+            new StreetTransitEntranceLink((TransitEntranceVertex) vertex, streetVertex),
+            new StreetTransitEntranceLink(streetVertex, (TransitEntranceVertex) vertex)
+          ),
+        () -> {}
+      );
   }
 
   private void linkVehicleParks(Graph graph, DataImportIssueStore issueStore) {
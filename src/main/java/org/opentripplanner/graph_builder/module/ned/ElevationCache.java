@@ -0,0 +1,282 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.opentripplanner.util.PolylineEncoder;
+
+/**
+ * A file of elevation profiles calculated in an earlier graph build, keyed by the geometry of the
+ * street edges. Edges with the same geometry as in the earlier build get the same profile, no
+ * matter how the OSM data around them has changed.
+ * <p>
+ * The file starts with a hash table of the geometries, which is memory-mapped, followed by the
+ * profiles, which are read from the file when they are looked up. So opening the cache is fast
+ * and it takes almost no heap, whatever the size of the file. The cache is thread safe.
+ * <p>
+ * The key of an edge is its encoded polyline, so the coordinates are compared with a precision of
+ * 5 decimals. The header contains a fingerprint of the elevation module configuration, a cache
+ * written with another configuration is rejected. Changes to the elevation data itself are not
+ * detected.
+ * <p>
+ * File layout, in big-endian order:
+ * <pre>
+ * header:  int magic, int version, long fingerprint, int size, int capacity
+ * table:   capacity slots of (long hash, long offset of entry), a hash of 0 is an empty slot
+ * entries: int key length, int number of points, key bytes, (distance, elevation) doubles
+ * </pre>
+ */
+public class ElevationCache implements Closeable {
+
+  private static final int MAGIC = 0x4f545045; // "OTPE"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int SLOT_SIZE = 16;
+  /** The table is mapped in one buffer, which is limited to 2 GiB. */
+  private static final int MAX_CAPACITY = 1 << 26;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer table;
+  private final int size;
+  private final int mask;
+
+  private ElevationCache(FileChannel channel, MappedByteBuffer table, int size, int capacity) {
+    this.channel = channel;
+    this.table = table;
+    this.size = size;
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Open a cache file. Throws an IOException if the file can not be read, or if it was written
+   * with another format or another fingerprint.
+   */
+  public static ElevationCache open(File file, long fingerprint) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header, 0);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not an elevation cache file of version " + VERSION + ": " + file);
+      }
+      if (header.getLong() != fingerprint) {
+        throw new IOException(
+          "The elevation cache was written with another elevation configuration: " + file
+        );
+      }
+      int size = header.getInt();
+      int capacity = header.getInt();
+      if (Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY) {
+        throw new IOException("Invalid elevation cache table capacity " + capacity);
+      }
+      long tableSize = (long) capacity * SLOT_SIZE;
+      if (channel.size() < HEADER_SIZE + tableSize) {
+        throw new IOException("The elevation cache file is truncated: " + file);
+      }
+      MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, tableSize);
+      return new ElevationCache(channel, table, size, capacity);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** The key used to look up the profile of an edge with the given geometry. */
+  static String key(Geometry geometry) {
+    return PolylineEncoder.encodeGeometry(geometry).points();
+  }
+
+  /** 64-bit FNV-1a hash of the key, never 0 since 0 marks an empty slot. */
+  static long hash(byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash == 0 ? 1 : hash;
+  }
+
+  /** The number of profiles in the cache. */
+  public int size() {
+    return size;
+  }
+
+  /** Get the elevation profile of an edge with the given geometry, or null if it is not cached. */
+  public PackedCoordinateSequence get(Geometry geometry) {
+    byte[] key = key(geometry).getBytes(StandardCharsets.UTF_8);
+    long hash = hash(key);
+    try {
+      for (int slot = (int) hash & mask;; slot = (slot + 1) & mask) {
+        long slotHash = table.getLong(slot * SLOT_SIZE);
+        if (slotHash == 0) {
+          return null;
+        }
+        if (slotHash == hash) {
+          PackedCoordinateSequence profile = readEntry(table.getLong(slot * SLOT_SIZE + 8), key);
+          if (profile != null) {
+            return profile;
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the elevation cache: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Read the profile of the entry at the given offset, or null if the entry has another key. */
+  private PackedCoordinateSequence readEntry(long offset, byte[] key) throws IOException {
+    ByteBuffer lengths = ByteBuffer.allocate(8);
+    readFully(channel, lengths, offset);
+    int keyLength = lengths.getInt();
+    int nPoints = lengths.getInt();
+    if (keyLength != key.length) {
+      return null;
+    }
+    ByteBuffer entry = ByteBuffer.allocate(keyLength + nPoints * 2 * Double.BYTES);
+    readFully(channel, entry, offset + 8);
+    byte[] entryKey = new byte[keyLength];
+    entry.get(entryKey);
+    if (!Arrays.equals(entryKey, key)) {
+      return null;
+    }
+    double[] coordinates = new double[nPoints * 2];
+    entry.asDoubleBuffer().get(coordinates);
+    return new PackedCoordinateSequence.Double(coordinates, 2, 0);
+  }
+
+  /** Positional reads do not change the channel position, so they are thread safe. */
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+    throws IOException {
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position + buffer.position());
+      if (n < 0) {
+        throw new IOException("Unexpected end of the elevation cache file");
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Collects the profiles of a graph build, and writes them to a new cache file. The file is
+   * written next to the target and then moved in place, so an open cache with the same file is
+   * not affected, and a failed write does not leave a broken cache behind.
+   */
+  public static class Writer {
+
+    private final long fingerprint;
+    private final List<byte[]> keys = new ArrayList<>();
+    private final List<PackedCoordinateSequence> profiles = new ArrayList<>();
+
+    public Writer(long fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    public void add(Geometry geometry, PackedCoordinateSequence profile) {
+      keys.add(key(geometry).getBytes(StandardCharsets.UTF_8));
+      profiles.add(profile);
+    }
+
+    public void write(File file) throws IOException {
+      // Keep the table at most half full, so the probe sequences are short
+      int capacity = Math.max(Integer.highestOneBit(Math.max(keys.size(), 1)) * 4, 16);
+      if (capacity > MAX_CAPACITY) {
+        throw new IOException("Too many edges for the elevation cache: " + keys.size());
+      }
+      long[] slotHashes = new long[capacity];
+      long[] slotOffsets = new long[capacity];
+      int mask = capacity - 1;
+      int size = 0;
+      long offset = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+      for (int i = 0; i < keys.size(); ++i) {
+        byte[] key = keys.get(i);
+        long hash = hash(key);
+        int slot = (int) hash & mask;
+        boolean duplicate = false;
+        while (slotHashes[slot] != 0 && !duplicate) {
+          duplicate =
+            slotHashes[slot] == hash && Arrays.equals(keys.get((int) slotOffsets[slot]), key);
+          slot = (slot + 1) & mask;
+        }
+        if (duplicate) {
+          // Edges in both directions have the same geometry, keep the first one
+          keys.set(i, null);
+          continue;
+        }
+        slotHashes[slot] = hash;
+        // The slot points to the key index until the offsets are known
+        slotOffsets[slot] = i;
+        ++size;
+      }
+
+      long[] entryOffsets = new long[keys.size()];
+      for (int i = 0; i < keys.size(); ++i) {
+        if (keys.get(i) != null) {
+          entryOffsets[i] = offset;
+          offset += 8 + keys.get(i).length + (long) profiles.get(i).size() * 2 * Double.BYTES;
+        }
+      }
+      for (int slot = 0; slot < capacity; ++slot) {
+        if (slotHashes[slot] != 0) {
+          slotOffsets[slot] = entryOffsets[(int) slotOffsets[slot]];
+        }
+      }
+
+      Path target = file.toPath();
+      Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+      try (
+        DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp))
+        )
+      ) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(size);
+        out.writeInt(capacity);
+        for (int slot = 0; slot < capacity; ++slot) {
+          out.writeLong(slotHashes[slot]);
+          out.writeLong(slotOffsets[slot]);
+        }
+        for (int i = 0; i < keys.size(); ++i) {
+          byte[] key = keys.get(i);
+          if (key == null) {
+            continue;
+          }
+          PackedCoordinateSequence profile = profiles.get(i);
+          out.writeInt(key.length);
+          out.writeInt(profile.size());
+          out.write(key);
+          for (int p = 0; p < profile.size(); ++p) {
+            out.writeDouble(profile.getOrdinate(p, 0));
+            out.writeDouble(profile.getOrdinate(p, 1));
+          }
+        }
+      } catch (IOException e) {
+        Files.deleteIfExists(tmp);
+        throw e;
+      }
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -2,16 +2,13 @@ package org.opentripplanner.graph_builder.module.ned;
 
 import static org.opentripplanner.util.ElevationUtils.computeEllipsoidToGeoidDifference;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,14 +36,14 @@ import org.opentripplanner.routing.edgetype.StreetElevationExtension;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
-import org.opentripplanner.util.PolylineEncoder;
 import org.opentripplanner.util.logging.ProgressTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * THIS CLASS IS MULTI-THREADED (When configured to do so, it uses parallel streams to distribute
- * elevation calculation tasks for edges.)
+ * elevation calculation tasks for edges. The edges are sorted by location, so each thread samples
+ * nearby points from the same tiles of the elevation model.)
  * <p>
  * {@link org.opentripplanner.graph_builder.services.GraphBuilderModule} plugin that applies
  * elevation data to street data that has already been loaded into a (@link Graph}, creating
@@ -90,19 +87,17 @@ public class ElevationModule implements GraphBuilderModule {
   private final double elevationUnitMultiplier;
   /** A concurrent hashmap used for storing geoid difference values at various coordinates */
   private final ConcurrentHashMap<Integer, Double> geoidDifferenceCache = new ConcurrentHashMap<>();
-  private final ThreadLocal<Coverage> coverageInterpolatorThreadLocal = new ThreadLocal<>();
   private DataImportIssueStore issueStore;
   /**
-   * A map of PackedCoordinateSequence values identified by Strings of encoded polylines.
+   * The elevation profiles of an earlier graph build, keyed by the edge geometry.
    * <p>
-   * Note: Since this map has a key of only the encoded polylines, it is assumed that all other
-   * inputs are the same as those that occurred in the graph build that produced this data.
+   * Note: Only the elevation configuration is checked when the cache is opened, it is assumed that
+   * the elevation data is the same as in the graph build that produced this data.
    */
-  private HashMap<String, PackedCoordinateSequence> cachedElevations;
-  // the first coordinate in the first StreetWithElevationEdge which is used for initializing coverage instances
-  private Coordinate examplarCoordinate;
-  /** Used only when the ElevationModule is requested to be ran with a single thread */
-  private Coverage singleThreadedCoverageInterpolator;
+  private ElevationCache cachedElevations;
+  private final AtomicInteger nCachedEdges = new AtomicInteger(0);
+  /** The coverage is thread safe and shared by all threads, it is created on first use. */
+  private volatile Coverage coverage;
   private double minElevation = Double.MAX_VALUE;
   private double maxElevation = Double.MIN_VALUE;
 
@@ -149,10 +144,12 @@ public class ElevationModule implements GraphBuilderModule {
     if (readCachedElevations) {
       // try to load in the cached elevation data
       try {
-        ObjectInputStream in = new ObjectInputStream(new FileInputStream(cachedElevationsFile));
-        cachedElevations = (HashMap<String, PackedCoordinateSequence>) in.readObject();
-        LOG.info("Cached elevation data loaded into memory!");
-      } catch (IOException | ClassNotFoundException e) {
+        cachedElevations = ElevationCache.open(cachedElevationsFile, cacheFingerprint());
+        LOG.info(
+          "Cached elevations file opened with {} elevation profiles",
+          cachedElevations.size()
+        );
+      } catch (IOException e) {
         issueStore.add(
           new Graphwide(
             String.format(
@@ -165,32 +162,28 @@ public class ElevationModule implements GraphBuilderModule {
     }
     LOG.info("Setting street elevation profiles from digital elevation model...");
 
-    List<StreetEdge> streetsWithElevationEdges = new LinkedList<>();
+    List<StreetEdge> streetsWithElevationEdges = new ArrayList<>();
 
     for (Vertex gv : graph.getVertices()) {
       for (Edge ee : gv.getOutgoing()) {
         if (ee instanceof StreetEdge) {
-          if (multiThreadElevationCalculations) {
-            // Multi-threaded execution requested, check and prepare a few things that are used only during
-            // multi-threaded runs.
-            if (examplarCoordinate == null) {
-              // store the first coordinate of the first StreetEdge for later use in initializing coverage
-              // instances
-              examplarCoordinate = ee.getGeometry().getCoordinates()[0];
-            }
-          }
           streetsWithElevationEdges.add((StreetEdge) ee);
         }
       }
     }
 
+    // Sort the edges by location, so the edges handled by each thread are near each other and
+    // sample the same tiles of the elevation model.
+    streetsWithElevationEdges.sort(Comparator.comparingLong(ElevationModule::sampleCell));
+
     // Keeps track of the total amount of elevation edges for logging purposes
     int totalElevationEdges = streetsWithElevationEdges.size();
 
     var progress = ProgressTracker.track("Set elevation", 25_000, totalElevationEdges);
+    Instant samplingStart = Instant.now();
 
     if (multiThreadElevationCalculations) {
-      // Multi-threaded execution
+      // Multi-threaded execution, the sorted list is split into ranges of nearby edges
       streetsWithElevationEdges
         .parallelStream()
         .forEach(ee -> processEdgeWithProgress(ee, progress));
@@ -201,7 +194,24 @@ public class ElevationModule implements GraphBuilderModule {
       }
     }
 
+    if (cachedElevations != null) {
+      LOG.info(
+        "Found {} of {} edges in the cached elevations",
+        nCachedEdges.get(),
+        totalElevationEdges
+      );
+      closeCachedElevations();
+    }
+
     int nPoints = nPointsEvaluated.get() + nPointsOutsideDEM.get();
+    double samplingSeconds = Duration.between(samplingStart, Instant.now()).toMillis() / 1000.0;
+    LOG.info(
+      "Sampled {} elevations in {}s ({} samples per second)",
+      nPoints,
+      String.format("%.1f", samplingSeconds),
+      samplingSeconds > 0 ? Math.round(nPoints / samplingSeconds) : nPoints
+    );
+
     if (nPoints > 0) {
       double failurePercentage = (double) nPointsOutsideDEM.get() / nPoints * 100.0;
       if (failurePercentage > 50) {
@@ -232,19 +242,12 @@ public class ElevationModule implements GraphBuilderModule {
 
     if (writeCachedElevations) {
       // write information from edgesWithElevation to a new cache file for subsequent graph builds
-      HashMap<String, PackedCoordinateSequence> newCachedElevations = new HashMap<>();
+      var newCachedElevations = new ElevationCache.Writer(cacheFingerprint());
       for (StreetEdge streetEdge : edgesWithCalculatedElevations) {
-        newCachedElevations.put(
-          PolylineEncoder.encodeGeometry(streetEdge.getGeometry()).points(),
-          streetEdge.getElevationProfile()
-        );
+        newCachedElevations.add(streetEdge.getGeometry(), streetEdge.getElevationProfile());
       }
       try {
-        ObjectOutputStream out = new ObjectOutputStream(
-          new BufferedOutputStream(new FileOutputStream(cachedElevationsFile))
-        );
-        out.writeObject(newCachedElevations);
-        out.close();
+        newCachedElevations.write(cachedElevationsFile);
       } catch (IOException e) {
         issueStore.add(new Graphwide("Failed to write cached elevation file: " + e.getMessage()));
       }
@@ -288,6 +291,25 @@ public class ElevationModule implements GraphBuilderModule {
     }
   }
 
+  /**
+   * The cached profiles depend on these parameters, a cache written with other values is not
+   * used.
+   */
+  private long cacheFingerprint() {
+    long fingerprint = Double.doubleToLongBits(distanceBetweenSamplesM);
+    fingerprint = 31 * fingerprint + Double.doubleToLongBits(elevationUnitMultiplier);
+    return 31 * fingerprint + (includeEllipsoidToGeoidDifference ? 1 : 0);
+  }
+
+  private void closeCachedElevations() {
+    try {
+      cachedElevations.close();
+    } catch (IOException e) {
+      LOG.warn("Failed to close the cached elevations file: {}", e.getMessage());
+    }
+    cachedElevations = null;
+  }
+
   private void updateElevationMetadata(Graph graph) {
     if (nPointsOutsideDEM.get() < nPointsEvaluated.get()) {
       graph.hasElevation = true;
@@ -371,19 +393,17 @@ public class ElevationModule implements GraphBuilderModule {
     // first try to find a cached value if possible
     Geometry edgeGeometry = ee.getGeometry();
     if (cachedElevations != null) {
-      PackedCoordinateSequence coordinateSequence = cachedElevations.get(
-        PolylineEncoder.encodeGeometry(edgeGeometry).points()
-      );
+      PackedCoordinateSequence coordinateSequence = cachedElevations.get(edgeGeometry);
       if (coordinateSequence != null) {
+        nCachedEdges.incrementAndGet();
         // found a cached value! Set the elevation profile with the pre-calculated data.
         setEdgeElevationProfile(ee, coordinateSequence);
         return;
       }
     }
 
-    // Needs full calculation. Calculate with a thread-specific coverage instance to avoid waiting for any locks on
-    // coverage instances in other threads.
-    Coverage coverage = getThreadSpecificCoverageInterpolator();
+    // Needs full calculation
+    Coverage coverage = getCoverage();
 
     // did not find a cached value, calculate
     // If any of the coordinates throw an error when trying to lookup their value, immediately bail and do not
@@ -451,48 +471,29 @@ public class ElevationModule implements GraphBuilderModule {
   }
 
   /**
-   * Gets a coverage interpolator instance specific to the current thread. If using multiple
-   * threads, get the coverage interpolator instance associated with the ElevationWorkerThread.
-   * Otherwise, use a class field.
-   * <p>
-   * For unknown reasons, the interpolation of heights at coordinates is a synchronized method in
-   * the commonly used Interpolator2D class. Therefore, it is critical to use a dedicated Coverage
-   * interpolator instance for each thread to avoid other threads waiting for a lock to be released
-   * on the Coverage interpolator instance.
-   * <p>
-   * This method will get/lazy-create a thread-specific Coverage interpolator instance. Since these
-   * interpolator instances take some time to create, they are lazy-created instead of created
-   * upfront because it could lock all other threads even if other threads don't need an
-   * interpolator right away if they happen to process a lot of cached data initially.
+   * Gets the coverage, creating it the first time. The coverage of both {@link
+   * GeotiffGridCoverageFactoryImpl} and {@link NEDGridCoverageFactoryImpl} decodes each tile of
+   * the elevation model once, and is thread safe, so a single instance is shared by all threads.
    */
-  private Coverage getThreadSpecificCoverageInterpolator() {
-    if (multiThreadElevationCalculations) {
-      Coverage coverage = coverageInterpolatorThreadLocal.get();
-      if (coverage == null) {
-        synchronized (gridCoverageFactory) {
+  private Coverage getCoverage() {
+    if (coverage == null) {
+      synchronized (gridCoverageFactory) {
+        if (coverage == null) {
           coverage = gridCoverageFactory.getGridCoverage();
-          // The Coverage instance relies on some synchronized static methods shared across all threads that
-          // can cause deadlocks if not fully initialized. Therefore, make a single request for the first
-          // point on the edge to initialize these other items.
-          try {
-            getElevation(coverage, examplarCoordinate);
-          } catch (ElevationLookupException e) {
-            LOG.warn(
-              "Error processing elevation for coordinate: {} due to error: {}",
-              examplarCoordinate,
-              e
-            );
-          }
-          coverageInterpolatorThreadLocal.set(coverage);
         }
       }
-      return coverage;
-    } else {
-      if (singleThreadedCoverageInterpolator == null) {
-        singleThreadedCoverageInterpolator = gridCoverageFactory.getGridCoverage();
-      }
-      return singleThreadedCoverageInterpolator;
     }
+    return coverage;
+  }
+
+  /**
+   * The cell of about 1 km of the first coordinate of an edge, used to sort the edges by location.
+   */
+  private static long sampleCell(StreetEdge edge) {
+    Coordinate c = edge.getGeometry().getCoordinateN(0);
+    long x = (long) Math.floor((c.x + 180) * 100);
+    long y = (long) Math.floor((c.y + 90) * 100);
+    return y * 36_000 + x;
   }
 
   private void setEdgeElevationProfile(StreetEdge ee, PackedCoordinateSequence elevPCS) {
@@ -2,13 +2,11 @@ package org.opentripplanner.graph_builder.module.ned;
 
 import java.io.File;
 import java.io.IOException;
-import javax.media.jai.InterpolationBilinear;
 import org.geotools.coverage.grid.GridCoverage2D;
-import org.geotools.coverage.grid.Interpolator2D;
 import org.geotools.gce.geotiff.GeoTiffFormat;
 import org.geotools.gce.geotiff.GeoTiffReader;
 import org.geotools.util.factory.Hints;
-import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.coverage.Coverage;
 import org.opentripplanner.datastore.DataSource;
 import org.opentripplanner.datastore.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -26,6 +24,7 @@ public class GeotiffGridCoverageFactoryImpl implements ElevationGridCoverageFact
 
   private final DataSource input;
   private GridCoverage2D coverage;
+  private TiledGridCoverage tiledCoverage;
 
   public GeotiffGridCoverageFactoryImpl(DataSource input) {
     this.input = input;
@@ -36,14 +35,15 @@ public class GeotiffGridCoverageFactoryImpl implements ElevationGridCoverageFact
   }
 
   /**
-   * Wraps the underlying grid coverage instance with an interpolator that can be used in a specific
-   * thread.
+   * Wraps the underlying grid coverage instance with a tiled coverage, which decodes each tile
+   * once. The tiled coverage is thread safe, so the same instance is shared by all threads.
    */
   @Override
-  public GridCoverage getGridCoverage() {
-    return NoDataGridCoverage.create(
-      Interpolator2D.create(getUninterpolatedGridCoverage(), new InterpolationBilinear())
-    );
+  public Coverage getGridCoverage() {
+    if (tiledCoverage == null) {
+      tiledCoverage = new TiledGridCoverage(getUninterpolatedGridCoverage());
+    }
+    return tiledCoverage;
   }
 
   @Override
@@ -61,10 +61,7 @@ public class GeotiffGridCoverageFactoryImpl implements ElevationGridCoverageFact
 
   /**
    * Lazy-creates a GridCoverage2D instance by loading the specific elevation file into memory.
-   * During a refactor in the year 2020, the code at one point was written such that each coverage
-   * instance was created and wrapped in the Interpolator2D interpolator for each thread to use.
-   * However, benchmarking showed that this caused longer run times which is likely due to too much
-   * memory competing for a slot in the processor cache.
+   * The tiles of the file are decoded by {@link TiledGridCoverage} when they are first sampled.
    */
   public GridCoverage2D getUninterpolatedGridCoverage() {
     if (coverage == null) {
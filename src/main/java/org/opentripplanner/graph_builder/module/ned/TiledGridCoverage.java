@@ -0,0 +1,201 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import it.geosolutions.jaiext.range.NoDataContainer;
+import java.awt.Rectangle;
+import java.awt.image.RenderedImage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.geotools.coverage.AbstractCoverage;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.util.CoverageUtilities;
+import org.geotools.referencing.CRS;
+import org.opengis.coverage.CannotEvaluateException;
+import org.opengis.coverage.PointOutsideCoverageException;
+import org.opengis.coverage.SampleDimension;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opentripplanner.common.geometry.GeometryUtils;
+
+/**
+ * A coverage which samples an elevation raster from memory with bilinear interpolation. Each tile
+ * of the raster image is decoded into a float array the first time a point in it is sampled, and
+ * kept for the rest of the build. Only the tiles covering the street graph are decoded, so the
+ * memory used depends on the area of the graph and not on the size of the elevation file.
+ * <p>
+ * Unlike the GeoTools Interpolator2D, which reads the samples from the image for every point,
+ * this is thread safe, so one instance is shared by all threads. Sampling a decoded tile does not
+ * lock, and each tile is decoded under a lock of its own.
+ * <p>
+ * The points are expected in {@link GeometryUtils#WGS84_XY}, and are transformed to the CRS of
+ * the raster. Points in a NO_DATA or NaN cell throw a {@link PointOutsideCoverageException}.
+ */
+public class TiledGridCoverage extends AbstractCoverage {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient RenderedImage image;
+  private final GridCoverage2D coverage;
+
+  /** From WGS84 to the CRS of the raster, or null if they are the same. */
+  private final transient MathTransform toCoverageCrs;
+
+  /** From the CRS of the raster to grid coordinates, where integers are pixel centers. */
+  private final transient MathTransform toGrid;
+
+  /** The samples are floats, so the NO_DATA value is compared as a float too. */
+  private final float noData;
+  private final int minX;
+  private final int minY;
+  private final int maxX;
+  private final int maxY;
+  private final int tileGridXOffset;
+  private final int tileGridYOffset;
+  private final int tileWidth;
+  private final int tileHeight;
+  private final int minTileX;
+  private final int minTileY;
+  private final int numXTiles;
+
+  /** The decoded tiles, in rows of tiles. A tile is null until it is used. */
+  private final transient AtomicReferenceArray<float[]> tiles;
+
+  /** A lock for decoding each tile, so a tile is decoded once without waiting for the others. */
+  private final transient Object[] tileLocks;
+
+  public TiledGridCoverage(GridCoverage2D coverage) {
+    super(coverage.getName().toString(), coverage);
+    this.coverage = coverage;
+    this.image = coverage.getRenderedImage();
+    try {
+      MathTransform transform = CRS.findMathTransform(
+        GeometryUtils.WGS84_XY,
+        coverage.getCoordinateReferenceSystem2D(),
+        true
+      );
+      this.toCoverageCrs = transform.isIdentity() ? null : transform;
+    } catch (FactoryException e) {
+      throw new IllegalStateException("Elevation model CRS is not supported: " + e.getMessage(), e);
+    }
+    this.toGrid = coverage.getGridGeometry().getCRSToGrid2D(PixelOrientation.CENTER);
+
+    NoDataContainer noDataProperty = CoverageUtilities.getNoDataProperty(coverage);
+    this.noData = noDataProperty == null ? Float.NaN : (float) noDataProperty.getAsSingleValue();
+
+    this.minX = image.getMinX();
+    this.minY = image.getMinY();
+    this.maxX = minX + image.getWidth() - 1;
+    this.maxY = minY + image.getHeight() - 1;
+    this.tileGridXOffset = image.getTileGridXOffset();
+    this.tileGridYOffset = image.getTileGridYOffset();
+    this.tileWidth = image.getTileWidth();
+    this.tileHeight = image.getTileHeight();
+    this.minTileX = image.getMinTileX();
+    this.minTileY = image.getMinTileY();
+    this.numXTiles = image.getNumXTiles();
+    this.tiles = new AtomicReferenceArray<>(numXTiles * image.getNumYTiles());
+    this.tileLocks = new Object[tiles.length()];
+    for (int i = 0; i < tileLocks.length; ++i) {
+      tileLocks[i] = new Object();
+    }
+  }
+
+  @Override
+  public Object evaluate(DirectPosition point) throws CannotEvaluateException {
+    /* we don't use this function, we use evaluate(DirectPosition point, double[] values) */
+    return null;
+  }
+
+  @Override
+  public int getNumSampleDimensions() {
+    return coverage.getNumSampleDimensions();
+  }
+
+  @Override
+  public SampleDimension getSampleDimension(int index) throws IndexOutOfBoundsException {
+    return coverage.getSampleDimension(index);
+  }
+
+  /**
+   * Calculate the elevation at a given point
+   */
+  @Override
+  public double[] evaluate(DirectPosition point, double[] values) throws CannotEvaluateException {
+    double[] p = { point.getOrdinate(0), point.getOrdinate(1) };
+    try {
+      if (toCoverageCrs != null) {
+        toCoverageCrs.transform(p, 0, p, 0, 1);
+      }
+      toGrid.transform(p, 0, p, 0, 1);
+    } catch (TransformException e) {
+      throw new PointOutsideCoverageException(e.getMessage());
+    }
+    double gx = p[0];
+    double gy = p[1];
+    // A pixel covers half a pixel in each direction of its center
+    if (gx < minX - 0.5 || gx >= maxX + 0.5 || gy < minY - 0.5 || gy >= maxY + 0.5) {
+      throw new PointOutsideCoverageException("Point not found: " + point);
+    }
+
+    int x0 = (int) Math.floor(gx);
+    int y0 = (int) Math.floor(gy);
+    double fx = gx - x0;
+    double fy = gy - y0;
+    // Extend the border pixels outwards
+    int x1 = Math.min(x0 + 1, maxX);
+    int y1 = Math.min(y0 + 1, maxY);
+    x0 = Math.max(x0, minX);
+    y0 = Math.max(y0, minY);
+
+    double v00 = sample(x0, y0);
+    double v10 = sample(x1, y0);
+    double v01 = sample(x0, y1);
+    double v11 = sample(x1, y1);
+
+    if (values == null) {
+      values = new double[1];
+    }
+    values[0] = (v00 * (1 - fx) + v10 * fx) * (1 - fy) + (v01 * (1 - fx) + v11 * fx) * fy;
+    return values;
+  }
+
+  private double sample(int x, int y) {
+    int tileX = Math.floorDiv(x - tileGridXOffset, tileWidth);
+    int tileY = Math.floorDiv(y - tileGridYOffset, tileHeight);
+    Rectangle bounds = tileBounds(tileX, tileY);
+    float value = tile(tileX, tileY, bounds)[(y - bounds.y) * bounds.width + (x - bounds.x)];
+    if (Float.isNaN(value) || value == noData) {
+      throw new PointOutsideCoverageException("Value is NO_DATA.");
+    }
+    return value;
+  }
+
+  /** The part of the tile inside the image. */
+  private Rectangle tileBounds(int tileX, int tileY) {
+    int x = Math.max(tileGridXOffset + tileX * tileWidth, minX);
+    int y = Math.max(tileGridYOffset + tileY * tileHeight, minY);
+    int width = Math.min(tileGridXOffset + (tileX + 1) * tileWidth - 1, maxX) - x + 1;
+    int height = Math.min(tileGridYOffset + (tileY + 1) * tileHeight - 1, maxY) - y + 1;
+    return new Rectangle(x, y, width, height);
+  }
+
+  private float[] tile(int tileX, int tileY, Rectangle bounds) {
+    int index = (tileY - minTileY) * numXTiles + (tileX - minTileX);
+    float[] tile = tiles.get(index);
+    if (tile == null) {
+      // Decode each tile only once. The GeoTools images can be read from several threads.
+      synchronized (tileLocks[index]) {
+        tile = tiles.get(index);
+        if (tile == null) {
+          tile =
+            image
+              .getData(bounds)
+              .getSamples(bounds.x, bounds.y, bounds.width, bounds.height, 0, (float[]) null);
+          tiles.set(index, tile);
+        }
+      }
+    }
+    return tile;
+  }
+}
@@ -2,14 +2,11 @@ package org.opentripplanner.graph_builder.module.ned;
 
 import java.util.ArrayList;
 import java.util.List;
-import javax.media.jai.InterpolationBilinear;
 import org.geotools.coverage.AbstractCoverage;
 import org.geotools.coverage.grid.GridCoverage2D;
-import org.geotools.coverage.grid.Interpolator2D;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.index.SpatialIndex;
 import org.locationtech.jts.index.strtree.STRtree;
 import org.opengis.coverage.CannotEvaluateException;
 import org.opengis.coverage.Coverage;
@@ -39,7 +36,7 @@ public class UnifiedGridCoverage extends AbstractCoverage {
    * overall time is not as long, we leave this in here for the benefit of larger regions where this
    * will result in much better performance.
    */
-  private final SpatialIndex datumRegionIndex;
+  private final STRtree datumRegionIndex;
   private final ArrayList<Coverage> regions;
 
   /**
@@ -53,14 +50,11 @@ public class UnifiedGridCoverage extends AbstractCoverage {
     regions = new ArrayList<>();
     datumRegionIndex = new STRtree();
 
-    // Iterate through region coverages, creating Interpolators for each region and then adding them and the
+    // Iterate through region coverages, creating tiled coverages for each region and then adding them and the
     // intersected datum to the spatial index.
     for (GridCoverage2D regionCoverage : regionCoverages) {
       // TODO might bicubic interpolation give better results?
-      GridCoverage2D regionCoverageInterpolator = Interpolator2D.create(
-        regionCoverage,
-        new InterpolationBilinear()
-      );
+      Coverage regionCoverageInterpolator = new TiledGridCoverage(regionCoverage);
 
       // Iterate over datums to find intersection envelope with each region and add to spatial index.
       for (VerticalDatum datum : datums) {
@@ -70,14 +64,14 @@ public class UnifiedGridCoverage extends AbstractCoverage {
           datum.lowerLeftLatitude,
           datum.lowerLeftLatitude + datum.deltaLatitude
         );
-        ReferencedEnvelope regionEnvelope = new ReferencedEnvelope(
-          regionCoverageInterpolator.getEnvelope()
-        );
+        ReferencedEnvelope regionEnvelope = new ReferencedEnvelope(regionCoverage.getEnvelope());
         Envelope intersection = regionEnvelope.intersection(datumEnvelope);
         datumRegionIndex.insert(intersection, new DatumRegion(datum, regionCoverageInterpolator));
       }
       regions.add(regionCoverageInterpolator);
     }
+    // Build the index before it is queried from several threads
+    datumRegionIndex.build();
   }
 
   @Override
@@ -42,6 +42,7 @@ import org.opentripplanner.openstreetmap.model.OSMNode;
 import org.opentripplanner.openstreetmap.model.OSMRelation;
 import org.opentripplanner.openstreetmap.model.OSMRelationMember;
 import org.opentripplanner.openstreetmap.model.OSMTag;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
 import org.opentripplanner.openstreetmap.model.OSMWay;
 import org.opentripplanner.openstreetmap.model.OSMWithTags;
 import org.opentripplanner.routing.core.TraverseMode;
@@ -57,8 +58,11 @@ public class OSMDatabase {
 
   private final DataImportIssueStore issueStore;
 
-  /* Map of all nodes used in ways/areas keyed by their OSM ID */
-  private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+  /* The dictionary of the tags of all entities read into the database */
+  private final OSMTagDictionary tagDictionary = new OSMTagDictionary();
+
+  /* All nodes used in ways/areas keyed by their OSM ID */
+  private final OSMNodeStore nodesById = new OSMNodeStore();
 
   /* Map of all bike parking nodes, keyed by their OSM ID */
   private final TLongObjectMap<OSMNode> bikeParkingNodes = new TLongObjectHashMap<>();
@@ -139,6 +143,11 @@ public class OSMDatabase {
     this.boardingAreaRefTags = boardingAreaRefTags;
   }
 
+  /** The dictionary the entities read into this database keep their tags in. */
+  public OSMTagDictionary getTagDictionary() {
+    return tagDictionary;
+  }
+
   public OSMNode getNode(Long nodeId) {
     return nodesById.get(nodeId);
   }
@@ -236,11 +245,8 @@ public class OSMDatabase {
       return;
     }
 
-    if (nodesById.containsKey(node.getId())) {
-      return;
-    }
-
-    nodesById.put(node.getId(), node);
+    // The node store ignores duplicates
+    nodesById.add(node);
 
     if (nodesById.size() % 100000 == 0) {
       LOG.debug("nodes=" + nodesById.size());
@@ -375,6 +381,10 @@ public class OSMDatabase {
 
     markNodesForKeeping(waysById.valueCollection(), waysNodeIds);
     markNodesForKeeping(areaWaysById.valueCollection(), areaNodeIds);
+
+    // the nodes of this source are read next, they are merged with the nodes of the sources read
+    // before when the node phase is done
+    nodesById.unfreeze();
   }
 
   /**
@@ -382,6 +392,10 @@ public class OSMDatabase {
    * and nodes are loaded, handle areas.
    */
   public void doneThirdPhaseNodes() {
+    // all nodes of this source are loaded, after this the nodes of this and the sources read before
+    // can be looked up
+    nodesById.freeze();
+
     processMultipolygonRelations();
     processSingleWayAreas();
   }
@@ -700,13 +714,13 @@ public class OSMDatabase {
    * @return The created node.
    */
   private OSMNode createVirtualNode(Coordinate c) {
-    OSMNode node = new OSMNode();
+    OSMNode node = new OSMNode(tagDictionary);
     node.lon = c.x;
     node.lat = c.y;
     node.setId(virtualNodeId);
     virtualNodeId--;
     waysNodeIds.add(node.getId());
-    nodesById.put(node.getId(), node);
+    nodesById.add(node);
     return node;
   }
 
@@ -755,7 +769,7 @@ public class OSMDatabase {
       TLongIterator longIterator = way.getNodeRefs().iterator();
       while (longIterator.hasNext()) {
         long nodeRef = longIterator.next();
-        if (!nodesById.containsKey(nodeRef)) {
+        if (!nodesById.contains(nodeRef)) {
           continue AREA;
         }
       }
@@ -810,7 +824,7 @@ public class OSMDatabase {
         TLongIterator wayNodeIterator = way.getNodeRefs().iterator();
         while (wayNodeIterator.hasNext()) {
           long nodeId = wayNodeIterator.next();
-          if (nodesById.containsKey(nodeId)) {
+          if (nodesById.contains(nodeId)) {
             MapUtils.addToMapSet(areasForNode, nodeId, way);
           } else {
             // this area is missing some nodes, perhaps because it is on
@@ -1163,7 +1177,7 @@ public class OSMDatabase {
         } else {
           issueStore.add(new TooManyAreasInRelation(relation.getId()));
         }
-      } else if ("node".equals(member.getType()) && nodesById.containsKey(member.getRef())) {
+      } else if ("node".equals(member.getType()) && nodesById.contains(member.getRef())) {
         platformsNodes.add(nodesById.get(member.getRef()));
       }
     }
@@ -0,0 +1,314 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import java.util.Arrays;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * A compact store for the OSM nodes of the {@link OSMDatabase}. Most nodes are only a position on
+ * a way, without any tags. These are kept in a sorted array of ids, and two arrays of coordinates
+ * scaled to integers in the precision of the PBF format. An {@link OSMNode} is created for them
+ * when they are looked up. The nodes with tags, and the nodes added while the store is frozen, are
+ * kept as objects.
+ * <p>
+ * An untagged node takes 16 bytes, compared to an object with a hash map entry of about 80 bytes.
+ * <p>
+ * The nodes of an OSM source are added in its node phase, in the order of the file, and the store
+ * is then frozen with {@link #freeze()}. Nodes can only be looked up after that. When several OSM
+ * sources are read into the same database, the store is opened for the nodes of the next source
+ * with {@link #unfreeze()}, and these are merged into the arrays at the next freeze. If a node is
+ * added more than once, the first one is kept and the others are ignored.
+ */
+class OSMNodeStore {
+
+  /**
+   * The coordinates of the untagged nodes are rounded to 1e-7 degrees, about 1 cm. This is the
+   * precision of PBF files with the default granularity, and of the OSM XML format, so nodes read
+   * from those files keep their exact position. The largest scaled longitude, 1.8e9, fits in an
+   * int. Tagged nodes keep their coordinates as given.
+   */
+  static final double COORDINATE_SCALE = 1e7;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final TLongObjectMap<OSMNode> nodesWithTags = new TLongObjectHashMap<>();
+
+  /**
+   * For each tagged node added while the store is open, the number of untagged nodes added before
+   * it. This decides which node is kept if a node is added both with and without tags.
+   */
+  private TLongIntMap untaggedAddedBeforeTagged = new TLongIntHashMap();
+
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int[] lats = new int[INITIAL_CAPACITY];
+  private int[] lons = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /**
+   * The untagged nodes before this index are sorted by id and can be looked up. The nodes after it
+   * are the ones added since the store was opened, in the order they were added.
+   */
+  private int frozenSize = 0;
+
+  private boolean sorted = true;
+  private boolean frozen = false;
+
+  void add(OSMNode node) {
+    if (frozen) {
+      if (!contains(node.getId())) {
+        nodesWithTags.put(node.getId(), node);
+      }
+      return;
+    }
+    // The nodes of the sources read before are kept
+    if (indexOfFrozen(node.getId()) >= 0) {
+      return;
+    }
+    if (node.hasTags()) {
+      if (nodesWithTags.putIfAbsent(node.getId(), node) == null) {
+        untaggedAddedBeforeTagged.put(node.getId(), size);
+      }
+      return;
+    }
+    if (nodesWithTags.containsKey(node.getId())) {
+      return;
+    }
+    if (size == ids.length) {
+      int capacity = size + (size >> 1);
+      ids = Arrays.copyOf(ids, capacity);
+      lats = Arrays.copyOf(lats, capacity);
+      lons = Arrays.copyOf(lons, capacity);
+    }
+    if (size > frozenSize && ids[size - 1] >= node.getId()) {
+      sorted = false;
+    }
+    ids[size] = node.getId();
+    lats[size] = (int) Math.round(node.lat * COORDINATE_SCALE);
+    lons[size] = (int) Math.round(node.lon * COORDINATE_SCALE);
+    ++size;
+  }
+
+  OSMNode get(long id) {
+    OSMNode node = nodesWithTags.get(id);
+    if (node != null) {
+      return node;
+    }
+    int index = indexOf(id);
+    if (index < 0) {
+      return null;
+    }
+    node = new OSMNode();
+    node.setId(id);
+    node.lat = lats[index] / COORDINATE_SCALE;
+    node.lon = lons[index] / COORDINATE_SCALE;
+    return node;
+  }
+
+  boolean contains(long id) {
+    return nodesWithTags.containsKey(id) || indexOf(id) >= 0;
+  }
+
+  int size() {
+    return size + nodesWithTags.size();
+  }
+
+  /**
+   * Sort the untagged nodes added since the store was opened, remove the duplicates, merge them
+   * with the nodes of the sources read before, and trim the arrays. This is called at the end of
+   * the node phase of each source. Nodes added after this, like the virtual nodes of the areas, are
+   * kept as objects. After the store is frozen, nodes can be looked up from several threads, as
+   * long as no nodes are added.
+   */
+  void freeze() {
+    if (frozen) {
+      return;
+    }
+    frozen = true;
+    // The position each untagged node was added in, if they were not added in order of id
+    int[] order = null;
+    if (!sorted) {
+      order = new int[size - frozenSize];
+      for (int i = 0; i < order.length; ++i) {
+        order[i] = frozenSize + i;
+      }
+      sort(order);
+      removeDuplicates(order);
+    }
+    removeUntaggedDuplicatesOfTaggedNodes(order);
+    untaggedAddedBeforeTagged = null;
+    mergeWithFrozenNodes();
+    ids = Arrays.copyOf(ids, size);
+    lats = Arrays.copyOf(lats, size);
+    lons = Arrays.copyOf(lons, size);
+  }
+
+  /**
+   * Open the store for the nodes of another OSM source. The untagged nodes are added to the arrays
+   * again, and the nodes can not be looked up until the store is frozen. The store is open when it
+   * is created, so this does nothing before the first source is frozen.
+   */
+  void unfreeze() {
+    if (!frozen) {
+      return;
+    }
+    frozen = false;
+    sorted = true;
+    untaggedAddedBeforeTagged = new TLongIntHashMap();
+  }
+
+  private int indexOf(long id) {
+    if (!frozen) {
+      throw new IllegalStateException("The OSM nodes are looked up before the node phase is done");
+    }
+    return Arrays.binarySearch(ids, 0, size, id);
+  }
+
+  private int indexOfFrozen(long id) {
+    return frozenSize == 0 ? -1 : Arrays.binarySearch(ids, 0, frozenSize, id);
+  }
+
+  /**
+   * Merge the sorted nodes added since the store was opened with the sorted nodes before them. The
+   * ids are disjoint, as the nodes already present are not added. The new nodes are copied out and
+   * merged in from the end, so only the new nodes need extra memory.
+   */
+  private void mergeWithFrozenNodes() {
+    int n = size - frozenSize;
+    if (frozenSize > 0 && n > 0 && ids[frozenSize - 1] > ids[frozenSize]) {
+      long[] newIds = Arrays.copyOfRange(ids, frozenSize, size);
+      int[] newLats = Arrays.copyOfRange(lats, frozenSize, size);
+      int[] newLons = Arrays.copyOfRange(lons, frozenSize, size);
+      int i = frozenSize - 1;
+      int j = n - 1;
+      for (int to = size - 1; j >= 0; --to) {
+        if (i >= 0 && ids[i] > newIds[j]) {
+          ids[to] = ids[i];
+          lats[to] = lats[i];
+          lons[to] = lons[i];
+          --i;
+        } else {
+          ids[to] = newIds[j];
+          lats[to] = newLats[j];
+          lons[to] = newLons[j];
+          --j;
+        }
+      }
+    }
+    frozenSize = size;
+  }
+
+  /**
+   * Heap sort of the three arrays by id, without extra memory, for the nodes added since the store
+   * was opened. The heap sort is not stable, so nodes with the same id are sorted in the order they
+   * were added.
+   */
+  private void sort(int[] order) {
+    int n = order.length;
+    for (int i = n / 2 - 1; i >= 0; --i) {
+      siftDown(order, i, n);
+    }
+    for (int end = n - 1; end > 0; --end) {
+      swap(order, 0, end);
+      siftDown(order, 0, end);
+    }
+  }
+
+  private void siftDown(int[] order, int root, int end) {
+    while (true) {
+      int child = 2 * root + 1;
+      if (child >= end) {
+        return;
+      }
+      if (child + 1 < end && isBefore(order, child, child + 1)) {
+        ++child;
+      }
+      if (!isBefore(order, root, child)) {
+        return;
+      }
+      swap(order, root, child);
+      root = child;
+    }
+  }
+
+  /** Compare the nodes at the given positions relative to the first node added. */
+  private boolean isBefore(int[] order, int i, int j) {
+    long idI = ids[frozenSize + i];
+    long idJ = ids[frozenSize + j];
+    return idI < idJ || (idI == idJ && order[i] < order[j]);
+  }
+
+  private void swap(int[] order, int i, int j) {
+    int a = frozenSize + i;
+    int b = frozenSize + j;
+    long id = ids[a];
+    ids[a] = ids[b];
+    ids[b] = id;
+    int lat = lats[a];
+    lats[a] = lats[b];
+    lats[b] = lat;
+    int lon = lons[a];
+    lons[a] = lons[b];
+    lons[b] = lon;
+    int position = order[i];
+    order[i] = order[j];
+    order[j] = position;
+  }
+
+  /** Keep the first of the nodes with the same id, which is the first one added. */
+  private void removeDuplicates(int[] order) {
+    int n = frozenSize;
+    for (int i = frozenSize; i < size; ++i) {
+      if (n == frozenSize || ids[n - 1] != ids[i]) {
+        move(order, i, n);
+        ++n;
+      }
+    }
+    size = n;
+  }
+
+  /**
+   * If a node is added both with and without tags, keep the one added first. The untagged nodes
+   * are in the order they were added if {@code order} is null.
+   */
+  private void removeUntaggedDuplicatesOfTaggedNodes(int[] order) {
+    boolean[] removed = null;
+    for (var it = untaggedAddedBeforeTagged.iterator(); it.hasNext();) {
+      it.advance();
+      int index = Arrays.binarySearch(ids, frozenSize, size, it.key());
+      if (index < 0) {
+        continue;
+      }
+      int position = order == null ? index : order[index - frozenSize];
+      if (position < it.value()) {
+        nodesWithTags.remove(it.key());
+      } else {
+        if (removed == null) {
+          removed = new boolean[size - frozenSize];
+        }
+        removed[index - frozenSize] = true;
+      }
+    }
+    if (removed != null) {
+      int n = frozenSize;
+      for (int i = frozenSize; i < size; ++i) {
+        if (!removed[i - frozenSize]) {
+          move(order, i, n);
+          ++n;
+        }
+      }
+      size = n;
+    }
+  }
+
+  private void move(int[] order, int from, int to) {
+    ids[to] = ids[from];
+    lats[to] = lats[from];
+    lons[to] = lons[from];
+    if (order != null) {
+      order[to - frozenSize] = order[from - frozenSize];
+    }
+  }
+}
@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.opentripplanner.common.model.P2;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
 import org.opentripplanner.openstreetmap.model.OSMWithTags;
 
 /**
@@ -26,12 +28,19 @@ import org.opentripplanner.openstreetmap.model.OSMWithTags;
  * would receive too high a safety value leading to undesired detours.
  * <p>
  * Logical ORs are only implemented for mixins without wildcards.
+ * <p>
+ * The tags are compiled to the ids of the {@link OSMTagDictionary} of the entities matched, so
+ * matching an entity compares ints instead of strings. The entities of a build share one
+ * dictionary, so the tags are only compiled again when a specifier is used in another build.
  */
 public class OSMSpecifier {
 
   private List<P2<String>> logicalANDPairs = new ArrayList<>(3);
   private List<P2<String>> logicalORPairs = new ArrayList<>(3);
 
+  /** The tags compiled for the dictionary of the last entity matched. */
+  private volatile CompiledTags compiledTags;
+
   public OSMSpecifier(String spec) {
     if (spec.contains("|") && spec.contains(";")) {
       throw new RuntimeException(
@@ -65,10 +74,11 @@ public class OSMSpecifier {
    * @param match an OSM tagged object to compare to this specifier
    */
   public P2<Integer> matchScores(OSMWithTags match) {
-    if (!logicalANDPairs.isEmpty()) {
-      return computeANDScore(match);
+    CompiledTags tags = compiledTags(match);
+    if (!tags.logicalANDTags().isEmpty()) {
+      return computeANDScore(match, tags.logicalANDTags());
     } else {
-      return computeORScore(match);
+      return computeORScore(match, tags.logicalORTags());
     }
   }
 
@@ -77,19 +87,17 @@ public class OSMSpecifier {
    * exactly the same thing as matchScores but without regard for :left and :right.
    */
   public int matchScore(OSMWithTags match) {
+    List<CompiledTag> logicalANDTags = compiledTags(match).logicalANDTags();
     int score = 0;
     int matches = 0;
-    for (P2<String> pair : logicalANDPairs) {
-      String tag = pair.first.toLowerCase();
-      String value = pair.second.toLowerCase();
-      String matchValue = match.getTag(tag);
-      int tagScore = getTagScore(value, matchValue);
+    for (CompiledTag tag : logicalANDTags) {
+      int tagScore = tag.score(match.getTagValueId(tag.keyId));
       score += tagScore;
       if (tagScore > 0) {
         matches += 1;
       }
     }
-    score += matches == logicalANDPairs.size() ? 10 : 0;
+    score += matches == logicalANDTags.size() ? 10 : 0;
     return score;
   }
 
@@ -114,6 +122,43 @@ public class OSMSpecifier {
     return !logicalORPairs.isEmpty();
   }
 
+  /**
+   * The keys, in lower case, an entity must have at least one of to get a score above zero. For
+   * {@link #matchScores(OSMWithTags)} this includes the :left and :right keys. {@link
+   * #matchScore(OSMWithTags)} only scores the AND tags, so a specifier without AND tags always gets
+   * a score, and no keys are returned.
+   */
+  List<String> getKeys(boolean sided) {
+    if (!sided) {
+      return logicalANDPairs
+        .stream()
+        .map(pair -> pair.first.toLowerCase())
+        .distinct()
+        .collect(Collectors.toList());
+    }
+    return Stream
+      .concat(logicalANDPairs.stream(), logicalORPairs.stream())
+      .map(pair -> pair.first.toLowerCase())
+      .flatMap(key -> Stream.of(key, key + ":left", key + ":right"))
+      .distinct()
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * The tags compiled for the dictionary of the given entity. An entity without tags matches no
+   * tag, so the tags compiled for any dictionary can be used.
+   */
+  private CompiledTags compiledTags(OSMWithTags match) {
+    OSMTagDictionary dictionary = match.getTagDictionary();
+    CompiledTags tags = compiledTags;
+    if (tags != null && (dictionary == null || tags.dictionary() == dictionary)) {
+      return tags;
+    }
+    tags = CompiledTags.of(this, dictionary == null ? new OSMTagDictionary() : dictionary);
+    compiledTags = tags;
+    return tags;
+  }
+
   private List<P2<String>> getPairsFromString(String spec, String separator) {
     return Arrays
       .stream(spec.split(separator))
@@ -125,76 +170,122 @@ public class OSMSpecifier {
       .collect(Collectors.toList());
   }
 
-  private P2<Integer> computeORScore(OSMWithTags match) {
+  private P2<Integer> computeORScore(OSMWithTags match, List<CompiledTag> logicalORTags) {
     // not sure if we should calculate a proper score as it doesn't make a huge amount of sense to do it for
     // logical OR conditions
-    var oneOfORPairMatches = logicalORPairs
+    var oneOfORPairMatches = logicalORTags
       .stream()
-      .anyMatch(pair -> match.isTag(pair.first, pair.second));
+      .anyMatch(tag -> match.getTagValueId(tag.keyId) == tag.valueId);
     if (oneOfORPairMatches) {
       return new P2<>(1, 1);
     } else return new P2<>(0, 0);
   }
 
-  private P2<Integer> computeANDScore(OSMWithTags match) {
+  private P2<Integer> computeANDScore(OSMWithTags match, List<CompiledTag> logicalANDTags) {
     int leftScore = 0, rightScore = 0;
     int leftMatches = 0, rightMatches = 0;
 
-    for (P2<String> pair : logicalANDPairs) {
-      // TODO why are we repeatedly converting these to lower case every time they are used?
-      // Probably because it used to be possible to set them from Spring XML.
-      String tag = pair.first.toLowerCase();
-      String value = pair.second.toLowerCase();
-      String leftMatchValue = match.getTag(tag + ":left");
-      String rightMatchValue = match.getTag(tag + ":right");
-      String matchValue = match.getTag(tag);
-      if (leftMatchValue == null) {
+    for (CompiledTag tag : logicalANDTags) {
+      int leftMatchValue = match.getTagValueId(tag.leftKeyId);
+      int rightMatchValue = match.getTagValueId(tag.rightKeyId);
+      int matchValue = match.getTagValueId(tag.keyId);
+      if (leftMatchValue == OSMTagDictionary.NOT_FOUND) {
         leftMatchValue = matchValue;
       }
-      if (rightMatchValue == null) {
+      if (rightMatchValue == OSMTagDictionary.NOT_FOUND) {
         rightMatchValue = matchValue;
       }
-      int leftTagScore = getTagScore(value, leftMatchValue);
+      int leftTagScore = tag.score(leftMatchValue);
       leftScore += leftTagScore;
       if (leftTagScore > 0) {
         leftMatches++;
       }
-      int rightTagScore = getTagScore(value, rightMatchValue);
+      int rightTagScore = tag.score(rightMatchValue);
       rightScore += rightTagScore;
       if (rightTagScore > 0) {
         rightMatches++;
       }
     }
 
-    int allMatchLeftBonus = (leftMatches == logicalANDPairs.size()) ? 10 : 0;
+    int allMatchLeftBonus = (leftMatches == logicalANDTags.size()) ? 10 : 0;
     leftScore += allMatchLeftBonus;
-    int allMatchRightBonus = (rightMatches == logicalANDPairs.size()) ? 10 : 0;
+    int allMatchRightBonus = (rightMatches == logicalANDTags.size()) ? 10 : 0;
     rightScore += allMatchRightBonus;
     return new P2<>(leftScore, rightScore);
   }
 
+  /** The tags of a specifier compiled to the ids of a dictionary. */
+  private record CompiledTags(
+    OSMTagDictionary dictionary,
+    List<CompiledTag> logicalANDTags,
+    List<CompiledTag> logicalORTags
+  ) {
+    static CompiledTags of(OSMSpecifier specifier, OSMTagDictionary dictionary) {
+      return new CompiledTags(
+        dictionary,
+        specifier.logicalANDPairs
+          .stream()
+          .map(pair -> CompiledTag.of(dictionary, pair))
+          .collect(Collectors.toList()),
+        // OR conditions match the value case-sensitive, see OSMWithTags#isTag
+        specifier.logicalORPairs
+          .stream()
+          .map(pair -> CompiledTag.of(dictionary, pair.first, pair.second))
+          .collect(Collectors.toList())
+      );
+    }
+  }
+
   /**
-   * Calculates a score indicating how well an OSM tag value matches the given matchValue. An exact
-   * match is worth 100 points, a partial match on the part of the value before a colon is worth 75
-   * points, and a wildcard match is worth only one point, to serve as a tiebreaker. A score of 0
-   * means they do not match.
+   * A tag of the specifier, with the {@link OSMTagDictionary} ids of the key, the :left and :right
+   * keys, the value and the part of the value before a colon. The ids are added to the dictionary,
+   * so the specifier matches entities parsed after it is compiled.
    */
-  private int getTagScore(String value, String matchValue) {
-    // either this matches on a wildcard, or it matches exactly
-    if (value.equals("*") && matchValue != null) {
-      return 1; // wildcard matches are basically tiebreakers
-    } else if (value.equals(matchValue)) {
-      return 100;
-    } else {
-      if (value.contains(":")) {
-        // treat cases like cobblestone:flattened as cobblestone if a more-specific match
-        // does not apply
-        value = value.split(":", 2)[0];
-        if (value.equals(matchValue)) {
-          return 75;
-        } else {
-          return 0;
-        }
+  private static class CompiledTag {
+
+    private final int keyId;
+    private final int leftKeyId;
+    private final int rightKeyId;
+    private final int valueId;
+    private final int prefixValueId;
+    private final boolean wildcard;
+
+    private CompiledTag(OSMTagDictionary dictionary, String key, String value) {
+      this.keyId = dictionary.id(key);
+      this.leftKeyId = dictionary.id(key + ":left");
+      this.rightKeyId = dictionary.id(key + ":right");
+      this.valueId = dictionary.id(value);
+      // treat cases like cobblestone:flattened as cobblestone if a more-specific match
+      // does not apply
+      this.prefixValueId =
+        value.contains(":") ? dictionary.id(value.split(":", 2)[0]) : OSMTagDictionary.NOT_FOUND;
+      this.wildcard = value.equals("*");
+    }
+
+    static CompiledTag of(OSMTagDictionary dictionary, P2<String> pair) {
+      return new CompiledTag(dictionary, pair.first.toLowerCase(), pair.second.toLowerCase());
+    }
+
+    static CompiledTag of(OSMTagDictionary dictionary, String key, String value) {
+      return new CompiledTag(dictionary, key.toLowerCase(), value);
+    }
+
+    /**
+     * Calculates a score indicating how well an OSM tag value matches this tag. An exact match is
+     * worth 100 points, a partial match on the part of the value before a colon is worth 75
+     * points, and a wildcard match is worth only one point, to serve as a tiebreaker. A score of 0
+     * means they do not match.
+     */
+    int score(int matchValueId) {
+      if (matchValueId == OSMTagDictionary.NOT_FOUND) {
+        return 0;
+      }
+      if (wildcard) {
+        return 1; // wildcard matches are basically tiebreakers
+      } else if (matchValueId == valueId) {
+        return 100;
+      } else if (matchValueId == prefixValueId) {
+        return 75;
       } else {
         return 0;
       }
@@ -0,0 +1,95 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
+import org.opentripplanner.openstreetmap.model.OSMWithTags;
+
+/**
+ * Index a list of {@link OSMSpecifier}s by the tag keys they match on. A specifier can only get a
+ * score above zero if the entity has at least one of its keys, so only these specifiers need to be
+ * scored. The candidates are returned by their position in the list, so they can be scored in the
+ * same order as the list. This way ties are resolved the same way as when scoring all of them.
+ * <p>
+ * A specifier without any keys is always a candidate.
+ * <p>
+ * The keys are looked up by the ids of the {@link OSMTagDictionary} of the entities, this index is
+ * created the first time an entity of a dictionary is matched.
+ */
+class OSMSpecifierIndex {
+
+  /**
+   * If the specifiers are scored with {@link OSMSpecifier#matchScores(OSMWithTags)}, otherwise
+   * with {@link OSMSpecifier#matchScore(OSMWithTags)}.
+   */
+  private final boolean sided;
+
+  private final Map<String, TIntList> indexesByKey = new HashMap<>();
+  private final TIntList specifiersWithoutKeys = new TIntArrayList();
+  private int size = 0;
+
+  /** The specifiers by key id, for the dictionary of the last entity matched. */
+  private volatile KeyIdIndex keyIdIndex;
+
+  OSMSpecifierIndex(boolean sided) {
+    this.sided = sided;
+  }
+
+  /** Add the specifier at the next position in the list. */
+  void add(OSMSpecifier specifier) {
+    int index = size++;
+    keyIdIndex = null;
+    var keys = specifier.getKeys(sided);
+    if (keys.isEmpty()) {
+      specifiersWithoutKeys.add(index);
+      return;
+    }
+    for (String key : keys) {
+      indexesByKey.computeIfAbsent(key, k -> new TIntArrayList()).add(index);
+    }
+  }
+
+  /**
+   * The positions of the specifiers which can match the given entity. Iterate over the set bits
+   * to score them in the order they were added.
+   */
+  BitSet candidates(OSMWithTags entity) {
+    BitSet candidates = new BitSet(size);
+    specifiersWithoutKeys.forEach(index -> {
+      candidates.set(index);
+      return true;
+    });
+    if (!entity.hasTags()) {
+      return candidates;
+    }
+    TIntObjectMap<TIntList> indexesByKeyId = indexesByKeyId(entity.getTagDictionary());
+    entity.forEachTagKeyId(keyId -> {
+      TIntList indexes = indexesByKeyId.get(keyId);
+      if (indexes != null) {
+        indexes.forEach(index -> {
+          candidates.set(index);
+          return true;
+        });
+      }
+    });
+    return candidates;
+  }
+
+  private TIntObjectMap<TIntList> indexesByKeyId(OSMTagDictionary dictionary) {
+    KeyIdIndex index = keyIdIndex;
+    if (index == null || index.dictionary() != dictionary) {
+      TIntObjectMap<TIntList> indexesByKeyId = new TIntObjectHashMap<>();
+      indexesByKey.forEach((key, indexes) -> indexesByKeyId.put(dictionary.id(key), indexes));
+      index = new KeyIdIndex(dictionary, indexesByKeyId);
+      keyIdIndex = index;
+    }
+    return index.indexesByKeyId();
+  }
+
+  private record KeyIdIndex(OSMTagDictionary dictionary, TIntObjectMap<TIntList> indexesByKeyId) {}
+}
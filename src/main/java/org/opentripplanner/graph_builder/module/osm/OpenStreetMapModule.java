@@ -210,6 +210,9 @@ public class OpenStreetMapModule implements GraphBuilderModule {
 
     private static final String nodeLabelFormat = "osm:node:%d";
 
+    /** The number of ways split into segments in parallel before their edges are created. */
+    private static final int WAY_BATCH_SIZE = 10_000;
+
     private static final String levelnodeLabelFormat = nodeLabelFormat + ":level:%s";
 
     private final Graph graph;
@@ -280,7 +283,16 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       WayProperties wayData,
       OSMWithTags way
     ) {
-      Set<T2<StreetNote, NoteMatcher>> notes = wayPropertySet.getNoteForWay(way);
+      applyWayProperties(street, backStreet, wayData, wayPropertySet.getNoteForWay(way), way);
+    }
+
+    private void applyWayProperties(
+      StreetEdge street,
+      StreetEdge backStreet,
+      WayProperties wayData,
+      Set<T2<StreetNote, NoteMatcher>> notes,
+      OSMWithTags way
+    ) {
       boolean motorVehicleNoThrough = wayPropertySetSource.isMotorVehicleThroughTrafficExplicitlyDisallowed(
         way
       );
@@ -856,171 +868,241 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       return AreaGroup.groupAreas(areasLevels);
     }
 
+    /**
+     * Build the street segment graph from OSM ways. The ways are processed in batches. The tag
+     * matching, node filtering and segment geometries of a batch are computed in parallel, since
+     * they only read the OSM data. The vertices and edges are then created on a single thread in
+     * the order of the ways, so the graph, the vertex labels and the issues are the same as when
+     * building sequentially.
+     */
     private void buildBasicGraph() {
-      /* build the street segment graph from OSM ways */
       long wayIndex = 0;
-      long wayCount = osmdb.getWays().size();
+      List<OSMWay> ways = new ArrayList<>(osmdb.getWays());
+      long wayCount = ways.size();
       ProgressTracker progress = ProgressTracker.track("Build street graph", 5_000, wayCount);
       LOG.info(progress.startMessage());
 
-      WAY:for (OSMWay way : osmdb.getWays()) {
-        if (wayIndex % 10000 == 0) LOG.debug("ways=" + wayIndex + "/" + wayCount);
-        wayIndex++;
+      for (int batchStart = 0; batchStart < ways.size(); batchStart += WAY_BATCH_SIZE) {
+        List<WaySegments> batch = ways
+          .subList(batchStart, Math.min(batchStart + WAY_BATCH_SIZE, ways.size()))
+          .parallelStream()
+          .map(this::splitWayIntoSegments)
+          .collect(Collectors.toList());
 
-        WayProperties wayData = wayPropertySet.getDataForWay(way);
+        for (WaySegments waySegments : batch) {
+          if (wayIndex % 10000 == 0) LOG.debug("ways=" + wayIndex + "/" + wayCount);
+          wayIndex++;
 
-        setWayName(way);
+          buildEdgesForWay(waySegments);
 
-        StreetTraversalPermission permissions = OSMFilter.getPermissionsForWay(
-          way,
-          wayData.getPermission(),
-          banDiscouragedWalking,
-          banDiscouragedBiking,
-          issueStore
-        );
-        if (!OSMFilter.isWayRoutable(way) || permissions.allowsNothing()) continue;
-
-        // handle duplicate nodes in OSM ways
-        // this is a workaround for crappy OSM data quality
-        ArrayList<Long> nodes = new ArrayList<>(way.getNodeRefs().size());
-        long last = -1;
-        double lastLat = -1, lastLon = -1;
-        String lastLevel = null;
-        for (TLongIterator iter = way.getNodeRefs().iterator(); iter.hasNext();) {
-          long nodeId = iter.next();
-          OSMNode node = osmdb.getNode(nodeId);
-          if (node == null) continue WAY;
-          boolean levelsDiffer = false;
-          String level = node.getTag("level");
-          if (lastLevel == null) {
-            if (level != null) {
-              levelsDiffer = true;
-            }
-          } else {
-            if (!lastLevel.equals(level)) {
-              levelsDiffer = true;
-            }
-          }
-          if (
-            nodeId != last && (node.lat != lastLat || node.lon != lastLon || levelsDiffer)
-          ) nodes.add(nodeId);
-          last = nodeId;
-          lastLon = node.lon;
-          lastLat = node.lat;
-          lastLevel = level;
+          //Keep lambda! A method-ref would log incorrect class and line number
+          //noinspection Convert2MethodRef
+          progress.step(m -> LOG.info(m));
         }
+      } // END loop over OSM ways
 
-        OsmVertex startEndpoint = null;
-        OsmVertex endEndpoint = null;
+      LOG.info(progress.completeMessage());
+    }
 
-        ArrayList<Coordinate> segmentCoordinates = new ArrayList<>();
+    /**
+     * Match the way tags and split the way into the segments between graph vertices. This does not
+     * modify the graph, and is safe to call in parallel for different ways.
+     */
+    private WaySegments splitWayIntoSegments(OSMWay way) {
+      setWayName(way);
+
+      // The rules are matched once per way, not for each segment on the edge creation thread
+      WayRules rules = new WayRules(
+        wayPropertySet.getDataForWay(way),
+        wayPropertySet.getCarSpeedForWay(way, false),
+        wayPropertySet.getCarSpeedForWay(way, true),
+        wayPropertySet.getSlopeOverride(way),
+        wayPropertySet.getNoteForWay(way)
+      );
 
-        /*
-         * Traverse through all the nodes of this edge. For nodes which are not shared with any other edge, do not create endpoints -- just
-         * accumulate them for geometry and ele tags. For nodes which are shared, create endpoints and StreetVertex instances. One exception:
-         * if the next vertex also appears earlier in the way, we need to split the way, because otherwise we have a way that loops from a
-         * vertex to itself, which could cause issues with splitting.
-         */
-        Long startNode = null;
-        // where the current edge should start
-        OSMNode osmStartNode = null;
+      // handle duplicate nodes in OSM ways
+      // this is a workaround for crappy OSM data quality
+      ArrayList<Long> nodes = new ArrayList<>(way.getNodeRefs().size());
+      long last = -1;
+      double lastLat = -1, lastLon = -1;
+      String lastLevel = null;
+      for (TLongIterator iter = way.getNodeRefs().iterator(); iter.hasNext();) {
+        long nodeId = iter.next();
+        OSMNode node = osmdb.getNode(nodeId);
+        if (node == null) return new WaySegments(way, rules, null);
+        boolean levelsDiffer = false;
+        String level = node.getTag("level");
+        if (lastLevel == null) {
+          if (level != null) {
+            levelsDiffer = true;
+          }
+        } else {
+          if (!lastLevel.equals(level)) {
+            levelsDiffer = true;
+          }
+        }
+        if (
+          nodeId != last && (node.lat != lastLat || node.lon != lastLon || levelsDiffer)
+        ) nodes.add(nodeId);
+        last = nodeId;
+        lastLon = node.lon;
+        lastLat = node.lat;
+        lastLevel = level;
+      }
 
-        for (int i = 0; i < nodes.size() - 1; i++) {
-          OSMNode segmentStartOSMNode = osmdb.getNode(nodes.get(i));
+      List<Segment> segments = new ArrayList<>();
+      ArrayList<Coordinate> segmentCoordinates = new ArrayList<>();
 
-          if (segmentStartOSMNode == null) {
-            continue;
-          }
+      /*
+       * Traverse through all the nodes of this edge. For nodes which are not shared with any other edge, do not create endpoints -- just
+       * accumulate them for geometry and ele tags. For nodes which are shared, create endpoints and StreetVertex instances. One exception:
+       * if the next vertex also appears earlier in the way, we need to split the way, because otherwise we have a way that loops from a
+       * vertex to itself, which could cause issues with splitting.
+       */
+      Long startNode = null;
+      // where the current edge should start
+      OSMNode osmStartNode = null;
 
-          Long endNode = nodes.get(i + 1);
+      for (int i = 0; i < nodes.size() - 1; i++) {
+        OSMNode segmentStartOSMNode = osmdb.getNode(nodes.get(i));
 
-          if (osmStartNode == null) {
-            startNode = nodes.get(i);
-            osmStartNode = segmentStartOSMNode;
-          }
-          // where the current edge might end
-          OSMNode osmEndNode = osmdb.getNode(endNode);
+        if (segmentStartOSMNode == null) {
+          continue;
+        }
 
-          LineString geometry;
+        Long endNode = nodes.get(i + 1);
 
-          /*
-           * We split segments at intersections, self-intersections, nodes with ele tags, and transit stops;
-           * the only processing we do on other nodes is to accumulate their geometry
-           */
-          if (segmentCoordinates.size() == 0) {
-            segmentCoordinates.add(getCoordinate(osmStartNode));
-          }
+        if (osmStartNode == null) {
+          startNode = nodes.get(i);
+          osmStartNode = segmentStartOSMNode;
+        }
+        // where the current edge might end
+        OSMNode osmEndNode = osmdb.getNode(endNode);
 
-          if (
+        /*
+         * We split segments at intersections, self-intersections, nodes with ele tags, and transit stops;
+         * the only processing we do on other nodes is to accumulate their geometry
+         */
+        if (segmentCoordinates.size() == 0) {
+          segmentCoordinates.add(getCoordinate(osmStartNode));
+        }
+
+        segmentCoordinates.add(getCoordinate(osmEndNode));
+        if (
+          !(
             intersectionNodes.containsKey(endNode) ||
             i == nodes.size() - 2 ||
             nodes.subList(0, i).contains(nodes.get(i)) ||
             osmEndNode.hasTag("ele") ||
             osmEndNode.isBoardingLocation() ||
             osmEndNode.isBarrier()
-          ) {
-            segmentCoordinates.add(getCoordinate(osmEndNode));
-
-            geometry =
-              GeometryUtils
-                .getGeometryFactory()
-                .createLineString(segmentCoordinates.toArray(new Coordinate[0]));
-            segmentCoordinates.clear();
-          } else {
-            segmentCoordinates.add(getCoordinate(osmEndNode));
-            continue;
-          }
+          )
+        ) {
+          continue;
+        }
 
-          /* generate endpoints */
-          if (startEndpoint == null) { // first iteration on this way
-            // make or get a shared vertex for flat intersections,
-            // one vertex per level for multilevel nodes like elevators
-            startEndpoint = getVertexForOsmNode(osmStartNode, way);
-            String ele = segmentStartOSMNode.getTag("ele");
-            if (ele != null) {
-              Double elevation = ElevationUtils.parseEleTag(ele);
-              if (elevation != null) {
-                elevationData.put(startEndpoint, elevation);
-              }
-            }
-          } else { // subsequent iterations
-            startEndpoint = endEndpoint;
-          }
+        LineString geometry = GeometryUtils
+          .getGeometryFactory()
+          .createLineString(segmentCoordinates.toArray(new Coordinate[0]));
+        segmentCoordinates.clear();
+
+        segments.add(new Segment(i, startNode, nodes.get(i), endNode, geometry));
+        startNode = endNode;
+        osmStartNode = osmdb.getNode(startNode);
+      }
+      return new WaySegments(way, rules, segments);
+    }
+
+    /** Create the vertices and edges of a way. This modifies the graph. */
+    private void buildEdgesForWay(WaySegments waySegments) {
+      OSMWay way = waySegments.way();
+      WayRules rules = waySegments.rules();
+      WayProperties wayData = rules.wayData();
+
+      StreetTraversalPermission permissions = OSMFilter.getPermissionsForWay(
+        way,
+        wayData.getPermission(),
+        banDiscouragedWalking,
+        banDiscouragedBiking,
+        issueStore
+      );
+      if (!OSMFilter.isWayRoutable(way) || permissions.allowsNothing()) return;
+
+      // a node of the way is missing
+      if (waySegments.segments() == null) return;
+
+      OsmVertex startEndpoint = null;
+      OsmVertex endEndpoint = null;
+
+      for (Segment segment : waySegments.segments()) {
+        OSMNode osmStartNode = osmdb.getNode(segment.startNode());
+        OSMNode osmEndNode = osmdb.getNode(segment.endNode());
 
-          endEndpoint = getVertexForOsmNode(osmEndNode, way);
-          String ele = osmEndNode.getTag("ele");
+        /* generate endpoints */
+        if (startEndpoint == null) { // first iteration on this way
+          // make or get a shared vertex for flat intersections,
+          // one vertex per level for multilevel nodes like elevators
+          startEndpoint = getVertexForOsmNode(osmStartNode, way);
+          String ele = osmdb.getNode(segment.lastStartNode()).getTag("ele");
           if (ele != null) {
             Double elevation = ElevationUtils.parseEleTag(ele);
             if (elevation != null) {
-              elevationData.put(endEndpoint, elevation);
+              elevationData.put(startEndpoint, elevation);
             }
           }
-          P2<StreetEdge> streets = getEdgesForStreet(
-            startEndpoint,
-            endEndpoint,
-            way,
-            i,
-            osmStartNode.getId(),
-            osmEndNode.getId(),
-            permissions,
-            geometry
-          );
-
-          StreetEdge street = streets.first;
-          StreetEdge backStreet = streets.second;
-          applyWayProperties(street, backStreet, wayData, way);
+        } else { // subsequent iterations
+          startEndpoint = endEndpoint;
+        }
 
-          applyEdgesToTurnRestrictions(way, startNode, endNode, street, backStreet);
-          startNode = endNode;
-          osmStartNode = osmdb.getNode(startNode);
+        endEndpoint = getVertexForOsmNode(osmEndNode, way);
+        String ele = osmEndNode.getTag("ele");
+        if (ele != null) {
+          Double elevation = ElevationUtils.parseEleTag(ele);
+          if (elevation != null) {
+            elevationData.put(endEndpoint, elevation);
+          }
         }
+        P2<StreetEdge> streets = getEdgesForStreet(
+          startEndpoint,
+          endEndpoint,
+          way,
+          segment.index(),
+          osmStartNode.getId(),
+          osmEndNode.getId(),
+          permissions,
+          rules,
+          segment.geometry()
+        );
 
-        //Keep lambda! A method-ref would log incorrect class and line number
-        //noinspection Convert2MethodRef
-        progress.step(m -> LOG.info(m));
-      } // END loop over OSM ways
+        StreetEdge street = streets.first;
+        StreetEdge backStreet = streets.second;
+        applyWayProperties(street, backStreet, wayData, notesForSegment(rules.notes()), way);
 
-      LOG.info(progress.completeMessage());
+        applyEdgesToTurnRestrictions(
+          way,
+          segment.startNode(),
+          segment.endNode(),
+          street,
+          backStreet
+        );
+      }
+    }
+
+    /**
+     * The notes are matched once per way, but each segment gets its own note instances, as the
+     * street notes of an itinerary are collected by identity.
+     */
+    private static Set<T2<StreetNote, NoteMatcher>> notesForSegment(
+      Set<T2<StreetNote, NoteMatcher>> notes
+    ) {
+      if (notes == null) {
+        return null;
+      }
+      Set<T2<StreetNote, NoteMatcher>> copy = new HashSet<>();
+      for (T2<StreetNote, NoteMatcher> note : notes) {
+        copy.add(new T2<>(new StreetNote(note.first.note), note.second));
+      }
+      return copy;
     }
 
     private void setWayName(OSMWithTags way) {
@@ -1424,6 +1506,34 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       return new Coordinate(osmNode.lon, osmNode.lat);
     }
 
+    /**
+     * The segments of a way between graph vertices, or {@code null} segments if a node of the way
+     * is missing.
+     */
+    private record WaySegments(OSMWay way, WayRules rules, List<Segment> segments) {}
+
+    /** The results of matching the tags of a way with the {@link WayPropertySet}. */
+    private record WayRules(
+      WayProperties wayData,
+      float carSpeed,
+      float backCarSpeed,
+      boolean slopeOverride,
+      Set<T2<StreetNote, NoteMatcher>> notes
+    ) {}
+
+    /**
+     * A street segment of a way, from the node {@code startNode} to the node {@code endNode}.
+     * {@code index} and {@code lastStartNode} are the position and the node of the last segment
+     * start in the way, before the end node.
+     */
+    private record Segment(
+      int index,
+      long startNode,
+      long lastStartNode,
+      long endNode,
+      LineString geometry
+    ) {}
+
     private String getNodeLabel(OSMNode node) {
       return String.format(nodeLabelFormat, node.getId());
     }
@@ -1457,6 +1567,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       long startNode,
       long endNode,
       StreetTraversalPermission permissions,
+      WayRules rules,
       LineString geometry
     ) {
       // No point in returning edges that can't be traversed by anyone.
@@ -1481,6 +1592,8 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             index,
             length,
             permissionsFront,
+            rules.carSpeed(),
+            rules.slopeOverride(),
             geometry,
             false
           );
@@ -1494,6 +1607,8 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             index,
             length,
             permissionsBack,
+            rules.backCarSpeed(),
+            rules.slopeOverride(),
             backGeometry,
             true
           );
@@ -1518,6 +1633,8 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       int index,
       double length,
       StreetTraversalPermission permissions,
+      float carSpeed,
+      boolean slopeOverride,
       LineString geometry,
       boolean back
     ) {
@@ -1525,8 +1642,6 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       label = label.intern();
       I18NString name = getNameForWay(way, label);
 
-      float carSpeed = wayPropertySet.getCarSpeedForWay(way, back);
-
       StreetEdge street = new StreetEdge(
         startEndpoint,
         endEndpoint,
@@ -1581,7 +1696,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
         street.setWheelchairAccessible(false);
       }
 
-      street.setSlopeOverride(wayPropertySet.getSlopeOverride(way));
+      street.setSlopeOverride(slopeOverride);
 
       // < 0.04: account for
       if (carSpeed < 0.04) {
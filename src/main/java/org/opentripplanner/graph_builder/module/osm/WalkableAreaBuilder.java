@@ -1,5 +1,7 @@
 package org.opentripplanner.graph_builder.module.osm;
 
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -9,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
@@ -18,6 +21,8 @@ import org.locationtech.jts.geom.MultiLineString;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.model.P2;
@@ -73,6 +78,9 @@ public class WalkableAreaBuilder {
 
   private static final Logger LOG = LoggerFactory.getLogger(WalkableAreaBuilder.class);
 
+  /** The number of visibility nodes per chunk of line of sight checks done in parallel. */
+  private static final int VISIBILITY_CHUNK_SIZE = 32;
+
   private final DataImportIssueStore issueStore;
 
   private final int maxAreaNodes;
@@ -308,44 +316,101 @@ public class WalkableAreaBuilder {
 
       createNamedAreas(edgeList, ring, group.areas);
 
-      for (OSMNode nodeI : visibilityNodes) {
-        IntersectionVertex startEndpoint = handler.getVertexForOsmNode(nodeI, areaEntity);
-        if (startingNodes.contains(nodeI)) {
-          startingVertices.add(startEndpoint);
+      for (OSMNode node : visibilityNodes) {
+        if (startingNodes.contains(node)) {
+          startingVertices.add(handler.getVertexForOsmNode(node, areaEntity));
         }
+      }
 
-        for (OSMNode nodeJ : visibilityNodes) {
-          P2<OSMNode> nodePair = new P2<>(nodeI, nodeJ);
-          if (alreadyAddedEdges.contains(nodePair)) continue;
-
-          IntersectionVertex endEndpoint = handler.getVertexForOsmNode(nodeJ, areaEntity);
-
-          Coordinate[] coordinates = new Coordinate[] {
-            startEndpoint.getCoordinate(),
-            endEndpoint.getCoordinate(),
-          };
-          LineString line = geometryFactory.createLineString(coordinates);
-          if (polygon.contains(line)) {
-            Set<AreaEdge> segments = createSegments(
-              startEndpoint,
-              endEndpoint,
-              group.areas,
-              edgeList
-            );
-            edges.addAll(segments);
-            if (platformLinkingVertices.contains(startEndpoint)) {
-              ringEdges.addAll(segments);
-            }
-            if (platformLinkingVertices.contains(endEndpoint)) {
-              ringEdges.addAll(segments);
-            }
-          }
+      for (P2<OSMNode> nodePair : findVisibleNodePairs(
+        polygon,
+        List.copyOf(visibilityNodes),
+        alreadyAddedEdges
+      )) {
+        IntersectionVertex startEndpoint = handler.getVertexForOsmNode(nodePair.first, areaEntity);
+        IntersectionVertex endEndpoint = handler.getVertexForOsmNode(nodePair.second, areaEntity);
+        Set<AreaEdge> segments = createSegments(startEndpoint, endEndpoint, group.areas, edgeList);
+        edges.addAll(segments);
+        if (platformLinkingVertices.contains(startEndpoint)) {
+          ringEdges.addAll(segments);
+        }
+        if (platformLinkingVertices.contains(endEndpoint)) {
+          ringEdges.addAll(segments);
         }
       }
     }
     pruneAreaEdges(startingVertices, edges, ringEdges);
   }
 
+  /**
+   * Find the pairs of nodes with a line of sight inside the polygon, except the pairs of the ring
+   * segments already added. A pair is returned in both orders, and edges are created for each of
+   * them, like when each pair was checked on its own.
+   * <p>
+   * The polygon is prepared, which indexes the segments of its rings, so a check does not test
+   * the line against every segment. The line of sight is symmetric, so each unordered pair is only
+   * checked once. The rows of pairs are checked in parallel chunks, each with its own prepared
+   * polygon, since a prepared geometry is not thread safe. The pairs are sorted by the index of
+   * the nodes, so the edges are created in the same order whatever the number of chunks.
+   */
+  static List<P2<OSMNode>> findVisibleNodePairs(
+    Polygon polygon,
+    List<OSMNode> nodes,
+    Set<P2<OSMNode>> alreadyAddedEdges
+  ) {
+    GeometryFactory geometryFactory = GeometryUtils.getGeometryFactory();
+    int nChunks = Math.min(
+      Runtime.getRuntime().availableProcessors(),
+      1 + nodes.size() / VISIBILITY_CHUNK_SIZE
+    );
+    // Make sure the lazily computed envelope is set before the polygon is shared
+    polygon.getEnvelopeInternal();
+
+    return IntStream
+      .range(0, nChunks)
+      .parallel()
+      .mapToObj(chunk -> {
+        PreparedGeometry preparedPolygon = PreparedGeometryFactory.prepare(polygon);
+        TLongList visible = new TLongArrayList();
+        // Interleave the rows, the first rows have the most pairs
+        for (int i = chunk; i < nodes.size(); i += nChunks) {
+          OSMNode nodeI = nodes.get(i);
+          for (int j = i + 1; j < nodes.size(); ++j) {
+            OSMNode nodeJ = nodes.get(j);
+            boolean addIJ = !alreadyAddedEdges.contains(new P2<>(nodeI, nodeJ));
+            boolean addJI = !alreadyAddedEdges.contains(new P2<>(nodeJ, nodeI));
+            if (!addIJ && !addJI) {
+              continue;
+            }
+            LineString line = geometryFactory.createLineString(
+              new Coordinate[] {
+                new Coordinate(nodeI.lon, nodeI.lat),
+                new Coordinate(nodeJ.lon, nodeJ.lat),
+              }
+            );
+            if (preparedPolygon.contains(line)) {
+              if (addIJ) {
+                visible.add(pairIndex(i, j));
+              }
+              if (addJI) {
+                visible.add(pairIndex(j, i));
+              }
+            }
+          }
+        }
+        return visible;
+      })
+      .flatMapToLong(visible -> Arrays.stream(visible.toArray()))
+      .sorted()
+      .mapToObj(pair -> new P2<>(nodes.get((int) (pair >>> 32)), nodes.get((int) pair)))
+      .collect(Collectors.toList());
+  }
+
+  /** A pair of node indexes, which sorts by the first index and then the second. */
+  private static long pairIndex(int first, int second) {
+    return ((long) first << 32) | second;
+  }
+
   /**
    * Do an all-pairs shortest path search from a list of vertices over a specified set of edges, and
    * retain only those edges which are actually used in some shortest path.
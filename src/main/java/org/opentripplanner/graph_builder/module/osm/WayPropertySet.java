@@ -1,6 +1,7 @@
 package org.opentripplanner.graph_builder.module.osm;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -27,6 +28,10 @@ import org.slf4j.LoggerFactory;
  * WayPropertyPickers, CreativeNamePickers, SlopeOverridePickers, and SpeedPickers are applied to ways based on how well
  * their OSMSpecifiers match a given OSM way. Generally one OSMSpecifier will win out over all the others based on the
  * number of exact, partial, and wildcard tag matches. See OSMSpecifier for more details on the matching process.
+ * <p>
+ * The specifiers of each kind of picker are indexed by tag key when they are added, so only the
+ * pickers which can match a way are scored. The pickers are scored in the order they are added, and
+ * the result is the same as scoring all of them.
  */
 public class WayPropertySet {
 
@@ -42,6 +47,13 @@ public class WayPropertySet {
   /** Assign automobile speeds based on OSM tags. */
   private final List<SpeedPicker> speedPickers;
   private final List<NotePicker> notes;
+
+  private final OSMSpecifierIndex wayPropertiesIndex = new OSMSpecifierIndex(true);
+  private final OSMSpecifierIndex creativeNamersIndex = new OSMSpecifierIndex(false);
+  private final OSMSpecifierIndex slopeOverridesIndex = new OSMSpecifierIndex(false);
+  private final OSMSpecifierIndex speedPickersIndex = new OSMSpecifierIndex(false);
+  private final OSMSpecifierIndex notesIndex = new OSMSpecifierIndex(false);
+
   private final Pattern maxSpeedPattern;
   /** The automobile speed for street segments that do not match any SpeedPicker. */
   public Float defaultSpeed;
@@ -75,7 +87,9 @@ public class WayPropertySet {
     int bestRightScore = 0;
     List<WayProperties> leftMixins = new ArrayList<>();
     List<WayProperties> rightMixins = new ArrayList<>();
-    for (WayPropertyPicker picker : wayProperties) {
+    BitSet candidates = wayPropertiesIndex.candidates(way);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      WayPropertyPicker picker = wayProperties.get(i);
       OSMSpecifier specifier = picker.getSpecifier();
       WayProperties wayProperties = picker.getProperties();
       P2<Integer> score = specifier.matchScores(way);
@@ -125,7 +139,9 @@ public class WayPropertySet {
   public I18NString getCreativeNameForWay(OSMWithTags way) {
     CreativeNamer bestNamer = null;
     int bestScore = 0;
-    for (CreativeNamerPicker picker : creativeNamers) {
+    BitSet candidates = creativeNamersIndex.candidates(way);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      CreativeNamerPicker picker = creativeNamers.get(i);
       OSMSpecifier specifier = picker.specifier;
       CreativeNamer namer = picker.namer;
       int score = specifier.matchScore(way);
@@ -188,7 +204,9 @@ public class WayPropertySet {
 
     // SpeedPickers are constructed in DefaultWayPropertySetSource with an OSM specifier
     // (e.g. highway=motorway) and a default speed for that segment.
-    for (SpeedPicker picker : speedPickers) {
+    BitSet candidates = speedPickersIndex.candidates(way);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      SpeedPicker picker = speedPickers.get(i);
       OSMSpecifier specifier = picker.specifier;
       score = specifier.matchScore(way);
       if (score > bestScore) {
@@ -206,7 +224,9 @@ public class WayPropertySet {
 
   public Set<T2<StreetNote, NoteMatcher>> getNoteForWay(OSMWithTags way) {
     HashSet<T2<StreetNote, NoteMatcher>> out = new HashSet<>();
-    for (NotePicker picker : notes) {
+    BitSet candidates = notesIndex.candidates(way);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      NotePicker picker = notes.get(i);
       OSMSpecifier specifier = picker.specifier;
       NoteProperties noteProperties = picker.noteProperties;
       if (specifier.matchScore(way) > 0) {
@@ -222,7 +242,9 @@ public class WayPropertySet {
   public boolean getSlopeOverride(OSMWithTags way) {
     boolean result = false;
     int bestScore = 0;
-    for (SlopeOverridePicker picker : slopeOverrides) {
+    BitSet candidates = slopeOverridesIndex.candidates(way);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      SlopeOverridePicker picker = slopeOverrides.get(i);
       OSMSpecifier specifier = picker.getSpecifier();
       int score = specifier.matchScore(way);
       if (score > bestScore) {
@@ -243,22 +265,27 @@ public class WayPropertySet {
       );
     }
     wayProperties.add(new WayPropertyPicker(spec, properties, mixin));
+    wayPropertiesIndex.add(spec);
   }
 
   public void addProperties(OSMSpecifier spec, WayProperties properties) {
     wayProperties.add(new WayPropertyPicker(spec, properties, false));
+    wayPropertiesIndex.add(spec);
   }
 
   public void addCreativeNamer(OSMSpecifier spec, CreativeNamer namer) {
     creativeNamers.add(new CreativeNamerPicker(spec, namer));
+    creativeNamersIndex.add(spec);
   }
 
   public void addNote(OSMSpecifier osmSpecifier, NoteProperties properties) {
     notes.add(new NotePicker(osmSpecifier, properties));
+    notesIndex.add(osmSpecifier);
   }
 
   public void setSlopeOverride(OSMSpecifier spec, boolean override) {
     slopeOverrides.add(new SlopeOverridePicker(spec, override));
+    slopeOverridesIndex.add(spec);
   }
 
   public int hashCode() {
@@ -286,6 +313,7 @@ public class WayPropertySet {
 
   public void addSpeedPicker(SpeedPicker picker) {
     this.speedPickers.add(picker);
+    this.speedPickersIndex.add(picker.specifier);
   }
 
   public Float getMetersSecondFromSpeed(String speed) {
@@ -370,6 +398,22 @@ public class WayPropertySet {
     return Collections.unmodifiableList(wayProperties);
   }
 
+  List<CreativeNamerPicker> getCreativeNamers() {
+    return Collections.unmodifiableList(creativeNamers);
+  }
+
+  List<SpeedPicker> getSpeedPickers() {
+    return Collections.unmodifiableList(speedPickers);
+  }
+
+  List<NotePicker> getNotes() {
+    return Collections.unmodifiableList(notes);
+  }
+
+  List<SlopeOverridePicker> getSlopeOverrides() {
+    return Collections.unmodifiableList(slopeOverrides);
+  }
+
   private String dumpTags(OSMWithTags way) {
     /* generate warning message */
     String all_tags = null;
@@ -0,0 +1,33 @@
+package org.opentripplanner.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.opentripplanner.common.geometry.CompactGeometrySegment;
+
+/**
+ * Kryo can not serialize the off-heap buffer in a {@link CompactGeometrySegment}, so the used part
+ * of the segment is written as a byte array. The segment is read back into a new off-heap buffer
+ * of exactly that size.
+ */
+public class CompactGeometrySegmentSerializer extends Serializer<CompactGeometrySegment> {
+
+  @Override
+  public void write(Kryo kryo, Output output, CompactGeometrySegment segment) {
+    byte[] bytes = new byte[segment.size()];
+    segment.copyTo(bytes);
+    output.writeInt(bytes.length, true);
+    output.writeBytes(bytes);
+  }
+
+  @Override
+  public CompactGeometrySegment read(
+    Kryo kryo,
+    Input input,
+    Class<? extends CompactGeometrySegment> type
+  ) {
+    int size = input.readInt(true);
+    return CompactGeometrySegment.of(input.readBytes(size));
+  }
+}
@@ -0,0 +1,15 @@
+package org.opentripplanner.model.projectinfo;
+
+/**
+ * The block compression codec used for the serialized graph file. The codec is recorded in the
+ * file header, see {@link GraphFileHeader#compressionHeader(GraphCompression)}, so a graph is
+ * always read with the codec it was written with.
+ */
+public enum GraphCompression {
+  /** The graph is not compressed, this is the fastest to load from a local disk. */
+  NONE,
+  /** Fast compression and decompression, with a moderate compression ratio. */
+  LZ4,
+  /** Slower compression, but a smaller file. Decompression is still fast. */
+  ZSTD,
+}
@@ -13,6 +13,8 @@ import org.opentripplanner.util.OtpAppException;
  *   <li>Magic number: {@code "OpenTripPlannerGraph"}</li>
  *   <li>The graph file serialization compatibility id</li>
  * </ol>
+ * The header is followed by the name of the {@link GraphCompression} codec used for the rest of
+ * the file, see {@link #compressionHeader(GraphCompression)}.
  * <p>
  * This class represent the header and contain logic to parse and validate it.
  */
@@ -25,6 +27,7 @@ public class GraphFileHeader implements Serializable {
   private static final char DELIMITER = ';';
   private static final int ID_LENGTH = 7;
   private static final int HEADER_LENGTH = MAGIC_NUMBER.length() + ID_LENGTH + 2;
+  private static final int COMPRESSION_LENGTH = 4;
 
   private static final Pattern HEADER_PATTERN = Pattern.compile(
     MAGIC_NUMBER + DELIMITER + "([-\\w.:+/]{7})" + DELIMITER
@@ -73,6 +76,38 @@ public class GraphFileHeader implements Serializable {
     return new GraphFileHeader(m.group(1));
   }
 
+  /**
+   * The compression codec name is written right after the header, padded with spaces to a fixed
+   * length and followed by the delimiter. Example: {@code "LZ4 ;"}. It is kept separate from the
+   * header, so the serialization version id can be validated before the codec is parsed.
+   */
+  public static int compressionHeaderLength() {
+    return COMPRESSION_LENGTH + 1;
+  }
+
+  public static byte[] compressionHeader(GraphCompression compression) {
+    StringBuilder buf = new StringBuilder(compression.name());
+    while (buf.length() < COMPRESSION_LENGTH) {
+      buf.append(' ');
+    }
+    return buf.append(DELIMITER).toString().getBytes(CHARSET);
+  }
+
+  public static GraphCompression parseCompression(byte[] buf) {
+    String text = new String(buf, CHARSET);
+    if (text.length() == COMPRESSION_LENGTH + 1 && text.charAt(COMPRESSION_LENGTH) == DELIMITER) {
+      String name = text.substring(0, COMPRESSION_LENGTH).trim();
+      for (GraphCompression it : GraphCompression.values()) {
+        if (it.name().equals(name)) {
+          return it;
+        }
+      }
+    }
+    throw new OtpAppException(
+      "The graph file compression codec is unknown. Input: " + prettyBytesToString(buf)
+    );
+  }
+
   /** Return the entire header including magic-number and version id as a byte array */
   public byte[] header() {
     return bytes;
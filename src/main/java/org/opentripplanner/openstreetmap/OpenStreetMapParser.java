@@ -1,44 +1,51 @@
 package org.opentripplanner.openstreetmap;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import org.openstreetmap.osmosis.osmbinary.BinaryParser;
 import org.openstreetmap.osmosis.osmbinary.Osmformat;
-import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
 import org.opentripplanner.openstreetmap.model.OSMNode;
 import org.opentripplanner.openstreetmap.model.OSMNodeRef;
 import org.opentripplanner.openstreetmap.model.OSMRelation;
 import org.opentripplanner.openstreetmap.model.OSMRelationMember;
 import org.opentripplanner.openstreetmap.model.OSMTag;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
 import org.opentripplanner.openstreetmap.model.OSMWay;
 
 /**
- * Parser for the OpenStreetMap PBF Format.
+ * Parser for the OpenStreetMap PBF Format. A parser decodes one block, and adds the entities of the
+ * given phase to a {@link OsmPrimitiveBatch}. The parser keeps the string table of the block, so
+ * each block needs a new instance, but the blocks can be parsed in parallel, see {@link
+ * OsmPbfReader}.
  *
  * @since 0.4
  */
 public class OpenStreetMapParser extends BinaryParser {
 
-  private final OSMDatabase osmdb;
-  private final Map<String, String> stringTable = new HashMap<>();
-  private OsmParserPhase parsePhase;
-
-  public OpenStreetMapParser(OSMDatabase osmdb) {
-    this.osmdb = osmdb;
+  private final OsmPrimitiveBatch batch;
+  private final ConcurrentMap<String, String> stringTable;
+  private final OSMTagDictionary tagDictionary;
+  private final OsmParserPhase parsePhase;
+
+  OpenStreetMapParser(
+    OsmPrimitiveBatch batch,
+    ConcurrentMap<String, String> stringTable,
+    OSMTagDictionary tagDictionary,
+    OsmParserPhase parsePhase
+  ) {
+    this.batch = batch;
+    this.stringTable = stringTable;
+    this.tagDictionary = tagDictionary;
+    this.parsePhase = parsePhase;
   }
 
   // The strings are already being pulled from a string table in the PBF file,
   // but there appears to be a separate string table per 8k-entry PBF file block.
   // String.intern grinds to a halt on large PBF files (as it did on GTFS import), so
-  // we implement our own.
+  // we implement our own. The table is shared by the parsers of all blocks.
   public String internalize(String s) {
-    String fromTable = stringTable.get(s);
-    if (fromTable == null) {
-      stringTable.put(s, s);
-      return s;
-    }
-    return fromTable;
+    String fromTable = stringTable.putIfAbsent(s, s);
+    return fromTable == null ? s : fromTable;
   }
 
   @Override
@@ -46,13 +53,6 @@ public class OpenStreetMapParser extends BinaryParser {
     // Jump in circles
   }
 
-  /**
-   * Set the phase to be parsed
-   */
-  public void setPhase(OsmParserPhase phase) {
-    this.parsePhase = phase;
-  }
-
   @Override
   protected void parseRelations(List<Osmformat.Relation> rels) {
     if (parsePhase != OsmParserPhase.Relations) {
@@ -60,7 +60,7 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (Osmformat.Relation i : rels) {
-      OSMRelation tmp = new OSMRelation();
+      OSMRelation tmp = new OSMRelation(tagDictionary);
       tmp.setId(i.getId());
 
       for (int j = 0; j < i.getKeysCount(); j++) {
@@ -95,7 +95,7 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addMember(relMember);
       }
 
-      osmdb.addRelation(tmp);
+      batch.addRelation(tmp);
     }
   }
 
@@ -109,7 +109,7 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (int i = 0; i < nodes.getIdCount(); i++) {
-      OSMNode tmp = new OSMNode();
+      OSMNode tmp = new OSMNode(tagDictionary);
 
       long lat = nodes.getLat(i) + lastLat;
       lastLat = lat;
@@ -139,7 +139,7 @@ public class OpenStreetMapParser extends BinaryParser {
         j++; // Skip over the '0' delimiter.
       }
 
-      osmdb.addNode(tmp);
+      batch.addNode(tmp);
     }
   }
 
@@ -150,7 +150,7 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (Osmformat.Node i : nodes) {
-      OSMNode tmp = new OSMNode();
+      OSMNode tmp = new OSMNode(tagDictionary);
       tmp.setId(i.getId());
       tmp.lat = parseLat(i.getLat());
       tmp.lon = parseLon(i.getLon());
@@ -165,7 +165,7 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addTag(tag);
       }
 
-      osmdb.addNode(tmp);
+      batch.addNode(tmp);
     }
   }
 
@@ -176,7 +176,7 @@ public class OpenStreetMapParser extends BinaryParser {
     }
 
     for (Osmformat.Way i : ways) {
-      OSMWay tmp = new OSMWay();
+      OSMWay tmp = new OSMWay(tagDictionary);
       tmp.setId(i.getId());
 
       for (int j = 0; j < i.getKeysCount(); j++) {
@@ -197,7 +197,7 @@ public class OpenStreetMapParser extends BinaryParser {
         lastId = j + lastId;
       }
 
-      osmdb.addWay(tmp);
+      batch.addWay(tmp);
     }
   }
 
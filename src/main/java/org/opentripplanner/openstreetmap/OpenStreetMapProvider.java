@@ -3,9 +3,7 @@ package org.opentripplanner.openstreetmap;
 import com.google.common.base.MoreObjects;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
 import org.opentripplanner.datastore.DataSource;
 import org.opentripplanner.datastore.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -16,12 +14,15 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes: First the relations, then
- * the ways, then the nodes are also loaded.
+ * the ways, then the nodes are also loaded. The blocks of the file are decoded in parallel, see
+ * {@link OsmPbfReader}.
  */
 public class OpenStreetMapProvider {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenStreetMapProvider.class);
 
+  private static final int N_DECODER_THREADS = Runtime.getRuntime().availableProcessors();
+
   private final DataSource source;
   private final boolean cacheDataInMem;
   private byte[] cachedBytes = null;
@@ -37,16 +38,14 @@ public class OpenStreetMapProvider {
   }
 
   public void readOSM(OSMDatabase osmdb) {
-    try {
-      OpenStreetMapParser parser = new OpenStreetMapParser(osmdb);
-
-      parsePhase(parser, OsmParserPhase.Relations);
+    try (OsmPbfReader reader = new OsmPbfReader(N_DECODER_THREADS)) {
+      reader.read(createInputStream(OsmParserPhase.Relations), OsmParserPhase.Relations, osmdb);
       osmdb.doneFirstPhaseRelations();
 
-      parsePhase(parser, OsmParserPhase.Ways);
+      reader.read(createInputStream(OsmParserPhase.Ways), OsmParserPhase.Ways, osmdb);
       osmdb.doneSecondPhaseWays();
 
-      parsePhase(parser, OsmParserPhase.Nodes);
+      reader.read(createInputStream(OsmParserPhase.Nodes), OsmParserPhase.Nodes, osmdb);
       osmdb.doneThirdPhaseNodes();
     } catch (Exception ex) {
       throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
@@ -75,24 +74,6 @@ public class OpenStreetMapProvider {
     return ProgressTracker.track("Parse OSM " + phase, 1000, size, inputStream, m -> LOG.info(m));
   }
 
-  private void parsePhase(OpenStreetMapParser parser, OsmParserPhase phase) throws IOException {
-    parser.setPhase(phase);
-    BlockInputStream in = null;
-    try {
-      in = new BlockInputStream(createInputStream(phase), parser);
-      in.process();
-    } finally {
-      // Close
-      try {
-        if (in != null) {
-          in.close();
-        }
-      } catch (Exception e) {
-        LOG.error(e.getMessage(), e);
-      }
-    }
-  }
-
   private InputStream createInputStream(OsmParserPhase phase) {
     if (cacheDataInMem) {
       if (cachedBytes == null) {
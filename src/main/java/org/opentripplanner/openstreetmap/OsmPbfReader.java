@@ -0,0 +1,225 @@
+package org.opentripplanner.openstreetmap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
+
+/**
+ * Read a PBF file with a pipeline: one thread reads the blobs from the file, a pool of workers
+ * inflates and decodes them, and the calling thread adds the decoded entities to the {@link
+ * OSMDatabase} in the order of the blocks in the file. The database is only accessed from the
+ * calling thread.
+ * <p>
+ * The reader remembers which entity types each data block contains. In the first phase all blocks
+ * are decoded, in the later phases the blocks without entities for the phase are skipped without
+ * reading or inflating them. The usual PBF files are sorted by type, so the ways phase only
+ * decodes the way blocks and the nodes phase only the node blocks.
+ */
+class OsmPbfReader implements AutoCloseable {
+
+  private static final String OSM_HEADER = "OSMHeader";
+  private static final String OSM_DATA = "OSMData";
+
+  /** The PBF specification limits the size of a blob header to 64 KiB, and a blob to 32 MiB. */
+  private static final int MAX_HEADER_SIZE = 64 * 1024;
+  private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+  private static final OsmPrimitiveBatch END = new OsmPrimitiveBatch();
+
+  private final int nWorkers;
+  private final ExecutorService reader;
+  private final ExecutorService workers;
+  private final ConcurrentMap<String, String> stringTable = new ConcurrentHashMap<>();
+
+  /** The phases with entities in each data block, by the index of the block in the file. */
+  private final List<Set<OsmParserPhase>> blockPhases = new ArrayList<>();
+
+  OsmPbfReader(int nWorkers) {
+    this.nWorkers = nWorkers;
+    this.reader =
+      Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("osm-pbf-reader").setDaemon(true).build()
+      );
+    this.workers =
+      Executors.newFixedThreadPool(
+        nWorkers,
+        new ThreadFactoryBuilder().setNameFormat("osm-pbf-decoder-%d").setDaemon(true).build()
+      );
+  }
+
+  /**
+   * Decode the entities of the given phase and add them to the database. The input stream is
+   * closed when done.
+   */
+  void read(InputStream input, OsmParserPhase phase, OSMDatabase osmdb) throws IOException {
+    // Bound the number of decoded blocks waiting to be added to the database
+    BlockingQueue<Future<OsmPrimitiveBatch>> queue = new ArrayBlockingQueue<>(4 * nWorkers);
+    // The block content is recorded while reading the first phase
+    boolean recordBlockPhases = blockPhases.isEmpty();
+    List<Set<OsmParserPhase>> knownBlockPhases = List.copyOf(blockPhases);
+    OSMTagDictionary tagDictionary = osmdb.getTagDictionary();
+    Future<?> readTask = reader.submit(() ->
+      readBlobs(input, phase, knownBlockPhases, tagDictionary, queue)
+    );
+    try {
+      while (true) {
+        OsmPrimitiveBatch batch = queue.take().get();
+        if (batch == END) {
+          break;
+        }
+        batch.addTo(osmdb);
+        if (recordBlockPhases && batch.phases() != null) {
+          blockPhases.add(batch.phases());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading OSM data", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioe) {
+        throw ioe;
+      }
+      throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+    } finally {
+      readTask.cancel(true);
+    }
+  }
+
+  @Override
+  public void close() {
+    reader.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  private void readBlobs(
+    InputStream input,
+    OsmParserPhase phase,
+    List<Set<OsmParserPhase>> knownBlockPhases,
+    OSMTagDictionary tagDictionary,
+    BlockingQueue<Future<OsmPrimitiveBatch>> queue
+  ) {
+    try (DataInputStream in = new DataInputStream(input)) {
+      int dataIndex = 0;
+      while (true) {
+        int headerSize;
+        try {
+          headerSize = in.readInt();
+        } catch (EOFException e) {
+          break;
+        }
+        var header = Fileformat.BlobHeader.parseFrom(readBytes(in, headerSize, MAX_HEADER_SIZE));
+        String type = header.getType();
+        int size = header.getDatasize();
+
+        if (OSM_DATA.equals(type)) {
+          if (!isRelevant(knownBlockPhases, dataIndex++, phase)) {
+            in.skipNBytes(size);
+            continue;
+          }
+        } else if (!OSM_HEADER.equals(type)) {
+          // Unknown blob types should be skipped, see the PBF specification
+          in.skipNBytes(size);
+          continue;
+        }
+        byte[] blob = readBytes(in, size, MAX_BLOB_SIZE);
+        queue.put(workers.submit(() -> decode(type, blob, phase, tagDictionary)));
+      }
+      queue.put(CompletableFuture.completedFuture(END));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Hand the exception over to the consuming thread
+      try {
+        queue.put(CompletableFuture.failedFuture(e));
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** Blocks are relevant if they are not read before, or have entities for the phase. */
+  private static boolean isRelevant(
+    List<Set<OsmParserPhase>> knownBlockPhases,
+    int dataIndex,
+    OsmParserPhase phase
+  ) {
+    return dataIndex >= knownBlockPhases.size() || knownBlockPhases.get(dataIndex).contains(phase);
+  }
+
+  private OsmPrimitiveBatch decode(
+    String type,
+    byte[] blob,
+    OsmParserPhase phase,
+    OSMTagDictionary tagDictionary
+  ) throws IOException, DataFormatException {
+    byte[] data = inflate(Fileformat.Blob.parseFrom(blob));
+    OsmPrimitiveBatch batch = new OsmPrimitiveBatch();
+    OpenStreetMapParser parser = new OpenStreetMapParser(batch, stringTable, tagDictionary, phase);
+
+    if (OSM_HEADER.equals(type)) {
+      parser.parse(Osmformat.HeaderBlock.parseFrom(data));
+      return batch;
+    }
+
+    Osmformat.PrimitiveBlock block = Osmformat.PrimitiveBlock.parseFrom(data);
+    boolean hasNodes = false, hasWays = false, hasRelations = false;
+    for (Osmformat.PrimitiveGroup group : block.getPrimitivegroupList()) {
+      hasNodes |= group.getNodesCount() > 0 || group.hasDense();
+      hasWays |= group.getWaysCount() > 0;
+      hasRelations |= group.getRelationsCount() > 0;
+    }
+    batch.setContent(hasNodes, hasWays, hasRelations);
+    parser.parse(block);
+    return batch;
+  }
+
+  private static byte[] inflate(Fileformat.Blob blob) throws IOException, DataFormatException {
+    if (blob.hasRaw()) {
+      return blob.getRaw().toByteArray();
+    }
+    if (!blob.hasZlibData()) {
+      throw new IOException("Unsupported PBF blob compression, only zlib is supported");
+    }
+    byte[] raw = new byte[blob.getRawSize()];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(blob.getZlibData().toByteArray());
+      inflater.inflate(raw);
+      if (!inflater.finished()) {
+        throw new IOException("PBF blob is larger than its raw size " + blob.getRawSize());
+      }
+    } finally {
+      inflater.end();
+    }
+    return raw;
+  }
+
+  private static byte[] readBytes(DataInputStream in, int size, int maxSize) throws IOException {
+    if (size < 0 || size > maxSize) {
+      throw new IOException("Invalid PBF block size " + size);
+    }
+    byte[] bytes = new byte[size];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
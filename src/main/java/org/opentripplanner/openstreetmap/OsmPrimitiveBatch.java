@@ -0,0 +1,62 @@
+package org.opentripplanner.openstreetmap;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMRelation;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+
+/**
+ * The entities decoded from one PBF block in a parser phase. The batches are decoded in parallel,
+ * and added to the {@link OSMDatabase} in the order of the blocks in the file.
+ */
+class OsmPrimitiveBatch {
+
+  private final List<OSMNode> nodes = new ArrayList<>();
+  private final List<OSMWay> ways = new ArrayList<>();
+  private final List<OSMRelation> relations = new ArrayList<>();
+
+  /**
+   * The phases with entities in this block, including the entities skipped in this phase. This
+   * is only known for data blocks, and {@code null} for the header block.
+   */
+  private Set<OsmParserPhase> phases = null;
+
+  void addNode(OSMNode node) {
+    nodes.add(node);
+  }
+
+  void addWay(OSMWay way) {
+    ways.add(way);
+  }
+
+  void addRelation(OSMRelation relation) {
+    relations.add(relation);
+  }
+
+  Set<OsmParserPhase> phases() {
+    return phases;
+  }
+
+  void setContent(boolean hasNodes, boolean hasWays, boolean hasRelations) {
+    phases = EnumSet.noneOf(OsmParserPhase.class);
+    if (hasNodes) {
+      phases.add(OsmParserPhase.Nodes);
+    }
+    if (hasWays) {
+      phases.add(OsmParserPhase.Ways);
+    }
+    if (hasRelations) {
+      phases.add(OsmParserPhase.Relations);
+    }
+  }
+
+  void addTo(OSMDatabase osmdb) {
+    relations.forEach(osmdb::addRelation);
+    ways.forEach(osmdb::addWay);
+    nodes.forEach(osmdb::addNode);
+  }
+}
@@ -7,10 +7,36 @@ public class OSMNode extends OSMWithTags {
   public double lat;
   public double lon;
 
+  public OSMNode() {}
+
+  public OSMNode(OSMTagDictionary dictionary) {
+    super(dictionary);
+  }
+
   public String toString() {
     return "osm node " + id;
   }
 
+  /**
+   * Nodes are equal if they have the same id. The node store of the graph builder creates a new
+   * instance each time an untagged node is looked up.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return id == ((OSMNode) o).id;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(id);
+  }
+
   public Coordinate getCoordinate() {
     return new Coordinate(this.lon, this.lat);
   }
@@ -7,6 +7,12 @@ public class OSMRelation extends OSMWithTags {
 
   private final List<OSMRelationMember> members = new ArrayList<>();
 
+  public OSMRelation() {}
+
+  public OSMRelation(OSMTagDictionary dictionary) {
+    super(dictionary);
+  }
+
   public void addMember(OSMRelationMember member) {
     members.add(member);
   }
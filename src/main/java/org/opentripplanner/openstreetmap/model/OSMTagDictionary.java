@@ -0,0 +1,63 @@
+package org.opentripplanner.openstreetmap.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary of the tag keys and values of OSM entities, see {@link OSMWithTags}. Each distinct
+ * string is given an int id, so an entity can store its tags as a small int array, and tags can be
+ * compared by id instead of by string.
+ * <p>
+ * The dictionary is owned by the {@link org.opentripplanner.graph_builder.module.osm.OSMDatabase}
+ * of a build, and the entities read into it refer to it. It is collected together with the
+ * entities when the build is done. An entity created on its own gets a dictionary of its own when
+ * the first tag is added.
+ * <p>
+ * The ids are only valid within the dictionary, they are never serialized. The dictionary is
+ * thread safe, the OSM blocks are parsed in parallel.
+ */
+public final class OSMTagDictionary {
+
+  /** The id returned for a string which is not in the dictionary. */
+  public static final int NOT_FOUND = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+  private volatile String[] strings = new String[INITIAL_CAPACITY];
+
+  private int size = 0;
+
+  /** Get the id of the given string, adding it to the dictionary if needed. */
+  public int id(String s) {
+    Integer id = ids.get(s);
+    return id != null ? id : ids.computeIfAbsent(s, this::add);
+  }
+
+  /** Get the id of the given string, or {@link #NOT_FOUND} if it is not in the dictionary. */
+  public int find(String s) {
+    Integer id = ids.get(s);
+    return id == null ? NOT_FOUND : id;
+  }
+
+  public String string(int id) {
+    return strings[id];
+  }
+
+  public int size() {
+    return ids.size();
+  }
+
+  private synchronized int add(String s) {
+    String[] current = strings;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, size * 2);
+    }
+    current[size] = s;
+    // Publish the array after the string is written
+    strings = current;
+    return size++;
+  }
+}
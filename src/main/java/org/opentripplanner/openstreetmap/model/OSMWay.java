@@ -7,6 +7,12 @@ public class OSMWay extends OSMWithTags {
 
   private final TLongList nodes = new TLongArrayList();
 
+  public OSMWay() {}
+
+  public OSMWay(OSMTagDictionary dictionary) {
+    super(dictionary);
+  }
+
   public void addNodeRef(OSMNodeRef nodeRef) {
     nodes.add(nodeRef.getRef());
   }
@@ -7,6 +7,7 @@ import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import org.opentripplanner.graph_builder.module.osm.TemplateLibrary;
 import org.opentripplanner.transit.model.basic.WheelchairAccessibility;
@@ -20,13 +21,29 @@ import org.opentripplanner.util.TranslatedString;
 
 public class OSMWithTags {
 
-  /* To save memory this is only created when an entity actually has tags. */
-  private Map<String, String> tags;
+  /**
+   * The dictionary of the tag ids. This is null until a tag is added, unless the entity is read
+   * into an {@link org.opentripplanner.graph_builder.module.osm.OSMDatabase}.
+   */
+  private OSMTagDictionary dictionary;
+
+  /**
+   * The tags as pairs of key and value ids from the {@link #dictionary}, sorted by key id. To save
+   * memory this is only created when an entity actually has tags.
+   */
+  private int[] tags;
 
   protected long id;
 
   protected I18NString creativeName;
 
+  public OSMWithTags() {}
+
+  /** Create an entity with its tags in the given dictionary. */
+  public OSMWithTags(OSMTagDictionary dictionary) {
+    this.dictionary = dictionary;
+  }
+
   public static boolean isFalse(String tagValue) {
     return ("no".equals(tagValue) || "0".equals(tagValue) || "false".equals(tagValue));
   }
@@ -53,9 +70,7 @@ public class OSMWithTags {
    * Adds a tag.
    */
   public void addTag(OSMTag tag) {
-    if (tags == null) tags = new HashMap<>();
-
-    tags.put(tag.getK().toLowerCase(), tag.getV());
+    putTag(tag.getK().toLowerCase(), tag.getV());
   }
 
   /**
@@ -64,24 +79,66 @@ public class OSMWithTags {
   public void addTag(String key, String value) {
     if (key == null || value == null) return;
 
-    if (tags == null) tags = new HashMap<>();
-
-    tags.put(key.toLowerCase(), value);
+    putTag(key.toLowerCase(), value);
   }
 
   /**
-   * The tags of an entity.
+   * A copy of the tags of an entity, or {@code null} if it has no tags.
    */
   public Map<String, String> getTags() {
-    return tags;
+    if (tags == null) {
+      return null;
+    }
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < tags.length; i += 2) {
+      map.put(dictionary.string(tags[i]), dictionary.string(tags[i + 1]));
+    }
+    return map;
+  }
+
+  public boolean hasTags() {
+    return tags != null;
+  }
+
+  /**
+   * The dictionary of the tag ids of the entity, or {@code null} if it has no tags and is not read
+   * into a database.
+   */
+  public OSMTagDictionary getTagDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Call the consumer with the {@link #getTagDictionary()} id of each tag key of the entity.
+   */
+  public void forEachTagKeyId(IntConsumer consumer) {
+    for (int i = 0; tags != null && i < tags.length; i += 2) {
+      consumer.accept(tags[i]);
+    }
   }
 
   /**
    * Is the tag defined?
    */
   public boolean hasTag(String tag) {
-    tag = tag.toLowerCase();
-    return tags != null && tags.containsKey(tag);
+    return findTagValueId(tag) != OSMTagDictionary.NOT_FOUND;
+  }
+
+  /**
+   * The {@link #getTagDictionary()} id of the value of the tag with the given key id, or {@link
+   * OSMTagDictionary#NOT_FOUND} if the tag is not defined. The key must be in lower case.
+   */
+  public int getTagValueId(int keyId) {
+    if (tags == null || keyId == OSMTagDictionary.NOT_FOUND) {
+      return OSMTagDictionary.NOT_FOUND;
+    }
+    // Entities have few tags, a linear search is faster than a binary search
+    for (int i = 0; i < tags.length && tags[i] <= keyId; i += 2) {
+      if (tags[i] == keyId) {
+        return tags[i + 1];
+      }
+    }
+    return OSMTagDictionary.NOT_FOUND;
   }
 
   /**
@@ -140,11 +197,8 @@ public class OSMWithTags {
 
   /** @return a tag's value, converted to lower case. */
   public String getTag(String tag) {
-    tag = tag.toLowerCase();
-    if (tags != null && tags.containsKey(tag)) {
-      return tags.get(tag);
-    }
-    return null;
+    int valueId = findTagValueId(tag);
+    return valueId == OSMTagDictionary.NOT_FOUND ? null : dictionary.string(valueId);
   }
 
   /**
@@ -167,12 +221,11 @@ public class OSMWithTags {
    * Checks is a tag contains the specified value.
    */
   public Boolean isTag(String tag, String value) {
-    tag = tag.toLowerCase();
-    if (tags != null && tags.containsKey(tag) && value != null) {
-      return value.equals(tags.get(tag));
+    if (value == null || tags == null) {
+      return false;
     }
-
-    return false;
+    int valueId = dictionary.find(value);
+    return valueId != OSMTagDictionary.NOT_FOUND && findTagValueId(tag) == valueId;
   }
 
   /**
@@ -183,34 +236,34 @@ public class OSMWithTags {
     if (tags == null) {
       return null;
     }
-    if (tags.containsKey("name")) {
+    if (hasTag("name")) {
       return TranslatedString.getI18NString(
         TemplateLibrary.generateI18N("{name}", this),
         true,
         false
       );
     }
-    if (tags.containsKey("otp:route_name")) {
-      return new NonLocalizedString(tags.get("otp:route_name"));
+    if (hasTag("otp:route_name")) {
+      return new NonLocalizedString(getTag("otp:route_name"));
     }
     if (this.creativeName != null) {
       return this.creativeName;
     }
-    if (tags.containsKey("otp:route_ref")) {
-      return new NonLocalizedString(tags.get("otp:route_ref"));
+    if (hasTag("otp:route_ref")) {
+      return new NonLocalizedString(getTag("otp:route_ref"));
     }
-    if (tags.containsKey("ref")) {
-      return new NonLocalizedString(tags.get("ref"));
+    if (hasTag("ref")) {
+      return new NonLocalizedString(getTag("ref"));
     }
     return null;
   }
 
   public Map<String, String> getTagsByPrefix(String prefix) {
     Map<String, String> out = new HashMap<>();
-    for (Map.Entry<String, String> entry : tags.entrySet()) {
-      String k = entry.getKey();
+    for (int i = 0; tags != null && i < tags.length; i += 2) {
+      String k = dictionary.string(tags[i]);
       if (k.equals(prefix) || k.startsWith(prefix + ":")) {
-        out.put(k, entry.getValue());
+        out.put(k, dictionary.string(tags[i + 1]));
       }
     }
     if (out.isEmpty()) {
@@ -380,6 +433,43 @@ public class OSMWithTags {
       .collect(Collectors.toSet());
   }
 
+  /** The value id of the tag with the given key in any case. */
+  private int findTagValueId(String tag) {
+    if (tags == null) {
+      return OSMTagDictionary.NOT_FOUND;
+    }
+    return getTagValueId(dictionary.find(tag.toLowerCase()));
+  }
+
+  /**
+   * Add or replace a tag, keeping the array sorted by key id. The key must be in lower case.
+   */
+  private void putTag(String key, String value) {
+    if (dictionary == null) {
+      dictionary = new OSMTagDictionary();
+    }
+    int keyId = dictionary.id(key);
+    int valueId = dictionary.id(value);
+    if (tags == null) {
+      tags = new int[] { keyId, valueId };
+      return;
+    }
+    int i = 0;
+    while (i < tags.length && tags[i] < keyId) {
+      i += 2;
+    }
+    if (i < tags.length && tags[i] == keyId) {
+      tags[i + 1] = valueId;
+      return;
+    }
+    int[] copy = new int[tags.length + 2];
+    System.arraycopy(tags, 0, copy, 0, i);
+    copy[i] = keyId;
+    copy[i + 1] = valueId;
+    System.arraycopy(tags, i, copy, i + 2, tags.length - i);
+    tags = copy;
+  }
+
   /**
    * Returns true if this tag is explicitly access to this entity.
    */
@@ -88,12 +88,16 @@ public class RoutingWorker {
     var routingErrors = Collections.synchronizedSet(new HashSet<RoutingError>());
 
     if (OTPFeature.ParallelRouting.isOn()) {
+      var executor = router.routingExecutor();
       try {
         CompletableFuture
           .allOf(
-            CompletableFuture.runAsync(() -> routeDirectStreet(itineraries, routingErrors)),
-            CompletableFuture.runAsync(() -> routeDirectFlex(itineraries, routingErrors)),
-            CompletableFuture.runAsync(() -> routeTransit(itineraries, routingErrors))
+            CompletableFuture.runAsync(
+              () -> routeDirectStreet(itineraries, routingErrors),
+              executor
+            ),
+            CompletableFuture.runAsync(() -> routeDirectFlex(itineraries, routingErrors), executor),
+            CompletableFuture.runAsync(() -> routeTransit(itineraries, routingErrors), executor)
           )
           .join();
       } catch (CompletionException e) {
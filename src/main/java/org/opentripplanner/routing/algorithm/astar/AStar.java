@@ -128,7 +128,9 @@ public class AStar {
       LOG.debug("   vertex " + u_vertex);
     }
 
-    Collection<Edge> edges = arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing();
+    Collection<Edge> edges = arriveBy
+      ? rctx.temporaryEdges.getIncoming(u_vertex)
+      : rctx.temporaryEdges.getOutgoing(u_vertex);
     for (Edge edge : edges) {
       if (skipEdgeStrategy != null && skipEdgeStrategy.shouldSkipEdge(u, edge)) {
         continue;
@@ -0,0 +1,350 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.algorithm.astar.strategies.DurationSkipEdgeStrategy;
+import org.opentripplanner.routing.algorithm.astar.strategies.EuclideanRemainingWeightHeuristic;
+import org.opentripplanner.routing.algorithm.astar.strategies.RemainingWeightHeuristic;
+import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.opentripplanner.util.time.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bidirectional A* for one-to-one street searches. Two searches are run in lock-step: the
+ * <em>primary</em> search runs in the direction of the request (from the origin for depart-after
+ * requests, from the destination for arrive-by requests) and the <em>secondary</em> search runs
+ * the other way, using the arriveBy-traversal of the edges.
+ * <p>
+ * Both searches use the "average potential" of the two Euclidean heuristics: {@code p(v) = (h_p(v)
+ * - h_s(v)) / 2} for the primary and {@code -p(v)} for the secondary search. This keeps the reduced
+ * edge weights identical in both directions, so the classic bidirectional Dijkstra stop criterion
+ * applies: the search is done when the sum of the two smallest queue keys is no less than the
+ * weight of the best meeting found so far.
+ * <p>
+ * Neither half includes the turn cost at the meeting vertex, so it is added when the halves are
+ * joined, see {@link #meetingWeight(State, State)}. The secondary half of the winning path is then
+ * re-traversed in the primary direction, giving the returned path exactly the same states, times
+ * and weights as a unidirectional search would. Both searches keep only the best state at each
+ * vertex, like the unidirectional search. With turn costs this is not exact, so in rare cases the
+ * two searches find paths of slightly different weight.
+ * If the re-traversal fails, or the result exceeds the duration limit, we fall back to the
+ * unidirectional {@link AStar}.
+ * <p>
+ * This only works for searches where the street traversal is symmetric, see
+ * {@link #isApplicable(RoutingRequest)}. Rental, parking and car pickup state transitions are not
+ * supported.
+ */
+public class BidirectionalAStar {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BidirectionalAStar.class);
+
+  private final RoutingContext primaryCtx;
+  private final Duration maxDuration;
+  private final Duration timeout;
+  private final TraverseVisitor traverseVisitor;
+
+  private final Search primary;
+  private final Search secondary;
+
+  private State bestPrimary;
+  private State bestSecondary;
+  private double bestWeight = Double.POSITIVE_INFINITY;
+
+  public BidirectionalAStar(
+    RoutingContext routingContext,
+    Duration maxDuration,
+    Duration timeout,
+    TraverseVisitor traverseVisitor
+  ) {
+    this.primaryCtx = routingContext;
+    this.maxDuration = maxDuration;
+    this.timeout = timeout;
+    this.traverseVisitor = traverseVisitor;
+
+    RoutingContext secondaryCtx = reversedContext(routingContext);
+
+    var primaryHeuristic = new EuclideanRemainingWeightHeuristic();
+    var secondaryHeuristic = new EuclideanRemainingWeightHeuristic();
+    primaryHeuristic.initialize(primaryCtx);
+    secondaryHeuristic.initialize(secondaryCtx);
+
+    var skipEdgeStrategy = new DurationSkipEdgeStrategy(maxDuration);
+    this.primary =
+      new Search(true, primaryCtx, primaryHeuristic, secondaryHeuristic, skipEdgeStrategy);
+    this.secondary =
+      new Search(false, secondaryCtx, secondaryHeuristic, primaryHeuristic, skipEdgeStrategy);
+
+    // The origin and destination may be linked to the same vertices
+    for (State s : secondary.spt.getAllStates()) {
+      updateBestMeeting(s, false);
+    }
+  }
+
+  /**
+   * Bidirectional search is only used for pure walk and bike searches, where traversing an edge
+   * backwards gives the same weight as traversing it forward.
+   */
+  public static boolean isApplicable(RoutingRequest request) {
+    return (
+      !request.vehicleRental &&
+      !request.parkAndRide &&
+      !request.carPickup &&
+      !request.streetSubRequestModes.getCar() &&
+      !request.streetSubRequestModes.isTransit()
+    );
+  }
+
+  public List<GraphPath> getPathsToTarget() {
+    runSearch();
+
+    if (bestPrimary == null) {
+      return List.of();
+    }
+
+    State target = joinBestPaths();
+
+    if (target == null) {
+      LOG.debug("Could not join bidirectional search, falling back to unidirectional search.");
+      return unidirectionalFallback();
+    }
+    return List.of(new GraphPath(target));
+  }
+
+  private void runSearch() {
+    long abortTime = DateUtils.absoluteTimeout(timeout);
+
+    while (!primary.pq.empty() && !secondary.pq.empty()) {
+      if (timeout != null && System.currentTimeMillis() > abortTime) {
+        LOG.warn(
+          "Search timeout. origin={} target={}",
+          primaryCtx.fromVertices,
+          primaryCtx.toVertices
+        );
+        break;
+      }
+
+      if (primary.pq.peek_min_key() + secondary.pq.peek_min_key() >= bestWeight) {
+        break;
+      }
+
+      // Alternate by expanding the side with the smaller frontier
+      if (primary.pq.size() <= secondary.pq.size()) {
+        primary.iterate();
+      } else {
+        secondary.iterate();
+      }
+    }
+  }
+
+  /**
+   * Check if the given state meets any state in the opposite search tree. This is done every time
+   * a state is added to one of the trees, so all meetings are found.
+   */
+  private void updateBestMeeting(State u, boolean uIsPrimary) {
+    Search other = uIsPrimary ? secondary : primary;
+    Collection<State> opposite = other.spt.getStates(u.getVertex());
+    if (opposite == null) {
+      return;
+    }
+    for (State o : opposite) {
+      State p = uIsPrimary ? u : o;
+      State s = uIsPrimary ? o : u;
+      double weight = meetingWeight(p, s);
+      if (weight < bestWeight) {
+        bestWeight = weight;
+        bestPrimary = p;
+        bestSecondary = s;
+      }
+    }
+  }
+
+  /**
+   * The weight of the path joining the two halves at their common vertex. Neither half includes
+   * the turn from the last primary edge onto the first secondary edge. To get it, the first
+   * secondary edge is traversed from the primary state, and from a state at the same vertex which
+   * has no back edge. The difference is the turn cost. This also applies the turn restrictions.
+   *
+   * @return the weight, or infinity if the halves can not be joined.
+   */
+  private static double meetingWeight(State primaryState, State secondaryState) {
+    Edge edge = secondaryState.getBackEdge();
+    if (edge == null || primaryState.getBackEdge() == null) {
+      return primaryState.getWeight() + secondaryState.getWeight();
+    }
+    State joined = sameMode(edge.traverse(primaryState), secondaryState);
+    if (joined == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+    State withoutTurn = sameMode(
+      edge.traverse(
+        new State(
+          primaryState.getVertex(),
+          primaryState.getOptions(),
+          primaryState.getRoutingContext()
+        )
+      ),
+      secondaryState
+    );
+    if (withoutTurn == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double turnWeight = joined.getWeight() - primaryState.getWeight() - withoutTurn.getWeight();
+    return primaryState.getWeight() + secondaryState.getWeight() + turnWeight;
+  }
+
+  /** Pick the result traversed with the same mode as the given state. */
+  private static State sameMode(State results, State state) {
+    for (State s = results; s != null; s = s.getNextResult()) {
+      if (
+        s.getBackMode() == state.getBackMode() && s.isBackWalkingBike() == state.isBackWalkingBike()
+      ) {
+        return s;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Continue the primary half of the best path by traversing the edges of the secondary half in
+   * the primary direction.
+   */
+  private State joinBestPaths() {
+    State cur = bestPrimary;
+    for (State s = bestSecondary; s.getBackState() != null; s = s.getBackState()) {
+      cur = s.getBackEdge().traverse(cur);
+      if (cur == null) {
+        return null;
+      }
+    }
+    if (
+      !primaryCtx.toVertices.contains(cur.getVertex()) ||
+      !cur.isFinal() ||
+      cur.getElapsedTimeSeconds() > maxDuration.toSeconds()
+    ) {
+      return null;
+    }
+    return cur;
+  }
+
+  private List<GraphPath> unidirectionalFallback() {
+    return AStarBuilder
+      .oneToOneMaxDuration(maxDuration)
+      .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setContext(primaryCtx)
+      .setTimeout(timeout)
+      .setTraverseVisitor(traverseVisitor)
+      .getPathsToTarget();
+  }
+
+  /**
+   * Create a context for the same request, but searching in the opposite direction. The
+   * RoutingContext swaps the from/to vertices based on the arriveBy flag, so we need to pass in the
+   * vertices in the request order, not the search order.
+   */
+  private static RoutingContext reversedContext(RoutingContext ctx) {
+    Set<Vertex> requestFrom = ctx.opt.arriveBy ? ctx.toVertices : ctx.fromVertices;
+    Set<Vertex> requestTo = ctx.opt.arriveBy ? ctx.fromVertices : ctx.toVertices;
+    var reversed = new RoutingContext(ctx.opt.reversedClone(), ctx.graph, requestFrom, requestTo);
+    reversed.dataOverlayContext = ctx.dataOverlayContext;
+    return reversed;
+  }
+
+  /** One of the two half-searches. */
+  private class Search {
+
+    private final boolean isPrimary;
+    private final RoutingContext rctx;
+    private final RemainingWeightHeuristic ownHeuristic;
+    private final RemainingWeightHeuristic otherHeuristic;
+    private final SkipEdgeStrategy skipEdgeStrategy;
+    private final ShortestPathTree spt;
+    private final BinHeap<State> pq;
+
+    private Search(
+      boolean isPrimary,
+      RoutingContext rctx,
+      RemainingWeightHeuristic ownHeuristic,
+      RemainingWeightHeuristic otherHeuristic,
+      SkipEdgeStrategy skipEdgeStrategy
+    ) {
+      this.isPrimary = isPrimary;
+      this.rctx = rctx;
+      this.ownHeuristic = ownHeuristic;
+      this.otherHeuristic = otherHeuristic;
+      this.skipEdgeStrategy = skipEdgeStrategy;
+      this.spt = new ShortestPathTree(new DominanceFunction.MinimumWeight());
+
+      int initialSize = rctx.graph.getVertices().size();
+      initialSize = (int) Math.ceil(2 * (Math.sqrt((double) initialSize + 1)));
+      this.pq = new BinHeap<>(initialSize);
+
+      for (State initialState : State.getInitialStates(rctx)) {
+        spt.add(initialState);
+        pq.insert(initialState, initialState.getWeight() + potential(initialState));
+      }
+    }
+
+    /**
+     * The average potential. The potential of the other search is the negative of this, which
+     * makes the reduced edge weights the same in both directions.
+     */
+    private double potential(State s) {
+      return (
+        (ownHeuristic.estimateRemainingWeight(s) - otherHeuristic.estimateRemainingWeight(s)) / 2
+      );
+    }
+
+    private void iterate() {
+      State u = pq.extract_min();
+
+      if (!spt.visit(u)) {
+        return;
+      }
+
+      if (traverseVisitor != null) {
+        traverseVisitor.visitVertex(u);
+      }
+
+      Vertex uVertex = u.getVertex();
+      Collection<Edge> edges = rctx.opt.arriveBy
+        ? rctx.temporaryEdges.getIncoming(uVertex)
+        : rctx.temporaryEdges.getOutgoing(uVertex);
+      for (Edge edge : edges) {
+        if (skipEdgeStrategy.shouldSkipEdge(u, edge)) {
+          continue;
+        }
+
+        for (State v = edge.traverse(u); v != null; v = v.getNextResult()) {
+          if (traverseVisitor != null) {
+            traverseVisitor.visitEdge(edge);
+          }
+
+          double potential = potential(v);
+          if (Double.isInfinite(potential) || Double.isNaN(potential)) {
+            continue;
+          }
+
+          if (spt.add(v)) {
+            if (traverseVisitor != null) {
+              traverseVisitor.visitEnqueue();
+            }
+            pq.insert(v, v.getWeight() + potential);
+            updateBestMeeting(v, isPrimary);
+          }
+        }
+      }
+    }
+  }
+}
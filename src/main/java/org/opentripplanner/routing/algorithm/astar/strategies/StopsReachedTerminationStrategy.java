@@ -0,0 +1,29 @@
+package org.opentripplanner.routing.algorithm.astar.strategies;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * Terminates the search when all the given stops have been visited. This is used when the set of
+ * stops which can be reached within the duration limit is known in advance, and exploring the
+ * rest of the street network would not find any more stops.
+ */
+public class StopsReachedTerminationStrategy implements SearchTerminationStrategy {
+
+  private final Set<StopLocation> remainingStops;
+
+  public StopsReachedTerminationStrategy(Set<StopLocation> stops) {
+    this.remainingStops = new HashSet<>(stops);
+  }
+
+  @Override
+  public boolean shouldSearchTerminate(State current) {
+    if (current.getVertex() instanceof TransitStopVertex stopVertex) {
+      remainingStops.remove(stopVertex.getStop());
+    }
+    return remainingStops.isEmpty();
+  }
+}
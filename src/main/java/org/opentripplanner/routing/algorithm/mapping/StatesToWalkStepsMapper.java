@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.algorithm.mapping;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import org.locationtech.jts.geom.Coordinate;
@@ -10,6 +11,7 @@ import org.opentripplanner.common.model.P2;
 import org.opentripplanner.model.VehicleRentalStationInfo;
 import org.opentripplanner.model.plan.RelativeDirection;
 import org.opentripplanner.model.plan.WalkStep;
+import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.edgetype.AreaEdge;
@@ -386,7 +388,7 @@ public class StatesToWalkStepsMapper {
     if (edge instanceof StreetEdge) {
       // the next edges will be PlainStreetEdges, we hope
       double angleDiff = getAbsoluteAngleDiff(thisAngle, lastAngle);
-      for (StreetEdge alternative : backState.getVertex().getOutgoingStreetEdges()) {
+      for (StreetEdge alternative : outgoingStreetEdges(backState, backState.getVertex())) {
         if (isTurnToOtherStreet(streetName, angleDiff, alternative)) {
           return true;
         }
@@ -396,8 +398,9 @@ public class StatesToWalkStepsMapper {
       // FIXME: this code might be wrong with the removal of the edge-based graph
       State twoStatesBack = backState.getBackState();
       Vertex backVertex = twoStatesBack.getVertex();
-      for (StreetEdge alternative : backVertex.getOutgoingStreetEdges()) {
-        for (StreetEdge innerAlternative : alternative.getToVertex().getOutgoingStreetEdges()) {
+      for (StreetEdge alternative : outgoingStreetEdges(backState, backVertex)) {
+        Vertex alternativeTo = alternative.getToVertex();
+        for (StreetEdge innerAlternative : outgoingStreetEdges(backState, alternativeTo)) {
           if (isTurnToOtherStreet(streetName, angleDiff, innerAlternative)) {
             return true;
           }
@@ -433,7 +436,7 @@ public class StatesToWalkStepsMapper {
   private static boolean multipleTurnOptionsInPreviousState(State state) {
     boolean foundAlternatePaths = false;
     TraverseMode requestedMode = state.getNonTransitMode();
-    for (Edge out : state.getBackState().getVertex().getOutgoing()) {
+    for (Edge out : outgoingEdges(state, state.getBackState().getVertex())) {
       if (out == state.backEdge) {
         continue;
       }
@@ -455,7 +458,7 @@ public class StatesToWalkStepsMapper {
       //now, from here, try a continuing path.
       Vertex tov = outState.getVertex();
       boolean found = false;
-      for (Edge out2 : tov.getOutgoing()) {
+      for (Edge out2 : outgoingEdges(state, tov)) {
         State outState2 = out2.traverse(outState);
         if (outState2 != null && !Objects.equals(outState2.getBackMode(), requestedMode)) {
           // walking a bike, so, not really an exit
@@ -475,6 +478,26 @@ public class StatesToWalkStepsMapper {
     return foundAlternatePaths;
   }
 
+  /**
+   * The outgoing edges of the vertex as the search saw them. The temporary edges of the request
+   * are not listed at the permanent vertices, and the realtime edges are in the snapshot of the
+   * request, so the edges are looked up through the {@link RoutingContext} of the state.
+   */
+  private static Collection<Edge> outgoingEdges(State state, Vertex vertex) {
+    RoutingContext rctx = state.getRoutingContext();
+    return rctx == null ? vertex.getOutgoing() : rctx.temporaryEdges.getOutgoing(vertex);
+  }
+
+  private static List<StreetEdge> outgoingStreetEdges(State state, Vertex vertex) {
+    List<StreetEdge> result = new ArrayList<>();
+    for (Edge out : outgoingEdges(state, vertex)) {
+      if (out instanceof StreetEdge streetEdge) {
+        result.add(streetEdge);
+      }
+    }
+    return result;
+  }
+
   private void createFirstStep(State backState, State forwardState) {
     current = createWalkStep(forwardState, backState);
     steps.add(current);
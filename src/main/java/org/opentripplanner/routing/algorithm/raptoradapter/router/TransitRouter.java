@@ -6,6 +6,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.routing.algorithm.mapping.RaptorPathToItineraryMapper;
 import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressRouter;
@@ -169,78 +171,135 @@ public class TransitRouter {
 
   private AccessEgresses getAccessEgresses(TransitLayer transitLayer) {
     var accessEgressMapper = new AccessEgressMapper(transitLayer.getStopIndex());
-    var accessList = new ArrayList<AccessEgress>();
-    var egressList = new ArrayList<AccessEgress>();
-
-    var accessCalculator = (Runnable) () -> {
-      debugTimingAggregator.startedAccessCalculating();
-      accessList.addAll(getAccessEgresses(accessEgressMapper, false));
-      debugTimingAggregator.finishedAccessCalculating();
-    };
-
-    var egressCalculator = (Runnable) () -> {
-      debugTimingAggregator.startedEgressCalculating();
-      egressList.addAll(getAccessEgresses(accessEgressMapper, true));
-      debugTimingAggregator.finishedEgressCalculating();
-    };
-
-    if (OTPFeature.ParallelRouting.isOn()) {
-      try {
-        CompletableFuture
-          .allOf(
-            CompletableFuture.runAsync(accessCalculator),
-            CompletableFuture.runAsync(egressCalculator)
-          )
-          .join();
-      } catch (CompletionException e) {
-        RoutingValidationException.unwrapAndRethrowCompletionException(e);
+    var accessMode = request.modes.accessMode;
+    var egressMode = request.modes.egressMode;
+
+    // Prepare access/egress requests
+    RoutingRequest accessRequest = request.getStreetSearchRequest(accessMode);
+    RoutingRequest egressRequest = request.getStreetSearchRequest(egressMode);
+
+    try (
+      var accessVertices = new TemporaryVerticesContainer(router.graph, accessRequest);
+      var egressVertices = new TemporaryVerticesContainer(router.graph, egressRequest)
+    ) {
+      var accessContext = new RoutingContext(accessRequest, router.graph, accessVertices);
+      var egressContext = new RoutingContext(egressRequest, router.graph, egressVertices);
+
+      accessRequest.allowKeepingRentedVehicleAtDestination = false;
+
+      var accessSearches = accessEgressSearches(
+        accessEgressMapper,
+        accessContext,
+        accessMode,
+        false
+      );
+      var egressSearches = accessEgressSearches(
+        accessEgressMapper,
+        egressContext,
+        egressMode,
+        true
+      );
+
+      List<AccessEgress> accessList;
+      List<AccessEgress> egressList;
+
+      if (OTPFeature.ParallelRouting.isOn()) {
+        try {
+          debugTimingAggregator.startedAccessCalculating();
+          debugTimingAggregator.startedEgressCalculating();
+          var accessFuture = runAsync(accessSearches)
+            .whenComplete((r, e) -> debugTimingAggregator.finishedAccessCalculating());
+          var egressFuture = runAsync(egressSearches)
+            .whenComplete((r, e) -> debugTimingAggregator.finishedEgressCalculating());
+          CompletableFuture.allOf(accessFuture, egressFuture).join();
+          accessList = accessFuture.join();
+          egressList = egressFuture.join();
+        } catch (CompletionException e) {
+          RoutingValidationException.unwrapAndRethrowCompletionException(e);
+          throw e;
+        }
+      } else {
+        debugTimingAggregator.startedAccessCalculating();
+        accessList = run(accessSearches);
+        debugTimingAggregator.finishedAccessCalculating();
+
+        debugTimingAggregator.startedEgressCalculating();
+        egressList = run(egressSearches);
+        debugTimingAggregator.finishedEgressCalculating();
       }
-    } else {
-      accessCalculator.run();
-      egressCalculator.run();
-    }
 
-    verifyAccessEgress(accessList, egressList);
+      verifyAccessEgress(accessList, egressList);
 
-    return new AccessEgresses(accessList, egressList);
+      return new AccessEgresses(accessList, egressList);
+    }
   }
 
-  private Collection<AccessEgress> getAccessEgresses(
+  /**
+   * Create the street searches needed to find the accesses or egresses for the given mode. Each
+   * search is independent of the others, so they can be run in parallel.
+   */
+  private List<Supplier<Collection<AccessEgress>>> accessEgressSearches(
     AccessEgressMapper accessEgressMapper,
+    RoutingContext routingContext,
+    StreetMode mode,
     boolean isEgress
   ) {
-    var results = new ArrayList<AccessEgress>();
-    var mode = isEgress ? request.modes.egressMode : request.modes.accessMode;
-
-    // Prepare access/egress lists
-    RoutingRequest accessRequest = request.getStreetSearchRequest(mode);
-    try (var temporaryVertices = new TemporaryVerticesContainer(router.graph, accessRequest)) {
-      var routingContext = new RoutingContext(accessRequest, router.graph, temporaryVertices);
-
-      if (!isEgress) {
-        accessRequest.allowKeepingRentedVehicleAtDestination = false;
-      }
-
-      var nearbyStops = AccessEgressRouter.streetSearch(routingContext, mode, isEgress);
-
-      results.addAll(accessEgressMapper.mapNearbyStops(nearbyStops, isEgress));
+    var searches = new ArrayList<Supplier<Collection<AccessEgress>>>();
+
+    searches.add(() -> {
+      var nearbyStops = AccessEgressRouter.streetSearch(
+        routingContext,
+        mode,
+        isEgress,
+        router.graph.getAccessEgressCache()
+      );
+      return accessEgressMapper.mapNearbyStops(nearbyStops, isEgress);
+    });
 
-      // Special handling of flex accesses
-      if (OTPFeature.FlexRouting.isOn() && mode == StreetMode.FLEXIBLE) {
+    // Special handling of flex accesses
+    if (OTPFeature.FlexRouting.isOn() && mode == StreetMode.FLEXIBLE) {
+      searches.add(() -> {
         var flexAccessList = FlexAccessEgressRouter.routeAccessEgress(
           routingContext,
           additionalSearchDays,
           router.routerConfig.flexParameters(request),
           isEgress
         );
-
-        results.addAll(accessEgressMapper.mapFlexAccessEgresses(flexAccessList, isEgress));
-      }
+        return accessEgressMapper.mapFlexAccessEgresses(flexAccessList, isEgress);
+      });
     }
+    return searches;
+  }
 
+  private static List<AccessEgress> run(List<Supplier<Collection<AccessEgress>>> searches) {
+    var results = new ArrayList<AccessEgress>();
+    for (var search : searches) {
+      results.addAll(search.get());
+    }
     return results;
   }
 
+  /**
+   * Run each search as a separate task on the router routing executor, and merge the results in
+   * the order of the given searches.
+   */
+  private CompletableFuture<List<AccessEgress>> runAsync(
+    List<Supplier<Collection<AccessEgress>>> searches
+  ) {
+    var futures = searches
+      .stream()
+      .map(search -> CompletableFuture.supplyAsync(search, router.routingExecutor()))
+      .collect(Collectors.toList());
+
+    return CompletableFuture
+      .allOf(futures.toArray(CompletableFuture[]::new))
+      .thenApply(ignore -> {
+        var results = new ArrayList<AccessEgress>();
+        futures.forEach(f -> results.addAll(f.join()));
+        return results;
+      });
+  }
+
   private RaptorRoutingRequestTransitData createRequestTransitDataProvider(
     TransitLayer transitLayer
   ) {
@@ -0,0 +1,514 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.StreetSearchPreferences;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of access/egress street search results. Many requests start or end at the same
+ * places (airports, central stations, geocoded POIs), and for those the street search to the
+ * nearby stops gives the same result every time.
+ * <p>
+ * Entries are keyed by where the request location is linked into the street graph, the street
+ * mode, the direction and the {@link StreetSearchPreferences}. Keying on the linked street edges
+ * rather than the raw coordinate means that a changed street graph never gives a stale hit for a
+ * location which is now linked elsewhere. Searches which depend on realtime vehicle rental or
+ * parking availability, car pickup or data overlays are never cached. The time of the request is
+ * not part of the key, so the cache must not be used if the street graph has time-dependent turn
+ * restrictions, see {@link #isTimeDependent(Graph)}.
+ * <p>
+ * An entry holds the edges of the path to each stop, and its weight and duration, not the states
+ * of the request which filled the cache. On a hit the paths are traversed again from the vertices
+ * of the current request, so each request gets its own states, routing context and temporary
+ * edges. A path which does not give the same weight and duration again is a sign that the key is
+ * missing a parameter. The entry is then dropped and the street search is done instead.
+ * <p>
+ * When the street graph is modified by a realtime updater, all entries with a path passing close
+ * to the modification are dropped after the change is published, see {@link
+ * #invalidate(Coordinate)}. A search which was running while entries were dropped is not cached,
+ * as it may have seen the street graph before the change. A cached edge which has been removed
+ * from the graph since is a miss.
+ * <p>
+ * This class is thread-safe.
+ */
+public class AccessEgressCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccessEgressCache.class);
+
+  /** Coordinates are rounded to 6 decimals (about 0.1 m) when used in the cache key. */
+  private static final double COORDINATE_PRECISION = 1_000_000d;
+
+  /** Expand the envelope of the cached paths with this value when invalidating, ~50 m */
+  private static final double INVALIDATE_ENVELOPE_MARGIN_DEGREES = 0.0005;
+
+  /** The largest difference in weight accepted when a cached path is traversed again. */
+  private static final double WEIGHT_EPSILON = 1e-6;
+
+  private final Cache<CacheKey, Entry> cache;
+
+  /** The number of times entries have been dropped because the street graph was modified. */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public AccessEgressCache(int maximumSize) {
+    this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  /**
+   * The street search depends on the time of the request if any turn restriction is only in force
+   * at some times. The cache can not be used then.
+   */
+  public static boolean isTimeDependent(Graph graph) {
+    return graph
+      .getStreetEdges()
+      .stream()
+      .anyMatch(e -> e.getTurnRestrictions().stream().anyMatch(r -> r.time != null));
+  }
+
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  /**
+   * Return the nearby stops for the given request, from the cache if possible. Otherwise the
+   * search is performed using the given supplier, and the paths found are cached. If the request
+   * is not cacheable the search is performed every time.
+   *
+   * @param graph         the graph searched
+   * @param streetRequest the street search request for the given mode
+   * @param isEgress      whether this is an egress search, ending at the request destination
+   * @param vertices      the vertices the search starts from
+   */
+  public Collection<NearbyStop> getOrSearch(
+    Graph graph,
+    RoutingRequest streetRequest,
+    StreetMode streetMode,
+    boolean isEgress,
+    Set<Vertex> vertices,
+    Supplier<List<NearbyStop>> search
+  ) {
+    RequestLinks links = RequestLinks.of(vertices);
+    CacheKey key = CacheKey.of(streetRequest, streetMode, isEgress, links);
+
+    if (key == null) {
+      return search.get();
+    }
+
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      List<NearbyStop> nearbyStops = entry.traverse(graph, streetRequest, isEgress, links);
+      if (nearbyStops != null) {
+        return nearbyStops;
+      }
+      LOG.warn("A cached access/egress path gave another result, dropping the entry: {}", key);
+      cache.invalidate(key);
+    }
+
+    long invalidationsBefore = invalidations.get();
+    List<NearbyStop> nearbyStops = search.get();
+    Entry newEntry = Entry.of(nearbyStops, links);
+    if (newEntry != null && invalidations.get() == invalidationsBefore) {
+      cache.put(key, newEntry);
+    }
+    return nearbyStops;
+  }
+
+  /**
+   * Drop all entries that contain a path passing near the given coordinate. This should be called
+   * every time the street graph is modified at realtime, after the change is visible to routing.
+   */
+  public void invalidate(Coordinate coordinate) {
+    invalidations.incrementAndGet();
+    cache.asMap().values().removeIf(e -> e.envelope.contains(coordinate));
+  }
+
+  /**
+   * The temporary and permanent vertices the request location is linked to. Only the temporary
+   * vertices know the temporary edges, so this does not leave the temporary part of the graph.
+   */
+  private record RequestLinks(
+    Set<Vertex> vertices,
+    Set<Vertex> permanentVertices,
+    Set<Edge> temporaryEdges
+  ) {
+    private static RequestLinks of(Set<Vertex> vertices) {
+      Set<Vertex> permanentVertices = new HashSet<>();
+      Set<Edge> temporaryEdges = new HashSet<>();
+      Set<Vertex> visited = new HashSet<>();
+      Deque<Vertex> queue = new ArrayDeque<>(vertices);
+
+      while (!queue.isEmpty()) {
+        Vertex v = queue.poll();
+        if (!visited.add(v)) {
+          continue;
+        }
+        if (!isRequestVertex(v)) {
+          permanentVertices.add(v);
+          continue;
+        }
+        for (Edge e : v.getOutgoing()) {
+          temporaryEdges.add(e);
+          queue.add(e.getToVertex());
+        }
+        for (Edge e : v.getIncoming()) {
+          temporaryEdges.add(e);
+          queue.add(e.getFromVertex());
+        }
+      }
+      return new RequestLinks(vertices, permanentVertices, temporaryEdges);
+    }
+
+    /**
+     * Where the vertices are linked into the street graph. The temporary vertices are different
+     * for each request, so their edges are replaced by the permanent edges they are split from and
+     * their rounded coordinates. Permanent vertices, like the vertices of a stop given by id, are
+     * used as they are.
+     */
+    private Set<Object> snappedEdges() {
+      Set<Object> result = new HashSet<>(permanentVertices);
+      for (Edge e : temporaryEdges) {
+        result.add(SnappedEdge.of(e));
+      }
+      return result;
+    }
+
+    private Map<TemporaryStep, List<Edge>> temporaryEdgesByStep() {
+      Map<TemporaryStep, List<Edge>> result = new HashMap<>();
+      for (Edge e : temporaryEdges) {
+        result.computeIfAbsent(TemporaryStep.of(e), k -> new ArrayList<>()).add(e);
+      }
+      return result;
+    }
+
+    private static boolean isRequestVertex(Vertex v) {
+      return v instanceof TemporaryVertex && !v.isRealtime();
+    }
+  }
+
+  private static class Entry {
+
+    private final List<CachedPath> paths;
+    private final Envelope envelope;
+
+    private Entry(List<CachedPath> paths, Envelope envelope) {
+      this.paths = paths;
+      this.envelope = envelope;
+    }
+
+    /**
+     * @return the entry, or {@code null} if a path passes a temporary edge which is not one of the
+     * edges linking the request location, and can therefore not be traversed by another request,
+     * or an edge which has been removed from the graph.
+     */
+    @Nullable
+    private static Entry of(List<NearbyStop> nearbyStops, RequestLinks links) {
+      List<CachedPath> paths = new ArrayList<>();
+      Envelope envelope = new Envelope();
+      for (NearbyStop nearbyStop : nearbyStops) {
+        if (nearbyStop.edges.stream().anyMatch(Entry::isRemoved)) {
+          return null;
+        }
+        CachedPath path = CachedPath.of(nearbyStop, links);
+        if (path == null) {
+          return null;
+        }
+        paths.add(path);
+        envelope.expandToInclude(nearbyStop.stop.getCoordinate().asJtsCoordinate());
+        for (Edge edge : nearbyStop.edges) {
+          envelope.expandToInclude(edge.getFromVertex().getCoordinate());
+          envelope.expandToInclude(edge.getToVertex().getCoordinate());
+        }
+      }
+      envelope.expandBy(INVALIDATE_ENVELOPE_MARGIN_DEGREES);
+      return new Entry(List.copyOf(paths), envelope);
+    }
+
+    /** {@link Graph#removeEdge(Edge)} clears the vertices of the edge. */
+    private static boolean isRemoved(Edge edge) {
+      return edge.getFromVertex() == null || edge.getToVertex() == null;
+    }
+
+    /**
+     * Traverse the cached paths from the vertices of the given request, the same way as the street
+     * search does.
+     *
+     * @return the nearby stops, or {@code null} if any path can not be traversed with the same
+     * result.
+     */
+    @Nullable
+    private List<NearbyStop> traverse(
+      Graph graph,
+      RoutingRequest streetRequest,
+      boolean isEgress,
+      RequestLinks links
+    ) {
+      RoutingRequest request = streetRequest.clone();
+      request.setArriveBy(isEgress);
+      RoutingContext rctx = isEgress
+        ? new RoutingContext(request, graph, null, links.vertices())
+        : new RoutingContext(request, graph, links.vertices(), null);
+      Map<TemporaryStep, List<Edge>> temporaryEdges = links.temporaryEdgesByStep();
+
+      List<NearbyStop> result = new ArrayList<>(paths.size());
+      for (CachedPath path : paths) {
+        NearbyStop nearbyStop = path.traverse(request, rctx, links.vertices(), temporaryEdges);
+        if (nearbyStop == null) {
+          return null;
+        }
+        result.add(nearbyStop);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The path to a stop, in the order the search traversed it, with the weight and duration it was
+   * found with.
+   */
+  private record CachedPath(
+    StopLocation stop,
+    @Nullable Vertex origin,
+    List<Step> steps,
+    double weight,
+    long durationSeconds
+  ) {
+    @Nullable
+    private static CachedPath of(NearbyStop nearbyStop, RequestLinks links) {
+      List<Step> steps = new ArrayList<>();
+      State s = nearbyStop.state;
+      while (s.getBackState() != null) {
+        Step step = Step.of(s, links);
+        if (step == null) {
+          return null;
+        }
+        steps.add(step);
+        s = s.getBackState();
+      }
+      Collections.reverse(steps);
+
+      // The origin is only needed if the path is empty, otherwise it follows from the first edge
+      Vertex origin = steps.isEmpty() ? s.getVertex() : null;
+      return new CachedPath(
+        nearbyStop.stop,
+        origin,
+        steps,
+        nearbyStop.state.getWeight(),
+        nearbyStop.state.getElapsedTimeSeconds()
+      );
+    }
+
+    @Nullable
+    private NearbyStop traverse(
+      RoutingRequest request,
+      RoutingContext rctx,
+      Set<Vertex> vertices,
+      Map<TemporaryStep, List<Edge>> temporaryEdges
+    ) {
+      boolean reverse = request.arriveBy;
+      State state = null;
+      for (Step step : steps) {
+        Edge edge = step.resolve(state, reverse, temporaryEdges);
+        if (edge == null) {
+          return null;
+        }
+        if (state == null) {
+          Vertex start = reverse ? edge.getToVertex() : edge.getFromVertex();
+          if (!vertices.contains(start)) {
+            return null;
+          }
+          state = new State(start, request, rctx);
+        }
+        state = step.select(edge.traverse(state));
+        if (state == null) {
+          return null;
+        }
+      }
+
+      if (state == null) {
+        if (!vertices.contains(origin)) {
+          return null;
+        }
+        State originState = new State(origin, request, rctx);
+        return new NearbyStop(stop, 0, Collections.emptyList(), null, originState);
+      }
+      if (
+        Math.abs(state.getWeight() - weight) > WEIGHT_EPSILON ||
+        state.getElapsedTimeSeconds() != durationSeconds
+      ) {
+        return null;
+      }
+      return NearbyStop.nearbyStopForState(state, stop);
+    }
+  }
+
+  /**
+   * An edge of a cached path, and the mode it was traversed with. A temporary edge linking the
+   * request location is stored as a {@link TemporaryStep}, and found again among the temporary
+   * edges of the request using the cache.
+   */
+  private record Step(
+    @Nullable Edge edge,
+    @Nullable TemporaryStep temporaryStep,
+    TraverseMode mode,
+    boolean walkingBike
+  ) {
+    /** @return the step, or {@code null} if the edge is a temporary edge of another location. */
+    @Nullable
+    private static Step of(State state, RequestLinks links) {
+      Edge edge = state.getBackEdge();
+      if (links.temporaryEdges().contains(edge)) {
+        return new Step(
+          null,
+          TemporaryStep.of(edge),
+          state.getBackMode(),
+          state.isBackWalkingBike()
+        );
+      }
+      if (
+        RequestLinks.isRequestVertex(edge.getFromVertex()) ||
+        RequestLinks.isRequestVertex(edge.getToVertex())
+      ) {
+        return null;
+      }
+      return new Step(edge, null, state.getBackMode(), state.isBackWalkingBike());
+    }
+
+    /**
+     * Find the edge to traverse from the given state, or from one of the request vertices if this
+     * is the first step.
+     *
+     * @return the edge, or {@code null} if it is not found or has been removed from the graph.
+     */
+    @Nullable
+    private Edge resolve(
+      @Nullable State state,
+      boolean reverse,
+      Map<TemporaryStep, List<Edge>> temporaryEdges
+    ) {
+      if (edge != null) {
+        return Entry.isRemoved(edge) ? null : edge;
+      }
+      for (Edge candidate : temporaryEdges.getOrDefault(temporaryStep, List.of())) {
+        Vertex start = reverse ? candidate.getToVertex() : candidate.getFromVertex();
+        if (state == null || start == state.getVertex()) {
+          return candidate;
+        }
+      }
+      return null;
+    }
+
+    /** Pick the result traversed with the same mode as the cached path. */
+    @Nullable
+    private State select(@Nullable State results) {
+      for (State s = results; s != null; s = s.getNextResult()) {
+        if (s.getBackMode() == mode && s.isBackWalkingBike() == walkingBike) {
+          return s;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** A temporary edge linking the request location, given by its type and where it is. */
+  private record TemporaryStep(Class<? extends Edge> type, SnappedEdge snappedEdge) {
+    private static TemporaryStep of(Edge edge) {
+      return new TemporaryStep(edge.getClass(), SnappedEdge.of(edge));
+    }
+  }
+
+  /**
+   * The cache key. The search is the same if it starts at the same place in the street graph, and
+   * the street preferences are the same.
+   */
+  private record CacheKey(
+    Set<Object> snappedEdges,
+    StreetMode streetMode,
+    boolean isEgress,
+    Duration maxDuration,
+    StreetSearchPreferences preferences
+  ) {
+    /** @return the key, or {@code null} if the request should not be cached. */
+    @Nullable
+    private static CacheKey of(
+      RoutingRequest request,
+      StreetMode streetMode,
+      boolean isEgress,
+      RequestLinks links
+    ) {
+      if (
+        request.vehicleRental ||
+        request.parkAndRide ||
+        request.carPickup ||
+        request.dataOverlay != null
+      ) {
+        return null;
+      }
+      if (links.vertices().isEmpty()) {
+        return null;
+      }
+      return new CacheKey(
+        links.snappedEdges(),
+        streetMode,
+        isEgress,
+        request.getMaxAccessEgressDuration(streetMode),
+        StreetSearchPreferences.of(request)
+      );
+    }
+  }
+
+  /**
+   * A temporary edge, given by the permanent edge it is a part of, if any, and the coordinates of
+   * its end points.
+   */
+  private record SnappedEdge(
+    @Nullable StreetEdge parentEdge,
+    long fromLat,
+    long fromLon,
+    long toLat,
+    long toLon
+  ) {
+    private static SnappedEdge of(Edge edge) {
+      return new SnappedEdge(
+        edge instanceof TemporaryPartialStreetEdge partial ? partial.getParentEdge() : null,
+        round(edge.getFromVertex().getLat()),
+        round(edge.getFromVertex().getLon()),
+        round(edge.getToVertex().getLat()),
+        round(edge.getToVertex().getLon())
+      );
+    }
+
+    private static long round(double degrees) {
+      return Math.round(degrees * COORDINATE_PRECISION);
+    }
+  }
+}
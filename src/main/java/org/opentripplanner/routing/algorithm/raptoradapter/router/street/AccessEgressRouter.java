@@ -1,14 +1,28 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
+import org.opentripplanner.routing.algorithm.astar.strategies.StopsReachedTerminationStrategy;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.EgressStopTable;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.util.OTPFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +33,12 @@ public class AccessEgressRouter {
 
   private static final Logger LOG = LoggerFactory.getLogger(AccessEgressRouter.class);
 
+  /**
+   * The request duration limit is divided by this factor before looking up stops in the
+   * {@link EgressStopTable}, to make sure the table lower bound is not too tight.
+   */
+  private static final double EGRESS_STOP_TABLE_SAFETY_FACTOR = 0.8;
+
   private AccessEgressRouter() {}
 
   /**
@@ -31,6 +51,21 @@ public class AccessEgressRouter {
     RoutingContext rctx,
     StreetMode streetMode,
     boolean fromTarget
+  ) {
+    return streetSearch(rctx, streetMode, fromTarget, null);
+  }
+
+  /**
+   * Same as {@link #streetSearch(RoutingContext, StreetMode, boolean)}, but the result is looked up
+   * in the given cache. The states of a cached result are traversed again for this request.
+   *
+   * @param cache the cache to use, or {@code null} to always do the street search
+   */
+  public static Collection<NearbyStop> streetSearch(
+    RoutingContext rctx,
+    StreetMode streetMode,
+    boolean fromTarget,
+    @Nullable AccessEgressCache cache
   ) {
     final RoutingRequest rr = rctx.opt;
     Set<Vertex> vertices = fromTarget != rr.arriveBy ? rctx.toVertices : rctx.fromVertices;
@@ -43,14 +78,93 @@ public class AccessEgressRouter {
       rr.getMaxAccessEgressDuration(streetMode),
       true
     );
-    List<NearbyStop> nearbyStopList = nearbyStopFinder.findNearbyStopsViaStreets(
-      vertices,
-      fromTarget,
-      nearbyRequest
-    );
+    SearchTerminationStrategy terminationStrategy = fromTarget
+      ? egressTerminationStrategy(rctx, vertices, streetMode, nearbyRequest)
+      : null;
+    Supplier<List<NearbyStop>> search = () ->
+      nearbyStopFinder.findNearbyStopsViaStreets(
+        vertices,
+        fromTarget,
+        nearbyRequest,
+        terminationStrategy
+      );
+
+    Collection<NearbyStop> nearbyStopList = cache == null
+      ? search.get()
+      : cache.getOrSearch(rctx.graph, nearbyRequest, streetMode, fromTarget, vertices, search);
 
     LOG.debug("Found {} {} stops", nearbyStopList.size(), fromTarget ? "egress" : "access");
 
     return nearbyStopList;
   }
+
+  /**
+   * Use the precomputed {@link EgressStopTable}, if available, to find all stops which can
+   * possibly be reached within the egress duration limit. The egress search can then be stopped
+   * as soon as all of them have been visited, instead of exploring the whole duration limit.
+   * <p>
+   * The table is only valid for walking. Flex needs the full search, since flex stop locations
+   * are not in the table.
+   *
+   * @return the termination strategy, or {@code null} if the table can not be used
+   */
+  @Nullable
+  static SearchTerminationStrategy egressTerminationStrategy(
+    RoutingContext rctx,
+    Set<Vertex> egressVertices,
+    StreetMode streetMode,
+    RoutingRequest streetRequest
+  ) {
+    EgressStopTable table = rctx.graph.getService(EgressStopTable.class);
+    if (table == null || streetMode != StreetMode.WALK || OTPFeature.FlexRouting.isOn()) {
+      return null;
+    }
+
+    // Convert the request duration limit to the walk speed used in the table. The safety factor
+    // compensates for slopes and other differences in how the table and request traverse edges.
+    double speedFactor = streetRequest.walkSpeed / table.walkSpeed();
+    long limitSeconds = streetRequest.getMaxAccessEgressDuration(streetMode).toSeconds();
+    int tableLimitSeconds = (int) Math.ceil(
+      limitSeconds * speedFactor / EGRESS_STOP_TABLE_SAFETY_FACTOR
+    );
+    if (tableLimitSeconds > table.maxDurationSeconds()) {
+      return null;
+    }
+
+    List<Coordinate> coordinates = new ArrayList<>();
+    for (Vertex v : permanentVerticesNear(egressVertices)) {
+      coordinates.add(v.getCoordinate());
+    }
+    Set<StopLocation> stops = table.findCandidateStops(coordinates, tableLimitSeconds);
+
+    LOG.debug("Egress stop table gives {} candidate stops", stops.size());
+
+    return new StopsReachedTerminationStrategy(stops);
+  }
+
+  /**
+   * The egress paths all end by passing one of the permanent vertices next to the temporary
+   * vertices at the destination. Collect these by following the incoming edges until a permanent
+   * vertex is found.
+   */
+  private static Set<Vertex> permanentVerticesNear(Set<Vertex> vertices) {
+    Set<Vertex> result = new HashSet<>();
+    Set<Vertex> visited = new HashSet<>();
+    Deque<Vertex> queue = new ArrayDeque<>(vertices);
+
+    while (!queue.isEmpty()) {
+      Vertex v = queue.poll();
+      if (!visited.add(v)) {
+        continue;
+      }
+      if (!(v instanceof TemporaryVertex)) {
+        result.add(v);
+        continue;
+      }
+      for (Edge e : v.getIncoming()) {
+        queue.add(e.getFromVertex());
+      }
+    }
+    return result;
+  }
 }
@@ -0,0 +1,75 @@
+package org.opentripplanner.routing.api.request;
+
+import org.opentripplanner.routing.core.BicycleOptimizeType;
+import org.opentripplanner.routing.core.TraverseModeSet;
+
+/**
+ * The parameters of a {@link RoutingRequest} which affect the result of a plain street search,
+ * without vehicle rental, parking or car pickup. Two requests with equal preferences find the same
+ * paths from the same vertices. This is used as a cache key, so each component has the same name
+ * as the request field it is copied from. The only exception is {@code accessMode}, which is
+ * copied from {@code modes.accessMode} and selects the skip edge heuristics of the search.
+ * <p>
+ * If a new parameter is used in the street search it must be added here as well. The tests list
+ * every field of the request as either used here or not used by the street search, and fail for
+ * a field which is in neither list.
+ */
+public record StreetSearchPreferences(
+  boolean arriveBy,
+  StreetMode accessMode,
+  TraverseModeSet streetSubRequestModes,
+  WheelchairAccessibilityRequest wheelchairAccessibility,
+  boolean geoidElevation,
+  BicycleOptimizeType bicycleOptimizeType,
+  double bikeTriangleSafetyFactor,
+  double bikeTriangleSlopeFactor,
+  double bikeTriangleTimeFactor,
+  double walkSpeed,
+  double bikeSpeed,
+  double bikeWalkingSpeed,
+  double carSpeed,
+  double walkReluctance,
+  double bikeWalkingReluctance,
+  double bikeReluctance,
+  double carReluctance,
+  double stairsReluctance,
+  double stairsTimeFactor,
+  double turnReluctance,
+  int elevatorBoardCost,
+  int elevatorBoardTime,
+  int elevatorHopCost,
+  int elevatorHopTime,
+  int bikeSwitchCost,
+  int bikeSwitchTime
+) {
+  public static StreetSearchPreferences of(RoutingRequest request) {
+    return new StreetSearchPreferences(
+      request.arriveBy,
+      request.modes.accessMode,
+      request.streetSubRequestModes.clone(),
+      request.wheelchairAccessibility,
+      request.geoidElevation,
+      request.bicycleOptimizeType,
+      request.bikeTriangleSafetyFactor,
+      request.bikeTriangleSlopeFactor,
+      request.bikeTriangleTimeFactor,
+      request.walkSpeed,
+      request.bikeSpeed,
+      request.bikeWalkingSpeed,
+      request.carSpeed,
+      request.walkReluctance,
+      request.bikeWalkingReluctance,
+      request.bikeReluctance,
+      request.carReluctance,
+      request.stairsReluctance,
+      request.stairsTimeFactor,
+      request.turnReluctance,
+      request.elevatorBoardCost,
+      request.elevatorBoardTime,
+      request.elevatorHopCost,
+      request.elevatorHopTime,
+      request.bikeSwitchCost,
+      request.bikeSwitchTime
+    );
+  }
+}
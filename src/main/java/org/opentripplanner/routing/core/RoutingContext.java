@@ -31,6 +31,13 @@ public class RoutingContext {
 
   public final Set<Vertex> toVertices;
 
+  /**
+   * The temporary edges connecting the origin and destination to the permanent graph, and the
+   * realtime street changes. The search uses this to expand a vertex, not the edge lists of the
+   * vertex.
+   */
+  public final TemporaryEdgeOverlay temporaryEdges;
+
   /**
    * DataOverlay Sandbox module context.
    */
@@ -77,6 +84,7 @@ public class RoutingContext {
     this.graph = graph;
     this.fromVertices = routingRequest.arriveBy ? to : from;
     this.toVertices = routingRequest.arriveBy ? from : to;
+    this.temporaryEdges = TemporaryEdgeOverlay.of(graph.getRealtimeStreetSnapshot(), from, to);
     this.dataOverlayContext =
       OTPFeature.DataOverlay.isOnElseNull(() ->
         new DataOverlayContext(graph.dataOverlayParameterBindings, routingRequest.dataOverlay)
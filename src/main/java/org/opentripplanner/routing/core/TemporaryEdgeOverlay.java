@@ -0,0 +1,134 @@
+package org.opentripplanner.routing.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.RealtimeStreetSnapshot;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+/**
+ * A request scoped view of the temporary edges connecting the origin and destination of a search
+ * to the graph. A temporary edge is only added to the edge lists of its temporary vertices, so the
+ * shared graph is not modified by a request. The temporary edges which start or end at a permanent
+ * vertex are kept here instead, and the search uses {@link #getOutgoing(Vertex)} and
+ * {@link #getIncoming(Vertex)} to expand a vertex.
+ * <p>
+ * The overlay is created by traversing the temporary subgraph from the origin and destination
+ * vertices, see {@link RoutingContext}. It also holds the {@link RealtimeStreetSnapshot} current
+ * when the request started, so the whole search sees the same realtime street changes.
+ */
+public final class TemporaryEdgeOverlay {
+
+  private final RealtimeStreetSnapshot realtimeStreetSnapshot;
+  private final Map<Vertex, List<Edge>> outgoing = new HashMap<>();
+  private final Map<Vertex, List<Edge>> incoming = new HashMap<>();
+
+  private TemporaryEdgeOverlay(RealtimeStreetSnapshot realtimeStreetSnapshot) {
+    this.realtimeStreetSnapshot = realtimeStreetSnapshot;
+  }
+
+  /**
+   * Create an overlay with the temporary edges connected to any of the given vertices, without
+   * any realtime street changes.
+   */
+  @SafeVarargs
+  public static TemporaryEdgeOverlay of(Collection<Vertex>... vertexSets) {
+    return of(RealtimeStreetSnapshot.EMPTY, vertexSets);
+  }
+
+  /**
+   * Create an overlay with the temporary edges connected to any of the given vertices. Permanent
+   * and realtime vertices and {@code null} are ignored.
+   */
+  @SafeVarargs
+  public static TemporaryEdgeOverlay of(
+    RealtimeStreetSnapshot realtimeStreetSnapshot,
+    Collection<Vertex>... vertexSets
+  ) {
+    TemporaryEdgeOverlay overlay = new TemporaryEdgeOverlay(realtimeStreetSnapshot);
+    Deque<Vertex> queue = new ArrayDeque<>();
+    for (Collection<Vertex> vertices : vertexSets) {
+      if (vertices == null) {
+        continue;
+      }
+      for (Vertex v : vertices) {
+        if (isRequestVertex(v)) {
+          queue.add(v);
+        }
+      }
+    }
+
+    Set<Vertex> visited = new HashSet<>();
+    while (!queue.isEmpty()) {
+      Vertex v = queue.poll();
+      if (!visited.add(v)) {
+        continue;
+      }
+      for (Edge e : v.getOutgoing()) {
+        Vertex to = e.getToVertex();
+        if (isRequestVertex(to)) {
+          queue.add(to);
+        } else if (!e.isListedAt(to)) {
+          overlay.incoming.computeIfAbsent(to, k -> new ArrayList<>()).add(e);
+        }
+      }
+      for (Edge e : v.getIncoming()) {
+        Vertex from = e.getFromVertex();
+        if (isRequestVertex(from)) {
+          queue.add(from);
+        } else if (!e.isListedAt(from)) {
+          overlay.outgoing.computeIfAbsent(from, k -> new ArrayList<>()).add(e);
+        }
+      }
+    }
+    return overlay;
+  }
+
+  /**
+   * The outgoing edges of the vertex, including the realtime edges and the temporary edges of this
+   * request.
+   */
+  public Collection<Edge> getOutgoing(Vertex v) {
+    return merge(v.getOutgoing(), realtimeStreetSnapshot.getOutgoing(v), outgoing.get(v));
+  }
+
+  /**
+   * The incoming edges of the vertex, including the realtime edges and the temporary edges of this
+   * request.
+   */
+  public Collection<Edge> getIncoming(Vertex v) {
+    return merge(v.getIncoming(), realtimeStreetSnapshot.getIncoming(v), incoming.get(v));
+  }
+
+  public boolean isEmpty() {
+    return outgoing.isEmpty() && incoming.isEmpty() && realtimeStreetSnapshot.isEmpty();
+  }
+
+  private static boolean isRequestVertex(Vertex v) {
+    return v instanceof TemporaryVertex && !v.isRealtime();
+  }
+
+  private static Collection<Edge> merge(
+    Collection<Edge> edges,
+    List<Edge> realtimeEdges,
+    List<Edge> temporaryEdges
+  ) {
+    if (realtimeEdges.isEmpty() && temporaryEdges == null) {
+      return edges;
+    }
+    List<Edge> result = new ArrayList<>(edges);
+    result.addAll(realtimeEdges);
+    if (temporaryEdges != null) {
+      result.addAll(temporaryEdges);
+    }
+    return result;
+  }
+}
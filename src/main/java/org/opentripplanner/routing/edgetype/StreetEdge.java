@@ -13,6 +13,7 @@ import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 import org.opentripplanner.common.TurnRestriction;
 import org.opentripplanner.common.TurnRestrictionType;
+import org.opentripplanner.common.geometry.CompactGeometrySegment;
 import org.opentripplanner.common.geometry.CompactLineString;
 import org.opentripplanner.common.geometry.DirectionUtils;
 import org.opentripplanner.common.geometry.GeometryUtils;
@@ -26,6 +27,7 @@ import org.opentripplanner.routing.core.StateEditor;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.trippattern.Deduplicator;
 import org.opentripplanner.routing.util.ElevationUtils;
 import org.opentripplanner.routing.vertextype.BarrierVertex;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
@@ -56,7 +58,7 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
   private static final double GREENWAY_SAFETY_FACTOR = 0.1;
   // TODO(flamholz): do something smarter with the car speed here.
   public static final float DEFAULT_CAR_SPEED = 11.2f;
-  /** If you have more than 8 flags, increase flags to short or int */
+  /** If you have more than 9 flags, move the permission and street class bits up */
   private static final int BACK_FLAG_INDEX = 0;
   private static final int ROUNDABOUT_FLAG_INDEX = 1;
   private static final int HASBOGUSNAME_FLAG_INDEX = 2;
@@ -66,9 +68,28 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
   private static final int WHEELCHAIR_ACCESSIBLE_FLAG_INDEX = 6;
   private static final int BICYCLE_NOTHRUTRAFFIC = 7;
   private static final int WALK_NOTHRUTRAFFIC = 8;
+  /** Mask for the boolean flags above. */
+  private static final int FLAGS_MASK = 0x1FF;
+
+  /** The {@link StreetTraversalPermission#code} is stored in the 3 bits above the flags. */
+  private static final int PERMISSION_SHIFT = 9;
+  private static final int PERMISSION_MASK = 0x7 << PERMISSION_SHIFT;
+
+  /** The street class is stored in the 8 bits above the permission. */
+  private static final int STREET_CLASS_SHIFT = 12;
+  private static final int STREET_CLASS_MASK = 0xFF << STREET_CLASS_SHIFT;
   private StreetEdgeCostExtension costExtension;
-  /** back, roundabout, stairs, ... */
-  private short flags;
+  /**
+   * The boolean flags (back, roundabout, stairs, ...), the permission and the street class packed
+   * into one int. There are many millions of street edges in a large graph, so we avoid a separate
+   * field (and for the permission an object reference) for each of them.
+   * <p>
+   * Note that objects are aligned to 8 bytes: with compressed references a StreetEdge takes 64
+   * bytes both before and after the packing, without them it went from 96 to 88 bytes (and back to
+   * 96 with the {@link #geometryOffset}). Check the object size (e.g. with JOL) before adding a
+   * field here, a single int may cost 8 bytes per edge.
+   */
+  private int flags = CLASS_OTHERPATH << STREET_CLASS_SHIFT;
 
   /**
    * Length is stored internally as 32-bit fixed-point (millimeters). This allows edges of up to
@@ -85,13 +106,16 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
    */
   protected float bicycleSafetyFactor;
 
-  private byte[] compactGeometry;
-
-  private I18NString name;
+  /**
+   * The geometry in compact form, either a {@code byte[]} on the heap or the
+   * {@link CompactGeometrySegment} holding it off-heap at the {@link #geometryOffset}, see
+   * {@link #moveGeometryOffHeap}. This is one field rather than two, since it is in every edge.
+   */
+  private Object compactGeometry;
 
-  private StreetTraversalPermission permission;
+  private int geometryOffset;
 
-  private int streetClass = CLASS_OTHERPATH;
+  private I18NString name;
 
   /**
    * The speed (meters / sec) at which an automobile can traverse this street segment.
@@ -424,12 +448,22 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
   }
 
   public LineString getGeometry() {
+    if (compactGeometry instanceof CompactGeometrySegment segment) {
+      return CompactLineString.uncompactLineStringFromDeltas(
+        fromv.getLon(),
+        fromv.getLat(),
+        tov.getLon(),
+        tov.getLat(),
+        segment.unpack(geometryOffset),
+        isBack()
+      );
+    }
     return CompactLineString.uncompactLineString(
       fromv.getLon(),
       fromv.getLat(),
       tov.getLon(),
       tov.getLat(),
-      compactGeometry,
+      getCompactGeometry(),
       isBack()
     );
   }
@@ -499,9 +533,46 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
     return true;
   }
 
+  /**
+   * Replace the name and geometry with the canonical instances from the given deduplicator, so
+   * equal values are shared with other edges. The sharing is kept when the graph is serialized.
+   */
+  public void deduplicate(Deduplicator deduplicator) {
+    name = deduplicator.deduplicateObject(I18NString.class, name);
+    if (compactGeometry instanceof byte[] geometry) {
+      compactGeometry = deduplicator.deduplicateByteArray(geometry);
+    }
+  }
+
+  /**
+   * The geometry in the compact form it is stored in. If the geometry is off-heap, this is a new
+   * copy of it, otherwise it is the stored array, which may be shared with other edges. Do not
+   * modify the returned array. {@link #getGeometry()} decodes an off-heap geometry without the
+   * copy.
+   */
+  public byte[] getCompactGeometry() {
+    return compactGeometry instanceof CompactGeometrySegment segment
+      ? segment.get(geometryOffset)
+      : (byte[]) compactGeometry;
+  }
+
+  /**
+   * Replace the geometry on the heap with a reference to the same geometry stored off-heap, at the
+   * given offset in the segment. The geometry is decoded from the segment every time it is used.
+   */
+  public void moveGeometryOffHeap(CompactGeometrySegment segment, int offset) {
+    this.compactGeometry = segment;
+    this.geometryOffset = offset;
+  }
+
+  public boolean isGeometryOffHeap() {
+    return compactGeometry instanceof CompactGeometrySegment;
+  }
+
   public void shareData(StreetEdge reversedEdge) {
-    if (Arrays.equals(compactGeometry, reversedEdge.compactGeometry)) {
+    if (Arrays.equals(getCompactGeometry(), reversedEdge.getCompactGeometry())) {
       compactGeometry = reversedEdge.compactGeometry;
+      geometryOffset = reversedEdge.geometryOffset;
     } else {
       LOG.warn("Can't share geometry between {} and {}", this, reversedEdge);
     }
@@ -516,19 +587,30 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
   }
 
   public StreetTraversalPermission getPermission() {
-    return permission;
+    return StreetTraversalPermission.get((flags & PERMISSION_MASK) >>> PERMISSION_SHIFT);
   }
 
+  /**
+   * @throws IllegalArgumentException if the permission is {@code null}, use
+   *                                  {@link StreetTraversalPermission#NONE} for an edge nobody may
+   *                                  traverse.
+   */
   public void setPermission(StreetTraversalPermission permission) {
-    this.permission = permission;
+    if (permission == null) {
+      throw new IllegalArgumentException("The permission of a street edge can not be null");
+    }
+    flags = (flags & ~PERMISSION_MASK) | (permission.code << PERMISSION_SHIFT);
   }
 
   public int getStreetClass() {
-    return streetClass;
+    return (flags & STREET_CLASS_MASK) >>> STREET_CLASS_SHIFT;
   }
 
   public void setStreetClass(int streetClass) {
-    this.streetClass = streetClass;
+    if (streetClass < 0 || streetClass > (STREET_CLASS_MASK >>> STREET_CLASS_SHIFT)) {
+      throw new IllegalArgumentException("Street class out of range: " + streetClass);
+    }
+    flags = (flags & ~STREET_CLASS_MASK) | (streetClass << STREET_CLASS_SHIFT);
   }
 
   /**
@@ -627,7 +709,7 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
       v,
       geoms.first,
       name,
-      permission,
+      getPermission(),
       this.isBack()
     );
     StreetEdge e2 = new StreetEdge(
@@ -635,7 +717,7 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
       (StreetVertex) tov,
       geoms.second,
       name,
-      permission,
+      getPermission(),
       this.isBack()
     );
 
@@ -735,9 +817,12 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
       tempEdges.addEdge(e2);
     }
 
-    var splitEdges = new P2<>(e1, e2);
-    copyRestrictionsToSplitEdges(this, splitEdges);
-    return splitEdges;
+    // The restrictions with this edge as 'to' are not copied, a temporary edge is equivalent to
+    // its parent edge when turn restrictions are checked. This keeps the graph unmodified.
+    if (e2 != null) {
+      copyRestrictionsFromSplitEdge(this, e2);
+    }
+    return new P2<>(e1, e2);
   }
 
   public Optional<Edge> createPartialEdge(StreetVertex from, StreetVertex to) {
@@ -842,7 +927,7 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
     double fromDistance,
     double toDistance
   ) {
-    splitEdge.flags = this.flags;
+    splitEdge.flags = (splitEdge.flags & ~FLAGS_MASK) | (this.flags & FLAGS_MASK);
     splitEdge.setBicycleSafetyFactor(bicycleSafetyFactor);
     splitEdge.setStreetClass(getStreetClass());
     splitEdge.setCarSpeed(getCarSpeed());
@@ -882,20 +967,23 @@ public class StreetEdge extends Edge implements BikeWalkableEdge, Cloneable, Car
         );
     }
 
-    // Copy turn restriction which have a .from of this edge (present on the original street edge)
     if (splitEdges.second != null) {
-      edge
-        .getTurnRestrictions()
-        .forEach(existingTurnRestriction ->
-          applyRestrictionsToNewEdge(
-            splitEdges.second,
-            existingTurnRestriction.to,
-            existingTurnRestriction
-          )
-        );
+      copyRestrictionsFromSplitEdge(edge, splitEdges.second);
     }
   }
 
+  /**
+   * Copy turn restriction which have a .from of this edge (present on the original street edge) to
+   * the second split edge.
+   */
+  private static void copyRestrictionsFromSplitEdge(StreetEdge edge, StreetEdge second) {
+    edge
+      .getTurnRestrictions()
+      .forEach(existingTurnRestriction ->
+        applyRestrictionsToNewEdge(second, existingTurnRestriction.to, existingTurnRestriction)
+      );
+  }
+
   private static void applyRestrictionsToNewEdge(
     StreetEdge fromEdge,
     StreetEdge toEdge,
@@ -7,6 +7,8 @@ import java.io.Serializable;
 import java.util.Objects;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
 import org.opentripplanner.util.I18NString;
 
 /**
@@ -17,6 +19,10 @@ public abstract class Edge implements Serializable {
 
   private static final long serialVersionUID = 1L;
 
+  private static final int GRAPH_LAYER = 0;
+  private static final int REALTIME_LAYER = 1;
+  private static final int REQUEST_LAYER = 2;
+
   protected Vertex fromv;
 
   protected Vertex tov;
@@ -33,8 +39,29 @@ public abstract class Edge implements Serializable {
     }
     this.fromv = v1;
     this.tov = v2;
-    fromv.addOutgoing(this);
-    tov.addIncoming(this);
+    if (isListedAt(v1)) {
+      fromv.addOutgoing(this);
+    }
+    if (isListedAt(v2)) {
+      tov.addIncoming(this);
+    }
+  }
+
+  /**
+   * Whether this edge is in the edge lists of the given end vertex. An edge linking a request or
+   * realtime vertex into the street graph is not added to the vertex at the other end, so the
+   * shared graph is not modified. The search finds these edges through the {@link
+   * org.opentripplanner.routing.core.TemporaryEdgeOverlay} and the {@link RealtimeStreetSnapshot}.
+   */
+  public boolean isListedAt(Vertex v) {
+    Vertex other = v == fromv ? tov : fromv;
+    int layer = layer(v);
+    int otherLayer = layer(other);
+    if (layer >= otherLayer) {
+      return true;
+    }
+    // Only temporary edges are kept out of the graph for requests
+    return otherLayer == REQUEST_LAYER && !(this instanceof TemporaryEdge);
   }
 
   public Vertex getFromVertex() {
@@ -169,4 +196,11 @@ public abstract class Edge implements Serializable {
     }
     out.defaultWriteObject();
   }
+
+  private static int layer(Vertex v) {
+    if (v.isRealtime()) {
+      return REALTIME_LAYER;
+    }
+    return v instanceof TemporaryVertex ? REQUEST_LAYER : GRAPH_LAYER;
+  }
 }
@@ -60,6 +60,7 @@ import org.opentripplanner.model.calendar.CalendarServiceData;
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.model.calendar.impl.CalendarServiceImpl;
 import org.opentripplanner.model.transfer.TransferService;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.routing.core.intersection_model.IntersectionTraversalCostModel;
@@ -139,6 +140,11 @@ public class Graph implements Serializable {
   public final Multimap<StopLocation, PathTransfer> transfersByStop = HashMultimap.create();
   /** Data model for Raptor routing, with realtime updates applied (if any). */
   private final transient ConcurrentPublished<TransitLayer> realtimeTransitLayer = new ConcurrentPublished<>();
+  /** Realtime street changes written by the graph updaters, see {@link RealtimeStreetSnapshot}. */
+  private final transient RealtimeStreetSnapshot realtimeStreetBuffer = new RealtimeStreetSnapshot();
+  private final transient ConcurrentPublished<RealtimeStreetSnapshot> realtimeStreetSnapshot = new ConcurrentPublished<>();
+  /** Where the realtime updaters modified the street graph since the last commit. */
+  private final transient List<Coordinate> realtimeStreetModifications = new ArrayList<>();
   // transit feed validity information in seconds since epoch
   private long transitServiceStarts = Long.MAX_VALUE;
   private long transitServiceEnds = 0;
@@ -229,6 +235,8 @@ public class Graph implements Serializable {
   /** Data model for Raptor routing, with realtime updates applied (if any). */
   private transient TransitLayer transitLayer;
   public transient TransitLayerUpdater transitLayerUpdater;
+  /** Cache of access/egress street searches, {@code null} if not enabled in the router config. */
+  private transient AccessEgressCache accessEgressCache;
 
   private transient TransitAlertService transitAlertService;
 
@@ -324,6 +332,10 @@ public class Graph implements Serializable {
         ((StreetEdge) e).removeAllTurnRestrictions();
       }
 
+      // Edges linking request or realtime vertices are not listed at the street graph vertices
+      boolean listedAtFrom = e.fromv == null || e.tov == null || e.isListedAt(e.fromv);
+      boolean listedAtTo = e.fromv == null || e.tov == null || e.isListedAt(e.tov);
+
       if (e.fromv != null) {
         e.fromv
           .getIncoming()
@@ -338,12 +350,16 @@ public class Graph implements Serializable {
             }
           });
 
-        e.fromv.removeOutgoing(e);
+        if (listedAtFrom) {
+          e.fromv.removeOutgoing(e);
+        }
         e.fromv = null;
       }
 
       if (e.tov != null) {
-        e.tov.removeIncoming(e);
+        if (listedAtTo) {
+          e.tov.removeIncoming(e);
+        }
         e.tov = null;
       }
     }
@@ -400,6 +416,26 @@ public class Graph implements Serializable {
     return transitLayer;
   }
 
+  @Nullable
+  public AccessEgressCache getAccessEgressCache() {
+    return accessEgressCache;
+  }
+
+  public void setAccessEgressCache(AccessEgressCache accessEgressCache) {
+    this.accessEgressCache = accessEgressCache;
+  }
+
+  /**
+   * Record that the street graph has been modified near the given coordinate by a realtime
+   * updater. The caches depending on the street network are notified when the change is
+   * published by {@link #commitRealtimeStreetChanges()}. If they were notified before, a request
+   * still seeing the old street graph could fill the cache again with a path over a removed edge.
+   * This must only be used from the graph updater thread.
+   */
+  public void streetGraphModifiedAt(Coordinate coordinate) {
+    realtimeStreetModifications.add(coordinate);
+  }
+
   public void setTransitLayer(TransitLayer transitLayer) {
     this.transitLayer = transitLayer;
   }
@@ -412,6 +448,63 @@ public class Graph implements Serializable {
     this.realtimeTransitLayer.publish(realtimeTransitLayer);
   }
 
+  /**
+   * The last committed realtime changes to the street graph. A routing request should read this
+   * once, so it sees one consistent version.
+   */
+  public RealtimeStreetSnapshot getRealtimeStreetSnapshot() {
+    RealtimeStreetSnapshot snapshot = realtimeStreetSnapshot.get();
+    return snapshot == null ? RealtimeStreetSnapshot.EMPTY : snapshot;
+  }
+
+  /**
+   * The buffer the realtime updaters write their street changes to. This must only be used from
+   * the graph updater thread, the changes are visible to routing after {@link
+   * #commitRealtimeStreetChanges()}.
+   */
+  public RealtimeStreetSnapshot getRealtimeStreetBuffer() {
+    return realtimeStreetBuffer;
+  }
+
+  /**
+   * Publish the realtime street changes made since the last commit, if any. The edges the updaters
+   * split are added to the realtime spatial index of the linker at the same time, so a request
+   * cannot link to a realtime edge before the edges it connects to are published.
+   */
+  public void commitRealtimeStreetChanges() {
+    RealtimeStreetSnapshot snapshot = realtimeStreetBuffer.commit();
+    if (snapshot != null) {
+      realtimeStreetSnapshot.publish(snapshot);
+    }
+    if (streetIndex != null) {
+      streetIndex.getVertexLinker().commitRealtimeIndex();
+    }
+    invalidateStreetCaches();
+  }
+
+  /**
+   * Discard the realtime street changes made since the last commit. The vertices and edges the
+   * updaters created are not removed from the graph, but they are not reachable from the street
+   * graph.
+   */
+  public void rollbackRealtimeStreetChanges() {
+    realtimeStreetBuffer.rollback();
+    if (streetIndex != null) {
+      streetIndex.getVertexLinker().rollbackRealtimeIndex();
+    }
+    // The edges removed by the failed writer are not restored
+    invalidateStreetCaches();
+  }
+
+  private void invalidateStreetCaches() {
+    if (accessEgressCache != null) {
+      for (Coordinate coordinate : realtimeStreetModifications) {
+        accessEgressCache.invalidate(coordinate);
+      }
+    }
+    realtimeStreetModifications.clear();
+  }
+
   public boolean hasRealtimeTransitLayer() {
     return realtimeTransitLayer != null;
   }
@@ -0,0 +1,148 @@
+package org.opentripplanner.routing.graph;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The realtime changes to the street graph, as a layer on top of the graph built by the graph
+ * builder. The realtime updaters link vertices, like vehicle rental stations and vehicle parking
+ * entrances, into the street graph. The edges connecting these realtime vertices to the vertices of
+ * the street graph are not added to the street vertices, but kept in this layer. The street graph
+ * itself is never modified at runtime: the splits made by the updaters are non-destructive, so
+ * removing a realtime vertex only removes edges from this layer.
+ * <p>
+ * This works the same way as the {@link org.opentripplanner.model.TimetableSnapshot}. The updaters
+ * write to a buffer in the graph updater thread, and the buffer is committed after each graph
+ * writer task. The committed snapshot is read-only and published atomically, so a routing request
+ * sees one consistent version of the realtime street changes without any locking.
+ * <p>
+ * The edge lists are copied on write, so committing a snapshot only copies the maps.
+ */
+public class RealtimeStreetSnapshot {
+
+  public static final RealtimeStreetSnapshot EMPTY = new RealtimeStreetSnapshot().commit(true);
+
+  private Map<Vertex, List<Edge>> outgoing = new HashMap<>();
+  private Map<Vertex, List<Edge>> incoming = new HashMap<>();
+
+  /** The maps of the last commit, used to roll back the buffer. */
+  private Map<Vertex, List<Edge>> committedOutgoing = Map.of();
+  private Map<Vertex, List<Edge>> committedIncoming = Map.of();
+
+  private boolean readOnly = false;
+
+  private boolean dirty = false;
+
+  /**
+   * Add the edge to the street vertices it is not listed at, see {@link Edge#isListedAt(Vertex)}.
+   */
+  public void addEdge(Edge edge) {
+    checkWritable();
+    if (!edge.isListedAt(edge.getFromVertex())) {
+      add(outgoing, edge.getFromVertex(), edge);
+    }
+    if (!edge.isListedAt(edge.getToVertex())) {
+      add(incoming, edge.getToVertex(), edge);
+    }
+  }
+
+  /**
+   * Remove the edge from this layer. This must be called before the edge is removed from the
+   * graph, while it still has its vertices.
+   */
+  public void removeEdge(Edge edge) {
+    checkWritable();
+    if (!edge.isListedAt(edge.getFromVertex())) {
+      remove(outgoing, edge.getFromVertex(), edge);
+    }
+    if (!edge.isListedAt(edge.getToVertex())) {
+      remove(incoming, edge.getToVertex(), edge);
+    }
+  }
+
+  /** The realtime edges leaving the given street vertex, in addition to its own edges. */
+  public List<Edge> getOutgoing(Vertex v) {
+    return outgoing.getOrDefault(v, List.of());
+  }
+
+  /** The realtime edges arriving at the given street vertex, in addition to its own edges. */
+  public List<Edge> getIncoming(Vertex v) {
+    return incoming.getOrDefault(v, List.of());
+  }
+
+  public boolean isEmpty() {
+    return outgoing.isEmpty() && incoming.isEmpty();
+  }
+
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * @return an immutable copy of this snapshot with all changes applied, or {@code null} if there
+   * are no changes since the last commit.
+   */
+  public RealtimeStreetSnapshot commit() {
+    return commit(false);
+  }
+
+  private RealtimeStreetSnapshot commit(boolean force) {
+    checkWritable();
+    if (!force && !dirty) {
+      return null;
+    }
+    RealtimeStreetSnapshot ret = new RealtimeStreetSnapshot();
+    ret.outgoing = Map.copyOf(outgoing);
+    ret.incoming = Map.copyOf(incoming);
+    ret.readOnly = true;
+    this.committedOutgoing = ret.outgoing;
+    this.committedIncoming = ret.incoming;
+    this.dirty = false;
+    return ret;
+  }
+
+  /**
+   * Discard all changes since the last commit. This is used when a graph writer fails, so the
+   * partial changes it made are not published by the next commit.
+   */
+  public void rollback() {
+    checkWritable();
+    if (!dirty) {
+      return;
+    }
+    this.outgoing = new HashMap<>(committedOutgoing);
+    this.incoming = new HashMap<>(committedIncoming);
+    this.dirty = false;
+  }
+
+  private void add(Map<Vertex, List<Edge>> map, Vertex v, Edge edge) {
+    List<Edge> edges = new ArrayList<>(map.getOrDefault(v, List.of()));
+    edges.add(edge);
+    map.put(v, List.copyOf(edges));
+    dirty = true;
+  }
+
+  private void remove(Map<Vertex, List<Edge>> map, Vertex v, Edge edge) {
+    List<Edge> existing = map.get(v);
+    if (existing == null || !existing.contains(edge)) {
+      return;
+    }
+    List<Edge> edges = new ArrayList<>(existing);
+    edges.remove(edge);
+    if (edges.isEmpty()) {
+      map.remove(v);
+    } else {
+      map.put(v, List.copyOf(edges));
+    }
+    dirty = true;
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new ConcurrentModificationException("This RealtimeStreetSnapshot is read-only.");
+    }
+  }
+}
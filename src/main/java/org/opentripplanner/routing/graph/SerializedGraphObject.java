@@ -13,12 +13,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.DataSource;
+import org.opentripplanner.model.projectinfo.GraphCompression;
 import org.opentripplanner.model.projectinfo.GraphFileHeader;
 import org.opentripplanner.model.projectinfo.OtpProjectInfo;
+import org.opentripplanner.routing.graph.kryosupport.BlockCompressionOutputStream;
+import org.opentripplanner.routing.graph.kryosupport.BlockDecompressionInputStream;
 import org.opentripplanner.routing.graph.kryosupport.KryoBuilder;
+import org.opentripplanner.routing.graph.kryosupport.PipelinedInputStream;
+import org.opentripplanner.routing.graph.kryosupport.PipelinedOutputStream;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.util.OtpAppException;
@@ -41,9 +48,19 @@ public class SerializedGraphObject implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(SerializedGraphObject.class);
 
+  /**
+   * Kryo reads and writes through its own buffer, the default 4 KB buffer results in a very large
+   * number of small reads and writes for a graph of several GB.
+   */
+  private static final int KRYO_BUFFER_SIZE = 1024 * 1024;
+
   public final Graph graph;
 
-  private final Collection<Edge> edges;
+  /**
+   * All edges in the graph, grouped by from-vertex. This is only needed while saving and loading,
+   * it is released after the edge lists are reconstructed to free memory.
+   */
+  private Collection<Edge> edges;
 
   /**
    * The config JSON used to build this graph. Allows checking whether the configuration has
@@ -56,7 +73,7 @@ public class SerializedGraphObject implements Serializable {
 
   public SerializedGraphObject(Graph graph, BuildConfig buildConfig, RouterConfig routerConfig) {
     this.graph = graph;
-    this.edges = graph.getEdges();
+    this.edges = listEdges(graph);
     this.buildConfig = buildConfig;
     this.routerConfig = routerConfig;
   }
@@ -113,7 +130,7 @@ public class SerializedGraphObject implements Serializable {
    */
   public void save(@Nullable DataSource target) {
     if (target != null) {
-      save(target.asOutputStream(), target.name(), target.size());
+      save(target.asOutputStream(), target.name(), target.size(), buildConfig.graphCompression);
     } else {
       LOG.info("Not saving graph to disk, as requested.");
     }
@@ -125,24 +142,47 @@ public class SerializedGraphObject implements Serializable {
     // TODO store version information, halt load if versions mismatch
     try (inputStream) {
       LOG.info("Reading graph from '{}'", sourceDescription);
-      Input input = new Input(inputStream);
 
       validateGraphSerializationId(
-        input.readBytes(GraphFileHeader.headerLength()),
+        inputStream.readNBytes(GraphFileHeader.headerLength()),
         sourceDescription
       );
+      GraphCompression compression = GraphFileHeader.parseCompression(
+        inputStream.readNBytes(GraphFileHeader.compressionHeaderLength())
+      );
+      LOG.info("Graph compression: {}", compression);
 
-      Kryo kryo = KryoBuilder.create();
-      SerializedGraphObject serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
+      // Decompression and reading is done in the background while Kryo deserialize the graph
+      SerializedGraphObject serObj;
+      try (
+        InputStream pipelinedInputStream = new PipelinedInputStream(
+          compression == GraphCompression.NONE
+            ? inputStream
+            : new BlockDecompressionInputStream(inputStream, compression)
+        )
+      ) {
+        Input input = new Input(pipelinedInputStream, KRYO_BUFFER_SIZE);
+        Kryo kryo = KryoBuilder.create();
+        serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
+      }
       Graph graph = serObj.graph;
       LOG.debug("Graph read.");
       serObj.reconstructEdgeLists();
+      serObj.edges = null;
       LOG.info("Graph read. |V|={} |E|={}", graph.countVertices(), graph.countEdges());
       return serObj;
     } catch (IOException e) {
       LOG.error("Exception while loading graph: {}", e.getLocalizedMessage(), e);
       return null;
     } catch (KryoException ke) {
+      if (ke.getCause() instanceof IOException ioe) {
+        throw new OtpAppException(
+          "Unable to load graph. Reading the file failed: " +
+          ioe.getLocalizedMessage() +
+          ". Graph: " +
+          sourceDescription
+        );
+      }
       LOG.warn(
         "Exception while loading graph: {}\n{}",
         sourceDescription,
@@ -157,6 +197,19 @@ public class SerializedGraphObject implements Serializable {
     }
   }
 
+  /**
+   * List all edges using the outgoing edges of each vertex, every edge is listed exactly once.
+   * This uses a lot less memory than collecting the edges in a set, as in
+   * {@link Graph#getEdges()}, and the deserialized list is also cheaper to create.
+   */
+  private static List<Edge> listEdges(Graph graph) {
+    List<Edge> edges = new ArrayList<>();
+    for (Vertex v : graph.getVertices()) {
+      edges.addAll(v.getOutgoing());
+    }
+    return edges;
+  }
+
   @SuppressWarnings("Convert2MethodRef")
   private static OutputStream wrapOutputStreamWithProgressTracker(
     OutputStream outputStream,
@@ -190,16 +243,48 @@ public class SerializedGraphObject implements Serializable {
     }
   }
 
-  private void save(OutputStream outputStream, String graphName, long size) {
-    LOG.info("Writing graph " + graphName + " ...");
-    outputStream = wrapOutputStreamWithProgressTracker(outputStream, size);
+  private void save(
+    OutputStream outputStream,
+    String graphName,
+    long size,
+    GraphCompression compression
+  ) {
+    LOG.info("Writing graph " + graphName + " using compression " + compression + " ...");
     Kryo kryo = KryoBuilder.create();
-    Output output = new Output(outputStream);
-    output.write(OtpProjectInfo.projectInfo().graphFileHeaderInfo.header());
-    kryo.writeClassAndObject(output, this);
-    output.close();
+    // The pipelined stream must be closed also if the serialization fails, closing it stops the
+    // background writer thread and closes the target
+    try (OutputStream target = openPipelinedOutputStream(outputStream, size, compression)) {
+      Output output = new Output(target, KRYO_BUFFER_SIZE);
+      kryo.writeClassAndObject(output, this);
+      output.flush();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write graph " + graphName + ": " + e.getMessage(), e);
+    }
     LOG.info("Graph written: {}", graphName);
     // Summarize serialized classes and associated serializers to stdout:
     // ((InstanceCountingClassResolver) kryo.getClassResolver()).summarize();
   }
+
+  /**
+   * Write the file header, and return a stream compressing and writing the rest of the file in the
+   * background while Kryo serialize the graph.
+   */
+  private static OutputStream openPipelinedOutputStream(
+    OutputStream outputStream,
+    long size,
+    GraphCompression compression
+  ) throws IOException {
+    OutputStream target = wrapOutputStreamWithProgressTracker(outputStream, size);
+    try {
+      target.write(OtpProjectInfo.projectInfo().graphFileHeaderInfo.header());
+      target.write(GraphFileHeader.compressionHeader(compression));
+    } catch (IOException e) {
+      target.close();
+      throw e;
+    }
+    if (compression != GraphCompression.NONE) {
+      target = new BlockCompressionOutputStream(target, compression);
+    }
+    return new PipelinedOutputStream(target);
+  }
 }
@@ -39,6 +39,12 @@ public abstract class Vertex implements Serializable, Cloneable {
 
   private transient Edge[] outgoing = new Edge[0];
 
+  /**
+   * Vertices linked into the street graph by the realtime updaters, see {@link #isRealtime()}. This
+   * is volatile, as the routing requests read it while the updater thread links the vertex.
+   */
+  private transient volatile boolean realtime = false;
+
   /* CONSTRUCTORS */
 
   protected Vertex(Graph g, String label, double x, double y) {
@@ -71,6 +77,20 @@ public abstract class Vertex implements Serializable, Cloneable {
     return sb.toString();
   }
 
+  /**
+   * A realtime vertex is linked into the street graph by a realtime updater. The edges linking it
+   * to the street graph are not added to the street vertices, they are published in a
+   * {@link RealtimeStreetSnapshot} instead.
+   */
+  public boolean isRealtime() {
+    return realtime;
+  }
+
+  /** This must be called before any edges linking the vertex to the street graph are created. */
+  public void markAsRealtime() {
+    this.realtime = true;
+  }
+
   public void initEdgeLists() {
     this.outgoing = new Edge[0];
     this.incoming = new Edge[0];
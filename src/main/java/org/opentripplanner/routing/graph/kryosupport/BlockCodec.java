@@ -0,0 +1,93 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import com.github.luben.zstd.Zstd;
+import java.io.IOException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.opentripplanner.model.projectinfo.GraphCompression;
+
+/**
+ * Compress and decompress a single block of the graph file, see
+ * {@link BlockCompressionOutputStream}.
+ */
+abstract class BlockCodec {
+
+  static BlockCodec of(GraphCompression compression) {
+    return switch (compression) {
+      case LZ4 -> new Lz4();
+      case ZSTD -> new Zstandard();
+      case NONE -> throw new IllegalArgumentException("No codec for uncompressed blocks.");
+    };
+  }
+
+  abstract int maxCompressedLength(int length);
+
+  /** @return the compressed length */
+  abstract int compress(byte[] src, int length, byte[] dest) throws IOException;
+
+  /** Decompress exactly {@code destLength} bytes, or fail. */
+  abstract void decompress(byte[] src, int length, byte[] dest, int destLength) throws IOException;
+
+  private static class Lz4 extends BlockCodec {
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4Factory
+      .fastestInstance()
+      .safeDecompressor();
+
+    @Override
+    int maxCompressedLength(int length) {
+      return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    int compress(byte[] src, int length, byte[] dest) {
+      return compressor.compress(src, 0, length, dest, 0, dest.length);
+    }
+
+    @Override
+    void decompress(byte[] src, int length, byte[] dest, int destLength) throws IOException {
+      try {
+        int n = decompressor.decompress(src, 0, length, dest, 0, destLength);
+        if (n != destLength) {
+          throw new IOException("Expected " + destLength + " bytes in block, but got " + n + ".");
+        }
+      } catch (LZ4Exception e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
+
+  private static class Zstandard extends BlockCodec {
+
+    /** The Zstd default level, higher levels give a little smaller files, but are a lot slower. */
+    private static final int LEVEL = 3;
+
+    @Override
+    int maxCompressedLength(int length) {
+      return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    int compress(byte[] src, int length, byte[] dest) throws IOException {
+      long n = Zstd.compressByteArray(dest, 0, dest.length, src, 0, length, LEVEL);
+      if (Zstd.isError(n)) {
+        throw new IOException(Zstd.getErrorName(n));
+      }
+      return (int) n;
+    }
+
+    @Override
+    void decompress(byte[] src, int length, byte[] dest, int destLength) throws IOException {
+      long n = Zstd.decompressByteArray(dest, 0, destLength, src, 0, length);
+      if (Zstd.isError(n)) {
+        throw new IOException(Zstd.getErrorName(n));
+      }
+      if (n != destLength) {
+        throw new IOException("Expected " + destLength + " bytes in block, but got " + n + ".");
+      }
+    }
+  }
+}
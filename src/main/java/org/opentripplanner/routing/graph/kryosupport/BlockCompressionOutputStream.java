@@ -0,0 +1,87 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32C;
+import org.opentripplanner.model.projectinfo.GraphCompression;
+
+/**
+ * Compress the written bytes in independent blocks. Each block is written as:
+ * <ol>
+ *   <li>The uncompressed length, an int</li>
+ *   <li>The compressed length, an int</li>
+ *   <li>A CRC32C checksum of the compressed bytes, an int</li>
+ *   <li>The compressed bytes</li>
+ * </ol>
+ * The checksum is verified before a block is decompressed, so a corrupt or truncated file fails
+ * at the first bad block, see {@link BlockDecompressionInputStream}.
+ * <p>
+ * The compression runs in the calling thread; wrap this stream in a {@link PipelinedOutputStream}
+ * to compress in the background. The target stream is closed when this stream is closed.
+ */
+public class BlockCompressionOutputStream extends OutputStream {
+
+  static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+  private final DataOutputStream target;
+  private final BlockCodec codec;
+  private final CRC32C checksum = new CRC32C();
+  private final byte[] block;
+  private final byte[] compressed;
+  private int count = 0;
+
+  public BlockCompressionOutputStream(OutputStream target, GraphCompression compression) {
+    this(target, compression, DEFAULT_BLOCK_SIZE);
+  }
+
+  BlockCompressionOutputStream(OutputStream target, GraphCompression compression, int blockSize) {
+    this.target = new DataOutputStream(target);
+    this.codec = BlockCodec.of(compression);
+    this.block = new byte[blockSize];
+    this.compressed = new byte[codec.maxCompressedLength(blockSize)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (count == block.length) {
+      writeBlock();
+    }
+    block[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == block.length) {
+        writeBlock();
+      }
+      int n = Math.min(len, block.length - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try (target) {
+      if (count > 0) {
+        writeBlock();
+      }
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    int length = codec.compress(block, count, compressed);
+    checksum.reset();
+    checksum.update(compressed, 0, length);
+
+    target.writeInt(count);
+    target.writeInt(length);
+    target.writeInt((int) checksum.getValue());
+    target.write(compressed, 0, length);
+    count = 0;
+  }
+}
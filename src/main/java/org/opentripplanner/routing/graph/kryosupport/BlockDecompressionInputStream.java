@@ -0,0 +1,130 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32C;
+import org.opentripplanner.model.projectinfo.GraphCompression;
+
+/**
+ * Read a stream written by {@link BlockCompressionOutputStream}. The checksum of each block is
+ * verified before it is decompressed, a mismatch or a truncated block fails with an
+ * {@link IOException}.
+ * <p>
+ * The decompression runs in the calling thread; wrap this stream in a
+ * {@link PipelinedInputStream} to decompress in the background. The source stream is closed when
+ * this stream is closed.
+ */
+public class BlockDecompressionInputStream extends InputStream {
+
+  private final DataInputStream source;
+  private final BlockCodec codec;
+  private final CRC32C checksum = new CRC32C();
+  private final int maxBlockSize;
+  private byte[] block = new byte[0];
+  private byte[] compressed = new byte[0];
+  private int length = 0;
+  private int position = 0;
+  private int blockIndex = 0;
+
+  public BlockDecompressionInputStream(InputStream source, GraphCompression compression) {
+    this(source, compression, BlockCompressionOutputStream.DEFAULT_BLOCK_SIZE);
+  }
+
+  BlockDecompressionInputStream(
+    InputStream source,
+    GraphCompression compression,
+    int maxBlockSize
+  ) {
+    this.source = new DataInputStream(source);
+    this.codec = BlockCodec.of(compression);
+    this.maxBlockSize = maxBlockSize;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!readBlockIfEmpty()) {
+      return -1;
+    }
+    return block[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!readBlockIfEmpty()) {
+      return -1;
+    }
+    int n = Math.min(len, length - position);
+    System.arraycopy(block, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  /**
+   * Read and decompress the next block if all bytes in the current one are read.
+   *
+   * @return {@code false} if the end of the stream is reached.
+   */
+  private boolean readBlockIfEmpty() throws IOException {
+    while (position == length) {
+      // Read the first byte separately to tell the end of the stream from a truncated block
+      int first = source.read();
+      if (first < 0) {
+        return false;
+      }
+      int rawLength;
+      try {
+        rawLength = (first << 24) | (source.readUnsignedByte() << 16) | source.readUnsignedShort();
+        int compressedLength = source.readInt();
+        int expectedChecksum = source.readInt();
+
+        if (
+          rawLength < 0 ||
+          rawLength > maxBlockSize ||
+          compressedLength < 0 ||
+          compressedLength > codec.maxCompressedLength(rawLength)
+        ) {
+          throw corrupt("Illegal block length");
+        }
+        if (compressed.length < compressedLength) {
+          compressed = new byte[compressedLength];
+        }
+        if (block.length < rawLength) {
+          block = new byte[rawLength];
+        }
+        source.readFully(compressed, 0, compressedLength);
+
+        checksum.reset();
+        checksum.update(compressed, 0, compressedLength);
+        if ((int) checksum.getValue() != expectedChecksum) {
+          throw corrupt("Checksum mismatch");
+        }
+        codec.decompress(compressed, compressedLength, block, rawLength);
+      } catch (EOFException e) {
+        throw corrupt("Unexpected end of file");
+      }
+      length = rawLength;
+      position = 0;
+      ++blockIndex;
+    }
+    return true;
+  }
+
+  private IOException corrupt(String reason) {
+    return new IOException("The graph file is corrupt. " + reason + " in block " + blockIndex);
+  }
+}
@@ -16,7 +16,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.objenesis.strategy.SerializingInstantiatorStrategy;
+import org.opentripplanner.common.geometry.CompactGeometrySegment;
 import org.opentripplanner.kryo.BuildConfigSerializer;
+import org.opentripplanner.kryo.CompactGeometrySegmentSerializer;
 import org.opentripplanner.kryo.RouterConfigSerializer;
 import org.opentripplanner.kryo.UnmodifiableCollectionsSerializer;
 import org.opentripplanner.standalone.config.BuildConfig;
@@ -64,6 +66,9 @@ public final class KryoBuilder {
     kryo.register(RouterConfig.class, new RouterConfigSerializer());
     kryo.register(BuildConfig.class, new BuildConfigSerializer());
 
+    // Off-heap street geometries
+    kryo.register(CompactGeometrySegment.class, new CompactGeometrySegmentSerializer());
+
     UnmodifiableCollectionsSerializer.registerSerializers(kryo);
     // Instantiation strategy: how should Kryo make new instances of objects when they are deserialized?
     // The default strategy requires every class you serialize, even in your dependencies, to have a zero-arg
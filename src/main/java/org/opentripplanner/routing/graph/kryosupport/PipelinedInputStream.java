@@ -0,0 +1,144 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream which reads the source stream in chunks in a background thread, ahead of the
+ * consumer. This lets Kryo deserialize one part of the graph while the next part is read from disk,
+ * decompressed or downloaded from a remote data store.
+ * <p>
+ * A bounded number of chunks are read ahead. An error in the background thread is reported to
+ * the consumer when it reaches the failed chunk. The source stream is closed when this stream is
+ * closed.
+ */
+public class PipelinedInputStream extends InputStream {
+
+  private static final int MAX_QUEUED_CHUNKS = 4;
+
+  private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+  private final InputStream source;
+  private final int chunkSize;
+  private final Thread reader;
+
+  private Chunk current = new Chunk(new byte[0], 0, null);
+  private int position = 0;
+  private boolean endOfStream = false;
+  private boolean closed = false;
+
+  public PipelinedInputStream(InputStream source) {
+    this(source, PipelinedOutputStream.DEFAULT_CHUNK_SIZE);
+  }
+
+  PipelinedInputStream(InputStream source, int chunkSize) {
+    this.source = source;
+    this.chunkSize = chunkSize;
+    this.reader = new Thread(this::readChunks, "graph-reader");
+    this.reader.setDaemon(true);
+    this.reader.start();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextChunkIfEmpty()) {
+      return -1;
+    }
+    return current.bytes()[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunkIfEmpty()) {
+      return -1;
+    }
+    int n = Math.min(len, current.length() - position);
+    System.arraycopy(current.bytes(), position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current.length() - position;
+  }
+
+  /**
+   * Stop the background thread and close the source. This may be called before the end of the
+   * stream is reached, for example if the consumer fails.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    reader.interrupt();
+    try {
+      source.close();
+    } finally {
+      try {
+        reader.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Take the next chunk off the queue if all bytes in the current one are read.
+   *
+   * @return {@code false} if the end of the stream is reached.
+   */
+  private boolean nextChunkIfEmpty() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    while (position == current.length()) {
+      if (endOfStream) {
+        return false;
+      }
+      try {
+        current = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading graph.");
+      }
+      position = 0;
+      if (current.error() != null) {
+        throw current.error();
+      }
+      endOfStream = current.length() < chunkSize;
+    }
+    return true;
+  }
+
+  /** Runs in the background thread, a chunk shorter than the chunk size marks the end. */
+  private void readChunks() {
+    try {
+      while (true) {
+        byte[] bytes = new byte[chunkSize];
+        int length;
+        try {
+          length = source.readNBytes(bytes, 0, chunkSize);
+        } catch (IOException e) {
+          queue.put(new Chunk(bytes, 0, e));
+          return;
+        }
+        queue.put(new Chunk(bytes, length, null));
+        if (length < chunkSize) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      // The stream is closed
+    }
+  }
+
+  private record Chunk(byte[] bytes, int length, IOException error) {}
+}
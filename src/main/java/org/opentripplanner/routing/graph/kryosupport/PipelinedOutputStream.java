@@ -0,0 +1,161 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream which collects the written bytes into chunks, and writes the chunks to the
+ * target stream in a background thread. This lets Kryo serialize the next part of the graph while
+ * the previous part is written to disk or uploaded to a remote data store.
+ * <p>
+ * A bounded number of chunks are queued, if the target stream is slower than the serialization
+ * the writing thread is blocked. An error in the background thread is reported on the next write,
+ * or when the stream is closed. The target stream is closed when this stream is closed, also after
+ * an error, so this stream must always be closed to stop the background thread.
+ */
+public class PipelinedOutputStream extends OutputStream {
+
+  static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private static final int MAX_QUEUED_CHUNKS = 4;
+
+  /** Marks the end of the stream, the writer thread stops when it is taken off the queue. */
+  private static final byte[] END = new byte[0];
+
+  private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+  private final OutputStream target;
+  private final int chunkSize;
+  private final Thread writer;
+
+  private volatile IOException error;
+  private byte[] buffer;
+  private int count = 0;
+  private boolean closed = false;
+
+  public PipelinedOutputStream(OutputStream target) {
+    this(target, DEFAULT_CHUNK_SIZE);
+  }
+
+  PipelinedOutputStream(OutputStream target, int chunkSize) {
+    this.target = target;
+    this.chunkSize = chunkSize;
+    this.buffer = new byte[chunkSize];
+    this.writer = new Thread(this::writeChunks, "graph-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (count == buffer.length) {
+      enqueueBuffer();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (count == buffer.length) {
+        enqueueBuffer();
+      }
+      int n = Math.min(len, buffer.length - count);
+      System.arraycopy(b, off, buffer, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (count > 0) {
+        enqueueBuffer();
+      }
+    } finally {
+      // The end marker is queued even if the writer failed, or the writer thread would wait for
+      // it forever and the target would never be closed
+      stopWriter();
+    }
+    throwIfFailed();
+  }
+
+  private void stopWriter() throws IOException {
+    try {
+      queue.put(new Chunk(END, 0));
+      writer.join();
+    } catch (InterruptedException e) {
+      writer.interrupt();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the graph to be written.");
+    }
+  }
+
+  private void enqueueBuffer() throws IOException {
+    enqueue(new Chunk(buffer, count));
+    buffer = new byte[chunkSize];
+    count = 0;
+  }
+
+  private void enqueue(Chunk chunk) throws IOException {
+    throwIfFailed();
+    try {
+      queue.put(chunk);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing graph.");
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  private void throwIfFailed() throws IOException {
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Runs in the background thread. After an error the remaining chunks are dropped, so the
+   * producer is never blocked on a full queue.
+   */
+  private void writeChunks() {
+    try (target) {
+      while (true) {
+        Chunk chunk = queue.take();
+        if (chunk.bytes() == END) {
+          return;
+        }
+        if (error == null) {
+          try {
+            target.write(chunk.bytes(), 0, chunk.length());
+          } catch (IOException e) {
+            error = e;
+          }
+        }
+      }
+    } catch (IOException e) {
+      if (error == null) {
+        error = e;
+      }
+    } catch (InterruptedException e) {
+      error = new InterruptedIOException("Graph writer interrupted.");
+    }
+  }
+
+  private record Chunk(byte[] bytes, int length) {}
+}
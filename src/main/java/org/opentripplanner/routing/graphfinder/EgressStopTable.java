@@ -0,0 +1,174 @@
+package org.opentripplanner.routing.graphfinder;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * A precomputed table of lower-bound walking durations from stops to the street network around
+ * them. The street network is divided into a grid of cells of {@link #CELL_SIZE_DEGREES}, and for
+ * each cell the table holds the stops from which any vertex in the cell can be reached, together
+ * with the shortest walk duration to any vertex in that cell. The duration is a lower bound for
+ * walking from the stop to every vertex in the cell.
+ * <p>
+ * The table is built by the {@code EgressStopTableGenerator} and stored in the graph as a service.
+ * It is used to compute the set of stops which can possibly be reached by an egress search, so the
+ * search can terminate once all of them have been visited, instead of exploring the whole
+ * duration limit.
+ */
+public class EgressStopTable implements Serializable {
+
+  /** About 170 m north-south, and less east-west depending on the latitude. */
+  public static final double CELL_SIZE_DEGREES = 0.0015;
+
+  private final Map<Long, Cell> cells;
+
+  private final int maxDurationSeconds;
+
+  private final double walkSpeed;
+
+  private EgressStopTable(Map<Long, Cell> cells, int maxDurationSeconds, double walkSpeed) {
+    this.cells = cells;
+    this.maxDurationSeconds = maxDurationSeconds;
+    this.walkSpeed = walkSpeed;
+  }
+
+  public static Builder of(int maxDurationSeconds, double walkSpeed) {
+    return new Builder(maxDurationSeconds, walkSpeed);
+  }
+
+  /** The duration limit used when building the table. */
+  public int maxDurationSeconds() {
+    return maxDurationSeconds;
+  }
+
+  /** The walk speed (m/s) used when building the table. */
+  public double walkSpeed() {
+    return walkSpeed;
+  }
+
+  public int numberOfCells() {
+    return cells.size();
+  }
+
+  /**
+   * Find all stops which may be reached within the given duration from any of the given
+   * coordinates.
+   *
+   * @param durationSeconds the maximum duration, in table seconds. This must be less than or equal
+   *                        to {@link #maxDurationSeconds()}, otherwise stops may be missing.
+   */
+  public Set<StopLocation> findCandidateStops(
+    Collection<Coordinate> coordinates,
+    int durationSeconds
+  ) {
+    Set<StopLocation> result = new HashSet<>();
+    for (Coordinate c : coordinates) {
+      Cell cell = cells.get(cellKey(c));
+      if (cell == null) {
+        continue;
+      }
+      for (int i = 0; i < cell.stops.length && cell.durations[i] <= durationSeconds; ++i) {
+        result.add(cell.stops[i]);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return (
+      "EgressStopTable{cells=" +
+      cells.size() +
+      ", maxDurationSeconds=" +
+      maxDurationSeconds +
+      ", walkSpeed=" +
+      walkSpeed +
+      '}'
+    );
+  }
+
+  static long cellKey(Coordinate c) {
+    long x = (long) Math.floor(c.x / CELL_SIZE_DEGREES);
+    long y = (long) Math.floor(c.y / CELL_SIZE_DEGREES);
+    return (x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  /** The stops reaching one cell, sorted by increasing duration. */
+  private static class Cell implements Serializable {
+
+    private final StopLocation[] stops;
+    private final int[] durations;
+
+    private Cell(Map<StopLocation, Integer> durationByStop) {
+      var entries = durationByStop
+        .entrySet()
+        .stream()
+        .sorted(Map.Entry.comparingByValue())
+        .collect(Collectors.toList());
+      this.stops = entries.stream().map(Map.Entry::getKey).toArray(StopLocation[]::new);
+      this.durations = entries.stream().mapToInt(Map.Entry::getValue).toArray();
+    }
+
+    @Override
+    public String toString() {
+      return "Cell{stops=" + Arrays.toString(stops) + '}';
+    }
+  }
+
+  /**
+   * Collects the shortest duration from each stop to each cell. This is thread-safe, so the stops
+   * can be processed in parallel.
+   */
+  public static class Builder {
+
+    private final int maxDurationSeconds;
+    private final double walkSpeed;
+    private final Map<Long, Map<StopLocation, Integer>> durations = new HashMap<>();
+
+    private Builder(int maxDurationSeconds, double walkSpeed) {
+      this.maxDurationSeconds = maxDurationSeconds;
+      this.walkSpeed = walkSpeed;
+    }
+
+    /**
+     * Add the shortest durations from the given stop to each cell reached.
+     *
+     * @param durationByCell the shortest duration in seconds by cell key, see
+     *                       {@link #addVertex(Map, Coordinate, int)}
+     */
+    public synchronized Builder addStop(StopLocation stop, Map<Long, Integer> durationByCell) {
+      for (var e : durationByCell.entrySet()) {
+        durations.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(stop, e.getValue());
+      }
+      return this;
+    }
+
+    /**
+     * Utility method for collecting the shortest duration by cell for a single stop, before
+     * calling {@link #addStop(StopLocation, Map)}.
+     */
+    public static void addVertex(
+      Map<Long, Integer> durationByCell,
+      Coordinate coordinate,
+      int durationSeconds
+    ) {
+      durationByCell.merge(cellKey(coordinate), durationSeconds, Math::min);
+    }
+
+    public synchronized EgressStopTable build() {
+      Map<Long, Cell> cells = new HashMap<>();
+      for (var e : durations.entrySet()) {
+        cells.put(e.getKey(), new Cell(e.getValue()));
+      }
+      return new EgressStopTable(cells, maxDurationSeconds, walkSpeed);
+    }
+  }
+}
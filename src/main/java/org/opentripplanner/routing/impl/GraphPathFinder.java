@@ -6,6 +6,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Iterator;
 import java.util.List;
 import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.algorithm.astar.BidirectionalAStar;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.response.RoutingErrorCode;
 import org.opentripplanner.routing.core.RoutingContext;
@@ -14,6 +15,7 @@ import org.opentripplanner.routing.error.RoutingValidationException;
 import org.opentripplanner.routing.spt.DominanceFunction;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.standalone.server.Router;
+import org.opentripplanner.util.OTPFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,24 +67,34 @@ public class GraphPathFinder {
       throw new UnsupportedOperationException("Transit search not supported");
     }
 
-    AStarBuilder aStar = AStarBuilder
-      .oneToOneMaxDuration(options.getMaxDirectStreetDuration(options.modes.directMode))
-      // FORCING the dominance function to weight only
-      .setDominanceFunction(new DominanceFunction.MinimumWeight())
-      .setContext(routingContext)
-      .setTimeout(Duration.ofMillis((long) (router.streetRoutingTimeoutSeconds() * 1000)));
-
+    Duration maxDuration = options.getMaxDirectStreetDuration(options.modes.directMode);
+    Duration timeout = Duration.ofMillis((long) (router.streetRoutingTimeoutSeconds() * 1000));
     // If this Router has a GraphVisualizer attached to it, set it as a callback for the AStar search
-    if (router.graphVisualizer != null) {
-      aStar.setTraverseVisitor(router.graphVisualizer.traverseVisitor);
-    }
+    var traverseVisitor = router.graphVisualizer != null
+      ? router.graphVisualizer.traverseVisitor
+      : null;
 
     LOG.debug("rreq={}", options);
 
     long searchBeginTime = System.currentTimeMillis();
     LOG.debug("BEGIN SEARCH");
 
-    List<GraphPath> paths = aStar.getPathsToTarget();
+    List<GraphPath> paths;
+    if (OTPFeature.BidirectionalStreetSearch.isOn() && BidirectionalAStar.isApplicable(options)) {
+      paths =
+        new BidirectionalAStar(routingContext, maxDuration, timeout, traverseVisitor)
+          .getPathsToTarget();
+    } else {
+      paths =
+        AStarBuilder
+          .oneToOneMaxDuration(maxDuration)
+          // FORCING the dominance function to weight only
+          .setDominanceFunction(new DominanceFunction.MinimumWeight())
+          .setContext(routingContext)
+          .setTimeout(timeout)
+          .setTraverseVisitor(traverseVisitor)
+          .getPathsToTarget();
+    }
 
     LOG.debug("we have {} paths", paths.size());
     LOG.debug("END SEARCH ({} msec)", System.currentTimeMillis() - searchBeginTime);
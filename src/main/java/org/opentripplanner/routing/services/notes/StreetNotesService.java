@@ -120,6 +120,15 @@ public class StreetNotesService implements Serializable {
     return notes;
   }
 
+  /**
+   * Return the static notes of this edge, without matching them against a state.
+   *
+   * @return The set of notes or null if empty.
+   */
+  public Set<MatcherAndStreetNote> getStaticNotes(Edge edge) {
+    return staticNotesSource.getNotes(edge);
+  }
+
   public void addStaticNote(Edge edge, StreetNote note, NoteMatcher matcher) {
     staticNotesSource.addNote(edge, note, matcher);
   }
@@ -21,6 +21,7 @@ public class Deduplicator implements Serializable {
   private static final long serialVersionUID = 20140524L;
 
   private final Map<BitSet, BitSet> canonicalBitSets = Maps.newHashMap();
+  private final Map<ByteArray, ByteArray> canonicalByteArrays = Maps.newHashMap();
   private final Map<IntArray, IntArray> canonicalIntArrays = Maps.newHashMap();
   private final Map<String, String> canonicalStrings = Maps.newHashMap();
   private final Map<StringArray, StringArray> canonicalStringArrays = Maps.newHashMap();
@@ -33,6 +34,7 @@ public class Deduplicator implements Serializable {
   /** Free up any memory used by the deduplicator. */
   public void reset() {
     canonicalBitSets.clear();
+    canonicalByteArrays.clear();
     canonicalIntArrays.clear();
     canonicalStrings.clear();
     canonicalStringArrays.clear();
@@ -55,6 +57,21 @@ public class Deduplicator implements Serializable {
     return canonical;
   }
 
+  /**
+   * Used to deduplicate street edge geometries. Twin edges have the same geometry, and so does
+   * every straight street segment.
+   */
+  @Nullable
+  public byte[] deduplicateByteArray(byte[] original) {
+    if (original == null) {
+      return null;
+    }
+    ByteArray byteArray = new ByteArray(original);
+    ByteArray canonical = canonicalByteArrays.putIfAbsent(byteArray, byteArray);
+    incrementEffectCounter(ByteArray.class);
+    return canonical == null ? original : canonical.array;
+  }
+
   /** Used to deduplicate time and stop sequence arrays. The same times may occur in many trips. */
   @Nullable
   public int[] deduplicateIntArray(int[] original) {
@@ -161,6 +178,7 @@ public class Deduplicator implements Serializable {
     var builder = ToStringBuilder
       .of(Deduplicator.class)
       .addObj("BitSet", sizeAndCount(canonicalBitSets.size(), BitSet.class))
+      .addObj("ByteArray", sizeAndCount(canonicalByteArrays.size(), ByteArray.class))
       .addObj("IntArray", sizeAndCount(canonicalIntArrays.size(), IntArray.class))
       .addObj("String", sizeAndCount(canonicalStrings.size(), String.class))
       .addObj("StringArray", sizeAndCount(canonicalStringArrays.size(), StringArray.class))
@@ -201,6 +219,27 @@ public class Deduplicator implements Serializable {
 
   /* private classes */
 
+  /** A wrapper for a primitive byte array. */
+  private static class ByteArray implements Serializable {
+
+    private static final long serialVersionUID = 20221019L;
+    final byte[] array;
+
+    ByteArray(byte[] array) {
+      this.array = array;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(array);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof ByteArray that && Arrays.equals(array, that.array);
+    }
+  }
+
   /** A wrapper for a primitive int array. This is insane but necessary in Java. */
   private static class IntArray implements Serializable {
 
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.vehicle_parking;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.opentripplanner.routing.edgetype.StreetVehicleParkingLink;
@@ -30,22 +31,31 @@ public class VehicleParkingHelper {
       .collect(Collectors.toList());
   }
 
-  public static void linkVehicleParkingEntrances(
+  /**
+   * Link the entrances of a vehicle parking to each other.
+   *
+   * @return the created edges. A realtime updater must add these to the {@link
+   * org.opentripplanner.routing.graph.RealtimeStreetSnapshot}, as an entrance which is not
+   * accessible by walking or driving is not linked to the streets, so it is not a realtime vertex.
+   */
+  public static List<VehicleParkingEdge> linkVehicleParkingEntrances(
     List<VehicleParkingEntranceVertex> vehicleParkingVertices
   ) {
+    List<VehicleParkingEdge> edges = new ArrayList<>();
     for (int i = 0; i < vehicleParkingVertices.size(); i++) {
       var currentVertex = vehicleParkingVertices.get(i);
       if (isUsableForParking(currentVertex, currentVertex)) {
-        new VehicleParkingEdge(currentVertex);
+        edges.add(new VehicleParkingEdge(currentVertex));
       }
       for (int j = i + 1; j < vehicleParkingVertices.size(); j++) {
         var nextVertex = vehicleParkingVertices.get(j);
         if (isUsableForParking(currentVertex, nextVertex)) {
-          new VehicleParkingEdge(currentVertex, nextVertex);
-          new VehicleParkingEdge(nextVertex, currentVertex);
+          edges.add(new VehicleParkingEdge(currentVertex, nextVertex));
+          edges.add(new VehicleParkingEdge(nextVertex, currentVertex));
         }
       }
     }
+    return edges;
   }
 
   public static void linkToGraph(VehicleParkingEntranceVertex vehicleParkingEntrance) {
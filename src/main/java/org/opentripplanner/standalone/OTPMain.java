@@ -13,6 +13,7 @@ import org.opentripplanner.standalone.config.CommandLineParameters;
 import org.opentripplanner.standalone.configure.OTPAppConstruction;
 import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.standalone.server.Router;
+import org.opentripplanner.standalone.server.RoutingWarmUp;
 import org.opentripplanner.util.OtpAppException;
 import org.opentripplanner.util.ThrowableUtils;
 import org.opentripplanner.visualizer.GraphVisualizer;
@@ -170,6 +171,9 @@ public class OTPMain {
       router.graphVisualizer.run();
     }
 
+    // Run the warm-up searches before the server starts accepting requests
+    new RoutingWarmUp(router, params.getBaseDirectory()).run();
+
     /* Start web server if requested. */
     // We could start the server first so it can report build/load progress to a load balancer.
     // This would also avoid the awkward call to set the router on the appConstruction after it's constructed.
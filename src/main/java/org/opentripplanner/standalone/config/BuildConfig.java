@@ -15,6 +15,7 @@ import org.opentripplanner.graph_builder.module.osm.WayPropertySetSource;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.model.calendar.ServiceDateInterval;
+import org.opentripplanner.model.projectinfo.GraphCompression;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.fares.FareServiceFactory;
 import org.opentripplanner.routing.fares.impl.DefaultFareServiceFactory;
@@ -188,6 +189,26 @@ public class BuildConfig {
    * included in the Graph.
    */
   public final double maxTransferDurationSeconds;
+  /**
+   * Precompute a table of the stops within this walking duration from each part of the street
+   * network. The table is used to stop egress searches early. Zero disables the table.
+   */
+  public final int egressStopTableDurationSeconds;
+  /**
+   * Block compression codec used when writing the graph file. The codec is recorded in the file,
+   * so any graph can be read regardless of this setting.
+   */
+  public final GraphCompression graphCompression;
+  /**
+   * Store the geometries of the street edges outside the Java heap, in direct memory. This reduces
+   * the heap and the garbage collection work on large graphs.
+   */
+  public final boolean streetGeometriesOffHeap;
+  /**
+   * Keep the street graph in the cache directory, and reuse it in the next build if the OSM and
+   * elevation data and the street parameters in this config are unchanged.
+   */
+  public final boolean streetGraphCache;
   /**
    * This will add extra edges when linking a stop to a platform, to prevent detours along the
    * platform edge.
@@ -347,6 +368,7 @@ public class BuildConfig {
     elevationUnitMultiplier = c.asDouble("elevationUnitMultiplier", 1);
     embedRouterConfig = c.asBoolean("embedRouterConfig", true);
     extraEdgesStopPlatformLink = c.asBoolean("extraEdgesStopPlatformLink", false);
+    graphCompression = c.asEnum("graphCompression", GraphCompression.NONE);
     includeEllipsoidToGeoidDifference = c.asBoolean("includeEllipsoidToGeoidDifference", false);
     pruningThresholdIslandWithStops = c.asInt("islandWithStopsMaxSize", 5);
     pruningThresholdIslandWithoutStops = c.asInt("islandWithoutStopsMaxSize", 40);
@@ -355,6 +377,7 @@ public class BuildConfig {
     maxInterlineDistance = c.asInt("maxInterlineDistance", 200);
     maxTransferDurationSeconds =
       c.asDouble("maxTransferDurationSeconds", Duration.ofMinutes(30).toSeconds());
+    egressStopTableDurationSeconds = c.asInt("egressStopTableDurationSeconds", 0);
     maxStopToShapeSnapDistance = c.asDouble("maxStopToShapeSnapDistance", 150);
     multiThreadElevationCalculations = c.asBoolean("multiThreadElevationCalculations", false);
     osmCacheDataInMem = c.asBoolean("osmCacheDataInMem", false);
@@ -366,6 +389,8 @@ public class BuildConfig {
     staticParkAndRide = c.asBoolean("staticParkAndRide", true);
     stationTransfers = c.asBoolean("stationTransfers", false);
     streets = c.asBoolean("streets", true);
+    streetGeometriesOffHeap = c.asBoolean("streetGeometriesOffHeap", false);
+    streetGraphCache = c.asBoolean("streetGraphCache", false);
     subwayAccessTime = c.asDouble("subwayAccessTime", DEFAULT_SUBWAY_ACCESS_TIME_MINUTES);
     transit = c.asBoolean("transit", true);
     transitServiceStart = c.asDateOrRelativePeriod("transitServiceStart", "-P1Y");
@@ -22,6 +22,10 @@ import org.slf4j.LoggerFactory;
 public class RouterConfig implements Serializable {
 
   private static final double DEFAULT_STREET_ROUTING_TIMEOUT = 5.0;
+  private static final int DEFAULT_ACCESS_EGRESS_CACHE_SIZE = 0;
+  private static final int DEFAULT_ROUTING_THREAD_POOL_SIZE = Runtime
+    .getRuntime()
+    .availableProcessors();
   private static final Logger LOG = LoggerFactory.getLogger(RouterConfig.class);
 
   public static final RouterConfig DEFAULT = new RouterConfig(
@@ -38,11 +42,14 @@ public class RouterConfig implements Serializable {
   private final String requestLogFile;
   private final TransmodelAPIConfig transmodelApi;
   private final double streetRoutingTimeoutSeconds;
+  private final int accessEgressCacheSize;
+  private final int routingThreadPoolSize;
   private final RoutingRequest routingRequestDefaults;
   private final TransitRoutingConfig transitConfig;
   private final UpdatersParameters updatersParameters;
   private final VectorTileConfig vectorTileLayers;
   private final FlexConfig flexConfig;
+  private final WarmUpConfig warmUpConfig;
 
   public RouterConfig(JsonNode node, String source, boolean logUnusedParams) {
     NodeAdapter adapter = new NodeAdapter(node, source);
@@ -52,11 +59,16 @@ public class RouterConfig implements Serializable {
     this.transmodelApi = new TransmodelAPIConfig(adapter.path("transmodelApi"));
     this.streetRoutingTimeoutSeconds =
       adapter.asDouble("streetRoutingTimeout", DEFAULT_STREET_ROUTING_TIMEOUT);
+    this.accessEgressCacheSize =
+      adapter.asInt("accessEgressCacheSize", DEFAULT_ACCESS_EGRESS_CACHE_SIZE);
+    this.routingThreadPoolSize =
+      adapter.asInt("routingThreadPoolSize", DEFAULT_ROUTING_THREAD_POOL_SIZE);
     this.transitConfig = new TransitRoutingConfig(adapter.path("transit"));
     this.routingRequestDefaults = mapRoutingRequest(adapter.path("routingDefaults"));
     this.updatersParameters = new UpdatersConfig(adapter);
     this.vectorTileLayers = new VectorTileConfig(adapter.path("vectorTileLayers").asList());
     this.flexConfig = new FlexConfig(adapter.path("flex"));
+    this.warmUpConfig = new WarmUpConfig(adapter.path("warmUp"));
 
     if (logUnusedParams) {
       adapter.logAllUnusedParameters(LOG);
@@ -93,6 +105,24 @@ public class RouterConfig implements Serializable {
     return streetRoutingTimeoutSeconds;
   }
 
+  /**
+   * The maximum number of access/egress street search results to cache. Requests starting or
+   * ending at the same location with the same street preferences reuse the cached nearby stops.
+   * Zero, the default, disables the cache.
+   */
+  public int accessEgressCacheSize() {
+    return accessEgressCacheSize;
+  }
+
+  /**
+   * The maximum number of threads used to run the parts of a routing request in parallel, when the
+   * {@code ParallelRouting} feature is enabled. If all threads are busy, the work is done in the
+   * request thread instead. The default is the number of available processors.
+   */
+  public int routingThreadPoolSize() {
+    return routingThreadPoolSize;
+  }
+
   public TransmodelAPIConfig transmodelApi() {
     return transmodelApi;
   }
@@ -121,6 +151,10 @@ public class RouterConfig implements Serializable {
     return flexConfig.toFlexParameters(request);
   }
 
+  public WarmUpConfig warmUp() {
+    return warmUpConfig;
+  }
+
   /**
    * If {@code true} the config is loaded from file, in not the DEFAULT config is used.
    */
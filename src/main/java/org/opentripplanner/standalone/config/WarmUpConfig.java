@@ -0,0 +1,83 @@
+package org.opentripplanner.standalone.config;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Configure the warm-up of the router before the server starts accepting requests, see
+ * {@link org.opentripplanner.standalone.server.RoutingWarmUp}.
+ */
+public final class WarmUpConfig {
+
+  private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+  private final String testCasesFile;
+  private final String feedId;
+  private final int syntheticRequests;
+  private final int rounds;
+  private final int threads;
+  private final LocalDate searchDate;
+  private final Duration maxDuration;
+
+  public WarmUpConfig(NodeAdapter c) {
+    this.testCasesFile = c.asText("testCasesFile", null);
+    this.feedId = c.asText("feedId", null);
+    this.syntheticRequests = c.asInt("syntheticRequests", 0);
+    this.rounds = c.asInt("rounds", 1);
+    this.threads = c.asInt("threads", DEFAULT_THREADS);
+    this.searchDate = c.asDateOrRelativePeriod("searchDate", "P0D");
+    this.maxDuration = c.asDuration("maxDuration", Duration.ofMinutes(5));
+  }
+
+  /**
+   * The warm-up is enabled if a test case file is given, or synthetic requests are requested.
+   */
+  public boolean isEnabled() {
+    return (testCasesFile != null || syntheticRequests > 0) && rounds > 0;
+  }
+
+  /**
+   * A CSV file with travel searches in the speed test format, relative to the OTP base
+   * directory. The expected results in the file are not used.
+   */
+  public String testCasesFile() {
+    return testCasesFile;
+  }
+
+  /**
+   * The feed id of the stop ids in the test case file. If not set, the coordinates are used.
+   */
+  public String feedId() {
+    return feedId;
+  }
+
+  /**
+   * The number of searches between random pairs of stops to run, if no test case file is given.
+   */
+  public int syntheticRequests() {
+    return syntheticRequests;
+  }
+
+  /** The number of times each request is run. */
+  public int rounds() {
+    return rounds;
+  }
+
+  /** The number of requests to run in parallel, default is the number of available processors. */
+  public int threads() {
+    return threads;
+  }
+
+  /** The date of the searches, the times in the test case file are relative to this date. */
+  public LocalDate searchDate() {
+    return searchDate;
+  }
+
+  /**
+   * The warm-up is stopped after this duration, even if not all requests are run. Default is 5
+   * minutes.
+   */
+  public Duration maxDuration() {
+    return maxDuration;
+  }
+}
@@ -5,12 +5,18 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.FileAppender;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.opentripplanner.ext.geocoder.LuceneIndex;
 import org.opentripplanner.ext.transmodelapi.TransmodelAPI;
 import org.opentripplanner.inspector.TileRendererManager;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerMapper;
@@ -39,6 +45,11 @@ public class Router {
   public final MeterRegistry meterRegistry;
   public final RaptorConfig<TripSchedule> raptorConfig;
 
+  /**
+   * Thread pool used to run parts of a routing request in parallel, see {@link #routingExecutor()}.
+   */
+  private final ExecutorService routingExecutor;
+
   /**
    * Separate logger for incoming requests. This should be handled with a Logback logger rather than
    * something simple like a PrintStream because requests come in multi-threaded.
@@ -60,6 +71,7 @@ public class Router {
     this.defaultRoutingRequest = routerConfig.routingRequestDefaults();
     this.meterRegistry = meterRegistry;
     this.raptorConfig = new RaptorConfig<>(routerConfig.raptorTuningParameters(), meterRegistry);
+    this.routingExecutor = createRoutingExecutor(routerConfig.routingThreadPoolSize());
   }
 
   /*
@@ -95,6 +107,19 @@ public class Router {
       );
     }
 
+    if (routerConfig.accessEgressCacheSize() > 0 && AccessEgressCache.isTimeDependent(graph)) {
+      LOG.warn(
+        "Access/egress street searches are not cached, the street graph has time-dependent turn " +
+        "restrictions."
+      );
+    } else if (routerConfig.accessEgressCacheSize() > 0) {
+      LOG.info(
+        "Caching up to {} access/egress street searches.",
+        routerConfig.accessEgressCacheSize()
+      );
+      graph.setAccessEgressCache(new AccessEgressCache(routerConfig.accessEgressCacheSize()));
+    }
+
     /* Create Graph updater modules from JSON config. */
     GraphUpdaterConfigurator.setupGraph(this.graph, routerConfig.updaterConfig());
 
@@ -146,12 +171,37 @@ public class Router {
   public void shutdown() {
     GraphUpdaterConfigurator.shutdownGraph(this.graph);
     raptorConfig.shutdown();
+    routingExecutor.shutdown();
+  }
+
+  /**
+   * The executor used to run parts of a routing request in parallel. This is used instead of the
+   * common fork-join pool, which is shared with parallel streams in the rest of the server.
+   * <p>
+   * The number of threads is bounded. If all of them are busy, the task is run in the submitting
+   * thread. Because of this, a task may submit new tasks to this executor and wait for them
+   * without risking a deadlock.
+   */
+  public ExecutorService routingExecutor() {
+    return routingExecutor;
   }
 
   public double streetRoutingTimeoutSeconds() {
     return routerConfig.streetRoutingTimeoutSeconds();
   }
 
+  private static ExecutorService createRoutingExecutor(int size) {
+    return new ThreadPoolExecutor(
+      0,
+      Math.max(1, size),
+      60L,
+      TimeUnit.SECONDS,
+      new SynchronousQueue<>(),
+      new ThreadFactoryBuilder().setNameFormat("routing-%d").setDaemon(true).build(),
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+  }
+
   /**
    * Programmatically (i.e. not in XML) create a Logback logger for requests happening on this
    * router. http://stackoverflow.com/a/17215011/778449
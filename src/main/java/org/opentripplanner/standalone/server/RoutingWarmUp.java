@@ -0,0 +1,239 @@
+package org.opentripplanner.standalone.server;
+
+import com.csvreader.CsvReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.opentripplanner.api.parameter.QualifiedModeSet;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.RoutingService;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.standalone.config.WarmUpConfig;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.util.OtpAppException;
+import org.opentripplanner.util.time.DurationUtils;
+import org.opentripplanner.util.time.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run a set of travel searches before the server starts accepting requests. The first requests
+ * after startup are much slower than the rest, while the JIT compiles the routing code and the
+ * lazily initialized caches are filled. The warm-up moves this cost to the startup, before the
+ * server reports that it is ready.
+ * <p>
+ * The searches are read from a CSV file in the same format as the speed test travel search file,
+ * or are created between random pairs of stops. The results are not used, failed searches are
+ * only counted.
+ */
+public class RoutingWarmUp {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RoutingWarmUp.class);
+
+  private static final char CSV_DELIMITER = ',';
+  private static final int NOT_SET = -1;
+  private static final int SYNTHETIC_FIRST_DEPARTURE = TimeUtils.time("06:00");
+  private static final int SYNTHETIC_DEPARTURE_SPAN = TimeUtils.time("14:00");
+
+  private final Router router;
+  private final WarmUpConfig config;
+  private final File baseDirectory;
+  private final Predicate<RoutingRequest> search;
+
+  public RoutingWarmUp(Router router, File baseDirectory) {
+    this(router, baseDirectory, request -> route(router, request));
+  }
+
+  /**
+   * The constructor does not access the graph, so creating a disabled warm-up costs nothing.
+   *
+   * @param search runs a search, and returns {@code false} if it failed
+   */
+  RoutingWarmUp(Router router, File baseDirectory, Predicate<RoutingRequest> search) {
+    this.router = router;
+    this.config = router.routerConfig.warmUp();
+    this.baseDirectory = baseDirectory;
+    this.search = search;
+  }
+
+  public void run() {
+    if (!config.isEnabled()) {
+      return;
+    }
+    ZoneId zoneId = router.graph.getTimeZone().toZoneId();
+    List<RoutingRequest> requests = config.testCasesFile() != null
+      ? readRequests(new File(baseDirectory, config.testCasesFile()), zoneId)
+      : createSyntheticRequests(zoneId);
+
+    LOG.info(
+      "Warming up routing with {} requests, {} rounds on {} threads.",
+      requests.size(),
+      config.rounds(),
+      config.threads()
+    );
+
+    long startTime = System.currentTimeMillis();
+    long deadline = System.nanoTime() + config.maxDuration().toNanos();
+    AtomicInteger nSearches = new AtomicInteger();
+    AtomicInteger nFailed = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(config.threads());
+
+    for (int round = 0; round < config.rounds(); ++round) {
+      for (RoutingRequest request : requests) {
+        executor.execute(() -> {
+          if (System.nanoTime() < deadline) {
+            nSearches.incrementAndGet();
+            if (!search.test(request)) {
+              nFailed.incrementAndGet();
+            }
+          }
+        });
+      }
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(config.maxDuration().toMillis(), TimeUnit.MILLISECONDS)) {
+        LOG.warn("Warm-up did not finish within {}, continuing.", config.maxDuration());
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+
+    LOG.info(
+      "Warm-up done, {} searches ({} failed) in {}.",
+      nSearches.get(),
+      nFailed.get(),
+      DurationUtils.durationToStr(Duration.ofMillis(System.currentTimeMillis() - startTime))
+    );
+  }
+
+  /** @return {@code false} if the search failed with an exception or a routing error. */
+  static boolean route(Router router, RoutingRequest request) {
+    try {
+      var response = new RoutingService(router.graph).route(request.clone(), router);
+      return response.getRoutingErrors().isEmpty();
+    } catch (RuntimeException e) {
+      LOG.debug("Warm-up search failed: {}", e.getMessage(), e);
+      return false;
+    }
+  }
+
+  private List<RoutingRequest> readRequests(File file, ZoneId zoneId) {
+    List<RoutingRequest> requests = new ArrayList<>();
+    try {
+      CsvReader csvReader = new CsvReader(
+        file.getAbsolutePath(),
+        CSV_DELIMITER,
+        StandardCharsets.UTF_8
+      );
+      csvReader.readHeaders();
+      while (csvReader.readRecord()) {
+        String raw = csvReader.getRawRecord();
+        if (raw.isBlank() || raw.startsWith("#")) {
+          continue;
+        }
+        requests.add(mapRequest(csvReader, zoneId));
+      }
+      csvReader.close();
+    } catch (IOException | RuntimeException e) {
+      throw new OtpAppException(
+        "Unable to read warm-up test cases from %s: %s",
+        file,
+        e.getMessage()
+      );
+    }
+    return requests;
+  }
+
+  private RoutingRequest mapRequest(CsvReader csvReader, ZoneId zoneId) throws IOException {
+    var request = router.copyDefaultRoutingRequest();
+    int departure = TimeUtils.time(csvReader.get("departure"), NOT_SET);
+    int arrival = TimeUtils.time(csvReader.get("arrival"), NOT_SET);
+    String window = csvReader.get("window");
+
+    if (departure != NOT_SET) {
+      setTime(request, zoneId, departure, false);
+    } else if (arrival != NOT_SET) {
+      setTime(request, zoneId, arrival, true);
+    }
+    if (!window.isBlank()) {
+      request.searchWindow = DurationUtils.duration(window);
+    }
+    request.from =
+      location(
+        csvReader.get("origin"),
+        csvReader.get("fromPlace"),
+        csvReader.get("fromLat"),
+        csvReader.get("fromLon")
+      );
+    request.to =
+      location(
+        csvReader.get("destination"),
+        csvReader.get("toPlace"),
+        csvReader.get("toLat"),
+        csvReader.get("toLon")
+      );
+    String modes = csvReader.get("modes");
+    if (!modes.isBlank()) {
+      request.modes = new QualifiedModeSet(modes.split("\\|")).getRequestModes();
+    }
+    return request;
+  }
+
+  private GenericLocation location(String label, String stopId, String lat, String lon) {
+    FeedScopedId id = config.feedId() == null
+      ? null
+      : FeedScopedId.ofNullable(config.feedId(), stopId);
+    return new GenericLocation(label, id, Double.parseDouble(lat), Double.parseDouble(lon));
+  }
+
+  /**
+   * Create searches between random pairs of stops, departing between 06:00 and 20:00. The random
+   * generator is seeded, so the same searches are used on every startup.
+   */
+  private List<RoutingRequest> createSyntheticRequests(ZoneId zoneId) {
+    List<StopLocation> stops = new ArrayList<>(router.graph.index.getAllStops());
+    List<RoutingRequest> requests = new ArrayList<>();
+    if (stops.size() < 2) {
+      LOG.warn("Not enough stops in the graph to create warm-up searches.");
+      return requests;
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < config.syntheticRequests(); ++i) {
+      StopLocation from = stops.get(random.nextInt(stops.size()));
+      StopLocation to = stops.get(random.nextInt(stops.size()));
+      int departure = SYNTHETIC_FIRST_DEPARTURE + random.nextInt(SYNTHETIC_DEPARTURE_SPAN);
+      var request = router.copyDefaultRoutingRequest();
+      request.from = new GenericLocation(from.getLat(), from.getLon());
+      request.to = new GenericLocation(to.getLat(), to.getLon());
+      setTime(request, zoneId, departure, false);
+      requests.add(request);
+    }
+    return requests;
+  }
+
+  private void setTime(
+    RoutingRequest request,
+    ZoneId zoneId,
+    int secondsSinceMidnight,
+    boolean arriveBy
+  ) {
+    request.setDateTime(
+      config.searchDate().atStartOfDay(zoneId).plusSeconds(secondsSinceMidnight).toInstant()
+    );
+    request.arriveBy = arriveBy;
+  }
+}
@@ -134,8 +134,11 @@ public class GraphUpdaterManager implements WriteToGraphCallback {
     return scheduler.submit(() -> {
       try {
         runnable.run(graph);
+        graph.commitRealtimeStreetChanges();
       } catch (Exception e) {
         LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
+        // Do not let the next writer publish the partial street changes of this one
+        graph.rollbackRealtimeStreetChanges();
       }
     });
   }
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.opentripplanner.graph_builder.linking.DisposableEdgeCollection;
 import org.opentripplanner.graph_builder.linking.LinkingDirection;
 import org.opentripplanner.graph_builder.linking.VertexLinker;
@@ -157,7 +158,10 @@ public class VehicleParkingUpdater extends PollingGraphUpdater {
           vehicleParkingVertices
         );
 
-        VehicleParkingHelper.linkVehicleParkingEntrances(vehicleParkingVertices);
+        // An edge between a linked and an unlinked entrance is only listed at the linked one
+        VehicleParkingHelper
+          .linkVehicleParkingEntrances(vehicleParkingVertices)
+          .forEach(graph.getRealtimeStreetBuffer()::addEdge);
 
         verticesByPark.put(updatedVehicleParking, vehicleParkingVertices);
         tempEdgesByPark.put(updatedVehicleParking, disposableEdgeCollectionsForVertex);
@@ -225,16 +229,16 @@ public class VehicleParkingUpdater extends PollingGraphUpdater {
       VehicleParkingEntranceVertex entranceVertex,
       Graph graph
     ) {
-      entranceVertex
-        .getIncoming()
-        .stream()
+      var edges = Stream
+        .concat(entranceVertex.getIncoming().stream(), entranceVertex.getOutgoing().stream())
         .filter(VehicleParkingEdge.class::isInstance)
-        .forEach(graph::removeEdge);
-      entranceVertex
-        .getOutgoing()
-        .stream()
-        .filter(VehicleParkingEdge.class::isInstance)
-        .forEach(graph::removeEdge);
+        .distinct()
+        .collect(Collectors.toList());
+      for (var edge : edges) {
+        // The edges must be removed from the realtime layer while they still have their vertices
+        graph.getRealtimeStreetBuffer().removeEdge(edge);
+        graph.removeEdge(edge);
+      }
       graph.remove(entranceVertex);
     }
   }
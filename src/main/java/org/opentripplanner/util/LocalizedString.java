@@ -155,18 +155,21 @@ public class LocalizedString implements I18NString, Serializable {
     //TODO: after finding all keys for replacements replace strings to normal java strings
     //with https://stackoverflow.com/questions/2286648/named-placeholders-in-string-formatting if it is faster
     //otherwise it's converted only when toString is called
-    if (key_tag_names.containsKey(key)) {
-      return key_tag_names.get(key);
-    }
-    List<String> tag_names = new ArrayList<>(4);
-    String english_trans = ResourceBundleSingleton.INSTANCE.localize(this.key, Locale.ENGLISH);
+    // The names are cached in a shared map, and OSM ways are named in parallel
+    synchronized (key_tag_names) {
+      if (key_tag_names.containsKey(key)) {
+        return List.copyOf(key_tag_names.get(key));
+      }
+      List<String> tag_names = new ArrayList<>(4);
+      String english_trans = ResourceBundleSingleton.INSTANCE.localize(this.key, Locale.ENGLISH);
 
-    Matcher matcher = patternMatcher.matcher(english_trans);
-    while (matcher.find()) {
-      String tag_name = matcher.group(1);
-      key_tag_names.put(key, tag_name);
-      tag_names.add(tag_name);
+      Matcher matcher = patternMatcher.matcher(english_trans);
+      while (matcher.find()) {
+        String tag_name = matcher.group(1);
+        key_tag_names.put(key, tag_name);
+        tag_names.add(tag_name);
+      }
+      return tag_names;
     }
-    return tag_names;
   }
 }
@@ -18,6 +18,11 @@ public enum OTPFeature {
   APIServerInfo(true),
   APIGraphInspectorTile(true),
   APIUpdaterStatus(true),
+  /**
+   * Use a bidirectional A* search for direct walk and bike itineraries. Searches with vehicle
+   * rental, parking or car pickup always use the unidirectional search.
+   */
+  BidirectionalStreetSearch(false),
   /**
    * If this feature flag is switched on, then the minimum transfer time is not the minimum transfer
    * time, but the definitive transfer time. Use this to override what we think the transfer will
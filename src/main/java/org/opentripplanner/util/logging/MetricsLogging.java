@@ -51,6 +51,14 @@ public class MetricsLogging {
       )
         .bindTo(Metrics.globalRegistry);
     }
+    if (graph.getAccessEgressCache() != null) {
+      new GuavaCacheMetrics(
+        graph.getAccessEgressCache().getCache(),
+        "accessEgressCache",
+        List.of(Tag.of("cache", "accessEgress"))
+      )
+        .bindTo(Metrics.globalRegistry);
+    }
     new ExecutorServiceMetrics(
       ForkJoinPool.commonPool(),
       "commonPool",
@@ -74,6 +82,13 @@ public class MetricsLogging {
         .bindTo(Metrics.globalRegistry);
     }
 
+    new ExecutorServiceMetrics(
+      router.routingExecutor(),
+      "routing",
+      List.of(Tag.of("pool", "routing"))
+    )
+      .bindTo(Metrics.globalRegistry);
+
     if (router.raptorConfig.isMultiThreaded()) {
       new ExecutorServiceMetrics(
         router.raptorConfig.threadPool(),
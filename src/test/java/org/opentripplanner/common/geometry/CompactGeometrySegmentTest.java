@@ -0,0 +1,72 @@
+package org.opentripplanner.common.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.ByteArrayOutputStream;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.graph.kryosupport.KryoBuilder;
+
+public class CompactGeometrySegmentTest {
+
+  private static final byte[] A = { 1, 2, 3 };
+  private static final byte[] B = { 4, 5, 6, 7, 8 };
+
+  @Test
+  public void addAndGet() {
+    CompactGeometrySegment segment = CompactGeometrySegment.allocate(64);
+
+    int a = segment.add(A);
+    int b = segment.add(B);
+
+    assertArrayEquals(A, segment.get(a));
+    assertArrayEquals(B, segment.get(b));
+    assertEquals(2 * Integer.BYTES + A.length + B.length, segment.size());
+  }
+
+  @Test
+  public void unpackWithoutCopying() {
+    int[] deltas = { 0, -1, 64, -8193, 1048576, -67108865, Integer.MAX_VALUE };
+    byte[] packed = DlugoszVarLenIntPacker.pack(deltas);
+    CompactGeometrySegment segment = CompactGeometrySegment.allocate(64);
+    segment.add(A);
+
+    int offset = segment.add(packed);
+
+    assertArrayEquals(deltas, segment.unpack(offset));
+    assertArrayEquals(DlugoszVarLenIntPacker.unpack(packed), segment.unpack(offset));
+  }
+
+  @Test
+  public void addToFullSegment() {
+    CompactGeometrySegment segment = CompactGeometrySegment.allocate(Integer.BYTES + A.length);
+
+    assertEquals(0, segment.add(A));
+    assertEquals(-1, segment.add(B));
+    assertEquals(Integer.BYTES + A.length, segment.size());
+  }
+
+  @Test
+  public void serializeWithKryo() {
+    CompactGeometrySegment segment = CompactGeometrySegment.allocate(64);
+    int a = segment.add(A);
+    int b = segment.add(B);
+
+    Kryo kryo = KryoBuilder.create();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Output output = new Output(bytes)) {
+      kryo.writeObject(output, segment);
+    }
+    CompactGeometrySegment copy = kryo.readObject(
+      new Input(bytes.toByteArray()),
+      CompactGeometrySegment.class
+    );
+
+    assertEquals(segment.size(), copy.size());
+    assertArrayEquals(A, copy.get(a));
+    assertArrayEquals(B, copy.get(b));
+  }
+}
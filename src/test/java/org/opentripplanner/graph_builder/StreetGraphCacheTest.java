@@ -0,0 +1,135 @@
+package org.opentripplanner.graph_builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.opentripplanner.standalone.config.JsonSupport.jsonNodeForTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentripplanner.datastore.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.standalone.config.BuildConfig;
+
+public class StreetGraphCacheTest {
+
+  @TempDir
+  File tempDir;
+
+  private File osmFile;
+  private File cacheDir;
+  private int nBuilds = 0;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    osmFile = new File(tempDir, "map.osm.pbf");
+    Files.write(osmFile.toPath(), new byte[] { 1, 2, 3 });
+    cacheDir = new File(tempDir, "streetgraph");
+  }
+
+  @Test
+  public void cacheHit() {
+    var graph = cache(BuildConfig.DEFAULT).loadOrBuild();
+    assertEquals(1, nBuilds);
+    assertEquals(1, graph.countVertices());
+
+    var cached = cache(BuildConfig.DEFAULT).loadOrBuild();
+    assertEquals(1, nBuilds);
+    assertEquals(1, cached.countVertices());
+    assertEquals(1, cachedFiles().length);
+  }
+
+  @Test
+  public void cacheMissWhenTheInputChanges() throws IOException {
+    cache(BuildConfig.DEFAULT).loadOrBuild();
+
+    Files.write(osmFile.toPath(), new byte[] { 4 }, StandardOpenOption.APPEND);
+    cache(BuildConfig.DEFAULT).loadOrBuild();
+
+    assertEquals(2, nBuilds);
+    // Only the latest street graph is kept
+    assertEquals(1, cachedFiles().length);
+  }
+
+  @Test
+  public void cacheMissWhenTheContentChangesWithTheSameSizeAndTime() throws IOException {
+    byte[] content = new byte[3 * StreetGraphCache.FINGERPRINT_BYTES];
+    Files.write(osmFile.toPath(), content);
+    var lastModified = Files.getLastModifiedTime(osmFile.toPath());
+    String key = cache(BuildConfig.DEFAULT).cacheKey();
+
+    // A byte in the header changes, the file is restored with the same size and time
+    content[10] = 1;
+    Files.write(osmFile.toPath(), content);
+    Files.setLastModifiedTime(osmFile.toPath(), lastModified);
+    String changedHeader = cache(BuildConfig.DEFAULT).cacheKey();
+    assertNotEquals(key, changedHeader);
+
+    // A byte at the end changes
+    content[content.length - 1] = 1;
+    Files.write(osmFile.toPath(), content);
+    Files.setLastModifiedTime(osmFile.toPath(), lastModified);
+    assertNotEquals(changedHeader, cache(BuildConfig.DEFAULT).cacheKey());
+  }
+
+  @Test
+  public void cacheMissWhenTheStreetConfigChanges() {
+    var streetConfig = config("{ areaVisibility : true }");
+    var transitConfig = config("{ subwayAccessTime : 3.0 }");
+
+    assertNotEquals(cache(BuildConfig.DEFAULT).cacheKey(), cache(streetConfig).cacheKey());
+
+    cache(config("{}")).loadOrBuild();
+    cache(transitConfig).loadOrBuild();
+    assertEquals(1, nBuilds);
+
+    cache(streetConfig).loadOrBuild();
+    assertEquals(2, nBuilds);
+  }
+
+  @Test
+  public void corruptCacheIsRebuilt() throws IOException {
+    cache(BuildConfig.DEFAULT).loadOrBuild();
+    File cached = cachedFiles()[0];
+    Files.write(cached.toPath(), new byte[100]);
+
+    var graph = cache(BuildConfig.DEFAULT).loadOrBuild();
+    assertEquals(2, nBuilds);
+    assertEquals(1, graph.countVertices());
+
+    // The rebuilt street graph replaced the corrupt one
+    cache(BuildConfig.DEFAULT).loadOrBuild();
+    assertEquals(2, nBuilds);
+    assertEquals(List.of(cached), List.of(cachedFiles()));
+  }
+
+  private StreetGraphCache cache(BuildConfig config) {
+    return new StreetGraphCache(
+      config,
+      cacheDir,
+      List.of(new FileDataSource(osmFile, FileType.OSM)),
+      () -> {
+        ++nBuilds;
+        var graph = new Graph();
+        new IntersectionVertex(graph, "A", 10.0, 60.0);
+        return graph;
+      }
+    );
+  }
+
+  private File[] cachedFiles() {
+    return Objects.requireNonNull(cacheDir.listFiles());
+  }
+
+  private static BuildConfig config(String json) {
+    return new BuildConfig(jsonNodeForTest(json), "Test", false);
+  }
+}
@@ -0,0 +1,67 @@
+package org.opentripplanner.graph_builder.linking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+
+public class StreetSpatialIndexTest {
+
+  private static final Envelope ENVELOPE = new Envelope(9.9, 10.1, 58.9, 59.1);
+
+  private final Graph graph = new Graph();
+  private final SimpleConcreteVertex a = new SimpleConcreteVertex(graph, "A", 59.0, 10.0);
+  private final SimpleConcreteVertex b = new SimpleConcreteVertex(graph, "B", 59.0, 10.001);
+  private final LineString geometry = GeometryUtils.makeLineString(10.0, 59.0, 10.001, 59.0);
+  private final Edge edge = new SimpleConcreteEdge(a, b);
+
+  private final StreetSpatialIndex subject = new StreetSpatialIndex();
+
+  @Test
+  public void realtimeEdgesAreVisibleToRequestsAfterCommit() {
+    subject.insert(geometry, edge, Scope.REALTIME);
+    assertTrue(query(Scope.REQUEST).isEmpty());
+
+    subject.commitRealtime();
+    assertEquals(List.of(edge), query(Scope.REQUEST));
+
+    // Realtime linking only looks at the permanent index
+    assertTrue(query(Scope.REALTIME).isEmpty());
+
+    subject.remove(geometry.getEnvelopeInternal(), edge, Scope.REALTIME);
+    assertEquals(List.of(edge), query(Scope.REQUEST));
+
+    subject.commitRealtime();
+    assertTrue(query(Scope.REQUEST).isEmpty());
+  }
+
+  @Test
+  public void rollbackDiscardsTheRealtimeChangesSinceTheLastCommit() {
+    subject.insert(geometry, edge, Scope.REALTIME);
+    subject.commitRealtime();
+
+    subject.remove(geometry.getEnvelopeInternal(), edge, Scope.REALTIME);
+    subject.rollbackRealtime();
+    subject.commitRealtime();
+    assertEquals(List.of(edge), query(Scope.REQUEST));
+
+    var other = new SimpleConcreteEdge(b, a);
+    subject.insert(geometry, other, Scope.REALTIME);
+    subject.rollbackRealtime();
+    subject.commitRealtime();
+    assertEquals(List.of(edge), query(Scope.REQUEST));
+  }
+
+  private List<Edge> query(Scope scope) {
+    return subject.query(ENVELOPE, scope).distinct().collect(Collectors.toList());
+  }
+}
@@ -16,8 +16,12 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.ext.flex.trip.UnscheduledTrip;
+import org.opentripplanner.model.FlexStopLocation;
 import org.opentripplanner.model.PathTransfer;
 import org.opentripplanner.model.StopPattern;
+import org.opentripplanner.model.StopTime;
 import org.opentripplanner.model.TripPattern;
 import org.opentripplanner.routing.algorithm.GraphRoutingTest;
 import org.opentripplanner.routing.api.request.RequestModes;
@@ -31,6 +35,7 @@ import org.opentripplanner.routing.vertextype.TransitStopVertex;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
 import org.opentripplanner.transit.model.network.TransitMode;
 import org.opentripplanner.transit.model.site.StopLocation;
+import org.opentripplanner.util.OTPFeature;
 import org.opentripplanner.util.lang.ToStringBuilder;
 
 /**
@@ -42,6 +47,7 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
   private static final Duration MAX_TRANSFER_DURATION = Duration.ofSeconds(3600);
   private TransitStopVertex S0, S11, S12, S21, S22;
   private StreetVertex V0, V11, V12, V21, V22;
+  private FlexStopLocation F;
 
   @Test
   public void testDirectTransfersWithoutPatterns() {
@@ -159,6 +165,53 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     );
   }
 
+  /**
+   * With flex routing, the transfers from the flex stop location are found by a reverse street
+   * search from each stop. The location is at V0, V11, V12 and V22, and the closest of these where
+   * a car can enter or leave the streets is used.
+   */
+  @Test
+  public void testTransfersToAndFromFlexStopLocations() {
+    OTPFeature.FlexRouting.testOn(() -> {
+      var generator = new DirectTransferGenerator(
+        MAX_TRANSFER_DURATION,
+        List.of(new RoutingRequest(new RequestModes(null, StreetMode.WALK, null, null, null)))
+      );
+
+      var graph = graph(true);
+      addFlexTrip(graph);
+      graph.hasStreets = true;
+
+      generator.buildGraph(graph, null);
+
+      assertTransfers(
+        graph.transfersByStop,
+        tr(S0, 100, List.of(V0, V11), S11),
+        tr(S0, 100, List.of(V0, V21), S21),
+        tr(S11, 100, List.of(V11, V21), S21),
+        tr(S0.getStop(), 0, List.of(V0), F),
+        tr(F, 0, List.of(), S11.getStop()),
+        tr(F, 0, List.of(), S12.getStop()),
+        tr(F, 100, List.of(V21), S21.getStop()),
+        tr(F, 0, List.of(), S22.getStop())
+      );
+    });
+  }
+
+  private void addFlexTrip(Graph graph) {
+    F = new FlexStopLocation(TransitModelForTest.id("F"));
+    F.setGeometry(GeometryUtils.getGeometryFactory().createPoint(V0.getCoordinate()));
+    graph.locationsById.put(F.getId(), F);
+    for (var v : List.of(V0, V11, V12, V22)) {
+      v.flexStopLocations = Set.of(F);
+    }
+
+    var stopTime = new StopTime();
+    stopTime.setStop(F);
+    var trip = new UnscheduledTrip(TransitModelForTest.trip("FT").build(), List.of(stopTime));
+    graph.flexTripsById.put(trip.getId(), trip);
+  }
+
   private Graph graph(boolean addPatterns) {
     return graphOf(
       new Builder() {
@@ -242,7 +295,7 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
   }
 
   private TransferDescriptor tr(TransitStopVertex from, double distance, TransitStopVertex to) {
-    return new TransferDescriptor(from, distance, to);
+    return new TransferDescriptor(from.getStop(), distance, null, to.getStop());
   }
 
   private TransferDescriptor tr(
@@ -250,6 +303,15 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     double distance,
     List<StreetVertex> vertices,
     TransitStopVertex to
+  ) {
+    return tr(from.getStop(), distance, vertices, to.getStop());
+  }
+
+  private TransferDescriptor tr(
+    StopLocation from,
+    double distance,
+    List<StreetVertex> vertices,
+    StopLocation to
   ) {
     return new TransferDescriptor(from, distance, vertices, to);
   }
@@ -261,23 +323,16 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     private final Double distanceMeters;
     private final List<StreetVertex> vertices;
 
-    public TransferDescriptor(TransitStopVertex from, Double distanceMeters, TransitStopVertex to) {
-      this.from = from.getStop();
-      this.distanceMeters = distanceMeters;
-      this.vertices = null;
-      this.to = to.getStop();
-    }
-
     public TransferDescriptor(
-      TransitStopVertex from,
+      StopLocation from,
       Double distanceMeters,
       List<StreetVertex> vertices,
-      TransitStopVertex to
+      StopLocation to
     ) {
-      this.from = from.getStop();
+      this.from = from;
       this.distanceMeters = distanceMeters;
       this.vertices = vertices;
-      this.to = to.getStop();
+      this.to = to;
     }
 
     @Override
@@ -0,0 +1,78 @@
+package org.opentripplanner.graph_builder.module;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+public class OffHeapStreetGeometryModuleTest {
+
+  private static final LineString GEOMETRY = GeometryUtils.makeLineString(
+    0.0,
+    0.0,
+    0.5,
+    0.2,
+    0.7,
+    0.9,
+    1.0,
+    1.0
+  );
+
+  @Test
+  public void moveGeometriesOffHeap() {
+    Graph graph = new Graph();
+    StreetEdge forward = twinEdges(graph)[0];
+
+    buildGraph(graph);
+
+    assertTrue(forward.isGeometryOffHeap());
+    assertEquals(GEOMETRY, forward.getGeometry());
+    for (StreetEdge edge : graph.getStreetEdges()) {
+      assertTrue(edge.isGeometryOffHeap());
+    }
+  }
+
+  @Test
+  public void heapGeometriesCanBeCollected() throws InterruptedException {
+    Graph graph = new Graph();
+    StreetEdge[] edges = twinEdges(graph);
+    var forwardGeometry = new WeakReference<>(edges[0].getCompactGeometry());
+    var backGeometry = new WeakReference<>(edges[1].getCompactGeometry());
+
+    buildGraph(graph);
+
+    for (int i = 0; i < 10 && (forwardGeometry.get() != null || backGeometry.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(forwardGeometry.get());
+    assertNull(backGeometry.get());
+    assertEquals(GEOMETRY, edges[0].getGeometry());
+    assertEquals(GEOMETRY.reverse(), edges[1].getGeometry());
+  }
+
+  private static void buildGraph(Graph graph) {
+    var issueStore = new DataImportIssueStore(false);
+    new StreetDataDeduplicatorModule().buildGraph(graph, new HashMap<>(), issueStore);
+    new OffHeapStreetGeometryModule().buildGraph(graph, new HashMap<>(), issueStore);
+  }
+
+  private static StreetEdge[] twinEdges(Graph graph) {
+    var v0 = new IntersectionVertex(graph, "v0", 0.0, 0.0);
+    var v1 = new IntersectionVertex(graph, "v1", 1.0, 1.0);
+    return new StreetEdge[] {
+      new StreetEdge(v0, v1, GEOMETRY, "Maple", 1.0, StreetTraversalPermission.ALL, false),
+      new StreetEdge(v1, v0, GEOMETRY.reverse(), "Maple", 1.0, StreetTraversalPermission.ALL, true),
+    };
+  }
+}
@@ -0,0 +1,54 @@
+package org.opentripplanner.graph_builder.module;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+public class StreetDataDeduplicatorModuleTest {
+
+  @Test
+  public void shareNamesAndGeometriesWithoutTheGraphDeduplicator() {
+    Graph graph = new Graph();
+    var v0 = new IntersectionVertex(graph, "v0", 0.0, 0.0);
+    var v1 = new IntersectionVertex(graph, "v1", 1.0, 1.0);
+    LineString geometry = GeometryUtils.makeLineString(0.0, 0.0, 1.0, 1.0);
+    var forward = new StreetEdge(
+      v0,
+      v1,
+      geometry,
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      false
+    );
+    var back = new StreetEdge(
+      v1,
+      v0,
+      geometry.reverse(),
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      true
+    );
+    assertNotSame(forward.getName(), back.getName());
+    String graphDeduplicatorBefore = graph.deduplicator.toString();
+
+    new StreetDataDeduplicatorModule()
+      .buildGraph(graph, new HashMap<>(), new DataImportIssueStore(false));
+
+    assertSame(forward.getName(), back.getName());
+    assertSame(forward.getCompactGeometry(), back.getCompactGeometry());
+    // The canonical instances are not kept in the graph deduplicator after the module is done
+    assertEquals(graphDeduplicatorBefore, graph.deduplicator.toString());
+  }
+}
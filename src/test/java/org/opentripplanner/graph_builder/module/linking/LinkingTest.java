@@ -20,6 +20,7 @@ import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.model.P2;
+import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetTransitStopLink;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
@@ -136,6 +137,36 @@ public class LinkingTest {
     }
   }
 
+  /**
+   * Test that linking the stops in parallel in the StreetLinkerModule splits the same edges as
+   * linking them one by one. The duplicate stops are linked to edges split by the regular stops.
+   */
+  @Test
+  public void testParallelLinkingSameAsSequential() throws URISyntaxException {
+    Graph g1 = buildGraphNoTransit();
+    addExtraStops(g1);
+    addRegularStopGrid(g1);
+    link(g1);
+
+    Graph g2 = buildGraphNoTransit();
+    addExtraStops(g2);
+    addRegularStopGrid(g2);
+    new StreetLinkerModule().linkTransitStops(g2);
+
+    assertEquals(g1.getEdges().size(), g2.getEdges().size());
+    for (TransitStopVertex ts : g1.getVerticesOfType(TransitStopVertex.class)) {
+      List<Coordinate> linked1 = outgoingStls(ts)
+        .stream()
+        .map(e -> e.getToVertex().getCoordinate())
+        .collect(Collectors.toList());
+      List<Coordinate> linked2 = outgoingStls((TransitStopVertex) g2.getVertex(ts.getLabel()))
+        .stream()
+        .map(e -> e.getToVertex().getCoordinate())
+        .collect(Collectors.toList());
+      assertEquals(linked1, linked2, "Different links from stop " + ts);
+    }
+  }
+
   private static List<StreetTransitStopLink> outgoingStls(final TransitStopVertex tsv) {
     return tsv
       .getOutgoing()
@@ -168,7 +168,7 @@ public class TestStreetMatcher {
     private static final long serialVersionUID = 1L;
 
     public SimpleEdge(StreetVertex v1, StreetVertex v2) {
-      super(v1, v2, null, (NonLocalizedString) null, 0, null, false);
+      super(v1, v2, null, (NonLocalizedString) null, 0, StreetTraversalPermission.ALL, false);
     }
 
     @Override
@@ -0,0 +1,91 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.opentripplanner.common.geometry.GeometryUtils;
+
+public class ElevationCacheTest {
+
+  private static final long FINGERPRINT = 42;
+
+  private static final LineString A = GeometryUtils.makeLineString(10.0, 59.0, 10.001, 59.001);
+  private static final LineString B = GeometryUtils.makeLineString(10.001, 59.001, 10.002, 59.0);
+  private static final LineString C = GeometryUtils.makeLineString(11.0, 60.0, 11.001, 60.001);
+
+  private File file;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = File.createTempFile("ElevationCacheTest-", ".bin");
+  }
+
+  @AfterEach
+  @SuppressWarnings("ResultOfMethodCallIgnored")
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void readProfilesWritten() throws IOException {
+    var writer = new ElevationCache.Writer(FINGERPRINT);
+    writer.add(A, profile(0, 10.5, 80, 12.25, 157.3, 11));
+    writer.add(B, profile(0, 11, 120, 9.5));
+    // The same geometry in the other direction of the street is only stored once
+    writer.add(B.copy(), profile(0, 0, 120, 0));
+    writer.write(file);
+
+    try (var cache = ElevationCache.open(file, FINGERPRINT)) {
+      assertEquals(2, cache.size());
+
+      PackedCoordinateSequence a = cache.get(GeometryUtils.makeLineString(A.getCoordinates()));
+      assertNotNull(a);
+      assertEquals(3, a.size());
+      assertEquals(157.3, a.getOrdinate(2, 0), 0.0);
+      assertEquals(12.25, a.getOrdinate(1, 1), 0.0);
+
+      assertEquals(9.5, cache.get(B).getOrdinate(1, 1), 0.0);
+      assertNull(cache.get(C));
+    }
+  }
+
+  @Test
+  public void emptyCache() throws IOException {
+    new ElevationCache.Writer(FINGERPRINT).write(file);
+
+    try (var cache = ElevationCache.open(file, FINGERPRINT)) {
+      assertEquals(0, cache.size());
+      assertNull(cache.get(A));
+    }
+  }
+
+  @Test
+  public void rejectOtherFingerprint() throws IOException {
+    var writer = new ElevationCache.Writer(FINGERPRINT);
+    writer.add(A, profile(0, 10, 80, 12));
+    writer.write(file);
+
+    assertThrows(IOException.class, () -> ElevationCache.open(file, FINGERPRINT + 1));
+  }
+
+  @Test
+  public void rejectOtherFormat() throws IOException {
+    Files.write(file.toPath(), new byte[100]);
+
+    assertThrows(IOException.class, () -> ElevationCache.open(file, FINGERPRINT));
+  }
+
+  private static PackedCoordinateSequence profile(double... distanceAndElevation) {
+    return new PackedCoordinateSequence.Double(distanceAndElevation, 2, 0);
+  }
+}
@@ -0,0 +1,82 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import it.geosolutions.jaiext.range.NoDataContainer;
+import java.util.Map;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.geometry.DirectPosition2D;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.jupiter.api.Test;
+import org.opengis.coverage.PointOutsideCoverageException;
+import org.opentripplanner.common.geometry.GeometryUtils;
+
+public class TiledGridCoverageTest {
+
+  private static final double DELTA = 1e-9;
+
+  /** Pixel centers are at 10.5 and 11.5 longitude, and 51.5 and 50.5 latitude. */
+  private final TiledGridCoverage coverage = new TiledGridCoverage(
+    new GridCoverageFactory()
+      .create(
+        "test",
+        new float[][] { { 1, 2, Float.NaN }, { 3, 4, 5 } },
+        new ReferencedEnvelope(10, 13, 50, 52, GeometryUtils.WGS84_XY)
+      )
+  );
+
+  @Test
+  public void interpolatesBetweenPixelCenters() {
+    assertEquals(1.0, elevation(10.5, 51.5), DELTA);
+    assertEquals(4.0, elevation(11.5, 50.5), DELTA);
+    assertEquals(2.5, elevation(11.0, 51.0), DELTA);
+    assertEquals(1.75, elevation(10.75, 51.25), DELTA);
+  }
+
+  @Test
+  public void extendsBorderPixels() {
+    assertEquals(1.0, elevation(10.1, 51.9), DELTA);
+    assertEquals(3.5, elevation(11.0, 50.1), DELTA);
+  }
+
+  @Test
+  public void pointsOutsideOrWithoutData() {
+    assertThrows(PointOutsideCoverageException.class, () -> elevation(9.9, 51.0));
+    assertThrows(PointOutsideCoverageException.class, () -> elevation(11.0, 52.1));
+    assertThrows(PointOutsideCoverageException.class, () -> elevation(12.5, 51.5));
+  }
+
+  /** The NO_DATA value is a double, which is not exactly the float stored in the samples. */
+  @Test
+  public void noDataValueIsComparedAsFloat() {
+    var factory = new GridCoverageFactory();
+    GridCoverage2D grid = factory.create(
+      "test",
+      new float[][] { { 0.1f, 2 } },
+      new ReferencedEnvelope(10, 12, 50, 51, GeometryUtils.WGS84_XY)
+    );
+    var withNoData = new TiledGridCoverage(
+      factory.create(
+        "test",
+        grid.getRenderedImage(),
+        grid.getEnvelope(),
+        grid.getSampleDimensions(),
+        null,
+        Map.of(NoDataContainer.GC_NODATA, new NoDataContainer(0.1))
+      )
+    );
+
+    assertEquals(2.0, elevation(withNoData, 11.5, 50.5), DELTA);
+    assertThrows(PointOutsideCoverageException.class, () -> elevation(withNoData, 10.5, 50.5));
+  }
+
+  private double elevation(double x, double y) {
+    return elevation(coverage, x, y);
+  }
+
+  private static double elevation(TiledGridCoverage coverage, double x, double y) {
+    return coverage.evaluate(new DirectPosition2D(GeometryUtils.WGS84_XY, x, y), new double[1])[0];
+  }
+}
@@ -0,0 +1,216 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+
+public class OSMNodeStoreTest {
+
+  @Test
+  public void untaggedNodes() {
+    var store = new OSMNodeStore();
+    store.add(node(3, 59.9138688, 10.7522454));
+    store.add(node(1, -33.8567844, 151.2152967));
+    store.add(node(2, 52.3750447, 16.8431974));
+    store.freeze();
+
+    assertEquals(3, store.size());
+    assertTrue(store.contains(1));
+    assertFalse(store.contains(4));
+    assertNull(store.get(4));
+
+    OSMNode node = store.get(1);
+    assertEquals(1, node.getId());
+    assertEquals(-33.8567844, node.lat, 1e-9);
+    assertEquals(151.2152967, node.lon, 1e-9);
+    assertEquals(59.9138688, store.get(3).lat, 1e-9);
+    assertEquals(store.get(2), store.get(2));
+  }
+
+  @Test
+  public void lookupBeforeFreezeFails() {
+    var store = new OSMNodeStore();
+    store.add(node(1, 1.0, 1.0));
+
+    assertThrows(IllegalStateException.class, () -> store.get(1));
+    assertThrows(IllegalStateException.class, () -> store.contains(1));
+  }
+
+  @Test
+  public void firstOfTheDuplicatesIsKept() {
+    var store = new OSMNodeStore();
+    for (int i = 0; i < 100; ++i) {
+      store.add(node(i % 10, i, 0.0));
+    }
+    store.freeze();
+
+    assertEquals(10, store.size());
+    for (int id = 0; id < 10; ++id) {
+      assertEquals(id, store.get(id).lat, 1e-9);
+    }
+  }
+
+  @Test
+  public void firstOfTaggedAndUntaggedDuplicatesIsKept() {
+    var store = new OSMNodeStore();
+    var signal = node(1, 1.0, 1.0);
+    signal.addTag("highway", "traffic_signals");
+    store.add(signal);
+    store.add(node(1, 2.0, 2.0));
+    store.add(node(2, 3.0, 3.0));
+    var crossing = node(2, 4.0, 4.0);
+    crossing.addTag("highway", "crossing");
+    store.add(crossing);
+    store.freeze();
+
+    assertEquals(2, store.size());
+    assertSame(signal, store.get(1));
+    assertEquals(3.0, store.get(2).lat, 1e-9);
+    assertFalse(store.get(2).hasTags());
+  }
+
+  @Test
+  public void nodesAddedAfterFreezeAreIgnoredIfPresent() {
+    var store = new OSMNodeStore();
+    store.add(node(1, 1.0, 1.0));
+    store.freeze();
+    store.add(node(1, 2.0, 2.0));
+
+    assertEquals(1, store.size());
+    assertEquals(1.0, store.get(1).lat, 1e-9);
+  }
+
+  @Test
+  public void coordinatesAreRoundedToTheScale() {
+    var store = new OSMNodeStore();
+    store.add(node(1, 59.913868849, -10.752245451));
+    var tagged = node(2, 59.913868849, -10.752245451);
+    tagged.addTag("barrier", "gate");
+    store.add(tagged);
+    store.freeze();
+
+    assertEquals(1e7, OSMNodeStore.COORDINATE_SCALE);
+    assertEquals(59.9138688, store.get(1).lat, 0.0);
+    assertEquals(-10.7522455, store.get(1).lon, 0.0);
+    // Tagged nodes keep the coordinates as given
+    assertEquals(59.913868849, store.get(2).lat, 0.0);
+  }
+
+  @Test
+  public void taggedNodesAreKept() {
+    var store = new OSMNodeStore();
+    var signal = node(7, 1.0, 1.0);
+    signal.addTag("highway", "traffic_signals");
+    store.add(signal);
+    store.freeze();
+
+    assertSame(signal, store.get(7));
+    assertTrue(store.get(7).hasTrafficLight());
+  }
+
+  @Test
+  public void nodesAddedAfterFreeze() {
+    var store = new OSMNodeStore();
+    store.add(node(1, 1.0, 1.0));
+    store.freeze();
+
+    var virtualNode = node(-1, 1.23456789123, 2.0);
+    store.add(virtualNode);
+
+    assertSame(virtualNode, store.get(-1));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void nodesOfTheNextSourceAreMerged() {
+    var store = new OSMNodeStore();
+    store.add(node(1, 1.0, 1.0));
+    store.add(node(5, 5.0, 5.0));
+    store.add(node(9, 9.0, 9.0));
+    store.freeze();
+    var virtualNode = node(-1, 0.5, 0.5);
+    store.add(virtualNode);
+
+    store.unfreeze();
+    store.add(node(7, 7.0, 7.0));
+    store.add(node(5, 50.0, 50.0));
+    store.add(node(3, 3.0, 3.0));
+    store.add(node(-1, 10.0, 10.0));
+    store.add(node(11, 11.0, 11.0));
+    store.add(node(3, 30.0, 30.0));
+    assertThrows(IllegalStateException.class, () -> store.get(1));
+    store.freeze();
+
+    assertEquals(7, store.size());
+    for (long id : new long[] { 1, 3, 5, 7, 9, 11 }) {
+      assertEquals(id, store.get(id).lat, 1e-9);
+      // Kept in the arrays, not as objects
+      assertNotSame(store.get(id), store.get(id));
+    }
+    assertSame(virtualNode, store.get(-1));
+    assertFalse(store.contains(4));
+  }
+
+  @Test
+  public void nodesOfTwoSourcesAreKeptInTheArrays() {
+    var first = new File(getClass().getResource("/germany/herrenberg-minimal.osm.pbf").getFile());
+    var second = new File(getClass().getResource("/germany/boeblingen-minimal.osm.pbf").getFile());
+
+    Set<Long> secondNodeIds = wayNodeIds(read(second));
+    secondNodeIds.removeAll(wayNodeIds(read(first)));
+    assertFalse(secondNodeIds.isEmpty());
+
+    var osmdb = read(first, second);
+    for (long id : wayNodeIds(osmdb)) {
+      assertNotNull(osmdb.getNode(id), "node " + id);
+    }
+    int nUntagged = 0;
+    for (long id : secondNodeIds) {
+      OSMNode node = osmdb.getNode(id);
+      if (!node.hasTags()) {
+        assertNotSame(node, osmdb.getNode(id), "node " + id);
+        ++nUntagged;
+      }
+    }
+    assertTrue(nUntagged > 0);
+  }
+
+  private static OSMDatabase read(File... files) {
+    var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of());
+    for (File file : files) {
+      new OpenStreetMapProvider(file, false).readOSM(osmdb);
+    }
+    osmdb.postLoad();
+    return osmdb;
+  }
+
+  private static Set<Long> wayNodeIds(OSMDatabase osmdb) {
+    Set<Long> ids = new HashSet<>();
+    for (OSMWay way : osmdb.getWays()) {
+      way.getNodeRefs().forEach(ids::add);
+    }
+    return ids;
+  }
+
+  private static OSMNode node(long id, double lat, double lon) {
+    OSMNode node = new OSMNode();
+    node.setId(id);
+    node.lat = lat;
+    node.lon = lon;
+    return node;
+  }
+}
@@ -0,0 +1,211 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opentripplanner.common.model.P2;
+import org.opentripplanner.common.model.T2;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.model.StreetNote;
+import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+import org.opentripplanner.routing.services.notes.NoteMatcher;
+import org.opentripplanner.util.I18NString;
+
+/**
+ * Compare the indexed rule matching of the {@link WayPropertySet} with scoring all the rules, for
+ * the ways of real extracts. This covers the way properties, creative names, car speeds, notes and
+ * slope overrides.
+ */
+public class OSMSpecifierIndexTest {
+
+  private static final List<String> EXTRACTS = List.of(
+    "src/test/resources/portland/portland-central-filtered.osm.pbf",
+    "src/test/resources/germany/boeblingen-minimal.osm.pbf",
+    "src/test/resources/org/opentripplanner/graph_builder/module/osm/skoyen.osm.pbf"
+  );
+
+  private static final Collection<OSMWay> WAYS = readWays();
+
+  @ParameterizedTest
+  @ValueSource(strings = { "default", "norway", "uk", "finland", "germany" })
+  public void sameResultAsScoringAllRules(String source) {
+    var wps = new WayPropertySet();
+    WayPropertySetSource.fromConfig(source).populateProperties(wps);
+
+    var sidedIndex = new OSMSpecifierIndex(true);
+    var index = new OSMSpecifierIndex(false);
+    List<WayPropertyPicker> pickers = wps.getWayProperties();
+    pickers.forEach(p -> sidedIndex.add(p.getSpecifier()));
+    pickers.forEach(p -> index.add(p.getSpecifier()));
+
+    assertTrue(WAYS.size() > 100);
+    for (OSMWay way : WAYS) {
+      BitSet sidedCandidates = sidedIndex.candidates(way);
+      BitSet candidates = index.candidates(way);
+      for (int i = 0; i < pickers.size(); ++i) {
+        OSMSpecifier specifier = pickers.get(i).getSpecifier();
+        if (!sidedCandidates.get(i)) {
+          assertEquals(new P2<>(0, 0), specifier.matchScores(way), specifier.toString());
+        }
+        if (!candidates.get(i)) {
+          assertEquals(0, specifier.matchScore(way), specifier.toString());
+        }
+      }
+      assertEquals(scoreAllRules(wps, way), wps.getDataForWay(way), way.toString());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "default", "norway", "uk", "finland", "germany" })
+  public void creativeNamesSpeedsNotesAndSlopeOverridesAreTheSame(String source) {
+    var wps = new WayPropertySet();
+    WayPropertySetSource.fromConfig(source).populateProperties(wps);
+
+    int nWaysWithoutMaxSpeed = 0;
+    for (OSMWay way : WAYS) {
+      assertEquals(
+        String.valueOf(creativeNameOfAllRules(wps, way)),
+        String.valueOf(wps.getCreativeNameForWay(way)),
+        way.toString()
+      );
+      assertEquals(notesOfAllRules(wps, way), notes(wps.getNoteForWay(way)), way.toString());
+      assertEquals(slopeOverrideOfAllRules(wps, way), wps.getSlopeOverride(way), way.toString());
+
+      // The maxspeed tags are used before the speed pickers are matched
+      if (way.getTagsByPrefix("maxspeed") == null) {
+        float speed = speedOfAllRules(wps, way);
+        assertEquals(speed, wps.getCarSpeedForWay(way, false), way.toString());
+        assertEquals(speed, wps.getCarSpeedForWay(way, true), way.toString());
+        nWaysWithoutMaxSpeed++;
+      }
+    }
+    assertTrue(nWaysWithoutMaxSpeed > 100);
+  }
+
+  private static Collection<OSMWay> readWays() {
+    List<OSMWay> ways = new ArrayList<>();
+    for (String extract : EXTRACTS) {
+      var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of());
+      new OpenStreetMapProvider(new File(extract), true).readOSM(osmdb);
+      ways.addAll(osmdb.getWays());
+    }
+    return ways;
+  }
+
+  /** The rule matching of {@link WayPropertySet#getDataForWay} before the rules were indexed. */
+  private static WayProperties scoreAllRules(WayPropertySet wps, OSMWay way) {
+    WayProperties leftResult = wps.defaultProperties;
+    WayProperties rightResult = wps.defaultProperties;
+    int bestLeftScore = 0;
+    int bestRightScore = 0;
+    List<Double> leftMixins = new ArrayList<>();
+    List<Double> rightMixins = new ArrayList<>();
+    for (WayPropertyPicker picker : wps.getWayProperties()) {
+      P2<Integer> score = picker.getSpecifier().matchScores(way);
+      P2<Double> safety = picker.getProperties().getSafetyFeatures();
+      if (picker.isSafetyMixin()) {
+        if (score.first > 0) {
+          leftMixins.add(safety.first);
+        }
+        if (score.second > 0) {
+          rightMixins.add(safety.second);
+        }
+      } else {
+        if (score.first > bestLeftScore) {
+          leftResult = picker.getProperties();
+          bestLeftScore = score.first;
+        }
+        if (score.second > bestRightScore) {
+          rightResult = picker.getProperties();
+          bestRightScore = score.second;
+        }
+      }
+    }
+    double left = rightResult.getSafetyFeatures().first;
+    for (double mixin : leftMixins) {
+      left *= mixin;
+    }
+    double right = leftResult.getSafetyFeatures().second;
+    for (double mixin : rightMixins) {
+      right *= mixin;
+    }
+    WayProperties result = rightResult.clone();
+    result.setSafetyFeatures(new P2<>(left, right));
+    return result;
+  }
+
+  /** The rule matching of {@link WayPropertySet#getCreativeNameForWay} before indexing. */
+  private static I18NString creativeNameOfAllRules(WayPropertySet wps, OSMWay way) {
+    CreativeNamer bestNamer = null;
+    int bestScore = 0;
+    for (CreativeNamerPicker picker : wps.getCreativeNamers()) {
+      int score = picker.specifier.matchScore(way);
+      if (score > bestScore) {
+        bestNamer = picker.namer;
+        bestScore = score;
+      }
+    }
+    return bestNamer == null ? null : bestNamer.generateCreativeName(way);
+  }
+
+  /** The speed picker matching of {@link WayPropertySet#getCarSpeedForWay} before indexing. */
+  private static float speedOfAllRules(WayPropertySet wps, OSMWay way) {
+    Float bestSpeed = null;
+    int bestScore = 0;
+    for (SpeedPicker picker : wps.getSpeedPickers()) {
+      int score = picker.specifier.matchScore(way);
+      if (score > bestScore) {
+        bestSpeed = picker.speed;
+        bestScore = score;
+      }
+    }
+    return bestSpeed == null ? wps.defaultSpeed : bestSpeed;
+  }
+
+  /** The rule matching of {@link WayPropertySet#getNoteForWay} before indexing. */
+  private static Set<T2<String, NoteMatcher>> notesOfAllRules(WayPropertySet wps, OSMWay way) {
+    Set<T2<StreetNote, NoteMatcher>> notes = new HashSet<>();
+    for (NotePicker picker : wps.getNotes()) {
+      if (picker.specifier.matchScore(way) > 0) {
+        notes.add(picker.noteProperties.generateNote(way));
+      }
+    }
+    return notes(notes.isEmpty() ? null : notes);
+  }
+
+  /** The rule matching of {@link WayPropertySet#getSlopeOverride} before indexing. */
+  private static boolean slopeOverrideOfAllRules(WayPropertySet wps, OSMWay way) {
+    boolean result = false;
+    int bestScore = 0;
+    for (SlopeOverridePicker picker : wps.getSlopeOverrides()) {
+      int score = picker.getSpecifier().matchScore(way);
+      if (score > bestScore) {
+        result = picker.getOverride();
+        bestScore = score;
+      }
+    }
+    return result;
+  }
+
+  /** A street note has no equals, so compare the text of the notes. */
+  private static Set<T2<String, NoteMatcher>> notes(Set<T2<StreetNote, NoteMatcher>> notes) {
+    if (notes == null) {
+      return null;
+    }
+    return notes
+      .stream()
+      .map(n -> new T2<>(n.first.note.toString(), n.second))
+      .collect(Collectors.toSet());
+  }
+}
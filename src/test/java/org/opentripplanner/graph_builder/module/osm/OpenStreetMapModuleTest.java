@@ -8,16 +8,26 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import io.micrometer.core.instrument.Metrics;
 import java.io.File;
+import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.opentripplanner.common.model.P2;
 import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
 import org.opentripplanner.openstreetmap.model.OSMWay;
@@ -32,6 +42,8 @@ import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.impl.GraphPathFinder;
+import org.opentripplanner.routing.services.notes.NoteMatcher;
+import org.opentripplanner.routing.services.notes.StreetNotesService;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.standalone.config.RouterConfig;
@@ -48,6 +60,55 @@ public class OpenStreetMapModuleTest {
     extra = new HashMap<>();
   }
 
+  /**
+   * The edges are built in parallel, check that the vertices and the order of their edges are the
+   * same as in a build forced to run on a single thread.
+   */
+  @Test
+  public void testGraphBuilderIsDeterministic() throws Exception {
+    List<String> parallel = describeGraph(buildGraph("map.osm.pbf"));
+
+    // Parallel streams run in the pool of the calling task
+    ForkJoinPool singleThread = new ForkJoinPool(1);
+    List<String> sequential;
+    try {
+      sequential = singleThread.submit(() -> describeGraph(buildGraph("map.osm.pbf"))).get();
+    } finally {
+      singleThread.shutdown();
+    }
+
+    assertFalse(parallel.isEmpty());
+    assertEquals(sequential, parallel);
+  }
+
+  /**
+   * Compare the streets built from each fixture with the ones built before the ways were split in
+   * parallel. The expected descriptions in {@code golden/} were written by the sequential build,
+   * with the OSM nodes and tags still kept as objects. The fixtures with parking areas are not
+   * included, as the order their entrances are numbered and coincident nodes are picked in depends
+   * on identity hash codes, in both builds.
+   */
+  @ParameterizedTest
+  @ValueSource(
+    strings = {
+      "map", "NYC_small", "skoyen", "usf_area", "bridge_construction", "otp-multipolygon-test",
+    }
+  )
+  public void testStreetsMatchTheSequentialBuild(String name) throws IOException {
+    Graph graph = buildGraph(name + ".osm.pbf");
+
+    List<String> expected = Files.readAllLines(
+      Path.of(
+        URLDecoder.decode(
+          getClass().getResource("golden/" + name + ".txt").getFile(),
+          StandardCharsets.UTF_8
+        )
+      )
+    );
+
+    assertEquals(expected, describeStreets(graph));
+  }
+
   @Test
   public void testGraphBuilder() {
     Graph gg = new Graph();
@@ -325,6 +386,7 @@ public class OpenStreetMapModuleTest {
       assertFalse(path.states.isEmpty());
     }
   }
+
   // disabled pending discussion with author (AMB)
   // @Test
   // public void testMultipolygon() throws Exception {
@@ -339,4 +401,125 @@ public class OpenStreetMapModuleTest {
   //
   // assertNotNull(gg.getVertex("way -3535 from 4"));
   // }
+
+  private Graph buildGraph(String osmFile) {
+    Graph graph = new Graph();
+    File file = new File(
+      URLDecoder.decode(getClass().getResource(osmFile).getFile(), StandardCharsets.UTF_8)
+    );
+    OpenStreetMapModule loader = new OpenStreetMapModule(new OpenStreetMapProvider(file, true));
+    loader.setDefaultWayPropertySetSource(new DefaultWayPropertySetSource());
+    loader.buildGraph(graph, extra);
+    return graph;
+  }
+
+  private static List<String> describeGraph(Graph graph) {
+    return graph
+      .getVertices()
+      .stream()
+      .sorted(Comparator.comparing(Vertex::getLabel))
+      .flatMap(v ->
+        Stream.concat(
+          Stream.of(v.getLabel() + " " + v.getCoordinate()),
+          v.getOutgoing().stream().map(OpenStreetMapModuleTest::describeEdge)
+        )
+      )
+      .collect(Collectors.toList());
+  }
+
+  private static String describeEdge(Edge edge) {
+    String properties = edge instanceof StreetEdge streetEdge
+      ? String.join(
+        " ",
+        streetEdge.getPermission().toString(),
+        String.valueOf(streetEdge.getCarSpeed()),
+        String.valueOf(streetEdge.isSlopeOverride()),
+        String.valueOf(streetEdge.getBicycleSafetyFactor())
+      )
+      : "";
+    return String.join(
+      " ",
+      edge.toString(),
+      edge.getDefaultName(),
+      properties,
+      String.valueOf(edge.getGeometry())
+    );
+  }
+
+  /**
+   * Describe the vertices and their edges with the way properties and notes. The coordinates are
+   * rounded to the 1e-7 degrees of the OSM data, as the node store does not keep the rounding errors
+   * of the PBF decoding. The edges of a vertex are sorted, since the sequential build created the
+   * edges of walkable areas in hash order.
+   */
+  private static List<String> describeStreets(Graph graph) {
+    List<String> lines = new ArrayList<>();
+    graph
+      .getVertices()
+      .stream()
+      .sorted(Comparator.comparing(Vertex::getLabel))
+      .forEach(v -> {
+        lines.add(
+          v.getLabel() + " " + formatCoordinate(v.getX()) + " " + formatCoordinate(v.getY())
+        );
+        v
+          .getOutgoing()
+          .stream()
+          .map(e -> describeStreetEdge(graph, e))
+          .sorted()
+          .forEach(lines::add);
+      });
+    return lines;
+  }
+
+  private static String describeStreetEdge(Graph graph, Edge edge) {
+    String properties = edge instanceof StreetEdge streetEdge
+      ? String.join(
+        " ",
+        streetEdge.getPermission().toString(),
+        String.valueOf(streetEdge.getCarSpeed()),
+        String.valueOf(streetEdge.isSlopeOverride()),
+        String.valueOf(streetEdge.getBicycleSafetyFactor()),
+        String.valueOf(streetEdge.getDistanceMeters())
+      )
+      : "";
+    var notes = graph.streetNotesService.getStaticNotes(edge);
+    return String.join(
+      " ",
+      "  " + edge.getClass().getSimpleName(),
+      edge.getToVertex().getLabel(),
+      edge.getDefaultName(),
+      properties,
+      String.valueOf(
+        notes == null
+          ? List.of()
+          : notes
+            .stream()
+            .map(n -> n.getNote().note + "/" + describeNoteMatcher(n.getMatcher()))
+            .sorted()
+            .collect(Collectors.toList())
+      ),
+      String.valueOf(edge.getGeometry() == null ? 0 : edge.getGeometry().getNumPoints())
+    );
+  }
+
+  private static String describeNoteMatcher(NoteMatcher matcher) {
+    if (matcher == StreetNotesService.ALWAYS_MATCHER) {
+      return "always";
+    }
+    if (matcher == StreetNotesService.WHEELCHAIR_MATCHER) {
+      return "wheelchair";
+    }
+    if (matcher == StreetNotesService.DRIVING_MATCHER) {
+      return "driving";
+    }
+    if (matcher == StreetNotesService.BICYCLE_MATCHER) {
+      return "bicycle";
+    }
+    return matcher.getClass().getSimpleName();
+  }
+
+  private static String formatCoordinate(double value) {
+    return String.format(Locale.ROOT, "%.7f", value);
+  }
 }
@@ -1,6 +1,7 @@
 package org.opentripplanner.graph_builder.module.osm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import gnu.trove.list.TLongList;
@@ -34,6 +35,8 @@ public class OpenStreetMapParserTest {
     assertEquals(16.8431974, nodeA.lon, 0.0000001);
     assertTrue(nodeA.hasTag("railway"));
     assertEquals("level_crossing", nodeA.getTag("railway"));
+    // The entities keep their tags in the dictionary of the database
+    assertSame(osmdb.getTagDictionary(), nodeA.getTagDictionary());
 
     assertEquals(544, osmdb.wayCount());
 
@@ -0,0 +1,118 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.common.model.P2;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+public class WalkableAreaBuilderTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryUtils.getGeometryFactory();
+
+  private long nextNodeId = 1;
+
+  /**
+   * The visible pairs are found in parallel, check that the edges are created for the same pairs,
+   * and in the same order, as when each pair of nodes was checked in turn.
+   */
+  @Test
+  public void sameVisibleNodePairsAsCheckingEachPair() {
+    List<OSMNode> nodes = new ArrayList<>();
+    Set<P2<OSMNode>> ringSegments = new HashSet<>();
+
+    // A star with a square hole, with enough nodes to be checked in several chunks
+    List<OSMNode> shell = ring(nodes, ringSegments, 40, 0.5, 1.0);
+    List<OSMNode> hole = ring(nodes, ringSegments, 4, 0.2, 0.2);
+    Polygon polygon = GEOMETRY_FACTORY.createPolygon(
+      linearRing(shell),
+      new LinearRing[] { linearRing(hole) }
+    );
+
+    List<P2<OSMNode>> expected = checkEachPair(polygon, nodes, ringSegments);
+    List<P2<OSMNode>> visible = WalkableAreaBuilder.findVisibleNodePairs(
+      polygon,
+      nodes,
+      ringSegments
+    );
+
+    assertTrue(expected.size() > nodes.size());
+    assertEquals(expected, visible);
+  }
+
+  /** The line of sight check of each ordered pair, as it was done before it was parallel. */
+  private static List<P2<OSMNode>> checkEachPair(
+    Polygon polygon,
+    List<OSMNode> nodes,
+    Set<P2<OSMNode>> alreadyAddedEdges
+  ) {
+    List<P2<OSMNode>> visible = new ArrayList<>();
+    for (OSMNode nodeI : nodes) {
+      for (OSMNode nodeJ : nodes) {
+        P2<OSMNode> nodePair = new P2<>(nodeI, nodeJ);
+        // A node on the ring is not inside the polygon, so it has no line of sight to itself
+        if (nodeI == nodeJ || alreadyAddedEdges.contains(nodePair)) {
+          continue;
+        }
+        var line = GEOMETRY_FACTORY.createLineString(
+          new Coordinate[] { coordinate(nodeI), coordinate(nodeJ) }
+        );
+        if (polygon.contains(line)) {
+          visible.add(nodePair);
+        }
+      }
+    }
+    return visible;
+  }
+
+  /**
+   * Create the nodes of a ring around (10, 59), with every other node at the inner radius, and add
+   * its segments in one direction.
+   */
+  private List<OSMNode> ring(
+    List<OSMNode> nodes,
+    Set<P2<OSMNode>> ringSegments,
+    int size,
+    double innerRadius,
+    double outerRadius
+  ) {
+    List<OSMNode> ring = new ArrayList<>();
+    for (int i = 0; i < size; ++i) {
+      double radius = 0.001 * (i % 2 == 0 ? outerRadius : innerRadius);
+      double angle = 2 * Math.PI * i / size;
+      OSMNode node = new OSMNode();
+      node.setId(nextNodeId++);
+      node.lon = 10.0 + radius * Math.cos(angle);
+      node.lat = 59.0 + radius * Math.sin(angle);
+      ring.add(node);
+    }
+    for (int i = 0; i < size; ++i) {
+      ringSegments.add(new P2<>(ring.get(i), ring.get((i + 1) % size)));
+    }
+    nodes.addAll(ring);
+    return ring;
+  }
+
+  private static LinearRing linearRing(List<OSMNode> nodes) {
+    Coordinate[] coordinates = new Coordinate[nodes.size() + 1];
+    for (int i = 0; i < nodes.size(); ++i) {
+      coordinates[i] = coordinate(nodes.get(i));
+    }
+    coordinates[nodes.size()] = coordinates[0];
+    return GEOMETRY_FACTORY.createLinearRing(coordinates);
+  }
+
+  private static Coordinate coordinate(OSMNode node) {
+    return new Coordinate(node.lon, node.lat);
+  }
+}
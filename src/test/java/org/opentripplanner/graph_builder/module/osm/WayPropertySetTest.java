@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
+import org.opentripplanner.common.model.P2;
+import org.opentripplanner.openstreetmap.model.OSMTagDictionary;
+import org.opentripplanner.openstreetmap.model.OSMWay;
 import org.opentripplanner.openstreetmap.model.OSMWithTags;
 
 public class WayPropertySetTest {
@@ -11,6 +14,33 @@ public class WayPropertySetTest {
   WayPropertySet wps = new WayPropertySet();
   float epsilon = 0.01f;
 
+  /**
+   * The specifiers are compiled for the tag dictionary of the entities, so a way property set can
+   * be used for the entities of several builds.
+   */
+  @Test
+  public void matchEntitiesOfSeveralDictionaries() {
+    var specifier = new OSMSpecifier("highway=footway;surface=*");
+    var cycleway = new OSMSpecifier("highway=cycleway|bicycle=designated");
+
+    for (int i = 0; i < 2; ++i) {
+      var dictionary = new OSMTagDictionary();
+      // Add other strings first, to give the tags different ids in each dictionary
+      for (int j = 0; j < i; ++j) {
+        dictionary.id("other" + j);
+      }
+      var way = new OSMWay(dictionary);
+      way.addTag("highway", "footway");
+      way.addTag("surface", "gravel");
+      way.addTag("bicycle", "designated");
+
+      assertEquals(111, specifier.matchScore(way));
+      assertEquals(new P2<>(111, 111), specifier.matchScores(way));
+      assertEquals(new P2<>(1, 1), cycleway.matchScores(way));
+    }
+    assertEquals(0, specifier.matchScore(new OSMWay()));
+  }
+
   /**
    * Test that car speeds are calculated accurately
    */
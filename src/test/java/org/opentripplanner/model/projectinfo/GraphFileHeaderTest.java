@@ -2,6 +2,8 @@ package org.opentripplanner.model.projectinfo;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.opentripplanner.model.projectinfo.GraphCompression.LZ4;
+import static org.opentripplanner.model.projectinfo.GraphCompression.NONE;
 import static org.opentripplanner.model.projectinfo.GraphFileHeader.CHARSET;
 
 import org.junit.jupiter.api.Assertions;
@@ -36,6 +38,21 @@ public class GraphFileHeaderTest {
     assertThrows(OtpAppException.class, () -> GraphFileHeader.parse(header));
   }
 
+  @Test
+  public void compressionHeader() {
+    assertEquals(5, GraphFileHeader.compressionHeaderLength());
+    assertEquals("LZ4 ;", new String(GraphFileHeader.compressionHeader(LZ4), CHARSET));
+    assertEquals("NONE;", new String(GraphFileHeader.compressionHeader(NONE), CHARSET));
+
+    for (GraphCompression it : GraphCompression.values()) {
+      assertEquals(it, GraphFileHeader.parseCompression(GraphFileHeader.compressionHeader(it)));
+    }
+    assertThrows(
+      OtpAppException.class,
+      () -> GraphFileHeader.parseCompression("GZIP;".getBytes(CHARSET))
+    );
+  }
+
   @Test
   public void header() {
     Assertions.assertArrayEquals(HEADER_BYTES, SUBJECT.header());
@@ -0,0 +1,228 @@
+package org.opentripplanner.openstreetmap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMRelation;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+import org.opentripplanner.openstreetmap.model.OSMWithTags;
+
+/**
+ * Compare the entities decoded by the {@link OsmPbfReader} with the sequential osmosis {@link
+ * BlockInputStream} the reader replaced, phase by phase.
+ */
+public class OsmPbfReaderTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private static final List<String> PBF_FILES = List.of(
+    "/germany/boeblingen-minimal.osm.pbf",
+    "/germany/herrenberg-minimal.osm.pbf",
+    "/org/opentripplanner/graph_builder/module/osm/skoyen.osm.pbf",
+    "/portland/portland-central-filtered.osm.pbf"
+  );
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void decodesTheSameEntitiesAsTheBlockInputStream(int nWorkers) throws IOException {
+    for (String file : PBF_FILES) {
+      byte[] bytes = readResource(file);
+      var expected = new RecordingOSMDatabase();
+      var actual = new RecordingOSMDatabase();
+
+      int nEntities = 0;
+
+      try (OsmPbfReader reader = new OsmPbfReader(nWorkers)) {
+        for (OsmParserPhase phase : OsmParserPhase.values()) {
+          readWithBlockInputStream(bytes, phase, expected);
+          reader.read(new ByteArrayInputStream(bytes), phase, actual);
+
+          assertEquals(expected.entities, actual.entities, file + " " + phase);
+          nEntities += expected.entities.size();
+          expected.entities.clear();
+          actual.entities.clear();
+        }
+      }
+      assertTrue(nEntities > 0, file);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void truncatedFileFails(int nWorkers) throws IOException {
+    byte[] bytes = readResource(PBF_FILES.get(0));
+    List<Integer> blobOffsets = blobOffsets(bytes);
+    int lastBlob = blobOffsets.get(blobOffsets.size() - 1);
+    byte[] truncated = Arrays.copyOf(bytes, lastBlob + (bytes.length - lastBlob) / 2);
+
+    assertReadFails(truncated, nWorkers);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void corruptBlobFails(int nWorkers) throws IOException {
+    byte[] bytes = readResource(PBF_FILES.get(0));
+    byte[] garbage = new byte[1000];
+    Arrays.fill(garbage, (byte) 0x55);
+    var blob = Fileformat.Blob
+      .newBuilder()
+      .setRawSize(10_000)
+      .setZlibData(ByteString.copyFrom(garbage))
+      .build()
+      .toByteArray();
+
+    // The OSMHeader block, a corrupt data block and then the rest of the file
+    int firstDataBlob = blobOffsets(bytes).get(1);
+    var out = new ByteArrayOutputStream();
+    out.write(bytes, 0, firstDataBlob);
+    writeBlob(out, "OSMData", blob);
+    out.write(bytes, firstDataBlob, bytes.length - firstDataBlob);
+
+    assertReadFails(out.toByteArray(), nWorkers);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void invalidBlobSizeFails(int nWorkers) throws IOException {
+    byte[] bytes = readResource(PBF_FILES.get(0));
+    var header = Fileformat.BlobHeader
+      .newBuilder()
+      .setType("OSMData")
+      .setDatasize(Integer.MAX_VALUE)
+      .build()
+      .toByteArray();
+
+    var out = new ByteArrayOutputStream();
+    out.write(bytes);
+    var data = new DataOutputStream(out);
+    data.writeInt(header.length);
+    data.write(header);
+
+    assertReadFails(out.toByteArray(), nWorkers);
+  }
+
+  private static void assertReadFails(byte[] bytes, int nWorkers) {
+    assertTimeoutPreemptively(
+      TIMEOUT,
+      () -> {
+        try (OsmPbfReader reader = new OsmPbfReader(nWorkers)) {
+          var osmdb = new RecordingOSMDatabase();
+          assertThrows(
+            Exception.class,
+            () -> reader.read(new ByteArrayInputStream(bytes), OsmParserPhase.Relations, osmdb)
+          );
+        }
+      }
+    );
+  }
+
+  private static void readWithBlockInputStream(
+    byte[] bytes,
+    OsmParserPhase phase,
+    OSMDatabase osmdb
+  ) throws IOException {
+    var batch = new OsmPrimitiveBatch();
+    var parser = new OpenStreetMapParser(
+      batch,
+      new ConcurrentHashMap<>(),
+      osmdb.getTagDictionary(),
+      phase
+    );
+    var in = new BlockInputStream(new ByteArrayInputStream(bytes), parser);
+    try {
+      in.process();
+    } finally {
+      in.close();
+    }
+    batch.addTo(osmdb);
+  }
+
+  /** The offsets of the blob headers in the file. */
+  private static List<Integer> blobOffsets(byte[] bytes) throws IOException {
+    List<Integer> offsets = new ArrayList<>();
+    var in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int offset = 0;
+    while (offset < bytes.length) {
+      offsets.add(offset);
+      int headerSize = in.readInt();
+      var header = Fileformat.BlobHeader.parseFrom(in.readNBytes(headerSize));
+      in.skipNBytes(header.getDatasize());
+      offset += 4 + headerSize + header.getDatasize();
+    }
+    return offsets;
+  }
+
+  private static void writeBlob(ByteArrayOutputStream out, String type, byte[] blob)
+    throws IOException {
+    var header = Fileformat.BlobHeader
+      .newBuilder()
+      .setType(type)
+      .setDatasize(blob.length)
+      .build()
+      .toByteArray();
+    var data = new DataOutputStream(out);
+    data.writeInt(header.length);
+    data.write(header);
+    data.write(blob);
+  }
+
+  private static byte[] readResource(String name) throws IOException {
+    try (InputStream in = OsmPbfReaderTest.class.getResourceAsStream(name)) {
+      return in.readAllBytes();
+    }
+  }
+
+  /** Records the entities in the order they are added, without filtering them. */
+  private static class RecordingOSMDatabase extends OSMDatabase {
+
+    private final List<String> entities = new ArrayList<>();
+
+    RecordingOSMDatabase() {
+      super(new DataImportIssueStore(false), Set.of());
+    }
+
+    @Override
+    public void addNode(OSMNode node) {
+      entities.add(describe("node", node) + " " + node.lat + "," + node.lon);
+    }
+
+    @Override
+    public void addWay(OSMWay way) {
+      entities.add(describe("way", way) + " " + way.getNodeRefs());
+    }
+
+    @Override
+    public void addRelation(OSMRelation relation) {
+      entities.add(describe("relation", relation) + " " + relation.getMembers());
+    }
+
+    private static String describe(String type, OSMWithTags entity) {
+      var tags = entity.hasTags() ? new TreeMap<>(entity.getTags()) : Map.of();
+      return type + " " + entity.getId() + " " + tags;
+    }
+  }
+}
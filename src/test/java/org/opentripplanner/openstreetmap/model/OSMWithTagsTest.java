@@ -2,10 +2,13 @@ package org.opentripplanner.openstreetmap.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
 
@@ -33,6 +36,22 @@ public class OSMWithTagsTest {
     assertEquals("bar", o.getTag("FOO"));
   }
 
+  @Test
+  public void replaceTag() {
+    OSMWithTags o = new OSMWithTags();
+    assertNull(o.getTags());
+
+    o.addTag("foo", "bar");
+    o.addTag("baz", "qux");
+    o.addTag("FOO", "quux");
+    o.addTag("abc", "def");
+
+    assertEquals(Map.of("foo", "quux", "baz", "qux", "abc", "def"), o.getTags());
+    assertEquals("quux", o.getTag("foo"));
+    assertTrue(o.isTag("baz", "qux"));
+    assertFalse(o.isTag("baz", "Qux"));
+  }
+
   @Test
   public void testIsFalse() {
     assertTrue(OSMWithTags.isFalse("no"));
@@ -164,4 +183,26 @@ public class OSMWithTagsTest {
     assertEquals(Set.of(), osm.getMultiTagValues(Set.of()));
     assertEquals(Set.of(), osm.getMultiTagValues(Set.of("ref3")));
   }
+
+  @Test
+  public void tagDictionary() {
+    var dictionary = new OSMTagDictionary();
+    var way = new OSMWay(dictionary);
+    way.addTag("highway", "footway");
+    var node = new OSMNode(dictionary);
+    node.addTag("HIGHWAY", "crossing");
+
+    assertSame(dictionary, way.getTagDictionary());
+    assertEquals(3, dictionary.size());
+    assertEquals(way.getTagValueId(dictionary.find("highway")), dictionary.find("footway"));
+    assertEquals("crossing", node.getTag("highway"));
+
+    // An entity without a dictionary gets its own when the first tag is added
+    var other = new OSMWithTags();
+    assertNull(other.getTagDictionary());
+    other.addTag("highway", "footway");
+    assertNotSame(dictionary, other.getTagDictionary());
+    assertTrue(other.isTag("highway", "footway"));
+    assertFalse(other.isTag("highway", "crossing"));
+  }
 }
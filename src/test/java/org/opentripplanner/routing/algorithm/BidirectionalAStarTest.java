@@ -0,0 +1,249 @@
+package org.opentripplanner.routing.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.algorithm.astar.BidirectionalAStar;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.TemporaryConcreteEdge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+public class BidirectionalAStarTest {
+
+  private static final Duration MAX_DURATION = Duration.ofHours(1);
+
+  private Graph graph;
+
+  /** Build the graph of street edges between intersections, which have turn costs. */
+  private boolean withStreetEdges = false;
+
+  @BeforeEach
+  public void before() {
+    graph = new Graph();
+
+    vertex("56th_24th", 47.669457, -122.387577);
+    vertex("56th_22nd", 47.669462, -122.384739);
+    vertex("56th_20th", 47.669457, -122.382106);
+
+    vertex("market_24th", 47.668690, -122.387577);
+    vertex("market_ballard", 47.668683, -122.386096);
+    vertex("market_22nd", 47.668686, -122.384749);
+    vertex("market_leary", 47.668669, -122.384392);
+    vertex("market_russell", 47.668655, -122.382997);
+    vertex("market_20th", 47.668684, -122.382117);
+
+    vertex("shilshole_24th", 47.668419, -122.387534);
+    vertex("shilshole_22nd", 47.666519, -122.384744);
+    vertex("shilshole_vernon", 47.665938, -122.384048);
+    vertex("shilshole_20th", 47.664356, -122.382192);
+
+    vertex("ballard_turn", 47.668509, -122.386069);
+    vertex("ballard_22nd", 47.667624, -122.384744);
+    vertex("ballard_vernon", 47.666422, -122.383158);
+    vertex("ballard_20th", 47.665476, -122.382128);
+
+    vertex("leary_vernon", 47.666863, -122.382353);
+    vertex("leary_20th", 47.666682, -122.382160);
+
+    vertex("russell_20th", 47.667846, -122.382128);
+
+    edges("56th_24th", "56th_22nd", "56th_20th");
+
+    edges("56th_24th", "market_24th");
+    edges("56th_22nd", "market_22nd");
+    edges("56th_20th", "market_20th");
+
+    edges(
+      "market_24th",
+      "market_ballard",
+      "market_22nd",
+      "market_leary",
+      "market_russell",
+      "market_20th"
+    );
+    edges("market_24th", "shilshole_24th", "shilshole_22nd", "shilshole_vernon", "shilshole_20th");
+    edges("market_ballard", "ballard_turn", "ballard_22nd", "ballard_vernon", "ballard_20th");
+    edges("market_leary", "leary_vernon", "leary_20th");
+    edges("market_russell", "russell_20th");
+
+    edges("market_22nd", "ballard_22nd", "shilshole_22nd");
+    edges("leary_vernon", "ballard_vernon", "shilshole_vernon");
+    edges("market_20th", "russell_20th", "leary_20th", "ballard_20th", "shilshole_20th");
+  }
+
+  @Test
+  public void testForward() {
+    assertSameAsUnidirectional(false, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+  }
+
+  @Test
+  public void testBack() {
+    assertSameAsUnidirectional(true, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+  }
+
+  @Test
+  public void testAllPairs() {
+    for (Vertex from : graph.getVertices()) {
+      for (Vertex to : graph.getVertices()) {
+        if (from != to) {
+          assertSameAsUnidirectional(false, from, to);
+          assertSameAsUnidirectional(true, from, to);
+        }
+      }
+    }
+  }
+
+  /**
+   * The path through B is shorter, but has a sharp turn at B. The searches meet at B or C, so the
+   * turn cost at the meeting vertex decides which path is the best.
+   */
+  @Test
+  public void testTurnCostAtTheMeetingVertex() {
+    graph = new Graph();
+    withStreetEdges = true;
+    vertex("A", 47.66, -122.38);
+    vertex("B", 47.660009, -122.3796);
+    vertex("C", 47.660494, -122.38064);
+    vertex("D", 47.660988, -122.38);
+    edges("A", "B", "D");
+    edges("A", "C", "D");
+
+    Vertex a = graph.getVertex("A");
+    Vertex d = graph.getVertex("D");
+    Vertex c = graph.getVertex("C");
+    for (boolean arriveBy : List.of(false, true)) {
+      assertTrue(passes(assertSameAsUnidirectional(arriveBy, a, d), c));
+      assertTrue(passes(assertSameAsUnidirectional(arriveBy, d, a), c));
+    }
+  }
+
+  @Test
+  public void testExtraEdges() {
+    TemporaryStreetLocation from = new TemporaryStreetLocation(
+      "near_shilshole_22nd",
+      new Coordinate(-122.385050, 47.666620),
+      new NonLocalizedString("near_shilshole_22nd"),
+      false
+    );
+    new TemporaryConcreteEdge(from, graph.getVertex("shilshole_22nd"));
+
+    TemporaryStreetLocation to = new TemporaryStreetLocation(
+      "near_56th_20th",
+      new Coordinate(-122.382347, 47.669518),
+      new NonLocalizedString("near_56th_20th"),
+      true
+    );
+    new TemporaryConcreteEdge(graph.getVertex("56th_20th"), to);
+
+    assertSameAsUnidirectional(false, from, to);
+    assertSameAsUnidirectional(true, from, to);
+  }
+
+  @Test
+  public void testIsApplicable() {
+    RoutingRequest options = new RoutingRequest();
+    assertTrue(BidirectionalAStar.isApplicable(options.getStreetSearchRequest(StreetMode.WALK)));
+    assertTrue(BidirectionalAStar.isApplicable(options.getStreetSearchRequest(StreetMode.BIKE)));
+    assertFalse(BidirectionalAStar.isApplicable(options.getStreetSearchRequest(StreetMode.CAR)));
+    assertFalse(
+      BidirectionalAStar.isApplicable(options.getStreetSearchRequest(StreetMode.BIKE_RENTAL))
+    );
+  }
+
+  /****
+   * Private Methods
+   ****/
+
+  /** @return the bidirectional path, or {@code null} if there is none. */
+  private GraphPath assertSameAsUnidirectional(boolean arriveBy, Vertex from, Vertex to) {
+    RoutingRequest options = new RoutingRequest();
+    options.walkSpeed = 1.0;
+    options.turnReluctance = 10;
+    options.setArriveBy(arriveBy);
+
+    List<GraphPath> expected = AStarBuilder
+      .oneToOneMaxDuration(MAX_DURATION)
+      .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setContext(new RoutingContext(options, graph, from, to))
+      .getPathsToTarget();
+
+    List<GraphPath> actual = new BidirectionalAStar(
+      new RoutingContext(options, graph, from, to),
+      MAX_DURATION,
+      null,
+      null
+    )
+      .getPathsToTarget();
+
+    String msg = from.getLabel() + " -> " + to.getLabel() + ", arriveBy=" + arriveBy;
+    assertEquals(expected.size(), actual.size(), msg);
+    if (!expected.isEmpty()) {
+      assertEquals(expected.get(0).getWeight(), actual.get(0).getWeight(), 0.001, msg);
+      assertEquals(expected.get(0).getDuration(), actual.get(0).getDuration(), msg);
+      assertEquals(from, actual.get(0).states.getFirst().getVertex(), msg);
+      assertEquals(to, actual.get(0).states.getLast().getVertex(), msg);
+    }
+    return actual.isEmpty() ? null : actual.get(0);
+  }
+
+  private static boolean passes(GraphPath path, Vertex vertex) {
+    return path.states.stream().anyMatch(s -> s.getVertex() == vertex);
+  }
+
+  private void vertex(String label, double lat, double lon) {
+    if (withStreetEdges) {
+      new IntersectionVertex(graph, label, lon, lat);
+    } else {
+      new SimpleConcreteVertex(graph, label, lat, lon);
+    }
+  }
+
+  private void edges(String... vLabels) {
+    for (int i = 0; i < vLabels.length - 1; i++) {
+      Vertex vA = graph.getVertex(vLabels[i]);
+      Vertex vB = graph.getVertex(vLabels[i + 1]);
+
+      if (withStreetEdges) {
+        street((StreetVertex) vA, (StreetVertex) vB);
+        street((StreetVertex) vB, (StreetVertex) vA);
+      } else {
+        new SimpleConcreteEdge(vA, vB);
+        new SimpleConcreteEdge(vB, vA);
+      }
+    }
+  }
+
+  private static void street(StreetVertex from, StreetVertex to) {
+    new StreetEdge(
+      from,
+      to,
+      GeometryUtils.makeLineString(from.getLon(), from.getLat(), to.getLon(), to.getLat()),
+      from.getLabel() + " - " + to.getLabel(),
+      SphericalDistanceLibrary.distance(from.getCoordinate(), to.getCoordinate()),
+      StreetTraversalPermission.PEDESTRIAN_AND_BICYCLE,
+      false
+    );
+  }
+}
@@ -0,0 +1,103 @@
+package org.opentripplanner.routing.algorithm.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.model.plan.WalkStep;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.TemporaryVerticesContainer;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.util.NonLocalizedString;
+
+/**
+ * Map the walk steps of a path which starts and ends on streets split for the request. The
+ * temporary edges at the permanent vertices are only found through the routing context of the
+ * request.
+ * <pre>
+ *       C
+ *       |  Side
+ *  A -- B -- D
+ *     Main
+ * </pre>
+ */
+public class StatesToWalkStepsMapperTest extends GraphRoutingTest {
+
+  private Graph graph;
+
+  @BeforeEach
+  public void setUp() {
+    graph =
+      graphOf(
+        new Builder() {
+          @Override
+          public void build() {
+            var A = intersection("A", 47.500, 19.000);
+            var B = intersection("B", 47.500, 19.002);
+            var C = intersection("C", 47.502, 19.002);
+            var D = intersection("D", 47.500, 19.004);
+
+            var all = StreetTraversalPermission.ALL;
+            var main = new NonLocalizedString("Main");
+            street(A, B, 150, all, all).forEach(e -> e.setName(main));
+            street(B, D, 150, all, all).forEach(e -> e.setName(main));
+            street(B, C, 220, all, all).forEach(e -> e.setName(new NonLocalizedString("Side")));
+          }
+        }
+      );
+    graph.hasStreets = true;
+    graph.index();
+  }
+
+  @Test
+  public void mapPathStartingOnASplitEdge() {
+    var request = new RoutingRequest().getStreetSearchRequest(StreetMode.WALK);
+    request.from = new GenericLocation(47.500, 19.001);
+    request.to = new GenericLocation(47.501, 19.002);
+
+    try (var temporaryVertices = new TemporaryVerticesContainer(graph, request)) {
+      var rctx = new RoutingContext(request, graph, temporaryVertices);
+      GraphPath path = AStarBuilder.oneToOne().setContext(rctx).getPathsToTarget().get(0);
+
+      // The path starts on the split Main street, and turns onto the split Side street at B
+      assertTrue(path.states.get(2).getBackEdge() instanceof TemporaryPartialStreetEdge);
+      Vertex b = graph.getVertex("B");
+      assertFalse(b.getOutgoing().stream().anyMatch(TemporaryPartialStreetEdge.class::isInstance));
+      assertTrue(
+        rctx.temporaryEdges
+          .getOutgoing(b)
+          .stream()
+          .anyMatch(TemporaryPartialStreetEdge.class::isInstance)
+      );
+
+      List<WalkStep> steps = new StatesToWalkStepsMapper(
+        path.states,
+        null,
+        graph.streetNotesService,
+        0
+      )
+        .generateWalkSteps();
+
+      assertEquals(
+        List.of("DEPART Main", "LEFT Side"),
+        steps
+          .stream()
+          .map(s -> s.getRelativeDirection() + " " + s.getStreetName())
+          .collect(Collectors.toList())
+      );
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.routing.vertextype.TransitStopVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+public class AccessEgressCacheTest extends GraphRoutingTest {
+
+  private final AccessEgressCache subject = new AccessEgressCache(10);
+  private final AtomicInteger searchCount = new AtomicInteger();
+
+  private Graph graph;
+  private StreetVertex A, B;
+  private TransitStopVertex S;
+  private StreetEdge AB;
+
+  @BeforeEach
+  public void setUp() {
+    graph =
+      graphOf(
+        new Builder() {
+          @Override
+          public void build() {
+            A = intersection("A", 60.001, 10.001);
+            B = intersection("B", 60.001, 10.002);
+            S = stop("S", 60.0015, 10.002);
+            AB =
+              street(A, B, 100, StreetTraversalPermission.ALL, StreetTraversalPermission.ALL)
+                .get(0);
+            biLink(B, S);
+          }
+        }
+      );
+  }
+
+  @Test
+  public void sameRequestIsCached() {
+    var firstLocation = linkedTo("1", A);
+    var secondLocation = linkedTo("2", A);
+
+    var first = getOrSearch(request(), StreetMode.WALK, false, firstLocation);
+    var second = getOrSearch(request(), StreetMode.WALK, false, secondLocation);
+
+    assertEquals(1, searchCount.get());
+    assertEquals(1, second.size());
+
+    NearbyStop firstStop = first.iterator().next();
+    NearbyStop secondStop = second.iterator().next();
+    assertSame(S.getStop(), secondStop.stop);
+    assertEquals(firstStop.state.getWeight(), secondStop.state.getWeight());
+    assertEquals(firstStop.distance, secondStop.distance);
+
+    // The cached path is traversed again from the vertex of the second request
+    assertNotSame(firstStop.state, secondStop.state);
+    assertSame(secondLocation, firstStateOf(secondStop.state).getVertex());
+  }
+
+  @Test
+  public void egressIsTraversedInTheSameDirection() {
+    getOrSearch(request(), StreetMode.WALK, true, linkedTo("1", A, true));
+    var location = linkedTo("2", A, true);
+    var egress = getOrSearch(request(), StreetMode.WALK, true, location);
+
+    assertEquals(1, searchCount.get());
+    var state = egress.iterator().next().state;
+    assertSame(S, state.getVertex());
+    assertSame(location, firstStateOf(state).getVertex());
+  }
+
+  @Test
+  public void directionModeAndPreferencesArePartOfTheKey() {
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    getOrSearch(request(), StreetMode.WALK, true, A);
+    getOrSearch(request(), StreetMode.BIKE, false, A);
+
+    var fastWalker = request();
+    fastWalker.walkSpeed = 2.0;
+    getOrSearch(fastWalker, StreetMode.WALK, false, A);
+
+    var arriveBy = request();
+    arriveBy.arriveBy = true;
+    getOrSearch(arriveBy, StreetMode.WALK, false, A);
+
+    assertEquals(5, searchCount.get());
+  }
+
+  @Test
+  public void temporaryVerticesAreKeyedOnTheLinkedStreets() {
+    getOrSearch(request(), StreetMode.WALK, false, linkedTo("1", A));
+    getOrSearch(request(), StreetMode.WALK, false, linkedTo("2", A));
+    assertEquals(1, searchCount.get());
+
+    getOrSearch(request(), StreetMode.WALK, false, linkedTo("3", B));
+    assertEquals(2, searchCount.get());
+  }
+
+  @Test
+  public void rentalIsNotCached() {
+    var rental = request();
+    rental.vehicleRental = true;
+
+    getOrSearch(rental, StreetMode.BIKE_RENTAL, false, A);
+    getOrSearch(rental, StreetMode.BIKE_RENTAL, false, A);
+
+    assertEquals(2, searchCount.get());
+  }
+
+  @Test
+  public void pathWithAnotherWeightIsSearchedAgain() {
+    var first = getOrSearch(request(), StreetMode.WALK, false, A);
+
+    // Anything the key does not capture makes the cached path give another weight
+    AB.setStairs(true);
+    var second = getOrSearch(request(), StreetMode.WALK, false, A);
+
+    assertEquals(2, searchCount.get());
+    assertEquals(1, second.size());
+    double firstWeight = first.iterator().next().state.getWeight();
+    double secondWeight = second.iterator().next().state.getWeight();
+    assertTrue(secondWeight > firstWeight);
+
+    // The new result is cached
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(2, searchCount.get());
+  }
+
+  @Test
+  public void invalidateNearModification() {
+    getOrSearch(request(), StreetMode.WALK, false, A);
+
+    // Far away from the stop, nothing is dropped
+    subject.invalidate(new Coordinate(11.0, 61.0));
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(1, searchCount.get());
+
+    // Next to the stop
+    subject.invalidate(new Coordinate(10.0015, 60.001));
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(2, searchCount.get());
+  }
+
+  @Test
+  public void invalidateWhenTheModificationIsCommitted() {
+    graph.setAccessEgressCache(subject);
+    getOrSearch(request(), StreetMode.WALK, false, A);
+
+    // A request still sees the street graph before the modification until it is committed
+    graph.streetGraphModifiedAt(new Coordinate(10.0015, 60.001));
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(1, searchCount.get());
+
+    graph.commitRealtimeStreetChanges();
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(2, searchCount.get());
+  }
+
+  @Test
+  public void removedEdgeIsAMiss() {
+    getOrSearch(request(), StreetMode.WALK, false, A);
+
+    // The cached path passes AB, which is removed without invalidating the cache
+    graph.removeEdge(AB);
+    var result = getOrSearch(request(), StreetMode.WALK, false, A);
+
+    assertEquals(2, searchCount.get());
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void pathOverAnEdgeRemovedDuringTheSearchIsNotCached() {
+    getOrSearch(request(), StreetMode.WALK, false, A, () -> graph.removeEdge(AB));
+    var result = getOrSearch(request(), StreetMode.WALK, false, A);
+
+    assertEquals(2, searchCount.get());
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void searchRunningWhileTheCacheIsInvalidatedIsNotCached() {
+    getOrSearch(
+      request(),
+      StreetMode.WALK,
+      false,
+      A,
+      () -> subject.invalidate(new Coordinate(11.0, 61.0))
+    );
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(2, searchCount.get());
+
+    getOrSearch(request(), StreetMode.WALK, false, A);
+    assertEquals(2, searchCount.get());
+  }
+
+  private Collection<NearbyStop> getOrSearch(
+    RoutingRequest request,
+    StreetMode streetMode,
+    boolean isEgress,
+    Vertex vertex
+  ) {
+    return getOrSearch(request, streetMode, isEgress, vertex, () -> {});
+  }
+
+  /** Search, and run the given modification when the search is done, before it is cached. */
+  private Collection<NearbyStop> getOrSearch(
+    RoutingRequest request,
+    StreetMode streetMode,
+    boolean isEgress,
+    Vertex vertex,
+    Runnable modification
+  ) {
+    RoutingRequest streetRequest = request.getStreetSearchRequest(streetMode);
+    Set<Vertex> vertices = Set.of(vertex);
+    Supplier<List<NearbyStop>> search = () -> {
+      searchCount.incrementAndGet();
+      var result = new NearbyStopFinder(graph, Duration.ofMinutes(30), true)
+        .findNearbyStopsViaStreets(vertices, isEgress, streetRequest.clone());
+      modification.run();
+      return result;
+    };
+    return new ArrayList<>(
+      subject.getOrSearch(graph, streetRequest, streetMode, isEgress, vertices, search)
+    );
+  }
+
+  private static State firstStateOf(State state) {
+    while (state.getBackState() != null) {
+      state = state.getBackState();
+    }
+    return state;
+  }
+
+  /** A temporary origin at the request location, linked to the given vertex. */
+  private static Vertex linkedTo(String id, StreetVertex street) {
+    return linkedTo(id, street, false);
+  }
+
+  private static Vertex linkedTo(String id, StreetVertex street, boolean endVertex) {
+    var location = new TemporaryStreetLocation(
+      id,
+      new Coordinate(10.001, 60.001),
+      new NonLocalizedString(id),
+      endVertex
+    );
+    if (endVertex) {
+      new TemporaryFreeEdge(street, location);
+    } else {
+      new TemporaryFreeEdge(location, street);
+    }
+    return location;
+  }
+
+  private static RoutingRequest request() {
+    var request = new RoutingRequest();
+    request.from = new GenericLocation(60.001, 10.001);
+    request.to = new GenericLocation(60.1, 10.1);
+    return request;
+  }
+}
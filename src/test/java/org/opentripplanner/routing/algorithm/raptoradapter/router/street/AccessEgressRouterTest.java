@@ -0,0 +1,214 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.graph_builder.module.EgressStopTableGenerator;
+import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.util.NonLocalizedString;
+import org.opentripplanner.util.OTPFeature;
+
+/**
+ * Test the egress search using the {@link org.opentripplanner.routing.graphfinder.EgressStopTable}.
+ * The street network is a 2 km long street with a stop 200 m and a stop 500 m from the
+ * destination.
+ */
+public class AccessEgressRouterTest extends GraphRoutingTest {
+
+  private static final int N_INTERSECTIONS = 21;
+
+  /** The duration the egress stop table is computed for. */
+  private static final Duration TABLE_DURATION = Duration.ofMinutes(30);
+
+  /** The largest egress duration the table can be used for, with the 0.8 safety factor. */
+  private static final Duration MAX_EGRESS_DURATION = Duration.ofMinutes(24);
+
+  @Test
+  public void egressSearchWithTableFindsTheSameStops() {
+    var withTable = egress(graph(true), MAX_EGRESS_DURATION);
+    var withoutTable = egress(graph(false), MAX_EGRESS_DURATION);
+
+    assertEquals(Set.of("S1", "S2"), stopIds(withTable));
+    assertEquals(weightByStop(withoutTable), weightByStop(withTable));
+  }
+
+  @Test
+  public void egressSearchWithTableTerminatesEarly() {
+    // The table is not used with flex, which other tests may leave turned on
+    OTPFeature.FlexRouting.testOff(this::assertEgressSearchWithTableTerminatesEarly);
+  }
+
+  private void assertEgressSearchWithTableTerminatesEarly() {
+    Graph graph = graph(true);
+    Vertex destination = destination(graph);
+    RoutingRequest streetRequest = streetRequest(MAX_EGRESS_DURATION, StreetMode.WALK);
+    var strategy = AccessEgressRouter.egressTerminationStrategy(
+      routingContext(graph, destination, streetRequest),
+      Set.of(destination),
+      StreetMode.WALK,
+      streetRequest
+    );
+    assertNotNull(strategy);
+
+    Set<String> visitedWithTable = visitedIntersections(graph, destination, strategy);
+    Set<String> visitedWithoutTable = visitedIntersections(graph, destination, s -> false);
+
+    // The stops are found at intersection 2 and 5, the search stops shortly after that
+    assertTrue(visitedWithTable.contains("V5"));
+    assertFalse(visitedWithTable.contains("V10"));
+    assertTrue(visitedWithoutTable.contains("V10"));
+  }
+
+  @Test
+  public void tableIsOnlyUsedWithinItsDurationAfterTheSafetyFactor() {
+    OTPFeature.FlexRouting.testOff(() -> {
+      assertNotNull(terminationStrategy(MAX_EGRESS_DURATION, StreetMode.WALK));
+      assertNull(terminationStrategy(MAX_EGRESS_DURATION.plusMinutes(1), StreetMode.WALK));
+    });
+  }
+
+  @Test
+  public void tableIsOnlyUsedForWalking() {
+    assertNull(terminationStrategy(MAX_EGRESS_DURATION, StreetMode.BIKE));
+  }
+
+  @Test
+  public void tableIsNotUsedWithFlex() {
+    OTPFeature.FlexRouting.testOn(() ->
+      assertNull(terminationStrategy(MAX_EGRESS_DURATION, StreetMode.WALK))
+    );
+  }
+
+  private SearchTerminationStrategy terminationStrategy(Duration maxEgress, StreetMode mode) {
+    Graph graph = graph(true);
+    Vertex destination = destination(graph);
+    RoutingRequest streetRequest = streetRequest(maxEgress, mode);
+    return AccessEgressRouter.egressTerminationStrategy(
+      routingContext(graph, destination, streetRequest),
+      Set.of(destination),
+      mode,
+      streetRequest
+    );
+  }
+
+  private Collection<NearbyStop> egress(Graph graph, Duration maxEgress) {
+    RoutingRequest request = new RoutingRequest();
+    request.maxAccessEgressDuration = maxEgress;
+    return AccessEgressRouter.streetSearch(
+      routingContext(graph, destination(graph), request),
+      StreetMode.WALK,
+      true
+    );
+  }
+
+  private Set<String> visitedIntersections(
+    Graph graph,
+    Vertex destination,
+    SearchTerminationStrategy strategy
+  ) {
+    Set<String> visited = new HashSet<>();
+    SearchTerminationStrategy recording = state -> {
+      visited.add(state.getVertex().getLabel());
+      return strategy.shouldSearchTerminate(state);
+    };
+    new NearbyStopFinder(graph, MAX_EGRESS_DURATION, true)
+      .findNearbyStopsViaStreets(
+        Set.of(destination),
+        true,
+        streetRequest(MAX_EGRESS_DURATION, StreetMode.WALK),
+        recording
+      );
+    return visited;
+  }
+
+  private static RoutingRequest streetRequest(Duration maxEgress, StreetMode mode) {
+    RoutingRequest request = new RoutingRequest();
+    request.maxAccessEgressDuration = maxEgress;
+    return request.getStreetSearchRequest(mode);
+  }
+
+  private static RoutingContext routingContext(
+    Graph graph,
+    Vertex destination,
+    RoutingRequest request
+  ) {
+    return new RoutingContext(request, graph, (Set<Vertex>) null, Set.of(destination));
+  }
+
+  /** The destination, linked to the first intersection. */
+  private static Vertex destination(Graph graph) {
+    IntersectionVertex first = (IntersectionVertex) graph.getVertex("V0");
+    var destination = new TemporaryStreetLocation(
+      "Destination",
+      new Coordinate(first.getLon(), first.getLat()),
+      new NonLocalizedString("Destination"),
+      true
+    );
+    new TemporaryFreeEdge(first, destination);
+    return destination;
+  }
+
+  private Graph graph(boolean withEgressStopTable) {
+    Graph graph = graphOf(
+      new Builder() {
+        @Override
+        public void build() {
+          var intersections = new IntersectionVertex[N_INTERSECTIONS];
+          for (int i = 0; i < N_INTERSECTIONS; i++) {
+            intersections[i] = intersection("V" + i, 60.0 + i * 0.0009, 10.0);
+            if (i > 0) {
+              street(
+                intersections[i - 1],
+                intersections[i],
+                100,
+                StreetTraversalPermission.ALL,
+                StreetTraversalPermission.ALL
+              );
+            }
+          }
+          biLink(intersections[2], stop("S1", 60.0018, 10.0001));
+          biLink(intersections[5], stop("S2", 60.0045, 10.0001));
+        }
+      }
+    );
+    graph.hasStreets = true;
+    if (withEgressStopTable) {
+      new EgressStopTableGenerator(TABLE_DURATION).buildGraph(graph, new HashMap<>());
+    }
+    return graph;
+  }
+
+  private static Set<String> stopIds(Collection<NearbyStop> nearbyStops) {
+    return nearbyStops.stream().map(s -> s.stop.getId().getId()).collect(Collectors.toSet());
+  }
+
+  private static Map<String, Double> weightByStop(Collection<NearbyStop> nearbyStops) {
+    return nearbyStops
+      .stream()
+      .collect(Collectors.toMap(s -> s.stop.getId().getId(), s -> s.state.getWeight()));
+  }
+}
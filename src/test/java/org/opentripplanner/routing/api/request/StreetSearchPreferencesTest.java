@@ -0,0 +1,201 @@
+package org.opentripplanner.routing.api.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+
+class StreetSearchPreferencesTest {
+
+  /**
+   * The request fields which are part of the access/egress cache key without being in the
+   * preferences, or which make the request not cacheable at all, see {@code AccessEgressCache}.
+   */
+  private static final Set<String> KEYED_ELSEWHERE = Set.of(
+    "from",
+    "to",
+    "dateTime",
+    "maxAccessEgressDuration",
+    "maxAccessEgressDurationForMode",
+    "vehicleRental",
+    "parkAndRide",
+    "carPickup",
+    "dataOverlay"
+  );
+
+  /**
+   * The request fields which are not read by a plain street search. They are only used by the
+   * transit search, the direct street search, rental, parking or car pickup, or the API. Move a
+   * field to the preferences if the street search starts to use it.
+   */
+  private static final Set<String> NOT_USED_BY_STREET_SEARCH = Set.of(
+    "parameters",
+    "transferOptimization",
+    "transitReluctanceForMode",
+    "intermediatePlaces",
+    "maxDirectStreetDuration",
+    "maxDirectStreetDurationForMode",
+    "searchWindow",
+    "maxJourneyDuration",
+    "pageCursor",
+    "timetableView",
+    "numItineraries",
+    "showIntermediateStops",
+    "locale",
+    "transferCost",
+    "nonpreferredTransferCost",
+    "vehicleRentalPickupTime",
+    "vehicleRentalPickupCost",
+    "vehicleRentalDropoffTime",
+    "vehicleRentalDropoffCost",
+    "allowedVehicleRentalNetworks",
+    "bannedVehicleRentalNetworks",
+    "bikeParkTime",
+    "bikeParkCost",
+    "carParkTime",
+    "carParkCost",
+    "requiredVehicleParkingTags",
+    "bannedVehicleParkingTags",
+    "carDropoffTime",
+    "carPickupTime",
+    "carPickupCost",
+    "waitReluctance",
+    "waitAtBeginningFactor",
+    "walkBoardCost",
+    "bikeBoardCost",
+    "bannedAgencies",
+    "whiteListedAgencies",
+    "preferredAgencies",
+    "unpreferredAgencies",
+    "bannedRoutes",
+    "whiteListedRoutes",
+    "preferredRoutes",
+    "otherThanPreferredRoutesPenalty",
+    "unpreferredRoutes",
+    "useUnpreferredRoutesPenalty",
+    "bannedTrips",
+    "transferSlack",
+    "boardSlack",
+    "boardSlackForMode",
+    "alightSlack",
+    "alightSlackForMode",
+    "maxTransfers",
+    "useVehicleRentalAvailabilityInformation",
+    "allowKeepingRentedVehicleAtDestination",
+    "keepingRentedVehicleAtDestinationCost",
+    "carDecelerationSpeed",
+    "carAccelerationSpeed",
+    "ignoreRealtimeUpdates",
+    "includePlannedCancellations",
+    "startingTransitStopId",
+    "startingTransitTripId",
+    "allowedRentalFormFactors",
+    "useVehicleParkingAvailabilityInformation",
+    "onlyTransitTrips",
+    "disableAlertFiltering",
+    "pathComparator",
+    "itineraryFilters",
+    "raptorDebugging",
+    "raptorOptions",
+    "tags",
+    "fromEnvelope",
+    "toEnvelope"
+  );
+
+  @Test
+  void equalRequestsHaveEqualPreferences() {
+    assertEquals(
+      StreetSearchPreferences.of(new RoutingRequest()),
+      StreetSearchPreferences.of(new RoutingRequest())
+    );
+  }
+
+  /**
+   * A new request field must be added either to the preferences or to one of the lists above, so
+   * the cache never serves paths found with other values for it.
+   */
+  @Test
+  void eachRequestFieldIsClassified() {
+    Set<String> preferences = Arrays
+      .stream(StreetSearchPreferences.class.getRecordComponents())
+      .map(c -> c.getName().equals("accessMode") ? "modes" : c.getName())
+      .collect(Collectors.toSet());
+
+    List<String> unclassified = Arrays
+      .stream(RoutingRequest.class.getDeclaredFields())
+      .filter(f -> !Modifier.isStatic(f.getModifiers()))
+      .map(Field::getName)
+      .filter(name -> !preferences.contains(name))
+      .filter(name -> !KEYED_ELSEWHERE.contains(name))
+      .filter(name -> !NOT_USED_BY_STREET_SEARCH.contains(name))
+      .collect(Collectors.toList());
+
+    assertTrue(
+      unclassified.isEmpty(),
+      "Add the request fields " +
+      unclassified +
+      " to StreetSearchPreferences, or to the list " +
+      "of fields not used by the street search"
+    );
+  }
+
+  /**
+   * Each component is copied from the request field with the same name, so changing any of the
+   * fields must give other preferences.
+   */
+  @Test
+  void eachRequestFieldChangesThePreferences() throws ReflectiveOperationException {
+    var expected = StreetSearchPreferences.of(new RoutingRequest());
+
+    for (RecordComponent component : StreetSearchPreferences.class.getRecordComponents()) {
+      var request = new RoutingRequest();
+      if (component.getName().equals("accessMode")) {
+        request.modes.accessMode = (StreetMode) otherValue(request.modes.accessMode);
+      } else {
+        Field field = RoutingRequest.class.getField(component.getName());
+        field.set(request, otherValue(field.get(request)));
+      }
+
+      assertNotEquals(
+        expected,
+        StreetSearchPreferences.of(request),
+        "Changing " + component.getName() + " must change the preferences"
+      );
+    }
+  }
+
+  private static Object otherValue(Object value) {
+    if (value instanceof Boolean b) {
+      return !b;
+    }
+    if (value instanceof Integer i) {
+      return i + 1;
+    }
+    if (value instanceof Double d) {
+      return d + 1.0;
+    }
+    if (value instanceof Enum<?> e) {
+      Object[] values = e.getDeclaringClass().getEnumConstants();
+      return values[(e.ordinal() + 1) % values.length];
+    }
+    if (value instanceof TraverseModeSet modes) {
+      return modes.getCar()
+        ? new TraverseModeSet(TraverseMode.WALK)
+        : new TraverseModeSet(TraverseMode.CAR);
+    }
+    if (value instanceof WheelchairAccessibilityRequest wheelchair) {
+      return wheelchair.withEnabled(!wheelchair.enabled());
+    }
+    throw new IllegalArgumentException("Add a test value for " + value.getClass());
+  }
+}
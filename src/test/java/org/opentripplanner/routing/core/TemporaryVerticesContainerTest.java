@@ -65,22 +65,18 @@ public class TemporaryVerticesContainerTest {
     // Then:
     originAndDestinationInsertedCorrect();
 
+    // And - the permanent vertexes are not modified
+    assertPermanentVertexesNotReferencingTemporaryElements();
+
     // And When:
     subject.close();
 
-    // Then - permanent vertexes
-    for (Vertex v : permanentVertexes) {
-      // - does not reference the any temporary nodes anymore
-      for (Edge e : v.getIncoming()) {
-        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getFromVertex());
-      }
-      for (Edge e : v.getOutgoing()) {
-        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getToVertex());
-      }
-    }
+    // Then - permanent vertexes does not reference the any temporary nodes
+    assertPermanentVertexesNotReferencingTemporaryElements();
   }
 
   private static <T extends Collection<String>> T findAllReachableVertexes(
+    TemporaryEdgeOverlay overlay,
     Vertex vertex,
     boolean forward,
     T list
@@ -91,22 +87,37 @@ public class TemporaryVerticesContainerTest {
 
     list.add(vertex.getDefaultName());
     if (forward) {
-      vertex.getOutgoing().forEach(it -> findAllReachableVertexes(it.getToVertex(), forward, list));
+      overlay
+        .getOutgoing(vertex)
+        .forEach(it -> findAllReachableVertexes(overlay, it.getToVertex(), forward, list));
     } else {
-      vertex
-        .getIncoming()
-        .forEach(it -> findAllReachableVertexes(it.getFromVertex(), forward, list));
+      overlay
+        .getIncoming(vertex)
+        .forEach(it -> findAllReachableVertexes(overlay, it.getFromVertex(), forward, list));
     }
     return list;
   }
 
+  private void assertPermanentVertexesNotReferencingTemporaryElements() {
+    for (Vertex v : permanentVertexes) {
+      for (Edge e : v.getIncoming()) {
+        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getFromVertex());
+      }
+      for (Edge e : v.getOutgoing()) {
+        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getToVertex());
+      }
+    }
+  }
+
   private void originAndDestinationInsertedCorrect() {
     // Then - the origin and destination is
     assertEquals("Origin", subject.getFromVertices().iterator().next().getDefaultName());
     assertEquals("Destination", subject.getToVertices().iterator().next().getDefaultName());
 
-    // And - from the origin
+    // And - from the origin, using the temporary edges of the request
+    var overlay = TemporaryEdgeOverlay.of(subject.getFromVertices(), subject.getToVertices());
     Collection<String> vertexesReachableFromOrigin = findAllReachableVertexes(
+      overlay,
       subject.getFromVertices().iterator().next(),
       true,
       new ArrayList<>()
@@ -121,6 +132,7 @@ public class TemporaryVerticesContainerTest {
 
     // And - from the destination we can backtrack
     Collection<String> vertexesReachableFromDestination = findAllReachableVertexes(
+      overlay,
       subject.getToVertices().iterator().next(),
       false,
       new ArrayList<>()
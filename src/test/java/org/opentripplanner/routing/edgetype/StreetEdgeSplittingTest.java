@@ -96,8 +96,9 @@ class StreetEdgeSplittingTest extends GraphRoutingTest {
       disposableEdgeCollection,
       LinkingDirection.BOTH_WAYS
     );
-    assertEquals(splitResult.first, addedRestriction(streetEdge1).to);
-    assertOriginalRestrictionExists();
+    // The permanent edge is not modified, the temporary edge is equivalent to its parent
+    assertOnlyOriginalRestrictionExists();
+    assertTrue(splitResult.first.isEquivalentTo(streetEdge2));
 
     disposableEdgeCollection.disposeEdges();
     assertTrue(splitResult.first.getTurnRestrictions().isEmpty());
@@ -135,11 +136,8 @@ class StreetEdgeSplittingTest extends GraphRoutingTest {
       LinkingDirection.OUTGOING
     );
 
-    var turnRestrictions = streetEdge1.getTurnRestrictions();
-    assertEquals(2, turnRestrictions.size());
-
-    assertOriginalRestrictionExists();
-    assertEquals(splitResult.first, addedRestriction(streetEdge1).to);
+    assertOnlyOriginalRestrictionExists();
+    assertTrue(splitResult.first.isEquivalentTo(streetEdge2));
 
     disposableEdgeCollection.disposeEdges();
     assertOnlyOriginalRestrictionExists();
@@ -4,7 +4,10 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
@@ -14,6 +17,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 import org.opentripplanner.common.TurnRestriction;
+import org.opentripplanner.common.geometry.CompactGeometrySegment;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.RoutingContext;
@@ -22,6 +26,7 @@ import org.opentripplanner.routing.core.StateData;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.Deduplicator;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.StreetVertex;
 
@@ -73,6 +78,33 @@ public class StreetEdgeTest {
     assertEquals(180, Math.abs(e2.getOutAngle()));
   }
 
+  @Test
+  public void testPackedFlagsPermissionAndStreetClass() {
+    StreetEdge e = edge(v1, v2, 1.0, StreetTraversalPermission.PEDESTRIAN_AND_CAR);
+
+    assertEquals(StreetTraversalPermission.PEDESTRIAN_AND_CAR, e.getPermission());
+    assertEquals(StreetEdge.CLASS_OTHERPATH, e.getStreetClass());
+    assertTrue(e.isWheelchairAccessible());
+
+    e.setStreetClass(StreetEdge.CLASS_STREET | StreetEdge.CLASS_LINK);
+    e.setStairs(true);
+    e.setPermission(StreetTraversalPermission.BICYCLE);
+
+    assertEquals(StreetTraversalPermission.BICYCLE, e.getPermission());
+    assertEquals(StreetEdge.CLASS_STREET | StreetEdge.CLASS_LINK, e.getStreetClass());
+    assertTrue(e.isStairs());
+    assertTrue(e.isWheelchairAccessible());
+    assertFalse(e.isBack());
+
+    e.setStairs(false);
+    assertEquals(StreetTraversalPermission.BICYCLE, e.getPermission());
+    assertEquals(StreetEdge.CLASS_STREET | StreetEdge.CLASS_LINK, e.getStreetClass());
+
+    assertThrows(IllegalArgumentException.class, () -> e.setStreetClass(256));
+    assertThrows(IllegalArgumentException.class, () -> e.setPermission(null));
+    assertEquals(StreetTraversalPermission.BICYCLE, e.getPermission());
+  }
+
   @Test
   public void testTraverseAsPedestrian() {
     StreetEdge e1 = edge(v1, v2, 100.0, StreetTraversalPermission.ALL);
@@ -292,6 +324,72 @@ public class StreetEdgeTest {
    * Private Methods
    ****/
 
+  @Test
+  public void deduplicateNameAndGeometryOfTwinEdges() {
+    LineString geometry = GeometryUtils.makeLineString(0.0, 0.0, 1.0, 0.0, 2.0, 2.0);
+    var forward = new StreetEdge(
+      v0,
+      v1,
+      geometry,
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      false
+    );
+    var back = new StreetEdge(
+      v1,
+      v0,
+      geometry.reverse(),
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      true
+    );
+    assertNotSame(forward.getName(), back.getName());
+    assertNotSame(forward.getCompactGeometry(), back.getCompactGeometry());
+
+    var deduplicator = new Deduplicator();
+    forward.deduplicate(deduplicator);
+    back.deduplicate(deduplicator);
+
+    assertSame(forward.getName(), back.getName());
+    assertSame(forward.getCompactGeometry(), back.getCompactGeometry());
+    assertEquals(geometry, forward.getGeometry());
+    assertEquals(geometry.reverse(), back.getGeometry());
+  }
+
+  @Test
+  public void shareGeometryStoredOffHeap() {
+    LineString geometry = GeometryUtils.makeLineString(0.0, 0.0, 1.0, 0.0, 2.0, 2.0);
+    var forward = new StreetEdge(
+      v0,
+      v1,
+      geometry,
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      false
+    );
+    var back = new StreetEdge(
+      v1,
+      v0,
+      geometry.reverse(),
+      "Maple",
+      1.0,
+      StreetTraversalPermission.ALL,
+      true
+    );
+    var segment = CompactGeometrySegment.allocate(1024);
+    forward.moveGeometryOffHeap(segment, segment.add(forward.getCompactGeometry()));
+
+    back.shareData(forward);
+
+    assertTrue(back.isGeometryOffHeap());
+    assertArrayEquals(forward.getCompactGeometry(), back.getCompactGeometry());
+    assertEquals(geometry, forward.getGeometry());
+    assertEquals(geometry.reverse(), back.getGeometry());
+  }
+
   private IntersectionVertex vertex(String label, double x, double y) {
     return new IntersectionVertex(graph, label, x, y);
   }
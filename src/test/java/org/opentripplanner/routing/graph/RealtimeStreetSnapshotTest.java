@@ -0,0 +1,205 @@
+package org.opentripplanner.routing.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.graph_builder.linking.LinkingDirection;
+import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.TemporaryEdgeOverlay;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+
+public class RealtimeStreetSnapshotTest {
+
+  private final Graph graph = new Graph();
+  private final Vertex street = new SimpleConcreteVertex(graph, "street", 59.0, 10.0);
+  private final Vertex station = new SimpleConcreteVertex(graph, "station", 59.001, 10.0);
+
+  @Test
+  public void realtimeEdgesAreNotAddedToStreetVertices() {
+    station.markAsRealtime();
+    Edge in = new SimpleConcreteEdge(street, station);
+    Edge out = new SimpleConcreteEdge(station, street);
+
+    assertTrue(street.getOutgoing().isEmpty());
+    assertTrue(street.getIncoming().isEmpty());
+    assertEquals(List.of(in), List.copyOf(station.getIncoming()));
+    assertEquals(List.of(out), List.copyOf(station.getOutgoing()));
+    assertFalse(in.isListedAt(street));
+    assertTrue(in.isListedAt(station));
+  }
+
+  @Test
+  public void changesAreVisibleAfterCommit() {
+    station.markAsRealtime();
+    Edge in = new SimpleConcreteEdge(street, station);
+    Edge out = new SimpleConcreteEdge(station, street);
+
+    var buffer = graph.getRealtimeStreetBuffer();
+    buffer.addEdge(in);
+    buffer.addEdge(out);
+
+    assertTrue(graph.getRealtimeStreetSnapshot().isEmpty());
+
+    graph.commitRealtimeStreetChanges();
+    var snapshot = graph.getRealtimeStreetSnapshot();
+    assertEquals(List.of(in), snapshot.getOutgoing(street));
+    assertEquals(List.of(out), snapshot.getIncoming(street));
+    assertTrue(snapshot.getOutgoing(station).isEmpty());
+
+    var overlay = TemporaryEdgeOverlay.of(snapshot);
+    assertEquals(List.of(in), List.copyOf(overlay.getOutgoing(street)));
+
+    // Removing the edges does not change the published snapshot
+    buffer.removeEdge(in);
+    buffer.removeEdge(out);
+    assertEquals(List.of(in), snapshot.getOutgoing(street));
+
+    graph.commitRealtimeStreetChanges();
+    assertTrue(graph.getRealtimeStreetSnapshot().isEmpty());
+  }
+
+  @Test
+  public void commitWithoutChanges() {
+    var buffer = new RealtimeStreetSnapshot();
+    assertNull(buffer.commit());
+
+    graph.commitRealtimeStreetChanges();
+    assertSame(RealtimeStreetSnapshot.EMPTY, graph.getRealtimeStreetSnapshot());
+  }
+
+  @Test
+  public void committedSnapshotIsReadOnly() {
+    station.markAsRealtime();
+    var buffer = new RealtimeStreetSnapshot();
+    buffer.addEdge(new SimpleConcreteEdge(street, station));
+    var snapshot = buffer.commit();
+
+    assertThrows(
+      ConcurrentModificationException.class,
+      () -> snapshot.addEdge(new SimpleConcreteEdge(station, street))
+    );
+  }
+
+  @Test
+  public void rollbackDiscardsTheChangesSinceTheLastCommit() {
+    station.markAsRealtime();
+    Edge in = new SimpleConcreteEdge(street, station);
+    Edge out = new SimpleConcreteEdge(station, street);
+
+    var buffer = graph.getRealtimeStreetBuffer();
+    buffer.addEdge(in);
+    graph.commitRealtimeStreetChanges();
+
+    buffer.addEdge(out);
+    buffer.removeEdge(in);
+    graph.rollbackRealtimeStreetChanges();
+    graph.commitRealtimeStreetChanges();
+
+    var snapshot = graph.getRealtimeStreetSnapshot();
+    assertEquals(List.of(in), snapshot.getOutgoing(street));
+    assertTrue(snapshot.getIncoming(street).isEmpty());
+    assertEquals(List.of(in), buffer.getOutgoing(street));
+  }
+
+  /**
+   * A station linked for realtime splits the street edge with a realtime splitter vertex. The
+   * split edges are not added to the street vertices, but the station is routable once the
+   * realtime changes are committed.
+   */
+  @Test
+  public void realtimeLinkedStationIsRoutable() {
+    StreetVertex a = new IntersectionVertex(graph, "A", 10.0, 59.0);
+    StreetVertex b = new IntersectionVertex(graph, "B", 10.002, 59.0);
+    var ab = streetEdge(a, b, false);
+    var ba = streetEdge(b, a, true);
+    var rentalStation = new SimpleConcreteVertex(graph, "rental", 59.0001, 10.001);
+
+    graph
+      .getLinker()
+      .linkVertexForRealTime(
+        rentalStation,
+        new TraverseModeSet(TraverseMode.WALK),
+        LinkingDirection.BOTH_WAYS,
+        (vertex, streetVertex) ->
+          List.of(new FreeEdge(vertex, streetVertex), new FreeEdge(streetVertex, vertex))
+      );
+
+    assertEquals(List.of(ab), List.copyOf(a.getOutgoing()));
+    assertEquals(List.of(ba), List.copyOf(a.getIncoming()));
+    assertEquals(List.of(ba), List.copyOf(b.getOutgoing()));
+    assertEquals(List.of(ab), List.copyOf(b.getIncoming()));
+
+    // Not visible before the changes are committed
+    assertNull(route(a, rentalStation));
+
+    graph.commitRealtimeStreetChanges();
+
+    assertNotNull(route(a, rentalStation));
+    assertNotNull(route(rentalStation, b));
+  }
+
+  @Test
+  public void realtimeLinkedStationIsNotRoutableAfterRollback() {
+    StreetVertex a = new IntersectionVertex(graph, "A", 10.0, 59.0);
+    StreetVertex b = new IntersectionVertex(graph, "B", 10.002, 59.0);
+    streetEdge(a, b, false);
+    streetEdge(b, a, true);
+    var rentalStation = new SimpleConcreteVertex(graph, "rental", 59.0001, 10.001);
+
+    graph
+      .getLinker()
+      .linkVertexForRealTime(
+        rentalStation,
+        new TraverseModeSet(TraverseMode.WALK),
+        LinkingDirection.BOTH_WAYS,
+        (vertex, streetVertex) ->
+          List.of(new FreeEdge(vertex, streetVertex), new FreeEdge(streetVertex, vertex))
+      );
+
+    // The graph writer failed, the next commit must not publish its partial changes
+    graph.rollbackRealtimeStreetChanges();
+    graph.commitRealtimeStreetChanges();
+
+    assertNull(route(a, rentalStation));
+  }
+
+  private GraphPath route(Vertex from, Vertex to) {
+    var request = new RoutingRequest(TraverseMode.WALK);
+    return AStarBuilder
+      .oneToOne()
+      .setContext(new RoutingContext(request, graph, from, to))
+      .getShortestPathTree()
+      .getPath(to);
+  }
+
+  private static StreetEdge streetEdge(StreetVertex from, StreetVertex to, boolean back) {
+    return new StreetEdge(
+      from,
+      to,
+      GeometryUtils.makeLineString(from.getLon(), from.getLat(), to.getLon(), to.getLat()),
+      from.getLabel() + "_" + to.getLabel(),
+      SphericalDistanceLibrary.distance(from.getCoordinate(), to.getCoordinate()),
+      StreetTraversalPermission.PEDESTRIAN,
+      back
+    );
+  }
+}
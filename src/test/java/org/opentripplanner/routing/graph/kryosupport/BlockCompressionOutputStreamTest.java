@@ -0,0 +1,101 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.model.projectinfo.GraphCompression.LZ4;
+import static org.opentripplanner.model.projectinfo.GraphCompression.ZSTD;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.projectinfo.GraphCompression;
+
+public class BlockCompressionOutputStreamTest {
+
+  private static final int BLOCK_SIZE = 64;
+
+  private static final List<GraphCompression> CODECS = List.of(LZ4, ZSTD);
+
+  @Test
+  public void roundTrip() throws IOException {
+    for (GraphCompression compression : CODECS) {
+      byte[] content = content(1000);
+      byte[] compressed = compress(content, compression);
+
+      try (
+        var subject = new BlockDecompressionInputStream(
+          new ByteArrayInputStream(compressed),
+          compression,
+          BLOCK_SIZE
+        )
+      ) {
+        assertArrayEquals(content, IOUtils.toByteArray(subject), compression.name());
+      }
+    }
+  }
+
+  @Test
+  public void corruptBlockFails() throws IOException {
+    for (GraphCompression compression : CODECS) {
+      assertCorruptBlockFails(compression);
+    }
+  }
+
+  @Test
+  public void truncatedFileFails() throws IOException {
+    for (GraphCompression compression : CODECS) {
+      assertTruncatedFileFails(compression);
+    }
+  }
+
+  private static void assertCorruptBlockFails(GraphCompression compression) throws IOException {
+    byte[] compressed = compress(content(1000), compression);
+    // Flip a bit in the compressed bytes of the first block, after the 12 bytes block header
+    compressed[13] ^= 1;
+
+    var subject = new BlockDecompressionInputStream(
+      new ByteArrayInputStream(compressed),
+      compression,
+      BLOCK_SIZE
+    );
+    var ex = assertThrows(IOException.class, () -> IOUtils.toByteArray(subject));
+    assertTrue(ex.getMessage().contains("Checksum mismatch in block 0"), ex.getMessage());
+  }
+
+  private static void assertTruncatedFileFails(GraphCompression compression) throws IOException {
+    byte[] compressed = compress(content(1000), compression);
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length - 3);
+
+    var subject = new BlockDecompressionInputStream(
+      new ByteArrayInputStream(truncated),
+      compression,
+      BLOCK_SIZE
+    );
+    var ex = assertThrows(IOException.class, () -> IOUtils.toByteArray(subject));
+    assertTrue(ex.getMessage().contains("Unexpected end of file"), ex.getMessage());
+  }
+
+  private static byte[] compress(byte[] content, GraphCompression compression) throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (var subject = new BlockCompressionOutputStream(out, compression, BLOCK_SIZE)) {
+      subject.write(content, 0, 100);
+      subject.write(content[100]);
+      subject.write(content, 101, content.length - 101);
+    }
+    return out.toByteArray();
+  }
+
+  /** Some repeating content, so it can be compressed. */
+  private static byte[] content(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; ++i) {
+      content[i] = (byte) (i % 7 + i / 100);
+    }
+    return content;
+  }
+}
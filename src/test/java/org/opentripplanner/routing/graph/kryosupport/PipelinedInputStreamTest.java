@@ -0,0 +1,112 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.routing.graph.kryosupport.PipelinedOutputStreamTest.content;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class PipelinedInputStreamTest {
+
+  private static final int CHUNK_SIZE = 16;
+
+  @Test
+  public void readAcrossChunks() throws IOException {
+    byte[] content = content(100);
+
+    try (var subject = new PipelinedInputStream(new ByteArrayInputStream(content), CHUNK_SIZE)) {
+      assertEquals(content[0] & 0xFF, subject.read());
+      byte[] rest = IOUtils.toByteArray(subject);
+      assertEquals(99, rest.length);
+      assertEquals(content[1], rest[0]);
+      assertEquals(content[99], rest[98]);
+      assertEquals(-1, subject.read());
+    }
+  }
+
+  @Test
+  public void readContentOfExactlyOneChunk() throws IOException {
+    byte[] content = content(CHUNK_SIZE);
+
+    try (var subject = new PipelinedInputStream(new ByteArrayInputStream(content), CHUNK_SIZE)) {
+      assertArrayEquals(content, IOUtils.toByteArray(subject));
+    }
+  }
+
+  @Test
+  public void readErrorIsReportedToConsumer() {
+    var subject = new PipelinedInputStream(
+      new InputStream() {
+        @Override
+        public int read() throws IOException {
+          throw new IOException("Connection reset");
+        }
+      },
+      CHUNK_SIZE
+    );
+
+    var ex = assertThrows(IOException.class, subject::read);
+    assertEquals("Connection reset", ex.getMessage());
+  }
+
+  @Test
+  @Timeout(10)
+  public void readErrorMidwayIsReportedAfterTheBytesBeforeIt() throws IOException {
+    byte[] content = content(40);
+    var source = new ByteArrayInputStream(content);
+    var subject = new PipelinedInputStream(
+      new InputStream() {
+        @Override
+        public int read() throws IOException {
+          if (source.available() == 0) {
+            throw new IOException("Connection reset");
+          }
+          return source.read();
+        }
+      },
+      CHUNK_SIZE
+    );
+
+    byte[] firstChunks = subject.readNBytes(2 * CHUNK_SIZE);
+    assertEquals(content[2 * CHUNK_SIZE - 1], firstChunks[2 * CHUNK_SIZE - 1]);
+
+    var ex = assertThrows(IOException.class, () -> subject.readNBytes(CHUNK_SIZE));
+    assertEquals("Connection reset", ex.getMessage());
+    subject.close();
+  }
+
+  @Test
+  @Timeout(10)
+  public void closeBeforeTheEndStopsTheReader() throws IOException {
+    var closed = new AtomicBoolean();
+    // An endless source, the reader thread is blocked on the full queue when it is closed
+    var subject = new PipelinedInputStream(
+      new InputStream() {
+        @Override
+        public int read() {
+          return 7;
+        }
+
+        @Override
+        public void close() {
+          closed.set(true);
+        }
+      },
+      CHUNK_SIZE
+    );
+
+    assertEquals(7, subject.read());
+    subject.close();
+
+    assertTrue(closed.get());
+    assertThrows(IOException.class, subject::read);
+  }
+}
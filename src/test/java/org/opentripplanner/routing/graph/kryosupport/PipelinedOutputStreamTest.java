@@ -0,0 +1,152 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class PipelinedOutputStreamTest {
+
+  private static final int CHUNK_SIZE = 16;
+
+  @Test
+  public void writeAcrossChunks() throws IOException {
+    byte[] content = content(100);
+    var target = new ByteArrayOutputStream();
+    var closed = new AtomicBoolean();
+
+    var subject = new PipelinedOutputStream(
+      new OutputStream() {
+        @Override
+        public void write(int b) {
+          target.write(b);
+        }
+
+        @Override
+        public void close() {
+          closed.set(true);
+        }
+      },
+      CHUNK_SIZE
+    );
+    subject.write(content, 0, 10);
+    subject.write(content[10]);
+    subject.write(content, 11, 89);
+    subject.close();
+
+    assertArrayEquals(content, target.toByteArray());
+    assertEquals(true, closed.get());
+  }
+
+  @Test
+  public void writeErrorIsReportedOnClose() {
+    var subject = new PipelinedOutputStream(
+      new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          throw new IOException("Disk full");
+        }
+      },
+      CHUNK_SIZE
+    );
+
+    var ex = assertThrows(
+      IOException.class,
+      () -> {
+        subject.write(content(10));
+        subject.close();
+      }
+    );
+    assertEquals("Disk full", ex.getMessage());
+  }
+
+  @Test
+  @Timeout(10)
+  public void writeErrorMidwayStopsTheWriter() {
+    var written = new ByteArrayOutputStream();
+    var closed = new AtomicBoolean();
+    var subject = new PipelinedOutputStream(
+      new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          if (written.size() == 2 * CHUNK_SIZE) {
+            throw new IOException("Disk full");
+          }
+          written.write(b);
+        }
+
+        @Override
+        public void close() {
+          closed.set(true);
+        }
+      },
+      CHUNK_SIZE
+    );
+
+    // More chunks than the queue holds, this must fail rather than block on the full queue
+    var ex = assertThrows(
+      IOException.class,
+      () -> {
+        for (int i = 0; i < 100; ++i) {
+          subject.write(content(CHUNK_SIZE));
+        }
+      }
+    );
+    assertEquals("Disk full", ex.getMessage());
+
+    ex = assertThrows(IOException.class, subject::close);
+    assertEquals("Disk full", ex.getMessage());
+    assertTrue(closed.get());
+    assertEquals(2 * CHUNK_SIZE, written.size());
+  }
+
+  @Test
+  @Timeout(10)
+  public void closeAfterProducerFailureStopsTheWriter() {
+    var target = new ByteArrayOutputStream();
+    var closed = new AtomicBoolean();
+
+    assertThrows(
+      IllegalStateException.class,
+      () -> {
+        try (
+          var subject = new PipelinedOutputStream(
+            new OutputStream() {
+              @Override
+              public void write(int b) {
+                target.write(b);
+              }
+
+              @Override
+              public void close() {
+                closed.set(true);
+              }
+            },
+            CHUNK_SIZE
+          )
+        ) {
+          subject.write(content(40));
+          throw new IllegalStateException("Serialization failed");
+        }
+      }
+    );
+
+    assertTrue(closed.get());
+    assertEquals(40, target.size());
+  }
+
+  static byte[] content(int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; ++i) {
+      content[i] = (byte) (200 + i);
+    }
+    return content;
+  }
+}
@@ -0,0 +1,57 @@
+package org.opentripplanner.routing.graphfinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.site.Stop;
+
+public class EgressStopTableTest {
+
+  private static final Stop S1 = TransitModelForTest.stopForTest("S1", 60.0, 10.0);
+  private static final Stop S2 = TransitModelForTest.stopForTest("S2", 60.01, 10.0);
+
+  private static final Coordinate NEAR_S1 = new Coordinate(10.0001, 60.0001);
+  private static final Coordinate NEAR_S2 = new Coordinate(10.0001, 60.0101);
+  private static final Coordinate FAR_AWAY = new Coordinate(11.0, 61.0);
+
+  @Test
+  public void findCandidateStops() {
+    var subject = EgressStopTable
+      .of(1800, 1.33)
+      .addStop(S1, durationByCell(Map.of(NEAR_S1, 10, NEAR_S2, 900)))
+      .addStop(S2, durationByCell(Map.of(NEAR_S2, 20)))
+      .build();
+
+    assertEquals(Set.of(S1), subject.findCandidateStops(List.of(NEAR_S1), 1800));
+    assertEquals(Set.of(S1, S2), subject.findCandidateStops(List.of(NEAR_S2), 1800));
+    assertEquals(Set.of(S2), subject.findCandidateStops(List.of(NEAR_S2), 600));
+    assertEquals(Set.of(S1, S2), subject.findCandidateStops(List.of(NEAR_S1, NEAR_S2), 600));
+    assertEquals(Set.of(), subject.findCandidateStops(List.of(FAR_AWAY), 1800));
+  }
+
+  @Test
+  public void shortestDurationInCellIsKept() {
+    Map<Long, Integer> durationByCell = new HashMap<>();
+    EgressStopTable.Builder.addVertex(durationByCell, NEAR_S1, 100);
+    EgressStopTable.Builder.addVertex(durationByCell, new Coordinate(10.0002, 60.0002), 50);
+    EgressStopTable.Builder.addVertex(durationByCell, NEAR_S1, 200);
+
+    var subject = EgressStopTable.of(1800, 1.33).addStop(S1, durationByCell).build();
+
+    assertEquals(1, subject.numberOfCells());
+    assertEquals(Set.of(S1), subject.findCandidateStops(List.of(NEAR_S1), 50));
+    assertEquals(Set.of(), subject.findCandidateStops(List.of(NEAR_S1), 49));
+  }
+
+  private static Map<Long, Integer> durationByCell(Map<Coordinate, Integer> durations) {
+    Map<Long, Integer> result = new HashMap<>();
+    durations.forEach((c, d) -> EgressStopTable.Builder.addVertex(result, c, d));
+    return result;
+  }
+}
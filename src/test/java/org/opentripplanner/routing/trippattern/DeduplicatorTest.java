@@ -18,6 +18,8 @@ public class DeduplicatorTest {
 
   private static final BitSet BIT_SET = new BitSet(8);
   private static final BitSet BIT_SET_2 = new BitSet(8);
+  private static final byte[] BYTE_ARRAY = new byte[] { 1, 0, 7 };
+  private static final byte[] BYTE_ARRAY_2 = new byte[] { 1, 0, 7 };
   private static final int[] INT_ARRAY = new int[] { 1, 0, 7 };
   private static final int[] INT_ARRAY_2 = new int[] { 1, 0, 7 };
   private static final String STRING = new String(new char[] { 'A', 'b', 'b', 'a' });
@@ -49,6 +51,7 @@ public class DeduplicatorTest {
   @BeforeEach
   public void assertSetup() {
     assertNotSame(BIT_SET, BIT_SET_2);
+    assertNotSame(BYTE_ARRAY, BYTE_ARRAY_2);
     assertNotSame(INT_ARRAY, INT_ARRAY_2);
     assertNotSame(STRING, STRING_2);
     assertNotSame(STRING_ARRAY, STRING_ARRAY_2);
@@ -69,7 +72,7 @@ public class DeduplicatorTest {
     subject.reset();
 
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
       subject.toString()
     );
   }
@@ -81,7 +84,7 @@ public class DeduplicatorTest {
     assertSame(INT_ARRAY, subject.deduplicateIntArray(INT_ARRAY_2));
 
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 1(2), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 1(2), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
       subject.toString()
     );
 
@@ -90,6 +93,22 @@ public class DeduplicatorTest {
     assertSame(INT_ARRAY_2, subject.deduplicateIntArray(INT_ARRAY_2));
   }
 
+  @Test
+  public void deduplicateByteArray() {
+    assertSame(BYTE_ARRAY, subject.deduplicateByteArray(BYTE_ARRAY));
+
+    assertSame(BYTE_ARRAY, subject.deduplicateByteArray(BYTE_ARRAY_2));
+
+    assertEquals(
+      "Deduplicator{BitSet: 0(0), ByteArray: 1(2), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
+      subject.toString()
+    );
+
+    subject.reset();
+    // After reset the "new" value is used
+    assertSame(BYTE_ARRAY_2, subject.deduplicateByteArray(BYTE_ARRAY_2));
+  }
+
   @Test
   public void deduplicateString() {
     assertSame(STRING, subject.deduplicateString(STRING));
@@ -97,7 +116,7 @@ public class DeduplicatorTest {
     assertSame(STRING, subject.deduplicateString(STRING_2));
 
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 0(0), String: 1(2), StringArray: 0(0), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 0(0), String: 1(2), StringArray: 0(0), String2DArray: 0(0)}",
       subject.toString()
     );
 
@@ -113,7 +132,7 @@ public class DeduplicatorTest {
     assertSame(BIT_SET, subject.deduplicateBitSet(BIT_SET_2));
 
     assertEquals(
-      "Deduplicator{BitSet: 1(2), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 1(2), ByteArray: 0(0), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
       subject.toString()
     );
 
@@ -129,7 +148,7 @@ public class DeduplicatorTest {
     assertSame(deduplicatedArray, subject.deduplicateStringArray(STRING_ARRAY_2));
 
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 0(0), String: 1(1), StringArray: 1(2), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 0(0), String: 1(1), StringArray: 1(2), String2DArray: 0(0)}",
       subject.toString()
     );
 
@@ -145,7 +164,7 @@ public class DeduplicatorTest {
     assertSame(deduplicatedArray, subject.deduplicateString2DArray(STRING_2D_ARRAY_2));
 
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 0(0), String: 4(4), StringArray: 2(2), String2DArray: 1(2)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 0(0), String: 4(4), StringArray: 2(2), String2DArray: 1(2)}",
       subject.toString()
     );
 
@@ -195,7 +214,7 @@ public class DeduplicatorTest {
   @Test
   public void testToStringForEmptyDeduplicator() {
     assertEquals(
-      "Deduplicator{BitSet: 0(0), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
+      "Deduplicator{BitSet: 0(0), ByteArray: 0(0), IntArray: 0(0), String: 0(0), StringArray: 0(0), String2DArray: 0(0)}",
       subject.toString()
     );
   }
@@ -212,6 +231,7 @@ public class DeduplicatorTest {
     assertEquals(
       "Deduplicator{" +
       "BitSet: 1(1), " +
+      "ByteArray: 0(0), " +
       "IntArray: 1(1), " +
       "String: 2(2), " +
       "StringArray: 1(1), " +
@@ -0,0 +1,57 @@
+package org.opentripplanner.standalone.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.standalone.config.JsonSupport.newNodeAdapterForTest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+public class WarmUpConfigTest {
+
+  @Test
+  public void disabledByDefault() {
+    WarmUpConfig c = new WarmUpConfig(newNodeAdapterForTest("{}"));
+
+    assertFalse(c.isEnabled());
+    assertNull(c.testCasesFile());
+    assertEquals(1, c.rounds());
+    assertEquals(LocalDate.now(), c.searchDate());
+    assertEquals(Duration.ofMinutes(5), c.maxDuration());
+  }
+
+  @Test
+  public void readParameters() {
+    WarmUpConfig c = new WarmUpConfig(
+      newNodeAdapterForTest(
+        "{" +
+        " testCasesFile : 'travelSearch.csv',\n" +
+        " feedId : 'EN',\n" +
+        " rounds : 3,\n" +
+        " threads : 2,\n" +
+        " searchDate : '2022-06-01',\n" +
+        " maxDuration : '2m'\n" +
+        "}"
+      )
+    );
+
+    assertTrue(c.isEnabled());
+    assertEquals("travelSearch.csv", c.testCasesFile());
+    assertEquals("EN", c.feedId());
+    assertEquals(3, c.rounds());
+    assertEquals(2, c.threads());
+    assertEquals(LocalDate.of(2022, 6, 1), c.searchDate());
+    assertEquals(Duration.ofMinutes(2), c.maxDuration());
+  }
+
+  @Test
+  public void enabledWithSyntheticRequests() {
+    WarmUpConfig c = new WarmUpConfig(newNodeAdapterForTest("{ syntheticRequests : 100 }"));
+
+    assertTrue(c.isEnabled());
+    assertEquals(100, c.syntheticRequests());
+  }
+}
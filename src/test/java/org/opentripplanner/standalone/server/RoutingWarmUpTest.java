@@ -0,0 +1,64 @@
+package org.opentripplanner.standalone.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.opentripplanner.standalone.config.JsonSupport.jsonNodeForTest;
+
+import io.micrometer.core.instrument.Metrics;
+import java.io.File;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.config.RouterConfig;
+
+public class RoutingWarmUpTest {
+
+  private static final File BASE_DIRECTORY = new File(".");
+
+  private final List<RoutingRequest> searches = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void disabledWarmUpDoesNothing() {
+    // The graph must not be touched when the warm-up is disabled
+    var graph = new Graph() {
+      @Override
+      public TimeZone getTimeZone() {
+        throw new IllegalStateException("The warm-up is disabled");
+      }
+    };
+    var router = new Router(graph, RouterConfig.DEFAULT, Metrics.globalRegistry);
+
+    new RoutingWarmUp(router, BASE_DIRECTORY, searches::add).run();
+
+    assertEquals(List.of(), searches);
+  }
+
+  @Test
+  public void warmUpRunsSearches() {
+    var graph = ConstantsForTests.buildGtfsGraph(ConstantsForTests.CALTRAIN_GTFS);
+    var config = new RouterConfig(
+      jsonNodeForTest("{ warmUp : { syntheticRequests : 3, rounds : 2, threads : 1 } }"),
+      "Test",
+      false
+    );
+    var router = new Router(graph, config, Metrics.globalRegistry);
+    router.startup();
+
+    new RoutingWarmUp(
+      router,
+      BASE_DIRECTORY,
+      request -> {
+        searches.add(request);
+        return RoutingWarmUp.route(router, request);
+      }
+    )
+      .run();
+
+    assertEquals(6, searches.size());
+    searches.forEach(it -> assertNotNull(it.from));
+  }
+}